@@ -6,10 +6,12 @@ import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.lang.reflect.InvocationTargetException;
+import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.function.Supplier;
 import javax.swing.*;
 
 /**
@@ -48,6 +50,11 @@ import javax.swing.*;
  * <p>
  * Per-class stack trace depth can be specified when adding a class, e.g.
  * classname[:stack-depth].<p>
+ * <p>
+ * Debug messages which are expensive to build, e.g. those which describe components or collections, should be passed
+ * as a {@link Supplier} or as a {@link MessageFormat} pattern and arguments, so that no message is built unless
+ * debugging is enabled for the calling class.  When no debugging is enabled at all, a debug call costs a single read of
+ * {@link #expectDebugOutput}.<p>
  *
  * @author twall
  * @version $Revision: 1.1 $
@@ -86,9 +93,9 @@ public final class Log {
   private static final LogSynchronizer synchronizer = new LogSynchronizer();
 
   /**
-   * Whether any debugging output is enabled.
+   * Whether any debugging output is enabled.  Updated whenever the set of debugged classes changes.
    */
-  public static boolean expectDebugOutput;
+  public static volatile boolean expectDebugOutput;
 
   /**
    * Enable assert checks.
@@ -325,7 +332,7 @@ public final class Log {
     notdebugged.add(c);
     debugged.remove(c);
     Log.debug("Debugging disabled for " + c);
-    expectDebugOutput = !debugged.isEmpty() || debugAll;
+    updateDebugState();
   }
 
   /**
@@ -346,12 +353,27 @@ public final class Log {
    * Indicate that debug messages should be output for the given class.
    */
   public static void addDebugClass(Class<?> c, int depth) {
-    expectDebugOutput = true;
     debugged.put(c, new Integer(depth));
     notdebugged.remove(c);
+    updateDebugState();
     Log.debug("Debugging enabled for " + c);
   }
 
+  /**
+   * Recompute {@link #expectDebugOutput} from the debugged classes.
+   */
+  private static void updateDebugState() {
+    expectDebugOutput = debugAll || !debugged.isEmpty();
+  }
+
+  /**
+   * Returns whether any debug output is enabled.  Use {@link #isClassDebugEnabled(Class)} to check for a specific
+   * class.
+   */
+  public static boolean isDebugEnabled() {
+    return expectDebugOutput;
+  }
+
   /**
    * Parse the given string, which may should be of the format "class[:depth]"
    */
@@ -360,11 +382,10 @@ public final class Log {
       debugAll = enable;
       if (enable) {
         notdebugged.clear();
-        expectDebugOutput = true;
       } else {
         debugged.clear();
-        expectDebugOutput = false;
       }
+      updateDebugState();
     } else {
       int colon = id.indexOf(":");
       String className = colon == -1 ? id : id.substring(0, colon);
@@ -500,7 +521,12 @@ public final class Log {
     return depth != null && depth != CLASS_STACK_DEPTH ? depth : debugStackDepth;
   }
 
-  private static void internalDebug(Class<?> cls, String msg, int lines) {
+  /**
+   * Print the given message, or the message provided by the given supplier, if debugging is enabled for the given
+   * class, or the calling class if none is given.  The supplier is only invoked if the message is printed.
+   */
+  private static void internalDebug(
+      Class<?> cls, Supplier<String> supplier, String msg, int lines) {
     if (cls == null || isClassDebugEnabled(cls)) {
       String stack = getStackTrace(2, FULL_STACK);
       if (cls != null || isClassDebugEnabled(cls = extractClass(stack))) {
@@ -508,6 +534,9 @@ public final class Log {
         if (lines == CLASS_STACK_DEPTH) {
           lines = getClassStackDepth(cls);
         }
+        if (supplier != null) {
+          msg = supplier.get();
+        }
         internalWarn(trimStackTrace(stack, lines) + tname + msg);
       }
     }
@@ -518,7 +547,7 @@ public final class Log {
    */
   public static void debug(Class<?> c, String event) {
     if (expectDebugOutput) {
-      internalDebug(c, event, CLASS_STACK_DEPTH);
+      internalDebug(c, null, event, CLASS_STACK_DEPTH);
     }
   }
 
@@ -527,7 +556,57 @@ public final class Log {
    */
   public static void debug(String event) {
     if (expectDebugOutput) {
-      internalDebug(null, event, CLASS_STACK_DEPTH);
+      internalDebug(null, null, event, CLASS_STACK_DEPTH);
+    }
+  }
+
+  /**
+   * Print the debug message provided by the given supplier, which is only invoked if debugging is enabled for the
+   * given class.
+   */
+  public static void debug(Class<?> c, Supplier<String> message) {
+    if (expectDebugOutput) {
+      internalDebug(c, message, null, CLASS_STACK_DEPTH);
+    }
+  }
+
+  /**
+   * Print the debug message provided by the given supplier, which is only invoked if debugging is enabled for the
+   * calling class.
+   */
+  public static void debug(Supplier<String> message) {
+    if (expectDebugOutput) {
+      internalDebug(null, message, null, CLASS_STACK_DEPTH);
+    }
+  }
+
+  /**
+   * Print a debug message formatted from the given {@link MessageFormat} pattern and argument.  The message is only
+   * formatted if debugging is enabled for the calling class.
+   */
+  public static void debug(String pattern, Object arg) {
+    if (expectDebugOutput) {
+      internalDebug(null, () -> MessageFormat.format(pattern, arg), null, CLASS_STACK_DEPTH);
+    }
+  }
+
+  /**
+   * Print a debug message formatted from the given {@link MessageFormat} pattern and arguments.  The message is only
+   * formatted if debugging is enabled for the calling class.
+   */
+  public static void debug(String pattern, Object arg1, Object arg2) {
+    if (expectDebugOutput) {
+      internalDebug(null, () -> MessageFormat.format(pattern, arg1, arg2), null, CLASS_STACK_DEPTH);
+    }
+  }
+
+  /**
+   * Print a debug message formatted from the given {@link MessageFormat} pattern and arguments.  The message is only
+   * formatted if debugging is enabled for the calling class.
+   */
+  public static void debug(String pattern, Object... args) {
+    if (expectDebugOutput) {
+      internalDebug(null, () -> MessageFormat.format(pattern, args), null, CLASS_STACK_DEPTH);
     }
   }
 
@@ -536,7 +615,7 @@ public final class Log {
    */
   public static void debug(String event, int lines) {
     if (expectDebugOutput) {
-      internalDebug(null, event, lines);
+      internalDebug(null, null, event, lines);
     }
   }
 
@@ -545,7 +624,7 @@ public final class Log {
    */
   public static void debug() {
     if (expectDebugOutput) {
-      internalDebug(null, "", CLASS_STACK_DEPTH);
+      internalDebug(null, null, "", CLASS_STACK_DEPTH);
     }
   }
 
@@ -557,11 +636,12 @@ public final class Log {
       String where = getStackTrace(0, excStackDepth, thr);
       String here = getStackTrace(1, debugStackDepth);
       String type = thr instanceof Error ? "Error" : "Exception thrown";
-      internalDebug(null, type + " at " + where + ": " + thr + " (caught at " + here + ")", 1);
+      internalDebug(
+          null, null, type + " at " + where + ": " + thr + " (caught at " + here + ")", 1);
       if (thr instanceof InvocationTargetException) {
         thr = ((InvocationTargetException) thr).getTargetException();
         where = getStackTrace(0, excStackDepth, thr);
-        internalDebug(null, "Target exception was " + thr + " at " + where, 1);
+        internalDebug(null, null, "Target exception was " + thr + " at " + where, 1);
       }
     }
   }
@@ -571,7 +651,7 @@ public final class Log {
    */
   public static void debug(Object obj) {
     if (expectDebugOutput) {
-      internalDebug(null, obj == null ? "(null)" : obj.toString(), CLASS_STACK_DEPTH);
+      internalDebug(null, null, obj == null ? "(null)" : obj.toString(), CLASS_STACK_DEPTH);
     }
   }
 
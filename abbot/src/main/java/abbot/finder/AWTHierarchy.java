@@ -9,6 +9,8 @@ import java.awt.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import javax.swing.*;
 
 /**
@@ -51,26 +53,21 @@ public class AWTHierarchy implements Hierarchy {
    * Properly dispose of the given Window, making it and its native resources available for garbage collection.
    */
   public void dispose(final Window w) {
-    if (AWT.isAppletViewerFrame(w)) {
-      // Don't dispose, it must quit on its own
-      return;
-    }
-
-    Log.debug("Dispose " + w);
-    Window[] owned = w.getOwnedWindows();
+    dispose(Collections.singletonList(w));
+  }
 
-    for (Window window : owned) {
-      // Window.dispose is recursive; make Hierarchy.dispose recursive
-      // as well.
-      dispose(window);
+  /**
+   * Dispose of all the given Windows as by {@link #dispose(Window)}, in a single pass on the event dispatch thread
+   * rather than waiting for the event dispatch thread once per window.
+   */
+  public void dispose(Collection<? extends Component> windows) {
+    final List<Window> disposable = new ArrayList<>();
+    for (Component w : windows) {
+      addDisposable((Window) w, disposable);
     }
-
-    if (AWT.isSharedInvisibleFrame(w)) {
-      // Don't dispose, or any child windows which may be currently
-      // ignored (but not hidden) will be hidden and disposed.
+    if (disposable.isEmpty()) {
       return;
     }
-
     // Ensure the dispose is done on the swing thread so we can catch any
     // exceptions.  If Window.dispose is called from a non-Swing thread,
     // it will invokes the dispose action on the Swing thread but in that
@@ -78,28 +75,8 @@ public class AWTHierarchy implements Hierarchy {
     Runnable action =
         new Runnable() {
           public void run() {
-            try {
-              // Distinguish between the abbot framework disposing a
-              // window and anyone else doing so.
-              System.setProperty("abbot.finder.disposal", "true");
-              w.dispose();
-              System.setProperty("abbot.finder.disposal", "false");
-            } catch (NullPointerException npe) {
-              // Catch bug in AWT 1.3.1 when generating hierarchy
-              // events
-              Log.log(npe);
-            } catch (ExitException e) {
-              // Some apps might call System.exit on WINDOW_CLOSED
-              Log.log("Ignoring SUT exit: " + e);
-            } catch (Throwable e) {
-              // Don't allow other exceptions to interfere with
-              // disposal.
-              Log.warn(e);
-              Log.warn(
-                  "An exception was thrown when disposing "
-                      + " the window "
-                      + Robot.toString(w)
-                      + ".  The exception is ignored");
+            for (Window w : disposable) {
+              disposeWindow(w);
             }
           }
         };
@@ -111,6 +88,64 @@ public class AWTHierarchy implements Hierarchy {
       } catch (Exception e) {
       }
     }
+    disposed(disposable);
+  }
+
+  /**
+   * Add the given Window and the windows it owns to the given list of windows to dispose, owned windows first.
+   */
+  protected void addDisposable(Window w, List<Window> disposable) {
+    if (AWT.isAppletViewerFrame(w)) {
+      // Don't dispose, it must quit on its own
+      return;
+    }
+
+    Window[] owned = w.getOwnedWindows();
+
+    for (Window window : owned) {
+      // Window.dispose is recursive; make Hierarchy.dispose recursive
+      // as well.
+      addDisposable(window, disposable);
+    }
+
+    if (AWT.isSharedInvisibleFrame(w)) {
+      // Don't dispose, or any child windows which may be currently
+      // ignored (but not hidden) will be hidden and disposed.
+      return;
+    }
+    disposable.add(w);
+  }
+
+  /**
+   * Called after the given windows have been disposed.  The default does nothing.
+   */
+  protected void disposed(List<Window> windows) {}
+
+  private static void disposeWindow(Window w) {
+    Log.debug("Dispose {0}", w);
+    try {
+      // Distinguish between the abbot framework disposing a
+      // window and anyone else doing so.
+      System.setProperty("abbot.finder.disposal", "true");
+      w.dispose();
+      System.setProperty("abbot.finder.disposal", "false");
+    } catch (NullPointerException npe) {
+      // Catch bug in AWT 1.3.1 when generating hierarchy
+      // events
+      Log.log(npe);
+    } catch (ExitException e) {
+      // Some apps might call System.exit on WINDOW_CLOSED
+      Log.log("Ignoring SUT exit: " + e);
+    } catch (Throwable e) {
+      // Don't allow other exceptions to interfere with
+      // disposal.
+      Log.warn(e);
+      Log.warn(
+          "An exception was thrown when disposing "
+              + " the window "
+              + Robot.toString(w)
+              + ".  The exception is ignored");
+    }
   }
 
   /**
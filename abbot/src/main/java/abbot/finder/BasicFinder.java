@@ -16,7 +16,7 @@ import javax.swing.*;
 public class BasicFinder implements ComponentFinder {
   private final Hierarchy hierarchy;
 
-  private static final ComponentFinder DEFAULT = new BasicFinder(new AWTHierarchy());
+  private static final ComponentFinder DEFAULT = new BasicFinder(IndexedHierarchy.createDefault());
 
   public static ComponentFinder getDefault() {
     return DEFAULT;
@@ -85,10 +85,17 @@ public class BasicFinder implements ComponentFinder {
 
   protected Component find(Hierarchy h, Matcher m)
       throws ComponentNotFoundException, MultipleComponentsFoundException {
-    Set found = new HashSet();
-    Iterator iter = h.getRoots().iterator();
-    while (iter.hasNext()) {
-      findMatches(h, m, (Component) iter.next(), found);
+    Set found = findIndexedMatches(h, h.getRoots(), m, !(m instanceof MultiMatcher));
+    if (found == null && ComponentSnapshot.isEnabled()) {
+      found =
+          ComponentSnapshot.capture(h, h.getRoots()).findMatches(m, !(m instanceof MultiMatcher));
+    }
+    if (found == null) {
+      found = new HashSet();
+      Iterator iter = h.getRoots().iterator();
+      while (iter.hasNext()) {
+        findMatches(h, m, (Component) iter.next(), found);
+      }
     }
     if (found.size() == 0) {
       String msg = Strings.get("finder.not_found", new Object[] {m.toString()});
@@ -104,6 +111,18 @@ public class BasicFinder implements ComponentFinder {
     return (Component) found.iterator().next();
   }
 
+  /**
+   * Use the index to find matches under the given roots, if this finder's hierarchy is an {@link IndexedHierarchy}.
+   * Returns <code>null</code> if the matches must be found by walking the hierarchy.
+   */
+  private Set findIndexedMatches(Hierarchy h, Collection roots, Matcher m, boolean firstOnly) {
+    if (!(getHierarchy() instanceof IndexedHierarchy)
+        || (h != getHierarchy() && !(h instanceof SingleComponentHierarchy))) {
+      return null;
+    }
+    return ((IndexedHierarchy) getHierarchy()).findMatches(m, roots, firstOnly);
+  }
+
   protected void findMatches(Hierarchy h, Matcher m, Component c, Set found) {
     if (found.size() == 1 && !(m instanceof MultiMatcher)) {
       return;
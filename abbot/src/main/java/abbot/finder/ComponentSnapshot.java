@@ -0,0 +1,326 @@
+package abbot.finder;
+
+import abbot.Log;
+import abbot.util.Properties;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * An immutable copy of the structure of a component hierarchy below a set of roots, captured on the event dispatch
+ * thread in a single pass so that it reflects one consistent state of the hierarchy.  Components are stored in a flat
+ * array in depth-first order, along with the end of each component's subtree.<p>
+ * <p>
+ * The properties read by {@link SnapshotMatcher}s are captured along with the structure, as a {@link ComponentState}
+ * per component.  Snapshot matchers, and matchers whose parts all are (see {@link SnapshotMatcherSource}), are
+ * evaluated against those states, in parallel for large snapshots, on a pool sized to the number of available
+ * processors; they never touch the live components.  Other matchers, such as those checking a component's parent or
+ * its index among its siblings, are evaluated serially on the calling thread, in the same order as a hierarchy walk
+ * (children before their parent).<p>
+ * <p>
+ * Finders search snapshots rather than walking the live hierarchy when <code>abbot.finder.parallel</code> is set to
+ * <code>true</code> (see {@link #isEnabled()}).  If the event dispatch thread does not respond within
+ * <code>abbot.finder.snapshot_timeout</code> ms, the snapshot is captured on the calling thread instead.
+ */
+public final class ComponentSnapshot {
+
+  private static final boolean ENABLED = Boolean.getBoolean("abbot.finder.parallel");
+
+  private static final int CAPTURE_TIMEOUT =
+      Properties.getProperty("abbot.finder.snapshot_timeout", 5000, 0, 60000);
+
+  /**
+   * Snapshots smaller than this are always evaluated serially.
+   */
+  private static final int PARALLEL_THRESHOLD = 256;
+
+  /**
+   * Number of components evaluated by each parallel task.
+   */
+  private static final int CHUNK_SIZE = 64;
+
+  private static ForkJoinPool pool;
+
+  private final Component[] components;
+  private final ComponentState[] states;
+  private final int[] ends;
+
+  private ComponentSnapshot(Component[] components, ComponentState[] states, int[] ends) {
+    this.components = components;
+    this.states = states;
+    this.ends = ends;
+  }
+
+  /**
+   * Returns whether finders should search snapshots rather than walking the hierarchy.
+   */
+  public static boolean isEnabled() {
+    return ENABLED;
+  }
+
+  /**
+   * Capture the components of the given hierarchy below (and including) the given roots.  Must not be called while
+   * holding the AWT tree lock.
+   */
+  public static ComponentSnapshot capture(
+      final Hierarchy hierarchy, final Collection<? extends Component> roots) {
+    if (EventQueue.isDispatchThread()) {
+      return build(hierarchy, roots);
+    }
+    FutureTask<ComponentSnapshot> task = new FutureTask<>(() -> build(hierarchy, roots));
+    EventQueue.invokeLater(task);
+    try {
+      return task.get(CAPTURE_TIMEOUT, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      task.cancel(false);
+      Log.warn("Timed out capturing hierarchy on the event dispatch thread");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      Log.warn(e.getCause());
+    }
+    return build(hierarchy, roots);
+  }
+
+  private static ComponentSnapshot build(
+      Hierarchy hierarchy, Collection<? extends Component> roots) {
+    List<Component> list = new ArrayList<>();
+    List<Integer> endList = new ArrayList<>();
+    Map<Component, Boolean> visited = new IdentityHashMap<>();
+    for (Component root : roots) {
+      add(hierarchy, root, list, endList, visited);
+    }
+    int size = list.size();
+    int[] ends = new int[size];
+    ComponentState[] states = new ComponentState[size];
+    for (int i = 0; i < size; i++) {
+      ends[i] = endList.get(i).intValue();
+      states[i] = new ComponentState(list.get(i));
+    }
+    return new ComponentSnapshot(list.toArray(new Component[size]), states, ends);
+  }
+
+  private static void add(
+      Hierarchy hierarchy,
+      Component c,
+      List<Component> list,
+      List<Integer> ends,
+      Map<Component, Boolean> visited) {
+    if (visited.put(c, Boolean.TRUE) != null) {
+      return;
+    }
+    int index = list.size();
+    list.add(c);
+    ends.add(null);
+    for (Component child : hierarchy.getComponents(c)) {
+      add(hierarchy, child, list, ends, visited);
+    }
+    ends.set(index, Integer.valueOf(list.size()));
+  }
+
+  /**
+   * Returns the number of components in this snapshot.
+   */
+  public int size() {
+    return components.length;
+  }
+
+  /**
+   * Returns the components in this snapshot, in depth-first order (parents before their children).
+   */
+  public List<Component> getComponents() {
+    return Collections.unmodifiableList(Arrays.asList(components));
+  }
+
+  /**
+   * Find all components in this snapshot which match the given matcher.  If <code>firstOnly</code> is set, returns
+   * what a hierarchy walk which stops at the first match would find: the first match in walk order, along with any
+   * of its ancestors which also match, since the walk still checks those once their children have been searched.
+   */
+  public Set<Component> findMatches(Matcher m, boolean firstOnly) {
+    boolean[] matched = new boolean[components.length];
+    SnapshotMatcher sm = getSnapshotMatcher(m);
+    if (sm != null) {
+      if (components.length >= PARALLEL_THRESHOLD) {
+        getPool().invoke(new MatchTask(sm, matched, 0, components.length));
+      } else {
+        for (int i = 0; i < states.length; i++) {
+          matched[i] = sm.matches(states[i]);
+        }
+      }
+    } else {
+      matchSerially(m, matched, firstOnly);
+    }
+    Set<Component> found = new HashSet<>();
+    if (firstOnly) {
+      int first = getFirstInWalkOrder(matched, 0, components.length);
+      if (first != -1) {
+        found.add(components[first]);
+        // its matching ancestors
+        for (int i = 0; i < first; i++) {
+          if (matched[i] && ends[i] > first) {
+            found.add(components[i]);
+          }
+        }
+      }
+    } else {
+      for (int i = 0; i < matched.length; i++) {
+        if (matched[i]) {
+          found.add(components[i]);
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Evaluate the matcher in walk order, i.e. each component after all of its descendants.  If <code>firstOnly</code>
+   * is set, stops after the first match has been found and its ancestors checked.
+   */
+  private void matchSerially(Matcher m, boolean[] matched, boolean firstOnly) {
+    int[] pending = new int[components.length];
+    int depth = 0;
+    for (int i = 0; i <= components.length; i++) {
+      // evaluate the components whose subtrees end here
+      while (depth > 0 && (i == components.length || ends[pending[depth - 1]] <= i)) {
+        int c = pending[--depth];
+        if (m.matches(components[c])) {
+          matched[c] = true;
+          if (firstOnly) {
+            // the walk still checks the components whose children it was searching
+            while (depth > 0) {
+              int ancestor = pending[--depth];
+              matched[ancestor] = m.matches(components[ancestor]);
+            }
+            return;
+          }
+        }
+      }
+      if (i < components.length) {
+        pending[depth++] = i;
+      }
+    }
+  }
+
+  /**
+   * Returns the index of the first match within the given range, in walk order: the first match in depth-first order,
+   * unless one of its descendants also matches.
+   */
+  private int getFirstInWalkOrder(boolean[] matched, int start, int end) {
+    int first = -1;
+    for (int i = start; i < end; i++) {
+      if (matched[i]) {
+        first = i;
+        break;
+      }
+    }
+    if (first == -1) {
+      return -1;
+    }
+    int descendant = getFirstInWalkOrder(matched, first + 1, ends[first]);
+    return descendant != -1 ? descendant : first;
+  }
+
+  /**
+   * Returns the given matcher as a snapshot matcher, or <code>null</code> if it must be evaluated against the live
+   * components.
+   */
+  public static SnapshotMatcher getSnapshotMatcher(Object matcher) {
+    if (matcher instanceof SnapshotMatcher) {
+      return (SnapshotMatcher) matcher;
+    }
+    if (matcher instanceof SnapshotMatcherSource) {
+      return ((SnapshotMatcherSource) matcher).getSnapshotMatcher();
+    }
+    return null;
+  }
+
+  /**
+   * Returns a snapshot matcher which requires all of the given matchers to match, for use by matchers which are built
+   * from them.  Null matchers are ignored.
+   *
+   * @return the snapshot matcher, or <code>null</code> if any of the matchers must be evaluated against the live
+   *     components, or there are none
+   */
+  public static SnapshotMatcher allOf(Object... matchers) {
+    final List<SnapshotMatcher> parts = new ArrayList<>(matchers.length);
+    for (Object matcher : matchers) {
+      if (matcher == null) {
+        continue;
+      }
+      SnapshotMatcher part = getSnapshotMatcher(matcher);
+      if (part == null) {
+        return null;
+      }
+      parts.add(part);
+    }
+    if (parts.isEmpty()) {
+      return null;
+    }
+    return new SnapshotMatcher() {
+      public boolean matches(Component c) {
+        for (SnapshotMatcher part : parts) {
+          if (!part.matches(c)) {
+            return false;
+          }
+        }
+        return true;
+      }
+
+      public boolean matches(ComponentState state) {
+        for (SnapshotMatcher part : parts) {
+          if (!part.matches(state)) {
+            return false;
+          }
+        }
+        return true;
+      }
+    };
+  }
+
+  private static synchronized ForkJoinPool getPool() {
+    if (pool == null) {
+      pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+    return pool;
+  }
+
+  private class MatchTask extends RecursiveAction {
+    private final SnapshotMatcher matcher;
+    private final boolean[] matched;
+    private final int start;
+    private final int end;
+
+    MatchTask(SnapshotMatcher matcher, boolean[] matched, int start, int end) {
+      this.matcher = matcher;
+      this.matched = matched;
+      this.start = start;
+      this.end = end;
+    }
+
+    protected void compute() {
+      if (end - start <= CHUNK_SIZE) {
+        for (int i = start; i < end; i++) {
+          matched[i] = matcher.matches(states[i]);
+        }
+      } else {
+        int mid = (start + end) >>> 1;
+        invokeAll(
+            new MatchTask(matcher, matched, start, mid), new MatchTask(matcher, matched, mid, end));
+      }
+    }
+  }
+}
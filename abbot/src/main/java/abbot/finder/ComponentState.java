@@ -0,0 +1,91 @@
+package abbot.finder;
+
+import abbot.util.AWT;
+import java.awt.*;
+import javax.swing.*;
+
+/**
+ * The properties of a component read by {@link SnapshotMatcher}s, captured on the event dispatch thread along with
+ * the rest of a {@link ComponentSnapshot}, or on their own for code which checks a few components off the event
+ * dispatch thread.
+ */
+public final class ComponentState {
+
+  private final Class<?> componentClass;
+  private final String name;
+  private final boolean defaultName;
+  private final boolean showing;
+  private final String text;
+
+  /**
+   * Capture the state of the given component.  Must be called on the event dispatch thread.
+   */
+  public ComponentState(Component c) {
+    componentClass = c.getClass();
+    name = c.getName();
+    defaultName = AWT.hasDefaultName(c);
+    showing = c.isShowing();
+    text = getText(c);
+  }
+
+  /**
+   * Returns the text shown by the given component: the label of an AWT button or checkbox, the text of a label, text
+   * component or Swing button, or the title of a frame or dialog.  Returns <code>null</code> for other components.
+   */
+  public static String getText(Component c) {
+    if (c instanceof AbstractButton) {
+      return ((AbstractButton) c).getText();
+    }
+    if (c instanceof JLabel) {
+      return ((JLabel) c).getText();
+    }
+    if (c instanceof Button) {
+      return ((Button) c).getLabel();
+    }
+    if (c instanceof Checkbox) {
+      return ((Checkbox) c).getLabel();
+    }
+    if (c instanceof Label) {
+      return ((Label) c).getText();
+    }
+    if (c instanceof TextComponent) {
+      return ((TextComponent) c).getText();
+    }
+    if (c instanceof Frame) {
+      return ((Frame) c).getTitle();
+    }
+    if (c instanceof Dialog) {
+      return ((Dialog) c).getTitle();
+    }
+    return null;
+  }
+
+  public Class<?> getComponentClass() {
+    return componentClass;
+  }
+
+  /**
+   * Returns the component's name, as returned by {@link Component#getName()}.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns whether the component's name is unset or generated, as by {@link AWT#hasDefaultName(Component)}.
+   */
+  public boolean hasDefaultName() {
+    return defaultName;
+  }
+
+  public boolean isShowing() {
+    return showing;
+  }
+
+  /**
+   * Returns the component's text, as returned by {@link #getText(Component)}.
+   */
+  public String getText() {
+    return text;
+  }
+}
@@ -0,0 +1,22 @@
+package abbot.finder;
+
+import java.awt.*;
+import java.util.Collection;
+
+/**
+ * Implemented by matchers which can narrow a search to a set of candidates taken from an {@link IndexedHierarchy},
+ * rather than requiring a walk of the full hierarchy.  The candidates returned need not all match; finders will still
+ * apply the matcher to each of them.<p>
+ * <p>
+ * Only matchers which are pure predicates on a single component should implement this interface; matchers which
+ * depend on the order or number of components visited (e.g. an index matcher counting matches) can not be evaluated
+ * against candidates.  Matchers composed of other matchers should return <code>null</code> unless all of their parts
+ * provide candidates.
+ */
+public interface IndexableMatcher {
+  /**
+   * Returns a superset of the components in the given hierarchy which might match, or <code>null</code> if the
+   * matcher can not be evaluated against candidates.
+   */
+  Collection<Component> getCandidates(IndexedHierarchy hierarchy);
+}
@@ -0,0 +1,574 @@
+package abbot.finder;
+
+import abbot.util.WeakAWTEventListener;
+import java.awt.*;
+import java.awt.event.AWTEventListener;
+import java.awt.event.ContainerEvent;
+import java.awt.event.WindowEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import javax.swing.*;
+
+/**
+ * An {@link AWTHierarchy} which keeps a live index of all reachable components keyed by class, name and text.  Finders
+ * which are given an <code>IndexedHierarchy</code> ask {@link IndexableMatcher}s for their candidates instead of
+ * walking the full hierarchy, so that a lookup costs time proportional to the number of candidates.<p>
+ * <p>
+ * The index is maintained incrementally.  {@link ContainerEvent}s, {@link WindowEvent}s and name/text property changes
+ * only mark the affected component as dirty; dirty components are re-examined on the next query.  Nothing is done on
+ * the event dispatch thread beyond recording the component, since container events are dispatched while holding the
+ * AWT tree lock.<p>
+ * <p>
+ * Text is indexed both as-is and with any accelerator suffix (following a tab) and mnemonic marker removed.
+ * Components which display text but do not fire property changes when it changes (e.g. AWT {@link Label}s and
+ * {@link TextComponent}s) are always returned as text candidates.<p>
+ * <p>
+ * Use is opt-in; the default finders use an <code>IndexedHierarchy</code> only if the system property
+ * <code>abbot.finder.indexed</code> is set to <code>true</code> (see {@link #createDefault()}).
+ */
+public class IndexedHierarchy extends AWTHierarchy {
+
+  private static final boolean INDEXED = Boolean.getBoolean("abbot.finder.indexed");
+
+  private static final String[] TRACKED_PROPERTIES = {"name", "text", "title"};
+
+  /**
+   * Index entry for a single reachable component.
+   */
+  private static class Entry {
+    private final WeakReference<Component> parent;
+    private final Set<Component> children = weakSet();
+    private String name;
+    private String text;
+    private String label;
+
+    Entry(Component parent) {
+      this.parent = parent != null ? new WeakReference<>(parent) : null;
+    }
+
+    Component getParent() {
+      return parent != null ? parent.get() : null;
+    }
+  }
+
+  private final Map<Component, Entry> entries = new WeakHashMap<>();
+  private final Set<Component> roots = weakSet();
+  private final Map<Class<?>, Set<Component>> byClass = new WeakHashMap<>();
+  private final Map<String, Set<Component>> byName = new HashMap<>();
+  private final Map<String, Set<Component>> byText = new HashMap<>();
+  private final Set<Component> untrackedText = weakSet();
+
+  /**
+   * Components whose children or keys may have changed since the last query.  Populated on the event dispatch thread.
+   */
+  private final Set<Component> dirty = Collections.synchronizedSet(weakSet());
+
+  private final PropertyChangeListener propertyListener = new KeyListener(this);
+
+  /**
+   * Avoid GC of the weak reference.
+   */
+  private final AWTEventListener listener;
+
+  /**
+   * Returns a new {@link IndexedHierarchy} if indexing has been enabled with the <code>abbot.finder.indexed</code>
+   * system property, otherwise a plain {@link AWTHierarchy}.
+   */
+  public static AWTHierarchy createDefault() {
+    return INDEXED ? new IndexedHierarchy() : new AWTHierarchy();
+  }
+
+  public IndexedHierarchy() {
+    listener = new StructureListener();
+  }
+
+  /**
+   * Returns all components currently reachable from a root of this hierarchy.
+   */
+  public Collection<Component> getIndexedComponents() {
+    synchronized (this) {
+      update();
+      return new ArrayList<>(entries.keySet());
+    }
+  }
+
+  /**
+   * Returns all indexed components which are instances of the given class.
+   */
+  public Collection<Component> findByClass(Class<?> cls) {
+    Collection<Component> found = new ArrayList<>();
+    synchronized (this) {
+      update();
+      for (Map.Entry<Class<?>, Set<Component>> entry : byClass.entrySet()) {
+        if (cls.isAssignableFrom(entry.getKey())) {
+          found.addAll(entry.getValue());
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Returns all indexed components with the given name.
+   */
+  public Collection<Component> findByName(String name) {
+    synchronized (this) {
+      update();
+      return copy(byName.get(name), null);
+    }
+  }
+
+  /**
+   * Returns all indexed components with the given text, label or title, along with any components whose text can
+   * not be tracked.
+   */
+  public Collection<Component> findByText(String text) {
+    synchronized (this) {
+      update();
+      return copy(byText.get(text), untrackedText);
+    }
+  }
+
+  /**
+   * Returns the smallest set of candidates provided by the given matchers, for use by matchers which require all of
+   * their parts to match.  Null matchers are ignored.
+   *
+   * @return the candidates, or <code>null</code> if any of the matchers can not be evaluated against candidates
+   */
+  public Collection<Component> getCandidates(Object... matchers) {
+    Collection<Component> smallest = null;
+    for (Object matcher : matchers) {
+      if (matcher == null) {
+        continue;
+      }
+      if (!(matcher instanceof IndexableMatcher)) {
+        return null;
+      }
+      Collection<Component> candidates = ((IndexableMatcher) matcher).getCandidates(this);
+      if (candidates == null) {
+        return null;
+      }
+      if (smallest == null || candidates.size() < smallest.size()) {
+        smallest = candidates;
+      }
+    }
+    return smallest;
+  }
+
+  /**
+   * Returns whether the given component is currently reachable from a root of this hierarchy.
+   */
+  public boolean isIndexed(Component c) {
+    synchronized (this) {
+      update();
+      return entries.containsKey(c);
+    }
+  }
+
+  /**
+   * Find all components reachable from the given search roots which match the given matcher, using the index to
+   * obtain candidates.  If <code>firstOnly</code> is set, returns what a hierarchy walk which stops at the first match
+   * would find: the first match in walk order (children before their parent, roots in the given order), along with
+   * any of its ancestors which also match, since the walk still checks those once their children have been searched.
+   *
+   * @return the matching components, or <code>null</code> if the matcher can not be evaluated against candidates or
+   * any of the search roots is not indexed, in which case the caller should fall back to a hierarchy walk.
+   */
+  public Set<Component> findMatches(
+      Matcher m, Collection<Component> searchRoots, boolean firstOnly) {
+    if (!(m instanceof IndexableMatcher)) {
+      return null;
+    }
+    Collection<Component> candidates = ((IndexableMatcher) m).getCandidates(this);
+    if (candidates == null) {
+      return null;
+    }
+    Set<Component> scope = new HashSet<>(searchRoots);
+    synchronized (this) {
+      for (Component root : scope) {
+        if (!entries.containsKey(root)) {
+          return null;
+        }
+      }
+    }
+    Set<Component> found = new HashSet<>();
+    for (Component c : candidates) {
+      if (isWithin(c, scope) && m.matches(c)) {
+        found.add(c);
+      }
+    }
+    if (firstOnly && found.size() > 1) {
+      List<Component> roots = new ArrayList<>(searchRoots);
+      Component first = null;
+      int[] firstPath = null;
+      for (Component c : found) {
+        int[] path = getWalkPath(c, roots);
+        if (first == null || compareWalkOrder(path, firstPath) < 0) {
+          first = c;
+          firstPath = path;
+        }
+      }
+      Set<Component> walked = new HashSet<>();
+      walked.add(first);
+      for (Component c : found) {
+        if (isAncestor(c, first)) {
+          walked.add(c);
+        }
+      }
+      found = walked;
+    }
+    return found;
+  }
+
+  /**
+   * Returns the position of the given component in a walk of the given roots: the index of the nearest enclosing
+   * root, followed by the index of each ancestor (and finally the component) among its parent's children.
+   */
+  private synchronized int[] getWalkPath(Component c, List<Component> roots) {
+    List<Integer> path = new ArrayList<>();
+    Component current = c;
+    int root;
+    while ((root = roots.indexOf(current)) == -1) {
+      Entry entry = entries.get(current);
+      Component parent = entry != null ? entry.getParent() : null;
+      if (parent == null) {
+        root = roots.size();
+        break;
+      }
+      path.add(indexOf(getComponents(parent), current));
+      current = parent;
+    }
+    path.add(root);
+    int[] walkPath = new int[path.size()];
+    for (int i = 0; i < walkPath.length; i++) {
+      walkPath[i] = path.get(walkPath.length - 1 - i).intValue();
+    }
+    return walkPath;
+  }
+
+  private static int indexOf(Collection<Component> children, Component child) {
+    int index = 0;
+    for (Component c : children) {
+      if (c == child) {
+        return index;
+      }
+      ++index;
+    }
+    return Integer.MAX_VALUE;
+  }
+
+  /**
+   * Compare two walk paths in the order a hierarchy walk visits them: descendants before their ancestors, otherwise
+   * in order of the first differing index.
+   */
+  private static int compareWalkOrder(int[] a, int[] b) {
+    int common = Math.min(a.length, b.length);
+    for (int i = 0; i < common; i++) {
+      if (a[i] != b[i]) {
+        return a[i] < b[i] ? -1 : 1;
+      }
+    }
+    return Integer.compare(b.length, a.length);
+  }
+
+  /**
+   * Returns whether the first component is a proper ancestor of the second in this index.
+   */
+  private synchronized boolean isAncestor(Component ancestor, Component c) {
+    Entry entry = entries.get(c);
+    Component parent = entry != null ? entry.getParent() : null;
+    while (parent != null) {
+      if (parent == ancestor) {
+        return true;
+      }
+      entry = entries.get(parent);
+      parent = entry != null ? entry.getParent() : null;
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether the given component or any of its ancestors (as seen by {@link #getComponents(Component)}) is one
+   * of the given components.
+   */
+  private synchronized boolean isWithin(Component c, Set<Component> scope) {
+    while (c != null) {
+      if (scope.contains(c)) {
+        return true;
+      }
+      Entry entry = entries.get(c);
+      c = entry != null ? entry.getParent() : null;
+    }
+    return false;
+  }
+
+  /**
+   * Bring the index up to date with the current root windows and any components marked dirty since the last query.
+   */
+  private void update() {
+    Collection<Component> current = getRoots();
+    for (Iterator<Component> iter = roots.iterator(); iter.hasNext(); ) {
+      Component root = iter.next();
+      if (!current.contains(root)) {
+        iter.remove();
+        remove(root);
+      }
+    }
+    for (Component root : current) {
+      if (!roots.contains(root)) {
+        Entry entry = entries.get(root);
+        if (entry != null && entry.getParent() != null) {
+          // an owned window which has become a root
+          remove(root);
+        }
+        roots.add(root);
+        add(root, null);
+      }
+    }
+
+    Component[] pending;
+    synchronized (dirty) {
+      pending = dirty.toArray(new Component[0]);
+      dirty.clear();
+    }
+    for (Component c : pending) {
+      if (entries.containsKey(c)) {
+        refresh(c);
+      }
+    }
+  }
+
+  /**
+   * Re-read the keys for the given component and reconcile its children with the current hierarchy.
+   */
+  private void refresh(Component c) {
+    Entry entry = entries.get(c);
+    unkey(c, entry);
+    key(c, entry);
+
+    Collection<Component> current = getComponents(c);
+    for (Component child : entry.children.toArray(new Component[0])) {
+      if (!current.contains(child)) {
+        remove(child);
+      }
+    }
+    for (Component child : current) {
+      Entry existing = entries.get(child);
+      if (existing == null) {
+        add(child, c);
+      } else if (existing.getParent() != c && !roots.contains(child)) {
+        // moved to a different parent
+        remove(child);
+        add(child, c);
+      }
+    }
+  }
+
+  private void add(Component c, Component parent) {
+    if (entries.containsKey(c)) {
+      return;
+    }
+    Entry entry = new Entry(parent);
+    entries.put(c, entry);
+    if (parent != null) {
+      entries.get(parent).children.add(c);
+    }
+    byClass.computeIfAbsent(c.getClass(), k -> weakSet()).add(c);
+    key(c, entry);
+    for (String property : TRACKED_PROPERTIES) {
+      c.addPropertyChangeListener(property, propertyListener);
+    }
+    for (Component child : getComponents(c)) {
+      add(child, c);
+    }
+  }
+
+  private void remove(Component c) {
+    Entry entry = entries.remove(c);
+    if (entry == null) {
+      return;
+    }
+    Component parent = entry.getParent();
+    if (parent != null && entries.containsKey(parent)) {
+      entries.get(parent).children.remove(c);
+    }
+    Set<Component> sameClass = byClass.get(c.getClass());
+    if (sameClass != null) {
+      sameClass.remove(c);
+    }
+    unkey(c, entry);
+    for (String property : TRACKED_PROPERTIES) {
+      c.removePropertyChangeListener(property, propertyListener);
+    }
+    for (Component child : entry.children.toArray(new Component[0])) {
+      remove(child);
+    }
+  }
+
+  private void key(Component c, Entry entry) {
+    entry.name = c.getName();
+    if (entry.name != null) {
+      byName.computeIfAbsent(entry.name, k -> weakSet()).add(c);
+    }
+    if (hasTrackedText(c)) {
+      entry.text = getText(c);
+      if (entry.text != null) {
+        byText.computeIfAbsent(entry.text, k -> weakSet()).add(c);
+        String label = stripLabel(entry.text);
+        if (!label.equals(entry.text)) {
+          entry.label = label;
+          byText.computeIfAbsent(label, k -> weakSet()).add(c);
+        }
+      }
+    } else if (hasText(c)) {
+      untrackedText.add(c);
+    }
+  }
+
+  private void unkey(Component c, Entry entry) {
+    removeKey(byName, entry.name, c);
+    removeKey(byText, entry.text, c);
+    removeKey(byText, entry.label, c);
+    untrackedText.remove(c);
+    entry.name = null;
+    entry.text = null;
+    entry.label = null;
+  }
+
+  private static void removeKey(Map<String, Set<Component>> index, String key, Component c) {
+    if (key == null) {
+      return;
+    }
+    Set<Component> set = index.get(key);
+    if (set != null) {
+      set.remove(c);
+      if (set.isEmpty()) {
+        index.remove(key);
+      }
+    }
+  }
+
+  /**
+   * Components whose text changes are reported by a property change event.
+   */
+  private static boolean hasTrackedText(Component c) {
+    return c instanceof AbstractButton
+        || c instanceof JLabel
+        || c instanceof Frame
+        || c instanceof Dialog;
+  }
+
+  /**
+   * Components with text which changes without notification.
+   */
+  private static boolean hasText(Component c) {
+    return c instanceof Button
+        || c instanceof Checkbox
+        || c instanceof Label
+        || c instanceof TextComponent;
+  }
+
+  private static String getText(Component c) {
+    if (c instanceof AbstractButton) {
+      return ((AbstractButton) c).getText();
+    }
+    if (c instanceof JLabel) {
+      return ((JLabel) c).getText();
+    }
+    if (c instanceof Frame) {
+      return ((Frame) c).getTitle();
+    }
+    if (c instanceof Dialog) {
+      return ((Dialog) c).getTitle();
+    }
+    return null;
+  }
+
+  /**
+   * Strip any accelerator suffix (following a tab) and mnemonic marker (<code>&amp;</code>) from the given text.
+   */
+  private static String stripLabel(String text) {
+    String label = text;
+    int index = label.indexOf('\t');
+    if (index != -1) {
+      label = label.substring(0, index);
+    }
+    index = label.indexOf('&');
+    if (index != -1) {
+      label = label.substring(0, index) + label.substring(index + 1);
+    }
+    return label;
+  }
+
+  private static Collection<Component> copy(Set<Component> set, Set<Component> extra) {
+    Collection<Component> list = new ArrayList<>();
+    if (set != null) {
+      list.addAll(set);
+    }
+    if (extra != null) {
+      list.addAll(extra);
+    }
+    return list;
+  }
+
+  private static Set<Component> weakSet() {
+    return Collections.newSetFromMap(new WeakHashMap<>());
+  }
+
+  private void markDirty(Component c) {
+    if (c != null) {
+      dirty.add(c);
+    }
+  }
+
+  /**
+   * Marks components dirty when their name or text changes.  Holds only a weak reference to the hierarchy, since it is
+   * referenced by every indexed component.
+   */
+  private static class KeyListener implements PropertyChangeListener {
+    private final WeakReference<IndexedHierarchy> hierarchy;
+
+    KeyListener(IndexedHierarchy hierarchy) {
+      this.hierarchy = new WeakReference<>(hierarchy);
+    }
+
+    public void propertyChange(PropertyChangeEvent e) {
+      IndexedHierarchy h = hierarchy.get();
+      Component c = (Component) e.getSource();
+      if (h != null) {
+        h.markDirty(c);
+      } else {
+        c.removePropertyChangeListener(e.getPropertyName(), this);
+      }
+    }
+  }
+
+  /**
+   * Marks containers dirty when their children change, and window owners dirty when owned windows appear or go away.
+   */
+  private class StructureListener implements AWTEventListener {
+    public StructureListener() {
+      long mask = AWTEvent.CONTAINER_EVENT_MASK | AWTEvent.WINDOW_EVENT_MASK;
+      new WeakAWTEventListener(this, mask);
+    }
+
+    public void eventDispatched(AWTEvent e) {
+      if (e instanceof ContainerEvent) {
+        markDirty(((ContainerEvent) e).getContainer());
+      } else if (e.getID() == WindowEvent.WINDOW_OPENED || e.getID() == WindowEvent.WINDOW_CLOSED) {
+        markDirty(((Window) e.getSource()).getOwner());
+      }
+    }
+  }
+}
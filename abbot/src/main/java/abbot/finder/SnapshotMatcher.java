@@ -0,0 +1,19 @@
+package abbot.finder;
+
+/**
+ * Implemented by matchers which are pure predicates on the properties of a single component captured in a {@link
+ * ComponentSnapshot}.  Such matchers may be evaluated against a snapshot concurrently, off the event dispatch thread,
+ * so {@link #matches(ComponentState)} must read nothing but the given state; it must give the same answer as
+ * {@link #matches(java.awt.Component)} would have given when the state was captured.<p>
+ * <p>
+ * Matchers which read any other component property, depend on the order in which components are visited, or use
+ * per-thread caches must not implement this interface; they are evaluated serially on the calling thread.  Subclasses
+ * of a snapshot matcher which override {@link #matches(java.awt.Component)} must override {@link
+ * #matches(ComponentState)} to match.
+ */
+public interface SnapshotMatcher extends Matcher {
+  /**
+   * Return whether the component whose properties were captured in the given state matches.
+   */
+  boolean matches(ComponentState state);
+}
@@ -0,0 +1,14 @@
+package abbot.finder;
+
+/**
+ * Implemented by matchers which are built from other matchers or wrap them, and so can be evaluated against a {@link
+ * ComponentSnapshot} only if all of their parts can.  Use {@link ComponentSnapshot#getSnapshotMatcher(Object)} and
+ * {@link ComponentSnapshot#allOf(Object...)} to adapt the parts.
+ */
+public interface SnapshotMatcherSource {
+  /**
+   * Returns a snapshot matcher which matches the same components as this matcher, or <code>null</code> if this
+   * matcher must be evaluated against the live components.
+   */
+  SnapshotMatcher getSnapshotMatcher();
+}
@@ -9,6 +9,7 @@ import java.awt.event.ComponentEvent;
 import java.awt.event.WindowEvent;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
 import javax.swing.*;
@@ -62,12 +63,23 @@ public class TestHierarchy extends AWTHierarchy {
   }
 
   /**
-   * Dispose of the given Window, but only if it currently exists within the hierarchy.  It will no longer appear in
-   * this Hierarchy or be reachable in a hierarchy walk.
+   * Only windows which currently exist within the hierarchy are disposed.  Windows which are never disposed, such as
+   * the shared invisible frame, are still removed from this Hierarchy.
    */
-  public void dispose(Window w) {
+  protected void addDisposable(Window w, List<Window> disposable) {
     if (contains(w)) {
-      super.dispose(w);
+      super.addDisposable(w, disposable);
+      if (disposable.isEmpty() || disposable.get(disposable.size() - 1) != w) {
+        setFiltered(w, true);
+      }
+    }
+  }
+
+  /**
+   * Disposed windows will no longer appear in this Hierarchy or be reachable in a hierarchy walk.
+   */
+  protected void disposed(List<Window> windows) {
+    for (Window w : windows) {
       setFiltered(w, true);
     }
   }
@@ -1,11 +1,16 @@
 package abbot.finder.matchers;
 
+import abbot.finder.ComponentState;
+import abbot.finder.IndexableMatcher;
+import abbot.finder.IndexedHierarchy;
+import abbot.finder.SnapshotMatcher;
 import java.awt.*;
+import java.util.Collection;
 
 /**
  * Provides matching of components by class.
  */
-public class ClassMatcher extends AbstractMatcher {
+public class ClassMatcher extends AbstractMatcher implements IndexableMatcher, SnapshotMatcher {
   private final Class cls;
   private final boolean mustBeShowing;
 
@@ -22,6 +27,14 @@ public class ClassMatcher extends AbstractMatcher {
     return cls.isAssignableFrom(c.getClass()) && (!mustBeShowing || c.isShowing());
   }
 
+  public boolean matches(ComponentState state) {
+    return cls.isAssignableFrom(state.getComponentClass()) && (!mustBeShowing || state.isShowing());
+  }
+
+  public Collection<Component> getCandidates(IndexedHierarchy hierarchy) {
+    return hierarchy.findByClass(cls);
+  }
+
   public String toString() {
     return "Class matcher (" + cls.getName() + ")";
   }
@@ -1,12 +1,18 @@
 package abbot.finder.matchers;
 
+import abbot.finder.ComponentState;
+import abbot.finder.IndexableMatcher;
+import abbot.finder.IndexedHierarchy;
+import abbot.finder.SnapshotMatcher;
 import abbot.util.AWT;
+import com.windowtester.runtime.util.StringComparator;
 import java.awt.*;
+import java.util.Collection;
 
 /**
  * Provides matching of Components by component name.
  */
-public class NameMatcher extends AbstractMatcher {
+public class NameMatcher extends AbstractMatcher implements IndexableMatcher, SnapshotMatcher {
   private final String name;
 
   /**
@@ -29,6 +35,23 @@ public class NameMatcher extends AbstractMatcher {
     return stringsMatch(name, cname);
   }
 
+  public boolean matches(ComponentState state) {
+    if (name == null) {
+      return state.getName() == null || state.hasDefaultName();
+    }
+    return stringsMatch(name, state.getName());
+  }
+
+  /**
+   * Only literal names can be looked up in the index; unnamed components and name patterns must be checked against
+   * all components.
+   */
+  public Collection<Component> getCandidates(IndexedHierarchy hierarchy) {
+    return StringComparator.isLiteral(name)
+        ? hierarchy.findByName(name)
+        : hierarchy.getIndexedComponents();
+  }
+
   public String toString() {
     return "Name matcher (" + name + ")";
   }
@@ -1,5 +1,6 @@
 package abbot.finder.matchers;
 
+import abbot.finder.ComponentState;
 import java.awt.*;
 
 /**
@@ -27,6 +28,15 @@ public class WindowMatcher extends ClassMatcher {
             || (c instanceof Dialog && stringsMatch(id, ((Dialog) c).getTitle())));
   }
 
+  public boolean matches(ComponentState state) {
+    Class<?> cls = state.getComponentClass();
+    return super.matches(state)
+        && (state.isShowing() || !mustBeShowing)
+        && (stringsMatch(id, state.getName())
+            || ((Frame.class.isAssignableFrom(cls) || Dialog.class.isAssignableFrom(cls))
+                && stringsMatch(id, state.getText())));
+  }
+
   public String toString() {
     return "Window matcher (id=" + id + ")";
   }
@@ -162,6 +162,16 @@ public class Action extends Call {
     }
   }
 
+  /**
+   * Parsed locations don't change either, as long as the tester class doesn't.
+   */
+  protected boolean isConstant(Method m, String param, Class type) {
+    if (ComponentLocation.class.isAssignableFrom(type)) {
+      return param != null && param.indexOf("${") == -1;
+    }
+    return super.isConstant(m, param, type);
+  }
+
   /**
    * Return the target of the invocation.
    */
@@ -21,6 +21,10 @@ import javax.swing.*;
  */
 public class AppClassLoader extends NonDelegatingClassLoader {
 
+  static {
+    ClassLoader.registerAsParallelCapable();
+  }
+
   /**
    * A new event queue installed for the lifetime of this class loader.
    */
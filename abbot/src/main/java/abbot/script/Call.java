@@ -5,6 +5,8 @@ import abbot.i18n.Strings;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 /**
@@ -19,6 +21,23 @@ public class Call extends Step {
   private String methodName;
   private String[] args;
 
+  /**
+   * Methods last resolved for this step, and the class, name and number of arguments they were resolved for.
+   */
+  private transient Method[] methods;
+
+  private transient Class methodsClass;
+  private transient String methodsName;
+  private transient int methodsArgCount;
+
+  /**
+   * Evaluated argument values which can't change between runs, by method.  Unresolved entries are {@link #DYNAMIC}.
+   * Discarded when the arguments change or the methods are resolved again.
+   */
+  private transient Map constantArgs;
+
+  private static final Object DYNAMIC = new Object();
+
   private static final String USAGE =
       "<call class=\"...\" method=\"...\" args=\"...\" [property=\"...\"]/>";
 
@@ -78,6 +97,7 @@ public class Call extends Step {
       args = new String[0];
     }
     this.args = args;
+    constantArgs = null;
   }
 
   /**
@@ -94,6 +114,7 @@ public class Call extends Step {
     } else {
       args = ArgumentParser.parseArgumentList(encodedArgs);
     }
+    constantArgs = null;
   }
 
   public void setMethodName(String mn) {
@@ -169,12 +190,48 @@ public class Call extends Step {
   protected Object[] evaluateParameters(Method m, String[] params) throws Exception {
     Object[] args = new Object[params.length];
     Class[] types = m.getParameterTypes();
+    Object[] constants = params == this.args ? getConstantArgs(m) : null;
     for (int i = 0; i < args.length; i++) {
+      if (constants != null && constants[i] != DYNAMIC) {
+        args[i] = constants[i];
+        continue;
+      }
       args[i] = evaluateParameter(m, params[i], types[i]);
+      if (constants != null && isConstant(m, params[i], types[i])) {
+        constants[i] = args[i];
+      }
     }
     return args;
   }
 
+  private synchronized Object[] getConstantArgs(Method m) {
+    if (constantArgs == null) {
+      constantArgs = new IdentityHashMap();
+    }
+    Object[] constants = (Object[]) constantArgs.get(m);
+    if (constants == null) {
+      constants = new Object[args.length];
+      Arrays.fill(constants, DYNAMIC);
+      constantArgs.put(m, constants);
+    }
+    return constants;
+  }
+
+  /**
+   * Whether the given argument always evaluates to the same immutable value, so that it need only be evaluated once.
+   * Arguments referring to properties may change between runs.
+   */
+  protected boolean isConstant(Method m, String param, Class type) {
+    if (param == null || param.indexOf("${") != -1) {
+      return false;
+    }
+    return type.isPrimitive()
+        || type == String.class
+        || type == Boolean.class
+        || type == Character.class
+        || (Number.class.isAssignableFrom(type) && type.getName().startsWith("java.lang."));
+  }
+
   /**
    * Make the target method invocation.  This uses
    * <code>evaluateParameters</code> to convert the String representation
@@ -186,33 +243,26 @@ public class Call extends Step {
     for (int i = 0; i < m.length; i++) {
       try {
         Object[] params = evaluateParameters(m[i], args);
-        try {
-          Object target = getTarget(m[i]);
+        Object target = getTarget(m[i]);
+        if (Log.isClassDebugEnabled(Call.class)) {
           Log.debug("Invoking " + m[i] + " on " + target + getEncodedArguments() + "'");
-          if (target != null && !m[i].getDeclaringClass().isAssignableFrom(target.getClass())) {
-            // If the class loader mismatches, try to resolve it
-            if (retried) {
-              String msg =
-                  "Class loader mismatch? target "
-                      + target.getClass().getClassLoader()
-                      + " vs. method "
-                      + m[i].getDeclaringClass().getClassLoader();
-              throw new IllegalArgumentException(msg);
-            }
-            retried = true;
-            m = resolveMethods(m[i].getName(), target.getClass(), null);
-            i = -1;
-            continue;
-          }
-          if ((m[i].getModifiers() & Modifier.PUBLIC) == 0
-              || (m[i].getDeclaringClass().getModifiers() & Modifier.PUBLIC) == 0) {
-            Log.debug("Bypassing compiler access restrictions on " + "method " + m[i]);
-            m[i].setAccessible(true);
+        }
+        if (target != null && !m[i].getDeclaringClass().isAssignableFrom(target.getClass())) {
+          // If the class loader mismatches, try to resolve it
+          if (retried) {
+            String msg =
+                "Class loader mismatch? target "
+                    + target.getClass().getClassLoader()
+                    + " vs. method "
+                    + m[i].getDeclaringClass().getClassLoader();
+            throw new IllegalArgumentException(msg);
           }
-          return m[i].invoke(getTarget(m[i]), params);
-        } catch (java.lang.reflect.InvocationTargetException ite) {
-          throw ite.getTargetException();
+          retried = true;
+          m = resolveMethods(m[i].getName(), target.getClass(), null);
+          i = -1;
+          continue;
         }
+        return MethodCache.invoke(m[i], target, params);
       } catch (IllegalArgumentException e) {
         if (i == m.length - 1) {
           throw e;
@@ -233,7 +283,25 @@ public class Call extends Step {
    * Return matching methods to be used for invocation.
    */
   protected Method[] getMethods() throws ClassNotFoundException, NoSuchMethodException {
-    return resolveMethods(getMethodName(), getTargetClass(), null);
+    Class cls = getTargetClass();
+    String name = getMethodName();
+    synchronized (this) {
+      if (methods != null
+          && cls == methodsClass
+          && name.equals(methodsName)
+          && args.length == methodsArgCount) {
+        return methods;
+      }
+    }
+    Method[] found = resolveMethods(name, cls, null);
+    synchronized (this) {
+      methods = found;
+      methodsClass = cls;
+      methodsName = name;
+      methodsArgCount = args.length;
+      constantArgs = null;
+    }
+    return found;
   }
 
   /**
@@ -251,7 +319,7 @@ public class Call extends Step {
   protected Object getTarget(Method m) throws Throwable {
     if ((m.getModifiers() & Modifier.STATIC) == 0) {
       try {
-        return getTargetClass().newInstance();
+        return MethodCache.newInstance(getTargetClass());
       } catch (Exception e) {
         setScriptError(
             new InvalidScriptException(
@@ -273,16 +341,11 @@ public class Call extends Step {
    */
   protected Method[] resolveMethods(String name, Class cls, Class returnType)
       throws NoSuchMethodException {
-    // use getDeclaredMethods to include class methods
-    Log.debug("Resolving methods on " + cls);
-    Method[] mlist = cls.getMethods();
+    Method[] mlist = MethodCache.getMethods(cls, name, args.length);
     ArrayList found = new ArrayList();
     for (int i = 0; i < mlist.length; i++) {
       Method m = mlist[i];
-      Class[] params = m.getParameterTypes();
-      if (m.getName().equals(name)
-          && params.length == args.length
-          && (returnType == null || m.getReturnType().equals(returnType))) {
+      if (returnType == null || m.getReturnType().equals(returnType)) {
         found.add(m);
       }
     }
@@ -463,7 +463,9 @@ public class ComponentReference implements XMLConstants, XMLifiable, Comparable
       }
     } else {
       try {
-        Log.debug("Finding in hierarchy (" + resolver.getHierarchy() + ")");
+        if (Log.isClassDebugEnabled(ComponentReference.class)) {
+          Log.debug("Finding in hierarchy (" + resolver.getHierarchy() + ")");
+        }
         findInHierarchy(null, resolver.getHierarchy(), getExactMatchWeight(), newReferences);
       } catch (MultipleComponentsFoundException multiples) {
         try {
@@ -1166,7 +1168,9 @@ public class ComponentReference implements XMLConstants, XMLifiable, Comparable
         minWeight -= MW_PARENT;
       }
       if (AWT.getWindow(preferred) == null && getMatchWeight(preferred) >= minWeight) {
-        Log.debug("Using preferred component: " + Robot.toString(preferred));
+        if (Log.isClassDebugEnabled(ComponentReference.class)) {
+          Log.debug("Using preferred component: " + Robot.toString(preferred));
+        }
         found = preferred;
       }
     }
@@ -1184,7 +1188,9 @@ public class ComponentReference implements XMLConstants, XMLifiable, Comparable
   // that we need to provide a method to repair refs.
   public static ComponentReference getReference(
       Resolver r, Component comp, Map<String, ComponentReference> newReferences) {
-    Log.debug("Looking for a reference for " + Robot.toString(comp));
+    if (Log.isClassDebugEnabled(ComponentReference.class)) {
+      Log.debug("Looking for a reference for " + Robot.toString(comp));
+    }
     // Preserve the failure cache across both lookup and creation
     boolean cleanup = ((Boolean) ownsFailureCache.get()).booleanValue();
     ownsFailureCache.set(Boolean.FALSE);
@@ -1212,7 +1218,10 @@ public class ComponentReference implements XMLConstants, XMLifiable, Comparable
    */
   public static ComponentReference matchExisting(final Component comp, Collection existing) {
 
-    Log.debug("Matching " + Robot.toString(comp) + " against existing refs");
+    if (Log.isClassDebugEnabled(ComponentReference.class)) {
+
+      Log.debug("Matching " + Robot.toString(comp) + " against existing refs");
+    }
 
     // This method might be called recursively (indirectly through
     // Resolver.addComponent) in order to add references for parent
@@ -1359,7 +1368,9 @@ public class ComponentReference implements XMLConstants, XMLifiable, Comparable
       if (c != null && hierarchy.contains(c) && AWT.getWindow(c) != null) {
         return c;
       }
-      Log.debug("Discarding cached value: " + Robot.toString(c));
+      if (Log.isClassDebugEnabled(ComponentReference.class)) {
+        Log.debug("Discarding cached value: " + Robot.toString(c));
+      }
       cachedLookup = null;
     }
     return null;
@@ -1415,16 +1426,23 @@ public class ComponentReference implements XMLConstants, XMLifiable, Comparable
       // components hide their children.
       Window w = AWT.getWindow(match);
       if (w != null && (w.isShowing() || getNonShowingMatches().get(this) == match)) {
-        Log.debug("Using cached lookup for " + getID() + " (hierarchy=" + hierarchy + ")");
+        if (Log.isClassDebugEnabled(ComponentReference.class)) {
+          Log.debug("Using cached lookup for " + getID() + " (hierarchy=" + hierarchy + ")");
+        }
         return match;
       } else {
-        Log.debug("Skipping non-showing match (once) " + hashCode());
+        if (Log.isClassDebugEnabled(ComponentReference.class)) {
+          Log.debug("Skipping non-showing match (once) " + hashCode());
+        }
       }
     }
 
     weight = findMatchesInHierarchy(root, hierarchy, weight, set, newReferences);
 
-    Log.debug("Found " + set.size() + " matches for " + toXMLString());
+    if (Log.isClassDebugEnabled(ComponentReference.class)) {
+
+      Log.debug("Found " + set.size() + " matches for " + toXMLString());
+    }
     if (set.size() == 1) {
       match = (Component) set.iterator().next();
     } else if (set.size() > 0) {
@@ -1445,7 +1463,9 @@ public class ComponentReference implements XMLConstants, XMLifiable, Comparable
     }
     // This provides significant speedup when many similar components are
     // in play.
-    Log.debug("Cacheing match: " + Integer.toHexString(match.hashCode()));
+    if (Log.isClassDebugEnabled(ComponentReference.class)) {
+      Log.debug("Cacheing match: " + Integer.toHexString(match.hashCode()));
+    }
     cachedLookup = new WeakReference(match);
     if (!match.isShowing()) {
       getNonShowingMatches().put(this, match);
@@ -1469,7 +1489,7 @@ public class ComponentReference implements XMLConstants, XMLifiable, Comparable
       while (iter.hasNext()) {
         currentMaxWeight =
             findMatchesInHierarchy(
-                (Window) iter.next(), hierarchy, currentMaxWeight, currentSet, newReferences);
+                (Component) iter.next(), hierarchy, currentMaxWeight, currentSet, newReferences);
       }
       return currentMaxWeight;
     }
@@ -0,0 +1,84 @@
+package abbot.script;
+
+import java.util.List;
+
+/**
+ * An immutable snapshot of the steps of a {@link Sequence}, with the way the {@link StepRunner} has to treat each step
+ * worked out in advance.  A sequence compiles its plan the first time it is run and keeps it until its steps change,
+ * so repeated runs of a large script neither copy the step list nor re-examine the type of every step.<p>
+ * <p>
+ * Nested sequences keep plans of their own, so that {@link Script}s and {@link Fixture}s still get to set up and tear
+ * down around their steps.
+ */
+final class ExecutionPlan {
+
+  /**
+   * The step is a {@link Script}, which must be checked and given the current hierarchy.
+   */
+  static final int SCRIPT = 1;
+
+  /**
+   * The step is a {@link Sequence}, whose steps are run by the runner.
+   */
+  static final int SEQUENCE = 2;
+
+  /**
+   * The step is a {@link Launch}, which reports failures on its own thread.
+   */
+  static final int LAUNCH = 4;
+
+  /**
+   * The step is a {@link Terminate}, after which the runner terminates the application.
+   */
+  static final int TERMINATE = 8;
+
+  private final Step[] steps;
+  private final int[] flags;
+
+  private ExecutionPlan(Step[] steps) {
+    this.steps = steps;
+    this.flags = new int[steps.length];
+    for (int i = 0; i < steps.length; i++) {
+      flags[i] = flags(steps[i]);
+    }
+  }
+
+  /**
+   * Create a plan for the given steps.  The caller must prevent concurrent modification of the list.
+   */
+  static ExecutionPlan compile(List<Step> steps) {
+    return new ExecutionPlan(steps.toArray(new Step[steps.size()]));
+  }
+
+  /**
+   * Returns how the runner has to treat the given step.
+   */
+  static int flags(Step step) {
+    int flags = 0;
+    if (step instanceof Script) {
+      flags |= SCRIPT;
+    }
+    if (step instanceof Sequence) {
+      flags |= SEQUENCE;
+    }
+    if (step instanceof Launch) {
+      flags |= LAUNCH;
+    }
+    if (step instanceof Terminate) {
+      flags |= TERMINATE;
+    }
+    return flags;
+  }
+
+  int size() {
+    return steps.length;
+  }
+
+  Step getStep(int index) {
+    return steps[index];
+  }
+
+  int getFlags(int index) {
+    return flags[index];
+  }
+}
@@ -6,11 +6,10 @@ import abbot.finder.AWTHierarchy;
 import abbot.i18n.Strings;
 import abbot.util.ProcessOutputHandler;
 import abbot.util.Properties;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InterruptedIOException;
-import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.StringReader;
@@ -18,9 +17,12 @@ import java.io.StringWriter;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.StringTokenizer;
 
 /**
@@ -31,16 +33,37 @@ public class ForkedStepRunner extends StepRunner {
   int LAUNCH_TIMEOUT = Properties.getProperty("abbot.runner.launch_delay", 60000, 0, 300000);
   int TERMINATE_TIMEOUT = Properties.getProperty("abbot.runner.terminate_delay", 30000, 0, 300000);
 
-  private static ServerSocket serverSocket = null;
+  /**
+   * How long to wait for anything from the slave before giving it up as hung.  Zero waits forever.
+   */
+  int SLAVE_TIMEOUT = Properties.getProperty("abbot.runner.slave_timeout", 30000, 0, 600000);
+
+  /**
+   * How often the slave sends buffered events.
+   */
+  static final int FLUSH_INTERVAL =
+      Properties.getProperty("abbot.runner.flush_interval", 100, 10, 5000);
+
+  /**
+   * How long the slave may be quiet before it sends a heartbeat.
+   */
+  static final int HEARTBEAT_INTERVAL =
+      Properties.getProperty("abbot.runner.heartbeat", 1000, 100, 60000);
+
+  private ServerSocket serverSocket = null;
   private Process process = null;
+  private Map<String, String> environment = null;
   private Socket connection = null;
+  private SlaveProtocol protocol = null;
 
   /**
    * When actually within the separate VM, this is what gets run.
    */
   protected static class SlaveStepRunner extends StepRunner {
     private Socket connection = null;
+    private SlaveProtocol protocol = null;
     private Script script = null;
+    private final Map<Step, int[]> paths = new IdentityHashMap<>();
 
     /**
      * Notify the master when the application exits.
@@ -51,7 +74,7 @@ public class ForkedStepRunner extends StepRunner {
           // handle application exit; send something back to
           // the master if called from System.exit
           String msg =
-              Strings.get("runner.slave_premature_exit", new Object[] {new Integer(status)});
+              Strings.get("runner.slave_premature_exit", new Object[] {Integer.valueOf(status)});
           fireStepError(script, new Error(msg));
         }
       };
@@ -60,31 +83,69 @@ public class ForkedStepRunner extends StepRunner {
     /**
      * Translate the given event into something we can send back to the master.
      */
-    private void forwardEvent(StepEvent event) {
+    private synchronized void forwardEvent(StepEvent event) {
       Step step = event.getStep();
-      final StringBuffer sb = new StringBuffer(encodeStep(script, step));
-      sb.append("\n");
-      sb.append(event.getType());
-      sb.append("\n");
-      sb.append(event.getID());
-      Throwable thr = event.getError();
-      if (thr != null) {
-        sb.append("\nMSG:");
-        sb.append(thr.getMessage());
-        sb.append("\nSTR:");
-        sb.append(thr);
-        sb.append("\nTRC:");
-        StringWriter writer = new StringWriter();
-        thr.printStackTrace(new PrintWriter(writer));
-        sb.append(writer);
+      // The script doesn't change while it runs, so paths may be reused
+      int[] path = paths.get(step);
+      if (path == null) {
+        path = getPath(script, step);
+        if (path == null) {
+          Log.warn("Step not found in script: " + step);
+          return;
+        }
+        paths.put(step, path);
       }
       try {
-        writeMessage(connection, sb.toString());
+        protocol.writeEvent(path, event);
       } catch (IOException io) {
         // nothing we can do
       }
     }
 
+    /**
+     * Send buffered events periodically, and a heartbeat if there's nothing else to send, so the master can tell we're
+     * still alive.
+     */
+    private void startHeartbeat() {
+      Thread thread =
+          new Thread("Forked script heartbeat") {
+            public void run() {
+              try {
+                while (true) {
+                  Thread.sleep(FLUSH_INTERVAL);
+                  protocol.flushPending(HEARTBEAT_INTERVAL);
+                }
+              } catch (InterruptedException e) {
+                // done
+              } catch (IOException e) {
+                // master is gone
+              }
+            }
+          };
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    /**
+     * Send anything written to System.out and System.err to the master along with the step events, so the output is
+     * seen in order with the steps that produced it.  Also make sure buffered output is sent if the application exits.
+     */
+    private void redirectOutput() {
+      System.setOut(new PrintStream(protocol.getOutputStream(SlaveProtocol.OUTPUT), true));
+      System.setErr(new PrintStream(protocol.getOutputStream(SlaveProtocol.ERROR_OUTPUT), true));
+      Runtime.getRuntime()
+          .addShutdownHook(
+              new Thread("Forked script shutdown") {
+                public void run() {
+                  try {
+                    protocol.flush();
+                  } catch (IOException e) {
+                    // master is gone
+                  }
+                }
+              });
+    }
+
     /**
      * Handle running a script as a forked process.
      */
@@ -93,6 +154,9 @@ public class ForkedStepRunner extends StepRunner {
       try {
         InetAddress local = InetAddress.getLocalHost();
         connection = new Socket(local, port);
+        protocol = new SlaveProtocol(connection);
+        protocol.writeHeader();
+        protocol.readHeader();
       } catch (Throwable thr) {
         // Can't communicate so the only option is to quit
         Log.warn(thr);
@@ -100,11 +164,11 @@ public class ForkedStepRunner extends StepRunner {
       }
       script = new Script(new AWTHierarchy());
       try {
-        String dirName = readMessage(connection);
+        String dirName = protocol.readString();
         // Make sure the relative directory of this script is set
         // properly.
         script.setFile(new File(new File(dirName), script.getFile().getName()));
-        String contents = readMessage(connection);
+        String contents = protocol.readString();
         script.load(new StringReader(contents));
         Log.debug("Successfully loaded script, dir=" + dirName);
         // Make sure we only fork once!
@@ -118,6 +182,9 @@ public class ForkedStepRunner extends StepRunner {
         forwardEvent(event);
       }
 
+      startHeartbeat();
+      redirectOutput();
+
       // add listener to send messages back to the master
       addStepListener(
           new StepListener() {
@@ -137,6 +204,7 @@ public class ForkedStepRunner extends StepRunner {
       }
 
       try {
+        protocol.writeEnd();
         connection.close();
       } catch (IOException io) {
         // not much we can do
@@ -161,6 +229,13 @@ public class ForkedStepRunner extends StepRunner {
     }
   }
 
+  /**
+   * Set additional environment variables for the forked VM, e.g. the X display to use.
+   */
+  public void setEnvironment(Map<String, String> env) {
+    environment = env;
+  }
+
   Process fork(String vmargs, String[] cmdArgs) throws IOException {
     String java =
         System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
@@ -185,15 +260,18 @@ public class ForkedStepRunner extends StepRunner {
       args.add("--debug");
       args.add(getClass().getName());
     }
-    cmdArgs = (String[]) args.toArray(new String[args.size()]);
-    Process p = Runtime.getRuntime().exec(cmdArgs);
-    return p;
+    ProcessBuilder builder = new ProcessBuilder(args);
+    if (environment != null) {
+      builder.environment().putAll(environment);
+    }
+    return builder.start();
   }
 
   /**
    * Launch a new process, using this class as the main class.
    */
   Process fork(String vmargs) throws IOException {
+    // Each runner listens on its own port, so runners may fork concurrently
     if (serverSocket == null) {
       serverSocket = new ServerSocket(0);
     }
@@ -208,11 +286,13 @@ public class ForkedStepRunner extends StepRunner {
     Process p = fork(vmargs, args);
     new ProcessOutputHandler(p) {
       public void handleOutput(byte[] buf, int count) {
-        System.out.println("[out] " + new String(buf, 0, count));
+        System.out.write(buf, 0, count);
+        System.out.flush();
       }
 
       public void handleError(byte[] buf, int count) {
-        System.err.println("[err] " + new String(buf, 0, count));
+        System.err.write(buf, 0, count);
+        System.err.flush();
       }
     };
     return p;
@@ -269,6 +349,14 @@ public class ForkedStepRunner extends StepRunner {
       if (process != null) {
         process.destroy();
       }
+      if (serverSocket != null) {
+        try {
+          serverSocket.close();
+        } catch (IOException e) {
+          Log.warn(e);
+        }
+        serverSocket = null;
+      }
     }
     fireStepEnd(step);
   }
@@ -281,6 +369,11 @@ public class ForkedStepRunner extends StepRunner {
       serverSocket.setSoTimeout(LAUNCH_TIMEOUT);
       connection = serverSocket.accept();
       Log.debug("Got slave connection on " + connection);
+      connection.setSoTimeout(LAUNCH_TIMEOUT);
+      protocol = new SlaveProtocol(connection);
+      protocol.writeHeader();
+      protocol.readHeader();
+      connection.setSoTimeout(SLAVE_TIMEOUT);
       return p;
     } catch (InterruptedIOException ie) {
       Log.warn(ie);
@@ -292,14 +385,19 @@ public class ForkedStepRunner extends StepRunner {
     // send script data
     StringWriter writer = new StringWriter();
     script.save(writer);
-    writeMessage(connection, script.getDirectory().toString());
-    writeMessage(connection, writer.toString());
+    protocol.writeString(script.getDirectory().toString());
+    protocol.writeString(writer.toString());
+    protocol.flush();
   }
 
   private void trackScript(Script script) throws IOException, ForkedFailure, ForkedError {
     StepEvent ev;
+    boolean finished = false;
     while (!stopped() && (ev = receiveEvent(script)) != null) {
       Log.debug("Forked event received: " + ev);
+      if (ev.getStep() == script && !StepEvent.STEP_START.equals(ev.getType())) {
+        finished = true;
+      }
       // If it's the script start event, ignore it since we
       // already sent one prior to launching the process
       if (ev.getStep() == script
@@ -326,44 +424,45 @@ public class ForkedStepRunner extends StepRunner {
         fireStepEvent(ev);
       }
     }
+    if (!finished && !stopped()) {
+      throw new SlaveLostException(Strings.get("runner.slave_lost"));
+    }
   }
 
-  static Step decodeStep(Sequence root, String code) {
-    if (code.equals("-1")) {
-      return root;
-    }
-    int comma = code.indexOf(",");
-    if (comma == -1) {
-      // Let number format exceptions propagate up, since it's a fatal
-      // script error.
-      int index = Integer.parseInt(code);
-      return root.getStep(index);
+  /**
+   * Returns the step at the given index path from the given root.
+   */
+  static Step getStep(Sequence root, int[] path) {
+    Step step = root;
+    for (int i = 0; i < path.length; i++) {
+      step = ((Sequence) step).getStep(path[i]);
     }
-    String ind = code.substring(0, comma);
-    code = code.substring(comma + 1);
-    return decodeStep((Sequence) root.getStep(Integer.parseInt(ind)), code);
+    return step;
   }
 
   /**
-   * Encode the given step into a set of indices.
+   * Returns the index path of the given step from the given root, or null if the step is not found.
    */
-  static String encodeStep(Sequence root, Step step) {
+  static int[] getPath(Sequence root, Step step) {
     if (root.equals(step)) {
-      return "-1";
+      return new int[0];
     }
     synchronized (root.steps()) {
       int index = root.indexOf(step);
       if (index != -1) {
-        return String.valueOf(index);
+        return new int[] {index};
       }
       index = 0;
       Iterator iter = root.steps().iterator();
       while (iter.hasNext()) {
         Step seq = (Step) iter.next();
         if (seq instanceof Sequence) {
-          String encoding = encodeStep((Sequence) seq, step);
-          if (encoding != null) {
-            return index + "," + encoding;
+          int[] sub = getPath((Sequence) seq, step);
+          if (sub != null) {
+            int[] path = new int[sub.length + 1];
+            path[0] = index;
+            System.arraycopy(sub, 0, path, 1, sub.length);
+            return path;
           }
         }
         ++index;
@@ -373,96 +472,58 @@ public class ForkedStepRunner extends StepRunner {
   }
 
   /**
-   * Receive a serialized event on the connection and convert it back into a real event, setting the local
-   * representation of the given step's exception/error if necessary.
+   * Receive the next event from the slave, passing on any output received before it.  Returns null at the end of the
+   * script or if the connection is lost.
    */
   private StepEvent receiveEvent(Script script) throws IOException {
-    String buf = readMessage(connection);
-    if (buf == null) {
-      Log.debug("End of stream");
-      return null; // end of stream
-    }
-    StringTokenizer st = new StringTokenizer(buf, "\n");
-    String code = st.nextToken();
-    String type = st.nextToken();
-    String id = st.nextToken();
-    Step step = decodeStep(script, code);
-    Throwable thr = null;
-    if (st.hasMoreTokens()) {
-      String msg = st.nextToken();
-      String string;
-      String trace;
-      msg = msg.substring(4);
-      String next = st.nextToken();
-      while (!next.startsWith("STR:")) {
-        msg += next;
-        next = st.nextToken();
-      }
-      string = next.substring(4);
-      next = st.nextToken();
-      while (!next.startsWith("TRC:")) {
-        string += next;
-        next = st.nextToken();
-      }
-      trace = next.substring(4);
-      while (st.hasMoreTokens()) {
-        trace = trace + "\n" + st.nextToken();
-      }
-
-      if (type.equals(StepEvent.STEP_FAILURE)) {
-        Log.debug("Creating local forked step failure");
-        thr = new ForkedFailure(msg, string, trace);
-      } else {
-        Log.debug("Creating local forked step error");
-        thr = new ForkedError(msg, string, trace);
+    try {
+      while (true) {
+        switch (protocol.readFrame()) {
+          case SlaveProtocol.EVENT:
+            return protocol.readEvent(script);
+          case SlaveProtocol.OUTPUT:
+            writeOutput(System.out, protocol.readOutput());
+            break;
+          case SlaveProtocol.ERROR_OUTPUT:
+            writeOutput(System.err, protocol.readOutput());
+            break;
+          case SlaveProtocol.HEARTBEAT:
+            break;
+          default:
+            Log.debug("End of stream");
+            return null;
+        }
       }
+    } catch (EOFException e) {
+      Log.debug("End of stream");
+      return null;
+    } catch (SocketTimeoutException e) {
+      throw new SlaveLostException(
+          Strings.get("runner.slave_hung", new Object[] {Integer.valueOf(SLAVE_TIMEOUT)}));
     }
-    StepEvent event = new StepEvent(step, type, Integer.parseInt(id), thr);
-    return event;
   }
 
-  private static void writeMessage(Socket connection, String msg) throws IOException {
-    OutputStream os = connection.getOutputStream();
-    byte[] buf = msg.getBytes();
-    int len = buf.length;
-    for (int i = 0; i < 4; i++) {
-      byte val = (byte) (len >> 24);
-      os.write(val);
-      len <<= 8;
-    }
-    os.write(buf, 0, buf.length);
-    os.flush();
+  /**
+   * Pass on output from the slave unchanged, since it may end part way through a line.
+   */
+  private static void writeOutput(PrintStream stream, byte[] buf) {
+    stream.write(buf, 0, buf.length);
+    stream.flush();
   }
 
-  private static String readMessage(Socket connection) throws IOException {
-    InputStream is = connection.getInputStream();
-    // FIXME probably want a socket timeout, in case the slave script
-    // hangs
-    int len = 0;
-    for (int i = 0; i < 4; i++) {
-      int data = is.read();
-      if (data == -1) {
-        return null;
-      }
-      len = (len << 8) | data;
-    }
-    byte[] buf = new byte[len];
-    int offset = 0;
-    while (offset < len) {
-      int count = is.read(buf, offset, buf.length - offset);
-      if (count == -1) {
-        return null;
-      }
-      offset += count;
+  /**
+   * Indicates that the forked VM went away before the script finished, e.g. because it crashed or stopped responding.
+   */
+  public static class SlaveLostException extends IOException {
+    public SlaveLostException(String msg) {
+      super(msg);
     }
-    String msg = new String(buf, 0, len);
-    return msg;
   }
 
   /**
    * An exception that for all purposes looks like another exception.
    */
-  class ForkedFailure extends AssertionFailedError {
+  static class ForkedFailure extends AssertionFailedError {
     private final String msg;
     private final String str;
     private final String trace;
@@ -501,7 +562,7 @@ public class ForkedStepRunner extends StepRunner {
   /**
    * An exception that for all purposes looks like another exception.
    */
-  class ForkedError extends RuntimeException {
+  static class ForkedError extends RuntimeException {
     private final String msg;
     private final String str;
     private final String trace;
@@ -3,6 +3,7 @@ package abbot.script;
 import abbot.AssertionFailedError;
 import abbot.Log;
 import abbot.Platform;
+import abbot.finder.AWTHierarchy;
 import abbot.finder.Hierarchy;
 import abbot.i18n.Strings;
 import java.awt.*;
@@ -142,8 +143,13 @@ public class Launch extends Call implements UIContext {
     Log.debug("launch terminate");
     if (currentLaunch == this) {
       // Nothing special to do, dispose windows normally
-      Iterator iter = getHierarchy().getRoots().iterator();
-      while (iter.hasNext()) getHierarchy().dispose((Window) iter.next());
+      Hierarchy hierarchy = getHierarchy();
+      if (hierarchy instanceof AWTHierarchy) {
+        ((AWTHierarchy) hierarchy).dispose(hierarchy.getRoots());
+      } else {
+        Iterator iter = hierarchy.getRoots().iterator();
+        while (iter.hasNext()) hierarchy.dispose((Window) iter.next());
+      }
       if (classLoader != null) {
         classLoader.uninstall();
         classLoader = null;
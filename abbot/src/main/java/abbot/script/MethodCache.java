@@ -0,0 +1,240 @@
+package abbot.script;
+
+import abbot.Log;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches method lookups and the {@link MethodHandle}s used to invoke them for {@link Call} steps.  Lookups are cached
+ * per class, method name and number of arguments; handles per method.  Everything is stored with the class it was
+ * derived from (see {@link ClassValue}), so classes loaded by a new application class loader, e.g. when a {@link
+ * Launch} is re-run, get fresh entries, and the entries for discarded classes are collected with them.<p>
+ * <p>
+ * Invocation follows the rules of {@link Method#invoke(Object, Object...)}: arguments which don't match the parameter
+ * types, allowing for unboxing and widening primitive conversions, cause an {@link IllegalArgumentException}.  Unlike
+ * reflection, exceptions thrown by the method are not wrapped.
+ */
+final class MethodCache {
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  /**
+   * Public methods of each class, by name and number of arguments.
+   */
+  private static final ClassValue<Map<String, Method[]>> METHODS =
+      new ClassValue<Map<String, Method[]>>() {
+        protected Map<String, Method[]> computeValue(Class<?> type) {
+          return new ConcurrentHashMap<>();
+        }
+      };
+
+  /**
+   * Invocation handles for the methods declared by each class, of type (Object, Object[])Object.
+   */
+  private static final ClassValue<Map<Method, MethodHandle>> HANDLES =
+      new ClassValue<Map<Method, MethodHandle>>() {
+        protected Map<Method, MethodHandle> computeValue(Class<?> type) {
+          return new ConcurrentHashMap<>();
+        }
+      };
+
+  /**
+   * Handles for the no-argument constructor of each class, of type ()Object.
+   */
+  private static final ClassValue<MethodHandle> CONSTRUCTORS =
+      new ClassValue<MethodHandle>() {
+        protected MethodHandle computeValue(Class<?> type) {
+          try {
+            Constructor<?> ctor = type.getConstructor();
+            return LOOKUP.unreflectConstructor(ctor).asType(MethodType.methodType(Object.class));
+          } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+          }
+        }
+      };
+
+  private MethodCache() {}
+
+  /**
+   * Returns the public methods of the given class with the given name and number of arguments.  The returned array
+   * must not be modified.
+   */
+  static Method[] getMethods(Class<?> cls, String name, int argCount) {
+    Map<String, Method[]> methods = METHODS.get(cls);
+    String key = argCount + ":" + name;
+    Method[] found = methods.get(key);
+    if (found == null) {
+      Log.debug("Resolving methods on {0}", cls);
+      ArrayList<Method> list = new ArrayList<>();
+      for (Method m : cls.getMethods()) {
+        if (m.getName().equals(name) && m.getParameterCount() == argCount) {
+          list.add(m);
+        }
+      }
+      found = list.toArray(new Method[0]);
+      methods.put(key, found);
+    }
+    return found;
+  }
+
+  /**
+   * Create a new instance of the given class with its public no-argument constructor.
+   *
+   * @throws InstantiationException if the class has no such constructor or can't be instantiated
+   */
+  static Object newInstance(Class<?> cls) throws Throwable {
+    MethodHandle ctor = CONSTRUCTORS.get(cls);
+    if (ctor == null || (cls.getModifiers() & Modifier.ABSTRACT) != 0) {
+      throw new InstantiationException(cls.getName());
+    }
+    return (Object) ctor.invokeExact();
+  }
+
+  private static MethodHandle getHandle(Method m) throws IllegalAccessException {
+    Map<Method, MethodHandle> handles = HANDLES.get(m.getDeclaringClass());
+    MethodHandle handle = handles.get(m);
+    if (handle == null) {
+      if ((m.getModifiers() & Modifier.PUBLIC) == 0
+          || (m.getDeclaringClass().getModifiers() & Modifier.PUBLIC) == 0) {
+        Log.debug("Bypassing compiler access restrictions on method {0}", m);
+        m.setAccessible(true);
+      }
+      int count = m.getParameterCount();
+      handle = LOOKUP.unreflect(m);
+      if (Modifier.isStatic(m.getModifiers())) {
+        handle = MethodHandles.dropArguments(handle, 0, Object.class);
+      }
+      handle =
+          handle.asType(MethodType.genericMethodType(count + 1)).asSpreader(Object[].class, count);
+      handles.put(m, handle);
+    }
+    return handle;
+  }
+
+  /**
+   * Invoke the given method on the given target, which is ignored for static methods.
+   *
+   * @throws IllegalArgumentException if the arguments don't match the method's parameters, or the target is not an
+   *     instance of the method's class
+   */
+  static Object invoke(Method m, Object target, Object[] args) throws Throwable {
+    Class<?>[] types = m.getParameterTypes();
+    if (args.length != types.length) {
+      throw new IllegalArgumentException("wrong number of arguments");
+    }
+    if (!Modifier.isStatic(m.getModifiers()) && !m.getDeclaringClass().isInstance(target)) {
+      throw new IllegalArgumentException("object is not an instance of declaring class");
+    }
+    for (int i = 0; i < args.length; i++) {
+      args[i] = convert(args[i], types[i]);
+    }
+    return (Object) getHandle(m).invokeExact(target, args);
+  }
+
+  /**
+   * Convert the given argument to the given parameter type as reflection would.
+   */
+  private static Object convert(Object arg, Class<?> type) {
+    if (!type.isPrimitive()) {
+      if (arg != null && !type.isInstance(arg)) {
+        throw new IllegalArgumentException("argument type mismatch");
+      }
+      return arg;
+    }
+    if (arg instanceof Boolean && type == boolean.class) {
+      return arg;
+    }
+    if (arg instanceof Character) {
+      if (type == char.class) {
+        return arg;
+      }
+      // char widens like int
+      return widen(Integer.valueOf(((Character) arg).charValue()), type, int.class);
+    }
+    if (arg instanceof Number) {
+      Class<?> from = primitiveType(arg.getClass());
+      if (from != null) {
+        return widen((Number) arg, type, from);
+      }
+    }
+    throw new IllegalArgumentException("argument type mismatch");
+  }
+
+  private static Class<?> primitiveType(Class<?> wrapper) {
+    if (wrapper == Byte.class) {
+      return byte.class;
+    }
+    if (wrapper == Short.class) {
+      return short.class;
+    }
+    if (wrapper == Integer.class) {
+      return int.class;
+    }
+    if (wrapper == Long.class) {
+      return long.class;
+    }
+    if (wrapper == Float.class) {
+      return float.class;
+    }
+    if (wrapper == Double.class) {
+      return double.class;
+    }
+    return null;
+  }
+
+  /**
+   * Order of the numeric primitive types for widening conversions.
+   */
+  private static int rank(Class<?> type) {
+    if (type == byte.class) {
+      return 0;
+    }
+    if (type == short.class) {
+      return 1;
+    }
+    if (type == int.class) {
+      return 2;
+    }
+    if (type == long.class) {
+      return 3;
+    }
+    if (type == float.class) {
+      return 4;
+    }
+    if (type == double.class) {
+      return 5;
+    }
+    return -1;
+  }
+
+  /**
+   * Apply a widening primitive conversion from the given type to the given type.
+   */
+  private static Object widen(Number value, Class<?> to, Class<?> from) {
+    int target = rank(to);
+    if (target < rank(from)) {
+      throw new IllegalArgumentException("argument type mismatch");
+    }
+    switch (target) {
+      case 0:
+        return Byte.valueOf(value.byteValue());
+      case 1:
+        return Short.valueOf(value.shortValue());
+      case 2:
+        return Integer.valueOf(value.intValue());
+      case 3:
+        return Long.valueOf(value.longValue());
+      case 4:
+        return Float.valueOf(value.floatValue());
+      default:
+        return Double.valueOf(value.doubleValue());
+    }
+  }
+}
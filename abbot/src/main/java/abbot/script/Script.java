@@ -24,6 +24,7 @@ import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -31,10 +32,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
 import java.util.WeakHashMap;
-import org.jdom.Document;
 import org.jdom.Element;
-import org.jdom.output.Format;
-import org.jdom.output.XMLOutputter;
 
 /**
  * Provide a structure to encapsulate actions invoked on GUI components and tests performed on those components. Scripts
@@ -276,14 +274,48 @@ public class Script extends Sequence implements Resolver {
    * Write the current state of the script to file.
    */
   public void save(Writer writer) throws IOException {
-    formatForSave = true;
-    Element el = toXML();
-    formatForSave = false;
-    el.setName(TAG_AWTTESTSCRIPT);
+    write(new ScriptWriter(writer));
+    writer.flush();
+  }
 
-    Document doc = new Document(el);
-    XMLOutputter outputter = new XMLOutputter(Format.getPrettyFormat());
-    outputter.output(doc, writer);
+  /**
+   * Write the full contents of the script, one step at a time.
+   *
+   * @return the hash of the written contents
+   */
+  private int write(ScriptWriter out) throws IOException {
+    List<Step> list;
+    synchronized (steps()) {
+      list = new ArrayList<>(steps());
+    }
+    formatForSave = true;
+    try {
+      Element el = addAttributes(new Element(TAG_AWTTESTSCRIPT));
+      synchReferenceIDs();
+      Collection<ComponentReference> values = refs.values();
+      out.writeHeader();
+      if (values.isEmpty() && list.isEmpty()) {
+        out.writeElement(el, 0);
+        out.writeTrailer();
+        return out.getHash();
+      }
+      out.writeStartTag(el, 0);
+      for (ComponentReference cref : (Iterable<ComponentReference>) new TreeSet(values)) {
+        out.writeElement(cref.toXML(), 1);
+      }
+      for (Step step : list) {
+        if (step instanceof abbot.script.Comment) {
+          out.writeComment(step.getDescription(), 1);
+        } else {
+          out.writeElement(step.toXML(), 1);
+        }
+      }
+      out.writeEndTag(TAG_AWTTESTSCRIPT, 0);
+      out.writeTrailer();
+      return out.getHash();
+    } finally {
+      formatForSave = false;
+    }
   }
 
   @Override
@@ -305,11 +337,11 @@ public class Script extends Sequence implements Resolver {
   public void save() throws IOException {
     File file = getFile();
     Log.debug("Saving script to '" + file + "' " + hashCode());
-    OutputStreamWriter writer =
-        new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
-    save(new BufferedWriter(writer));
-    writer.close();
-    lastSaved = getHash();
+    try (Writer writer =
+        new BufferedWriter(
+            new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+      lastSaved = write(new ScriptWriter(writer));
+    }
   }
 
   /**
@@ -365,39 +397,14 @@ public class Script extends Sequence implements Resolver {
   }
 
   /**
-   * Loads the XML test script.  Performs a check against the XML schema.
+   * Loads the XML test script, reading it as a stream.
    *
    * @param reader Provides the script data
    * @throws InvalidScriptException
    */
   public void load(Reader reader) throws InvalidScriptException {
     clear();
-    /*        try {
-                // Set things up to optionally validate on load
-                SAXBuilder builder =
-                    new SAXBuilder("org.apache.xerces.parsers.SAXParser", false);
-                if (validate) {
-                    URL url = getClass().getClassLoader().getResource("abbot/abbot.xsd");
-                    if (url != null) {
-                        builder = new SAXBuilder("org.apache.xerces.parsers.SAXParser", true);
-                        builder.setFeature("http://apache.org/xml/features/validation/schema", true);
-                        builder.setProperty("http://apache.org/xml/properties/schema/external-noNamespaceSchemaLocation", url.toString());
-                    }
-                    else {
-                        Log.warn("Could not find abbot/abbot.xsd, disabling XML validation");
-                        validate = false;
-                    }
-                }
-                Document doc = builder.build(reader);
-                Element root = doc.getRootElement();
-                Map map = createAttributeMap(root);
-                parseAttributes(map);
-                parseChildren(root);
-            }
-            catch(JDOMException e) {
-                throw new InvalidScriptException(e.getMessage());
-            }
-    */
+    ScriptReader.read(this, reader);
     // Make sure we have all referenced components
     synchronized (this) {
       synchReferenceIDs();
@@ -464,7 +471,13 @@ public class Script extends Sequence implements Resolver {
   }
 
   private int getHash() {
-    return getFullXMLString().hashCode();
+    try {
+      return write(new ScriptWriter(null));
+    } catch (IOException e) {
+      // there is no output to fail
+      Log.warn(e);
+      return 0;
+    }
   }
 
   @Override
@@ -715,6 +728,19 @@ public class Script extends Sequence implements Resolver {
     return ref;
   }
 
+  /**
+   * Add the given component references, which have been read from XML.  For use only when parsing a script.
+   */
+  void addComponentReferences(Collection<ComponentReference> list) {
+    synchReferenceIDs();
+    Map<String, ComponentReference> map = new HashMap<>(refs);
+    for (ComponentReference ref : list) {
+      map.put(ref.getID(), ref);
+    }
+    // atomic update of references map
+    refs = Collections.unmodifiableMap(map);
+  }
+
   /**
    * Add a new component reference to the script.  For use only when parsing a script.
    */
@@ -0,0 +1,164 @@
+package abbot.script;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.jdom.CDATA;
+import org.jdom.Element;
+import org.jdom.Text;
+
+/**
+ * Reads a {@link Script} from its XML representation as a stream.  Only the element for a single top-level step is
+ * held in memory at a time; it is handed to the script to create the step and then discarded.  Component references
+ * are collected and added to the script in one go, rather than copying the reference map for each of them.<p>
+ * <p>
+ * DTDs and external entities are not processed.
+ */
+final class ScriptReader implements XMLConstants {
+
+  private static final XMLInputFactory FACTORY = createFactory();
+
+  private static XMLInputFactory createFactory() {
+    XMLInputFactory factory = XMLInputFactory.newFactory();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+    // Expression needs to distinguish CDATA from text
+    String reportCDATA = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+    if (factory.isPropertySupported(reportCDATA)) {
+      factory.setProperty(reportCDATA, Boolean.TRUE);
+    }
+    return factory;
+  }
+
+  private final Script script;
+  private final XMLStreamReader in;
+
+  /**
+   * References read but not yet added to the script.
+   */
+  private final List<ComponentReference> refs = new ArrayList<>();
+
+  private final Set<String> ids = new HashSet<>();
+
+  private ScriptReader(Script script, XMLStreamReader in) {
+    this.script = script;
+    this.in = in;
+  }
+
+  /**
+   * Read the contents of the given script from the given reader.  The script should be empty.
+   */
+  static void read(Script script, Reader reader) throws InvalidScriptException {
+    XMLStreamReader in = null;
+    try {
+      in = FACTORY.createXMLStreamReader(reader);
+      new ScriptReader(script, in).readScript();
+    } catch (XMLStreamException e) {
+      throw new InvalidScriptException(e.getMessage());
+    } finally {
+      if (in != null) {
+        try {
+          in.close();
+        } catch (XMLStreamException e) {
+          // nothing to release
+        }
+      }
+    }
+  }
+
+  private void readScript() throws XMLStreamException, InvalidScriptException {
+    in.nextTag();
+    script.parseAttributes(readAttributes());
+    while (in.next() != XMLStreamConstants.END_ELEMENT) {
+      switch (in.getEventType()) {
+        case XMLStreamConstants.START_ELEMENT:
+          if (TAG_COMPONENT.equals(in.getLocalName())) {
+            readComponentReference();
+          } else {
+            addComponentReferences();
+            script.parseChild(readElement());
+          }
+          break;
+        case XMLStreamConstants.COMMENT:
+          addComponentReferences();
+          script.addStep(new Comment(script, in.getText()));
+          break;
+        default:
+          // ignore whitespace and processing instructions
+          break;
+      }
+    }
+    addComponentReferences();
+  }
+
+  private Map<String, String> readAttributes() {
+    Map<String, String> map = new HashMap<>();
+    for (int i = 0; i < in.getAttributeCount(); i++) {
+      map.put(in.getAttributeLocalName(i), in.getAttributeValue(i));
+    }
+    return map;
+  }
+
+  private void readComponentReference() throws XMLStreamException, InvalidScriptException {
+    Element el = new Element(TAG_COMPONENT);
+    for (int i = 0; i < in.getAttributeCount(); i++) {
+      el.setAttribute(in.getAttributeLocalName(i), in.getAttributeValue(i));
+    }
+    in.nextTag();
+    ComponentReference ref = new ComponentReference(script, el);
+    if (!ids.add(ref.getID())) {
+      String msg = "Persistent ID '" + ref.getID() + "' is already in use";
+      throw new InvalidScriptException(msg, el);
+    }
+    refs.add(ref);
+  }
+
+  /**
+   * Add pending references to the script, since steps may look them up when they are created.
+   */
+  private void addComponentReferences() {
+    if (!refs.isEmpty()) {
+      script.addComponentReferences(refs);
+      refs.clear();
+    }
+  }
+
+  /**
+   * Read the current element and its contents into a JDOM element.
+   */
+  private Element readElement() throws XMLStreamException {
+    Element el = new Element(in.getLocalName());
+    for (int i = 0; i < in.getAttributeCount(); i++) {
+      el.setAttribute(in.getAttributeLocalName(i), in.getAttributeValue(i));
+    }
+    while (in.next() != XMLStreamConstants.END_ELEMENT) {
+      switch (in.getEventType()) {
+        case XMLStreamConstants.START_ELEMENT:
+          el.addContent(readElement());
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.SPACE:
+          el.addContent(new Text(in.getText()));
+          break;
+        case XMLStreamConstants.CDATA:
+          el.addContent(new CDATA(in.getText()));
+          break;
+        case XMLStreamConstants.COMMENT:
+          el.addContent(new org.jdom.Comment(in.getText()));
+          break;
+        default:
+          break;
+      }
+    }
+    return el;
+  }
+}
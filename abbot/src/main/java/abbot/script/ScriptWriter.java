@@ -0,0 +1,201 @@
+package abbot.script;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.List;
+import org.jdom.Attribute;
+import org.jdom.CDATA;
+import org.jdom.Element;
+import org.jdom.Text;
+
+/**
+ * Writes the XML representation of a {@link Script} as a stream, one top-level element at a time, so that saving a
+ * large script doesn't require a document for the whole script.  The output is laid out the way scripts have always
+ * been saved: one element per line, indented by two spaces, with elements containing only text kept on one line.<p>
+ * <p>
+ * Also keeps a hash of everything written, which the script uses to tell whether it has changed since it was saved.
+ */
+final class ScriptWriter {
+
+  private static final String INDENT = "  ";
+  private static final String NEWLINE = "\r\n";
+
+  private final Writer out;
+  private int hash = 0;
+
+  /**
+   * Create a writer for the given output, or one which only computes the hash if the output is null.
+   */
+  ScriptWriter(Writer out) {
+    this.out = out;
+  }
+
+  /**
+   * Returns the hash of everything written, computed the same way as {@link String#hashCode()}.
+   */
+  int getHash() {
+    return hash;
+  }
+
+  private void write(String s) throws IOException {
+    int h = hash;
+    for (int i = 0; i < s.length(); i++) {
+      h = 31 * h + s.charAt(i);
+    }
+    hash = h;
+    if (out != null) {
+      out.write(s);
+    }
+  }
+
+  void writeHeader() throws IOException {
+    write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+    write(NEWLINE);
+  }
+
+  void writeTrailer() throws IOException {
+    write(NEWLINE);
+  }
+
+  /**
+   * Write the start tag of the given element, without any of its content.
+   */
+  void writeStartTag(Element el, int depth) throws IOException {
+    indent(depth);
+    openTag(el);
+    write(">");
+    write(NEWLINE);
+  }
+
+  void writeEndTag(String name, int depth) throws IOException {
+    indent(depth);
+    write("</" + name + ">");
+    write(NEWLINE);
+  }
+
+  void writeComment(String text, int depth) throws IOException {
+    indent(depth);
+    write("<!--" + text + "-->");
+    write(NEWLINE);
+  }
+
+  /**
+   * Write the given element and its content.
+   */
+  void writeElement(Element el, int depth) throws IOException {
+    List content = el.getContent();
+    indent(depth);
+    openTag(el);
+    if (content.isEmpty()) {
+      write(" />");
+    } else if (isTextOnly(content)) {
+      write(">");
+      writeContent(content, depth);
+      write("</" + el.getName() + ">");
+    } else {
+      write(">");
+      write(NEWLINE);
+      writeContent(content, depth + 1);
+      indent(depth);
+      write("</" + el.getName() + ">");
+    }
+    write(NEWLINE);
+  }
+
+  private void writeContent(List content, int depth) throws IOException {
+    boolean inline = isTextOnly(content);
+    Iterator iter = content.iterator();
+    while (iter.hasNext()) {
+      Object o = iter.next();
+      if (o instanceof Element) {
+        writeElement((Element) o, depth);
+      } else if (o instanceof org.jdom.Comment) {
+        writeComment(((org.jdom.Comment) o).getText(), depth);
+      } else if (o instanceof CDATA) {
+        if (!inline) {
+          indent(depth);
+        }
+        write("<![CDATA[" + ((CDATA) o).getText() + "]]>");
+        if (!inline) {
+          write(NEWLINE);
+        }
+      } else if (o instanceof Text) {
+        String text = ((Text) o).getText();
+        if (inline) {
+          write(escape(text, false));
+        } else if (text.trim().length() != 0) {
+          indent(depth);
+          write(escape(text.trim(), false));
+          write(NEWLINE);
+        }
+      }
+    }
+  }
+
+  private static boolean isTextOnly(List content) {
+    for (int i = 0; i < content.size(); i++) {
+      if (!(content.get(i) instanceof Text)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void openTag(Element el) throws IOException {
+    write("<" + el.getName());
+    Iterator iter = el.getAttributes().iterator();
+    while (iter.hasNext()) {
+      Attribute att = (Attribute) iter.next();
+      write(" " + att.getName() + "=\"" + escape(att.getValue(), true) + "\"");
+    }
+  }
+
+  private void indent(int depth) throws IOException {
+    for (int i = 0; i < depth; i++) {
+      write(INDENT);
+    }
+  }
+
+  private static String escape(String s, boolean attribute) {
+    StringBuffer sb = null;
+    for (int i = 0; i < s.length(); i++) {
+      char ch = s.charAt(i);
+      String entity = null;
+      switch (ch) {
+        case '&':
+          entity = "&amp;";
+          break;
+        case '<':
+          entity = "&lt;";
+          break;
+        case '>':
+          entity = "&gt;";
+          break;
+        case '\r':
+          entity = "&#xD;";
+          break;
+        case '"':
+          entity = attribute ? "&quot;" : null;
+          break;
+        case '\n':
+          entity = attribute ? "&#xA;" : null;
+          break;
+        case '\t':
+          entity = attribute ? "&#x9;" : null;
+          break;
+        default:
+          break;
+      }
+      if (entity != null) {
+        if (sb == null) {
+          sb = new StringBuffer(s.substring(0, i));
+        }
+        sb.append(entity);
+      } else if (sb != null) {
+        sb.append(ch);
+      }
+    }
+    return sb == null ? s : sb.toString();
+  }
+}
@@ -16,6 +16,11 @@ public class Sequence extends Step {
   private static final String USAGE = "<sequence ...>...</sequence>";
   private final ArrayList<Step> sequence = new ArrayList<>();
 
+  /**
+   * The steps to run, compiled on demand.  Discarded whenever the steps change.
+   */
+  private transient ExecutionPlan plan;
+
   /**
    * Construct a <code>Sequence</code> from XML data.
    */
@@ -121,24 +126,31 @@ public class Sequence extends Step {
    * Process each event in our list, using the given runner.
    */
   protected void runStep(StepRunner runner) throws Throwable {
-    Iterator iter;
-    synchronized (sequence) {
-      iter = ((ArrayList) sequence.clone()).iterator();
-    }
+    ExecutionPlan plan = getPlan();
+    int size = plan.size();
     if (runner != null) {
-      while (iter.hasNext() && !runner.stopped()) {
-        runner.runStep((Step) iter.next());
+      for (int i = 0; i < size && !runner.stopped(); i++) {
+        runner.runPlannedStep(plan.getStep(i), plan.getFlags(i));
       }
     } else {
-      while (iter.hasNext()) {
-        ((Step) iter.next()).run();
+      for (int i = 0; i < size; i++) {
+        plan.getStep(i).run();
       }
     }
   }
 
   /**
-   * Returns the number of steps contained in this one.
+   * Returns the plan for running the current steps.
    */
+  ExecutionPlan getPlan() {
+    synchronized (sequence) {
+      if (plan == null) {
+        plan = ExecutionPlan.compile(sequence);
+      }
+      return plan;
+    }
+  }
+
   public int size() {
     synchronized (sequence) {
       return sequence.size();
@@ -151,11 +163,13 @@ public class Sequence extends Step {
   public void clear() {
     synchronized (sequence) {
       sequence.clear();
+      plan = null;
     }
   }
 
   /**
-   * Returns a list of the steps contained in this one.
+   * Returns a list of the steps contained in this one.  The list must not be modified directly; use the methods of
+   * this sequence instead, so that the sequence runs the current steps.
    */
   public List<Step> steps() {
     return sequence;
@@ -185,6 +199,7 @@ public class Sequence extends Step {
   public void addStep(int index, Step step) {
     synchronized (sequence) {
       sequence.add(index, step);
+      plan = null;
     }
   }
 
@@ -194,6 +209,7 @@ public class Sequence extends Step {
   public void addStep(Step step) {
     synchronized (sequence) {
       sequence.add(step);
+      plan = null;
     }
   }
 
@@ -203,6 +219,7 @@ public class Sequence extends Step {
   public void setStep(int index, Step step) {
     synchronized (sequence) {
       sequence.set(index, step);
+      plan = null;
     }
   }
 
@@ -212,6 +229,7 @@ public class Sequence extends Step {
   public void removeStep(Step step) {
     synchronized (sequence) {
       sequence.remove(step);
+      plan = null;
     }
   }
 
@@ -221,6 +239,7 @@ public class Sequence extends Step {
   public void removeStep(int index) {
     synchronized (sequence) {
       sequence.remove(index);
+      plan = null;
     }
   }
 }
@@ -0,0 +1,246 @@
+package abbot.script;
+
+import abbot.i18n.Strings;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The binary protocol spoken between a {@link ForkedStepRunner} and the VM it forks.  Both sides start by writing a
+ * magic number and the protocol version, so that a mismatched framework on either side is detected immediately.  The
+ * master then sends the script directory and contents, and the slave answers with a stream of frames, each starting
+ * with a frame type byte:
+ * <ul>
+ * <li>{@link #EVENT}: a step event, with the step identified by its index path from the root script
+ * <li>{@link #OUTPUT}, {@link #ERROR_OUTPUT}: text the slave wrote to System.out or System.err
+ * <li>{@link #HEARTBEAT}: sent whenever the slave has been quiet for a while
+ * <li>{@link #END}: the script has finished
+ * </ul>
+ * <p>
+ * Frames are buffered, so several events may go out in a single write.  Failures, errors and the end of the script are
+ * sent immediately; anything else waits at most until the next {@link #flushPending(int)}.
+ */
+final class SlaveProtocol {
+
+  static final int MAGIC = 0x41424254; // "ABBT"
+  static final int VERSION = 1;
+
+  static final byte EVENT = 1;
+  static final byte OUTPUT = 2;
+  static final byte ERROR_OUTPUT = 3;
+  static final byte HEARTBEAT = 4;
+  static final byte END = 5;
+
+  /**
+   * Longest string or output frame body, so that a corrupt length is detected rather than allocated.
+   */
+  static final int MAX_LENGTH = 16 * 1024 * 1024;
+
+  private static final String[] TYPES = {
+    StepEvent.STEP_START,
+    StepEvent.STEP_PROGRESS,
+    StepEvent.STEP_END,
+    StepEvent.STEP_ERROR,
+    StepEvent.STEP_FAILURE,
+  };
+
+  private final DataInputStream in;
+  private final DataOutputStream out;
+
+  /**
+   * Whether anything has been written since the last flush.
+   */
+  private boolean pending;
+
+  private long lastFlush = System.currentTimeMillis();
+
+  SlaveProtocol(Socket socket) throws IOException {
+    in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+  }
+
+  synchronized void writeHeader() throws IOException {
+    out.writeInt(MAGIC);
+    out.writeShort(VERSION);
+    flush();
+  }
+
+  void readHeader() throws IOException {
+    int magic = in.readInt();
+    int version = in.readUnsignedShort();
+    if (magic != MAGIC || version != VERSION) {
+      throw new IOException(
+          Strings.get(
+              "runner.protocol_mismatch",
+              new Object[] {Integer.toHexString(magic), Integer.valueOf(version)}));
+    }
+  }
+
+  /**
+   * Write a string of any length as UTF-8.  A null string is distinct from an empty one.
+   */
+  synchronized void writeString(String s) throws IOException {
+    if (s == null) {
+      out.writeInt(-1);
+    } else {
+      byte[] buf = s.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(buf.length);
+      out.write(buf);
+    }
+    pending = true;
+  }
+
+  String readString() throws IOException {
+    int len = in.readInt();
+    if (len == -1) {
+      return null;
+    }
+    byte[] buf = new byte[checkLength(len)];
+    in.readFully(buf);
+    return new String(buf, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Write the given event, for the step with the given index path.
+   */
+  synchronized void writeEvent(int[] path, StepEvent event) throws IOException {
+    out.writeByte(EVENT);
+    out.writeByte(typeCode(event.getType()));
+    out.writeInt(event.getID());
+    out.writeShort(path.length);
+    for (int i = 0; i < path.length; i++) {
+      out.writeInt(path[i]);
+    }
+    Throwable thr = event.getError();
+    out.writeBoolean(thr != null);
+    pending = true;
+    if (thr != null) {
+      writeString(thr.getMessage());
+      writeString(thr.toString());
+      StringWriter writer = new StringWriter();
+      thr.printStackTrace(new PrintWriter(writer));
+      writeString(writer.toString());
+      flush();
+    }
+  }
+
+  private static int typeCode(String type) {
+    for (int i = 0; i < TYPES.length; i++) {
+      if (TYPES[i].equals(type)) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException("Unknown event type " + type);
+  }
+
+  /**
+   * Read the frame type of the next frame, or -1 at the end of the stream.
+   */
+  int readFrame() throws IOException {
+    return in.read();
+  }
+
+  /**
+   * Read the body of an {@link #EVENT} frame, for a step within the given script.  Any error is reproduced as a
+   * {@link ForkedStepRunner.ForkedFailure} or {@link ForkedStepRunner.ForkedError}.
+   */
+  StepEvent readEvent(Sequence root) throws IOException {
+    int code = in.readUnsignedByte();
+    if (code >= TYPES.length) {
+      throw new IOException("Unknown event type code " + code);
+    }
+    String type = TYPES[code];
+    int id = in.readInt();
+    int[] path = new int[in.readUnsignedShort()];
+    for (int i = 0; i < path.length; i++) {
+      path[i] = in.readInt();
+    }
+    Throwable thr = null;
+    if (in.readBoolean()) {
+      String msg = readString();
+      String string = readString();
+      String trace = readString();
+      if (StepEvent.STEP_FAILURE.equals(type)) {
+        thr = new ForkedStepRunner.ForkedFailure(msg, string, trace);
+      } else {
+        thr = new ForkedStepRunner.ForkedError(msg, string, trace);
+      }
+    }
+    return new StepEvent(ForkedStepRunner.getStep(root, path), type, id, thr);
+  }
+
+  synchronized void writeOutput(byte type, byte[] buf, int off, int len) throws IOException {
+    while (len > 0) {
+      int count = Math.min(len, MAX_LENGTH);
+      out.writeByte(type);
+      out.writeInt(count);
+      out.write(buf, off, count);
+      off += count;
+      len -= count;
+    }
+    pending = true;
+  }
+
+  /**
+   * Read the body of an {@link #OUTPUT} or {@link #ERROR_OUTPUT} frame.
+   */
+  byte[] readOutput() throws IOException {
+    byte[] buf = new byte[checkLength(in.readInt())];
+    in.readFully(buf);
+    return buf;
+  }
+
+  private static int checkLength(int len) throws IOException {
+    if (len < 0 || len > MAX_LENGTH) {
+      throw new IOException("Invalid length " + len);
+    }
+    return len;
+  }
+
+  synchronized void writeEnd() throws IOException {
+    out.writeByte(END);
+    flush();
+  }
+
+  synchronized void flush() throws IOException {
+    out.flush();
+    pending = false;
+    lastFlush = System.currentTimeMillis();
+  }
+
+  /**
+   * Send anything written since the last flush, or a heartbeat if nothing has been sent for the given interval.
+   */
+  synchronized void flushPending(int heartbeat) throws IOException {
+    if (!pending && System.currentTimeMillis() - lastFlush >= heartbeat) {
+      out.writeByte(HEARTBEAT);
+      pending = true;
+    }
+    if (pending) {
+      flush();
+    }
+  }
+
+  /**
+   * Returns a stream which sends whatever is written to it as frames of the given type.  Flushing the stream does not
+   * flush the connection.
+   */
+  OutputStream getOutputStream(final byte type) {
+    return new OutputStream() {
+      public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+      }
+
+      public void write(byte[] buf, int off, int len) throws IOException {
+        writeOutput(type, buf, off, len);
+      }
+    };
+  }
+}
@@ -55,6 +55,13 @@ public abstract class Step implements XMLConstants, XMLifiable, Serializable {
    */
   private Throwable invalidScriptError = null;
 
+  /**
+   * The class most recently resolved by {@link #resolveClass(String)}, and the class loader used to resolve it.
+   */
+  private transient Class resolvedClass;
+
+  private transient ClassLoader resolvedLoader;
+
   public Step(Resolver resolver, Map attributes) {
     this(resolver, "");
     Log.debug("Instantiating " + getClass());
@@ -101,7 +108,7 @@ public abstract class Step implements XMLConstants, XMLifiable, Serializable {
     if (invalidScriptError != null) {
       throw invalidScriptError;
     }
-    Log.debug("Running " + this);
+    Log.debug("Running {0}", this);
     runStep();
   }
 
@@ -326,7 +333,19 @@ public abstract class Step implements XMLConstants, XMLifiable, Serializable {
    */
   public Class resolveClass(String className) throws ClassNotFoundException {
     ClassLoader cl = getResolver().getContextClassLoader();
-    return Class.forName(className, true, cl);
+    synchronized (this) {
+      if (resolvedClass != null
+          && resolvedLoader == cl
+          && resolvedClass.getName().equals(className)) {
+        return resolvedClass;
+      }
+    }
+    Class cls = Class.forName(className, true, cl);
+    synchronized (this) {
+      resolvedClass = cls;
+      resolvedLoader = cl;
+    }
+    return cls;
   }
 
   /**
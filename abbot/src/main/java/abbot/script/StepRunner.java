@@ -10,9 +10,7 @@ import abbot.i18n.Strings;
 import abbot.util.AWTFixtureHelper;
 import abbot.util.EDTExceptionCatcher;
 import java.io.File;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 import javax.swing.*;
 
@@ -39,7 +37,11 @@ public class StepRunner {
    */
   private transient boolean terminateOnStop = false;
 
-  private final ArrayList listeners = new ArrayList();
+  /**
+   * Registered listeners, replaced rather than modified so that events can be fired without copying or locking.
+   */
+  private volatile StepListener[] listeners = new StepListener[0];
+
   private final Map errors = new HashMap();
 
   /**
@@ -52,6 +54,14 @@ public class StepRunner {
    */
   private final EDTExceptionCatcher catcher;
 
+  /**
+   * The step of a sequence about to be run, and how to treat it as determined by the sequence's {@link
+   * ExecutionPlan}.
+   */
+  private Step plannedStep;
+
+  private int plannedFlags;
+
   protected AWTFixtureHelper helper;
   protected Hierarchy hierarchy;
 
@@ -205,7 +215,7 @@ public class StepRunner {
       if ((step instanceof Script) && ((Script) step).isForked()) {
         Log.debug("Forking " + step);
         StepRunner runner = new ForkedStepRunner(this);
-        runner.listeners.addAll(listeners);
+        runner.listeners = listeners;
         try {
           runner.runStep(step);
         } finally {
@@ -271,34 +281,40 @@ public class StepRunner {
    * in addition to STEP_END.
    */
   protected void runStep(final Step step) throws Throwable {
-
-    if (step instanceof Script) {
+    int flags;
+    if (step == plannedStep) {
+      flags = plannedFlags;
+      plannedStep = null;
+    } else {
+      flags = ExecutionPlan.flags(step);
+    }
+    if ((flags & ExecutionPlan.SCRIPT) != 0) {
       checkFile((Script) step);
       ((Script) step).setHierarchy(getHierarchy());
     }
 
-    Log.debug("Running " + step);
+    Log.debug("Running {0}", step);
     fireStepStart(step);
 
     // checking for stopped here allows a listener to stop execution on a
     // particular step in response to its "start" event.
     if (stopped()) {
-      Log.debug("Already stopped, skipping " + step);
+      Log.debug("Already stopped, skipping {0}", step);
     } else {
       Throwable exception = null;
       long exceptionTime = -1;
       try {
-        if (step instanceof Launch) {
+        if ((flags & ExecutionPlan.LAUNCH) != 0) {
           ((Launch) step).setThreadedLaunchListener(new LaunchListener());
         }
         // Recurse into sequences
-        if (step instanceof Sequence) {
+        if ((flags & ExecutionPlan.SEQUENCE) != 0) {
           ((Sequence) step).runStep(this);
         } else {
           step.run();
         }
-        Log.debug("Finished " + step);
-        if (step instanceof Terminate) {
+        Log.debug("Finished {0}", step);
+        if ((flags & ExecutionPlan.TERMINATE) != 0) {
           terminate();
         }
       } catch (Throwable e) {
@@ -309,22 +325,24 @@ public class StepRunner {
         // Any EDT exception which occurred *prior* to when the
         // exception on the main thread was thrown should be used
         // instead.
-        long edtExceptionTime = EDTExceptionCatcher.getThrowableTime();
-        Throwable edtException = EDTExceptionCatcher.getThrowable();
-        if (edtException != null && (exception == null || edtExceptionTime < exceptionTime)) {
-          exception = edtException;
+        if (EDTExceptionCatcher.hasThrowable()) {
+          long edtExceptionTime = EDTExceptionCatcher.getThrowableTime();
+          Throwable edtException = EDTExceptionCatcher.getThrowable();
+          if (edtException != null && (exception == null || edtExceptionTime < exceptionTime)) {
+            exception = edtException;
+          }
         }
       }
       if (exception != null) {
         if (exception instanceof AssertionFailedError) {
-          Log.debug("failure in " + step + ": " + exception);
+          Log.debug("failure in {0}: {1}", step, exception);
           fireStepFailure(step, exception);
           if (stopOnFailure) {
             stop(terminateOnError);
             throw exception;
           }
         } else {
-          Log.debug("error in " + step + ": " + exception);
+          Log.debug("error in {0}: {1}", step, exception);
           fireStepError(step, exception);
           if (stopOnError) {
             stop(terminateOnError);
@@ -364,6 +382,20 @@ public class StepRunner {
     }
   }
 
+  /**
+   * Run a step of a sequence, whose type has already been determined by an {@link ExecutionPlan}.  The step still goes
+   * through {@link #runStep(Step)}, so that subclasses see nested steps as well.
+   */
+  void runPlannedStep(Step step, int flags) throws Throwable {
+    plannedStep = step;
+    plannedFlags = flags;
+    try {
+      runStep(step);
+    } finally {
+      plannedStep = null;
+    }
+  }
+
   protected void setError(Step step, Throwable thr) {
     if (thr != null) {
       errors.put(step, thr);
@@ -376,15 +408,22 @@ public class StepRunner {
     return (Throwable) errors.get(step);
   }
 
-  public void addStepListener(StepListener sl) {
-    synchronized (listeners) {
-      listeners.add(sl);
-    }
+  public synchronized void addStepListener(StepListener sl) {
+    StepListener[] list = new StepListener[listeners.length + 1];
+    System.arraycopy(listeners, 0, list, 0, listeners.length);
+    list[listeners.length] = sl;
+    listeners = list;
   }
 
-  public void removeStepListener(StepListener sl) {
-    synchronized (listeners) {
-      listeners.remove(sl);
+  public synchronized void removeStepListener(StepListener sl) {
+    for (int i = 0; i < listeners.length; i++) {
+      if (listeners[i].equals(sl)) {
+        StepListener[] list = new StepListener[listeners.length - 1];
+        System.arraycopy(listeners, 0, list, 0, i);
+        System.arraycopy(listeners, i + 1, list, i, list.length - i);
+        listeners = list;
+        return;
+      }
     }
   }
 
@@ -392,22 +431,16 @@ public class StepRunner {
    * If this is used to propagate a failure/error, be sure to invoke setError on the step first.
    */
   protected void fireStepEvent(StepEvent event) {
-    Iterator iter;
-    synchronized (listeners) {
-      iter = ((ArrayList) listeners.clone()).iterator();
-    }
-    while (iter.hasNext()) {
-      StepListener sl = (StepListener) iter.next();
-      sl.stateChanged(event);
+    StepListener[] list = listeners;
+    for (int i = 0; i < list.length; i++) {
+      list[i].stateChanged(event);
     }
   }
 
   private void fireStepEvent(Step step, String type, int val, Throwable throwable) {
-    synchronized (listeners) {
-      if (listeners.size() != 0) {
-        StepEvent event = new StepEvent(step, type, val, throwable);
-        fireStepEvent(event);
-      }
+    if (listeners.length != 0) {
+      StepEvent event = new StepEvent(step, type, val, throwable);
+      fireStepEvent(event);
     }
   }
 
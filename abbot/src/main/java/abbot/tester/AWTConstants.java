@@ -2,7 +2,6 @@ package abbot.tester;
 
 import abbot.Platform;
 import abbot.util.AWT;
-import java.awt.Toolkit;
 import java.awt.event.InputEvent;
 
 /**
@@ -28,7 +27,7 @@ public interface AWTConstants {
   boolean POPUP_ON_PRESS = AWT.getPopupOnPress();
   int TERTIARY_MASK = AWT.getTertiaryMask();
   String TERTIARY_MODIFIER = AWT.getMouseModifiers(TERTIARY_MASK);
-  int MENU_SHORTCUT_MASK = Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+  int MENU_SHORTCUT_MASK = AWT.getMenuShortcutMask();
   String MENU_SHORTCUT_MODIFIER = AWT.getKeyModifiers(MENU_SHORTCUT_MASK);
   String MENU_SHORTCUT_STRING =
       MENU_SHORTCUT_MASK == InputEvent.ALT_DOWN_MASK
@@ -861,6 +861,16 @@ public class ComponentTester extends Robot {
     return new ImageComparator().compare(img, fileImage) == 0;
   }
 
+  /**
+   * Return whether the component's contents matches the given image, allowing each color channel of a pixel to differ
+   * by up to the given tolerance (0-255).
+   */
+  public boolean assertImage(
+      Component comp, java.io.File fileImage, boolean ignoreBorder, int tolerance) {
+    java.awt.image.BufferedImage img = capture(comp, ignoreBorder);
+    return new ImageComparator(tolerance).compare(img, fileImage) == 0;
+  }
+
   /**
    * Returns whether a Window corresponding to the given String is showing.  The string may be a plain String or
    * regular expression and may match either the window title (for Frames or Dialogs) or its Component name.
@@ -1,14 +1,15 @@
 package abbot.tester;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
 /**
- * Compare two files or filenames.  Original concept contributed by A. Smith Montebello.
+ * Compare two files or filenames.  Files of the same length are read and compared a block at a time; the result is the
+ * difference between the first differing bytes.  If a file can't be read, it is ordered before the other one.
+ * Original concept contributed by A. Smith Montebello.
  *
  * @author asmithmb
  * @version 1.0
@@ -16,7 +17,12 @@ import java.io.InputStream;
 public class FileComparator implements java.util.Comparator {
 
   /**
-   * Read files into streams and call byte by byte comparison method
+   * Size of the blocks of the files which are read and compared at a time.
+   */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Read the files and compare their contents a block at a time
    *
    * @param f1 First File or filename to compare.
    * @param f2 Second File or filename to compare.
@@ -68,31 +74,53 @@ public class FileComparator implements java.util.Comparator {
     InputStream is1 = null;
     InputStream is2 = null;
     try {
-      is1 = new BufferedInputStream(new FileInputStream(file1));
-      is2 = new BufferedInputStream(new FileInputStream(file2));
-
-      int b1 = -2;
-      int b2 = -2;
       try {
-        while ((b1 = is1.read()) != -1 && (b2 = is2.read()) != -1) {
-          if (b1 != b2) {
-            return b1 - b2;
-          }
-          b1 = b2 = -2;
+        is1 = new FileInputStream(file1);
+      } catch (IOException io) {
+        return -1;
+      }
+      try {
+        is2 = new FileInputStream(file2);
+      } catch (IOException io) {
+        return 1;
+      }
+      byte[] b1 = new byte[BUFFER_SIZE];
+      byte[] b2 = new byte[BUFFER_SIZE];
+      while (true) {
+        int n1;
+        int n2;
+        try {
+          n1 = is1.readNBytes(b1, 0, BUFFER_SIZE);
+        } catch (IOException io) {
+          return -1;
         }
+        try {
+          n2 = is2.readNBytes(b2, 0, BUFFER_SIZE);
+        } catch (IOException io) {
+          return 1;
+        }
+        int index = Arrays.mismatch(b1, 0, n1, b2, 0, n2);
+        if (index != -1) {
+          // A file which changed length while being read compares by length
+          return index < n1 && index < n2 ? (b1[index] & 0xff) - (b2[index] & 0xff) : n1 - n2;
+        }
+        if (n1 < BUFFER_SIZE) {
+          return 0;
+        }
+      }
+    } finally {
+      close(is1);
+      close(is2);
+    }
+  }
+
+  private static void close(InputStream is) {
+    if (is != null) {
+      try {
+        is.close();
       } catch (IOException io) {
-        return b1 == -2 ? -1 : 1;
-      } finally {
-        is1.close();
-        is1 = null;
-        is2.close();
-        is2 = null;
+        // nothing left to read
       }
-      return 0;
-    } catch (FileNotFoundException fnf) {
-      return is1 == null ? -1 : 1;
-    } catch (IOException io) {
-      return is1 == null ? -1 : 1;
     }
   }
 
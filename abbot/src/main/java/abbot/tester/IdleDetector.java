@@ -0,0 +1,152 @@
+package abbot.tester;
+
+import abbot.Log;
+import java.awt.*;
+import java.awt.event.InvocationEvent;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Detects when an AWT event queue has been drained.  A probe is posted to the queue; when the probe is dispatched it
+ * checks on the dispatch thread itself whether any further events are pending.  If so, it re-posts itself behind them,
+ * otherwise it signals the waiting thread.  This avoids a round trip between the waiting thread and the dispatch thread
+ * for every event found on the queue, and the waiting thread never holds a monitor.<p>
+ * <p>
+ * Pushing a custom {@link EventQueue} was considered, but the code under test (and {@link FileDialogTester}) may push
+ * its own queue, which would silently bypass ours.<p>
+ * <p>
+ * Timing of every wait is recorded with nanosecond resolution and may be obtained with the static accessors.
+ */
+public final class IdleDetector {
+
+  private static final AtomicLong waitCount = new AtomicLong();
+  private static final AtomicLong totalWaitNanos = new AtomicLong();
+  private static final AtomicLong maxWaitNanos = new AtomicLong();
+  private static volatile long lastWaitNanos = 0;
+  private static volatile long lastDrainedNanos = 0;
+
+  private IdleDetector() {}
+
+  /**
+   * Posted to the event queue; re-posts itself until it finds the queue empty.
+   */
+  private static class Probe implements Runnable {
+    private final EventQueue queue;
+    private final Thread waiter;
+    private volatile boolean drained = false;
+    private volatile boolean cancelled = false;
+    private volatile int passes = 0;
+
+    Probe(EventQueue queue, Thread waiter) {
+      this.queue = queue;
+      this.waiter = waiter;
+    }
+
+    void post() {
+      queue.postEvent(new InvocationEvent(Toolkit.getDefaultToolkit(), this));
+    }
+
+    public void run() {
+      ++passes;
+      if (cancelled) {
+        return;
+      }
+      if (queue.peekEvent() == null) {
+        lastDrainedNanos = System.nanoTime();
+        drained = true;
+        LockSupport.unpark(waiter);
+      } else {
+        post();
+      }
+    }
+  }
+
+  /**
+   * Wait for the given event queue to be drained, i.e. for all events currently on it, and any events they generate,
+   * to be dispatched.  Must not be called from the event dispatch thread.
+   *
+   * @return whether the queue was found empty before the timeout expired
+   */
+  public static boolean waitForIdle(EventQueue queue, long timeout) {
+    if (EventQueue.isDispatchThread()) {
+      throw new IllegalThreadStateException("Cannot call method from the event dispatcher thread");
+    }
+    long start = System.nanoTime();
+    long deadline = start + timeout * 1000000L;
+    Probe probe = new Probe(queue, Thread.currentThread());
+    probe.post();
+    try {
+      while (!probe.drained) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          Log.warn(
+              "Timed out waiting for idle event queue after "
+                  + probe.passes
+                  + " events: "
+                  + timeout
+                  + "ms",
+              Log.FULL_STACK);
+          return false;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+          Log.warn("Idle wait interrupted");
+          return false;
+        }
+        LockSupport.parkNanos(probe, remaining);
+      }
+      return true;
+    } finally {
+      probe.cancelled = true;
+      record(System.nanoTime() - start);
+    }
+  }
+
+  private static void record(long nanos) {
+    lastWaitNanos = nanos;
+    waitCount.incrementAndGet();
+    totalWaitNanos.addAndGet(nanos);
+    maxWaitNanos.accumulateAndGet(nanos, Math::max);
+  }
+
+  /**
+   * Returns the {@link System#nanoTime()} at which an event queue was last found empty, or zero if never.
+   */
+  public static long getLastDrainedNanos() {
+    return lastDrainedNanos;
+  }
+
+  /**
+   * Returns the duration of the most recent idle wait, in ns.
+   */
+  public static long getLastWaitNanos() {
+    return lastWaitNanos;
+  }
+
+  /**
+   * Returns the longest idle wait since the last reset, in ns.
+   */
+  public static long getMaxWaitNanos() {
+    return maxWaitNanos.get();
+  }
+
+  /**
+   * Returns the total time spent in idle waits since the last reset, in ns.
+   */
+  public static long getTotalWaitNanos() {
+    return totalWaitNanos.get();
+  }
+
+  /**
+   * Returns the number of idle waits since the last reset.
+   */
+  public static long getWaitCount() {
+    return waitCount.get();
+  }
+
+  public static void resetStatistics() {
+    waitCount.set(0);
+    totalWaitNanos.set(0);
+    maxWaitNanos.set(0);
+    lastWaitNanos = 0;
+  }
+}
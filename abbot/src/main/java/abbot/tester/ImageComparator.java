@@ -1,12 +1,36 @@
 package abbot.tester;
 
 import abbot.Log;
+import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
 
 /**
- * This code expects the availability of the com.sun.image.codec.jpeg extensions from the Sun JDK 1.3 or JRE.
+ * Compares images pixel by pixel.  Images may be given as BufferedImages, Files or filenames.  Pixels are compared
+ * directly on their packed ARGB values, and a comparison stops at the first pixel which makes the images differ.<p>
+ * <p>
+ * A per-channel tolerance allows for small color differences, e.g. from antialiasing or lossy compression, and a
+ * number of differing pixels may be allowed.  Regions of the images may be masked so that they're ignored, e.g. a
+ * clock or a blinking caret.  {@link #diff(Object, Object)} reports all the differences between two images, including
+ * a heatmap showing where and how strongly they differ.<p>
+ * <p>
+ * Since JPEG compression is lossy, an image compared against a JPEG file is first compressed the same way, as it
+ * would have been when the reference file was written with {@link #writeJPEG(File, BufferedImage)}.
  * <p>
  * Original comparison code contributed by asmithmb.
  * <p>
@@ -14,65 +38,414 @@ import java.io.IOException;
  */
 public class ImageComparator implements java.util.Comparator {
 
+  /**
+   * The differences between two images.
+   */
+  public static class Difference {
+    private final int width;
+    private final int height;
+    private final int count;
+    private final Rectangle bounds;
+    private final int[] deltas;
+
+    Difference(int width, int height, int count, Rectangle bounds, int[] deltas) {
+      this.width = width;
+      this.height = height;
+      this.count = count;
+      this.bounds = bounds;
+      this.deltas = deltas;
+    }
+
+    /**
+     * Returns the number of pixels which differ by more than the tolerance, or -1 if the images have different sizes.
+     */
+    public int getCount() {
+      return count;
+    }
+
+    /**
+     * Returns the bounds of the differing pixels, or null if there are none.
+     */
+    public Rectangle getBounds() {
+      return bounds;
+    }
+
+    /**
+     * Returns an image showing how strongly each pixel differs, from black (identical) through red to yellow and
+     * white (completely different), weighted by perceived brightness.  Masked pixels and pixels within the tolerance
+     * are black.  Returns null if the images have different sizes.
+     */
+    public BufferedImage getHeatmap() {
+      if (deltas == null) {
+        return null;
+      }
+      BufferedImage heatmap = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+      int[] pixels = ((DataBufferInt) heatmap.getRaster().getDataBuffer()).getData();
+      for (int i = 0; i < deltas.length; i++) {
+        int level = deltas[i] * 3;
+        int red = Math.min(level, 255);
+        int green = Math.max(0, Math.min(level - 255, 255));
+        int blue = Math.max(0, Math.min(level - 510, 255));
+        pixels[i] = (red << 16) | (green << 8) | blue;
+      }
+      return heatmap;
+    }
+
+    public String toString() {
+      return count == -1 ? "different sizes" : count + " pixels differ in " + bounds;
+    }
+  }
+
+  /**
+   * Flattened pixels of an image, as ARGB.
+   */
+  private static final class Pixels {
+    final int[] data;
+    final int offset;
+    final int stride;
+    final boolean alpha;
+
+    Pixels(int[] data, int offset, int stride, boolean alpha) {
+      this.data = data;
+      this.offset = offset;
+      this.stride = stride;
+      this.alpha = alpha;
+    }
+
+    int get(int x, int y) {
+      int argb = data[offset + y * stride + x];
+      return alpha ? argb : argb | 0xff000000;
+    }
+  }
+
   private final FileComparator comparator = new FileComparator();
 
-  private static File convertToJPEGFile(Object obj) throws IOException {
-    if (obj != null) {
-      if (obj instanceof String) {
-        obj = new File((String) obj);
+  private final int tolerance;
+
+  private final int allowedPixels;
+
+  private final List<Rectangle> masks = new ArrayList<>();
+
+  /**
+   * Create a comparator which requires all pixels to be identical.
+   */
+  public ImageComparator() {
+    this(0, 0);
+  }
+
+  /**
+   * Create a comparator which allows each color channel of a pixel to differ by the given amount.
+   */
+  public ImageComparator(int tolerance) {
+    this(tolerance, 0);
+  }
+
+  /**
+   * Create a comparator which allows each color channel of a pixel to differ by the given amount, and up to the
+   * given number of pixels to differ by more.
+   */
+  public ImageComparator(int tolerance, int allowedPixels) {
+    if (tolerance < 0 || tolerance > 255) {
+      throw new IllegalArgumentException("Tolerance must be between 0 and 255");
+    }
+    this.tolerance = tolerance;
+    this.allowedPixels = allowedPixels;
+  }
+
+  /**
+   * Ignore the given region of the images when comparing.
+   */
+  public void addMask(Rectangle region) {
+    masks.add(new Rectangle(region));
+  }
+
+  /**
+   * Write the given buffered image to disk as a JPEG with the best quality.
+   */
+  public static void writeJPEG(File file, BufferedImage img) throws IOException {
+    try (OutputStream os = Files.newOutputStream(file.toPath())) {
+      writeJPEG(os, img);
+    }
+  }
+
+  private static void writeJPEG(OutputStream os, BufferedImage img) throws IOException {
+    Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpg");
+    if (!writers.hasNext()) {
+      throw new IOException("No JPEG writer available");
+    }
+    ImageWriter writer = writers.next();
+    try (ImageOutputStream out = ImageIO.createImageOutputStream(os)) {
+      ImageWriteParam param = writer.getDefaultWriteParam();
+      // Lossless, please (or as near as JPEG gets)
+      param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+      param.setCompressionQuality(1.0f);
+      writer.setOutput(out);
+      writer.write(null, new IIOImage(toRGB(img), null, null), param);
+    } finally {
+      writer.dispose();
+    }
+  }
+
+  /**
+   * Returns the given image without alpha, as JPEG requires.
+   */
+  private static BufferedImage toRGB(BufferedImage img) {
+    if (!img.getColorModel().hasAlpha()) {
+      return img;
+    }
+    BufferedImage rgb =
+        new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_INT_RGB);
+    Graphics g = rgb.getGraphics();
+    g.drawImage(img, 0, 0, null);
+    g.dispose();
+    return rgb;
+  }
+
+  private static boolean isJPEG(File file) {
+    String name = file.getName().toLowerCase();
+    return name.endsWith(".jpg") || name.endsWith(".jpeg");
+  }
+
+  /**
+   * Return the given image, JPEG-compressed as by {@link #writeJPEG(File, BufferedImage)}.
+   */
+  private static BufferedImage compressJPEG(BufferedImage img) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    writeJPEG(os, img);
+    return ImageIO.read(new ByteArrayInputStream(os.toByteArray()));
+  }
+
+  private static BufferedImage toImage(Object obj) throws IOException {
+    if (obj instanceof String) {
+      obj = new File((String) obj);
+    }
+    if (obj instanceof BufferedImage) {
+      return (BufferedImage) obj;
+    }
+    if (obj instanceof File) {
+      BufferedImage img = ImageIO.read((File) obj);
+      if (img == null) {
+        throw new IOException("Unrecognized image format: " + obj);
+      }
+      return img;
+    }
+    throw new IllegalArgumentException("Expecting a BufferedImage, File or String");
+  }
+
+  /**
+   * Load both images; if exactly one was given as a JPEG file, compress the other the same way.
+   */
+  private static BufferedImage[] toImages(Object obj1, Object obj2) throws IOException {
+    if (obj1 instanceof String) {
+      obj1 = new File((String) obj1);
+    }
+    if (obj2 instanceof String) {
+      obj2 = new File((String) obj2);
+    }
+    BufferedImage img1 = toImage(obj1);
+    BufferedImage img2 = toImage(obj2);
+    boolean jpeg1 = obj1 instanceof File && isJPEG((File) obj1);
+    boolean jpeg2 = obj2 instanceof File && isJPEG((File) obj2);
+    if (jpeg1 && !jpeg2) {
+      img2 = compressJPEG(img2);
+    } else if (jpeg2 && !jpeg1) {
+      img1 = compressJPEG(img1);
+    }
+    return new BufferedImage[] {img1, img2};
+  }
+
+  /**
+   * Returns the pixels of the given image, using its data buffer directly if the image stores packed ints.
+   */
+  private static Pixels getPixels(BufferedImage img) {
+    int type = img.getType();
+    if ((type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+        && img.getRaster().getDataBuffer() instanceof DataBufferInt
+        && img.getSampleModel() instanceof SinglePixelPackedSampleModel) {
+      SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) img.getSampleModel();
+      int offset =
+          img.getRaster().getDataBuffer().getOffset()
+              - img.getRaster().getSampleModelTranslateY() * model.getScanlineStride()
+              - img.getRaster().getSampleModelTranslateX();
+      return new Pixels(
+          ((DataBufferInt) img.getRaster().getDataBuffer()).getData(),
+          offset,
+          model.getScanlineStride(),
+          type == BufferedImage.TYPE_INT_ARGB);
+    }
+    int width = img.getWidth();
+    int[] data = img.getRGB(0, 0, width, img.getHeight(), null, 0, width);
+    return new Pixels(data, 0, width, true);
+  }
+
+  /**
+   * Returns the largest difference between the channels of the given pixels.
+   */
+  private static int maxDelta(int p1, int p2) {
+    int max = 0;
+    for (int shift = 0; shift < 32; shift += 8) {
+      int delta = Math.abs(((p1 >>> shift) & 0xff) - ((p2 >>> shift) & 0xff));
+      if (delta > max) {
+        max = delta;
       }
-      if (obj instanceof BufferedImage) {
-        File file = File.createTempFile("ImageComparator", ".jpg");
-        Log.debug("Creating " + file);
-        writeJPEG(file, (BufferedImage) obj);
-        file.deleteOnExit();
-        return file;
+    }
+    return max;
+  }
+
+  /**
+   * Returns how strongly the given pixels differ to the eye, from 0 to 255.
+   */
+  private static int perceptualDelta(int p1, int p2) {
+    int red = Math.abs(((p1 >> 16) & 0xff) - ((p2 >> 16) & 0xff));
+    int green = Math.abs(((p1 >> 8) & 0xff) - ((p2 >> 8) & 0xff));
+    int blue = Math.abs((p1 & 0xff) - (p2 & 0xff));
+    int alpha = Math.abs((p1 >>> 24) - (p2 >>> 24));
+    return Math.max(alpha, (red * 299 + green * 587 + blue * 114) / 1000);
+  }
+
+  /**
+   * Returns which pixels are masked, or null if none are.
+   */
+  private boolean[] getMasked(int width, int height) {
+    if (masks.isEmpty()) {
+      return null;
+    }
+    boolean[] masked = new boolean[width * height];
+    Rectangle image = new Rectangle(0, 0, width, height);
+    for (Rectangle mask : masks) {
+      Rectangle r = mask.intersection(image);
+      for (int y = r.y; y < r.y + r.height; y++) {
+        for (int x = r.x; x < r.x + r.width; x++) {
+          masked[y * width + x] = true;
+        }
       }
-      if (obj instanceof File) {
-        return (File) obj;
+    }
+    return masked;
+  }
+
+  /**
+   * Compare two images, stopping as soon as more than the allowed number of pixels differ.
+   *
+   * @return the number of differing pixels if more than allowed, or the difference in size, or zero if the images
+   *     match
+   */
+  private int compareImages(BufferedImage img1, BufferedImage img2) {
+    int width = img1.getWidth();
+    int height = img1.getHeight();
+    if (width != img2.getWidth() || height != img2.getHeight()) {
+      return width != img2.getWidth() ? width - img2.getWidth() : height - img2.getHeight();
+    }
+    Pixels p1 = getPixels(img1);
+    Pixels p2 = getPixels(img2);
+    boolean[] masked = getMasked(width, height);
+    int count = 0;
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int a = p1.get(x, y);
+        int b = p2.get(x, y);
+        if (a != b
+            && (masked == null || !masked[y * width + x])
+            && (tolerance == 0 || maxDelta(a, b) > tolerance)
+            && ++count > allowedPixels) {
+          return a < b ? -count : count;
+        }
       }
     }
-    return null;
+    return 0;
   }
 
   /**
-   * Write the given buffered image to disk.
+   * Find all the differences between two images.  May be BufferedImages, Files or filenames.
+   *
+   * @throws IOException if an image file can't be read
    */
-  public static void writeJPEG(File file, BufferedImage img) throws IOException {
-    // NOT Supported in Mac Java5+
-    //      FileOutputStream os = new FileOutputStream(file);
-    //      JPEGImageEncoder ie = JPEGCodec.createJPEGEncoder(os);
-    //      JPEGEncodeParam param = ie.getDefaultJPEGEncodeParam(img);
-    //      // Lossless, please
-    //      param.setQuality(1.0f, false);
-    //      ie.setJPEGEncodeParam(param);
-    //      ie.encode(img);
-    //      os.close();
-    throw new UnsupportedOperationException();
+  public Difference diff(Object obj1, Object obj2) throws IOException {
+    BufferedImage[] images = toImages(obj1, obj2);
+    BufferedImage img1 = images[0];
+    BufferedImage img2 = images[1];
+    int width = img1.getWidth();
+    int height = img1.getHeight();
+    if (width != img2.getWidth() || height != img2.getHeight()) {
+      return new Difference(width, height, -1, null, null);
+    }
+    Pixels p1 = getPixels(img1);
+    Pixels p2 = getPixels(img2);
+    boolean[] masked = getMasked(width, height);
+    int[] deltas = new int[width * height];
+    int count = 0;
+    int minX = width;
+    int minY = height;
+    int maxX = -1;
+    int maxY = -1;
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int a = p1.get(x, y);
+        int b = p2.get(x, y);
+        if (a == b || (masked != null && masked[y * width + x]) || maxDelta(a, b) <= tolerance) {
+          continue;
+        }
+        deltas[y * width + x] = perceptualDelta(a, b);
+        ++count;
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+      }
+    }
+    Rectangle bounds =
+        count == 0 ? null : new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+    return new Difference(width, height, count, bounds, deltas);
   }
 
   /**
-   * Compare two images.  May be BufferedImages or File arguments.
+   * Compare two images.  May be BufferedImages, Files or filenames.  Two image files are considered identical if
+   * their contents are identical.
+   *
+   * @return zero if the images match
    */
   public int compare(Object obj1, Object obj2) {
-    try {
-      obj1 = convertToJPEGFile(obj1);
-    } catch (IOException io) {
-      obj1 = null;
+    if (obj1 == obj2) {
+      return 0;
+    }
+    // Call null < object
+    if (obj1 == null) {
+      return -1;
+    }
+    // Call object > null
+    if (obj2 == null) {
+      return 1;
+    }
+    if (!(obj1 instanceof BufferedImage)
+        && !(obj2 instanceof BufferedImage)
+        && comparator.compare(obj1, obj2) == 0) {
+      return 0;
     }
     try {
-      obj2 = convertToJPEGFile(obj2);
+      BufferedImage[] images = toImages(obj1, obj2);
+      return compareImages(images[0], images[1]);
     } catch (IOException io) {
-      obj2 = null;
+      Log.debug(io);
+      return obj1 instanceof BufferedImage ? 1 : -1;
     }
-    Log.debug("Comparing " + obj1 + " and " + obj2);
-    return comparator.compare(obj1, obj2);
   }
 
   /**
-   * Comparators are equal if they're the same class.
+   * Comparators are equal if they're the same class with the same tolerances and masks.
    */
   public boolean equals(Object obj) {
-    return obj == this || (obj != null && obj.getClass().equals(getClass()));
+    if (obj == this) {
+      return true;
+    }
+    if (obj == null || !obj.getClass().equals(getClass())) {
+      return false;
+    }
+    ImageComparator other = (ImageComparator) obj;
+    return tolerance == other.tolerance
+        && allowedPixels == other.allowedPixels
+        && masks.equals(other.masks);
+  }
+
+  public int hashCode() {
+    return (tolerance * 31 + allowedPixels) * 31 + masks.hashCode();
   }
 }
@@ -0,0 +1,312 @@
+package abbot.tester;
+
+import abbot.script.ArgumentParser;
+import com.windowtester.runtime.util.StringComparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import javax.swing.*;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableModel;
+
+/**
+ * Finds JTable cells by value without running the cell renderer for every cell.  The string representations of the
+ * values in a table's model are indexed on first use.  The result is the same as scanning the table with the renderer
+ * (see {@link JTableTester#valueToString(JTable, int, int)}) and stopping at the first match: the first cell whose
+ * model value matches bounds the scan, and cells shown by a plain {@link DefaultTableCellRenderer}, which displays
+ * exactly the indexed value, are skipped without being rendered.  Only cells with other renderers are rendered.<p>
+ * <p>
+ * The index is kept up to date through a {@link TableModelListener}: updated cells are re-indexed, and any other
+ * change discards the index until it is next used.
+ */
+public final class JTableCellIndex implements TableModelListener {
+
+  /**
+   * Cells of the model, packed as row and column, which share a value.
+   */
+  private static final class Cells {
+    private long[] cells = new long[1];
+    private int size = 0;
+
+    void add(long cell) {
+      if (size == cells.length) {
+        long[] grown = new long[size * 2];
+        System.arraycopy(cells, 0, grown, 0, size);
+        cells = grown;
+      }
+      cells[size++] = cell;
+    }
+
+    boolean remove(long cell) {
+      for (int i = 0; i < size; i++) {
+        if (cells[i] == cell) {
+          cells[i] = cells[--size];
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private final TableModel model;
+
+  /**
+   * Maps each value string to the cells with that value; null when the index must be rebuilt.
+   */
+  private Map<String, Cells> index = null;
+
+  /**
+   * Value string of each cell, by column then row.
+   */
+  private String[][] keys;
+
+  private JTableCellIndex(TableModel model) {
+    this.model = model;
+    model.addTableModelListener(this);
+  }
+
+  /**
+   * Returns the index for the given table's current model.
+   */
+  public static JTableCellIndex getIndex(JTable table) {
+    synchronized (table) {
+      JTableCellIndex index = (JTableCellIndex) table.getClientProperty(JTableCellIndex.class);
+      TableModel model = table.getModel();
+      if (index == null || index.model != model) {
+        if (index != null) {
+          index.model.removeTableModelListener(index);
+        }
+        index = new JTableCellIndex(model);
+        table.putClientProperty(JTableCellIndex.class, index);
+      }
+      return index;
+    }
+  }
+
+  /**
+   * Find the first cell of the given table whose value matches the given string (see {@link StringComparator}),
+   * optionally restricted to a single column.
+   *
+   * @param column the view column to search, or -1 for all columns
+   * @return the cell in view coordinates, or null if no cell matches
+   */
+  public static JTableLocation.Cell findCell(JTable table, String value, int column) {
+    return getIndex(table).find(table, value, column);
+  }
+
+  private static String getKey(Object value) {
+    if (value == null) {
+      return null;
+    }
+    String key = ArgumentParser.toString(value);
+    if (key == ArgumentParser.DEFAULT_TOSTRING) {
+      return null;
+    }
+    key = key.trim();
+    return key.length() > 0 ? key : null;
+  }
+
+  private static long pack(int row, int col) {
+    return ((long) row << 32) | col;
+  }
+
+  private void put(String key, int row, int col) {
+    if (key == null) {
+      return;
+    }
+    Cells cells = index.get(key);
+    if (cells == null) {
+      cells = new Cells();
+      index.put(key, cells);
+    }
+    cells.add(pack(row, col));
+  }
+
+  private void build() {
+    int rows = model.getRowCount();
+    int cols = model.getColumnCount();
+    index = new HashMap<>();
+    keys = new String[cols][rows];
+    for (int col = 0; col < cols; col++) {
+      for (int row = 0; row < rows; row++) {
+        String key = getKey(model.getValueAt(row, col));
+        keys[col][row] = key;
+        put(key, row, col);
+      }
+    }
+  }
+
+  /**
+   * Scan the cells before the first verified indexed match, rendering only those whose rendered value may differ from
+   * their indexed value.
+   */
+  private synchronized JTableLocation.Cell find(JTable table, String value, int column) {
+    if (index == null) {
+      build();
+    }
+    JTableLocation.Cell bound = findIndexed(table, value, column);
+    int first = column != -1 ? column : 0;
+    int last = column != -1 ? column + 1 : table.getColumnCount();
+    boolean[] plain = new boolean[last];
+    for (int col = first; col < last; col++) {
+      plain[col] = isPlain(table, col);
+    }
+    for (int row = 0; row < table.getRowCount(); row++) {
+      for (int col = first; col < last; col++) {
+        if (bound != null && (row > bound.row || (row == bound.row && col >= bound.col))) {
+          return bound;
+        }
+        if (plain[col] && getKey(table, row, col) != null) {
+          // Rendered as its indexed value, which is not a match
+          continue;
+        }
+        if (StringComparator.matches(JTableTester.valueToString(table, row, col), value)) {
+          return new JTableLocation.Cell(row, col);
+        }
+      }
+    }
+    return bound;
+  }
+
+  /**
+   * Returns whether every cell of the given view column is rendered as exactly its indexed value.
+   */
+  private static boolean isPlain(JTable table, int col) {
+    try {
+      Class<?> c = table.getClass();
+      if (c.getMethod("getCellRenderer", int.class, int.class).getDeclaringClass() != JTable.class
+          || c.getMethod("getValueAt", int.class, int.class).getDeclaringClass() != JTable.class) {
+        return false;
+      }
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+    TableCellRenderer renderer = table.getColumnModel().getColumn(col).getCellRenderer();
+    if (renderer == null) {
+      renderer = table.getDefaultRenderer(table.getColumnClass(col));
+    }
+    return renderer != null
+        && (renderer.getClass() == DefaultTableCellRenderer.class
+            || renderer.getClass() == DefaultTableCellRenderer.UIResource.class);
+  }
+
+  /**
+   * Returns the indexed value of the given view cell, or null if it has none.
+   */
+  private String getKey(JTable table, int row, int col) {
+    int modelRow = table.convertRowIndexToModel(row);
+    int modelCol = table.convertColumnIndexToModel(col);
+    if (modelCol < 0
+        || modelCol >= keys.length
+        || modelRow < 0
+        || modelRow >= keys[modelCol].length) {
+      return null;
+    }
+    return keys[modelCol][modelRow];
+  }
+
+  /**
+   * Return the first verified match among the cells whose model value matches, or null if there are none.
+   */
+  private JTableLocation.Cell findIndexed(JTable table, String value, int column) {
+    int bestRow = Integer.MAX_VALUE;
+    int bestCol = Integer.MAX_VALUE;
+    if (StringComparator.isLiteral(value)) {
+      Cells cells = index.get(value);
+      if (cells == null) {
+        return null;
+      }
+      for (int i = 0; i < cells.size; i++) {
+        long cell = cells.cells[i];
+        int row = table.convertRowIndexToView((int) (cell >>> 32));
+        int col = table.convertColumnIndexToView((int) cell);
+        if (isBetter(row, col, bestRow, bestCol, column) && matches(table, row, col, value)) {
+          bestRow = row;
+          bestCol = col;
+        }
+      }
+    } else {
+      for (Iterator<Map.Entry<String, Cells>> iter = index.entrySet().iterator();
+          iter.hasNext(); ) {
+        Map.Entry<String, Cells> entry = iter.next();
+        if (!StringComparator.matches(entry.getKey(), value)) {
+          continue;
+        }
+        Cells cells = entry.getValue();
+        for (int i = 0; i < cells.size; i++) {
+          long cell = cells.cells[i];
+          int row = table.convertRowIndexToView((int) (cell >>> 32));
+          int col = table.convertColumnIndexToView((int) cell);
+          if (isBetter(row, col, bestRow, bestCol, column) && matches(table, row, col, value)) {
+            bestRow = row;
+            bestCol = col;
+          }
+        }
+      }
+    }
+    return bestRow == Integer.MAX_VALUE ? null : new JTableLocation.Cell(bestRow, bestCol);
+  }
+
+  /**
+   * Returns whether the given view cell is visible, in the requested column, and before the best match so far.
+   */
+  private static boolean isBetter(int row, int col, int bestRow, int bestCol, int column) {
+    if (row < 0 || col < 0 || (column != -1 && col != column)) {
+      return false;
+    }
+    return row < bestRow || (row == bestRow && col < bestCol);
+  }
+
+  private static boolean matches(JTable table, int row, int col, String value) {
+    return row < table.getRowCount()
+        && col < table.getColumnCount()
+        && StringComparator.matches(JTableTester.valueToString(table, row, col), value);
+  }
+
+  /**
+   * Re-index updated cells; discard the index on any other change.
+   */
+  public synchronized void tableChanged(TableModelEvent e) {
+    if (index == null) {
+      return;
+    }
+    int first = e.getFirstRow();
+    int last = e.getLastRow();
+    int cols = keys.length;
+    int rows = cols > 0 ? keys[0].length : 0;
+    if (e.getType() != TableModelEvent.UPDATE
+        || first == TableModelEvent.HEADER_ROW
+        || last >= rows
+        || model.getRowCount() != rows
+        || model.getColumnCount() != cols) {
+      index = null;
+      keys = null;
+      return;
+    }
+    int firstCol = e.getColumn() == TableModelEvent.ALL_COLUMNS ? 0 : e.getColumn();
+    int lastCol = e.getColumn() == TableModelEvent.ALL_COLUMNS ? cols - 1 : e.getColumn();
+    if (lastCol >= cols) {
+      index = null;
+      keys = null;
+      return;
+    }
+    for (int col = firstCol; col <= lastCol; col++) {
+      for (int row = first; row <= last; row++) {
+        String old = keys[col][row];
+        if (old != null) {
+          Cells cells = index.get(old);
+          cells.remove(pack(row, col));
+          if (cells.size == 0) {
+            index.remove(old);
+          }
+        }
+        String key = getKey(model.getValueAt(row, col));
+        keys[col][row] = key;
+        put(key, row, col);
+      }
+    }
+  }
+}
@@ -1,7 +1,6 @@
 package abbot.tester;
 
 import abbot.i18n.Strings;
-import com.windowtester.runtime.util.StringComparator;
 import java.awt.*;
 import java.util.StringTokenizer;
 import javax.swing.*;
@@ -76,15 +75,13 @@ public class JTableLocation extends ComponentLocation {
 
   /**
    * Return the row, col of the first object matching the given String.
+   *
+   * @see JTableCellIndex
    */
   private Cell valueToCell(JTable table, String value) {
-    for (int row = 0; row < table.getRowCount(); row++) {
-      for (int col = 0; col < table.getColumnCount(); col++) {
-        String str = JTableTester.valueToString(table, row, col);
-        if (StringComparator.matches(str, value)) {
-          return new JTableLocation.Cell(row, col);
-        }
-      }
+    Cell cell = JTableCellIndex.findCell(table, value, -1);
+    if (cell != null) {
+      return cell;
     }
     String msg = Strings.get("tester.JTable.invalid_value", new Object[] {value});
     throw new LocationUnavailableException(msg);
@@ -1,12 +1,9 @@
 package abbot.tester;
 
-import abbot.Log;
 import abbot.i18n.Strings;
 import abbot.script.parsers.TreePathParser;
-import com.windowtester.runtime.util.StringComparator;
 import java.awt.*;
 import javax.swing.*;
-import javax.swing.tree.TreeModel;
 import javax.swing.tree.TreePath;
 
 /**
@@ -247,83 +244,18 @@ public class JTreeLocation extends ComponentLocation {
     return Strings.get("location.tree.bad_format", new Object[] {encoded});
   }
 
-  /**
-   * Return whether the given Object matches the final element of the given TreePath.
-   */
-  private static boolean matchesLastComponent(JTree tree, Object pattern, TreePath path) {
-    // For matching the root node, or for other nodes you don't care about
-    // whether they match
-    if (pattern == null) {
-      return true;
-    }
-    if (pattern.equals(path.getLastPathComponent())) {
-      return true;
-    }
-    // Try a string comparison
-    String objString = JTreeTester.valueToString(tree, path);
-    return StringComparator.matches(objString, pattern.toString());
-  }
-
   /**
    * Given a {@link TreePath} of {@link String}s, return the equivalent {@link TreePath} for the given {@link JTree}
-   * constructed from objects from the tree's model.
+   * constructed from objects from the tree's model.  Resolved paths are cached, see {@link JTreePathCache}.
    *
    * @throws LocationUnavailableException if no matching path is found.
    */
   public static TreePath findMatchingPath(JTree tree, TreePath path) {
-    Object[] input = path.getPath();
-    TreeModel model = tree.getModel();
-    Object root = model.getRoot();
-    // If the root is not visible and it doesn't match the first path
-    // element, start the path with the invisible root.
-    if (!tree.isRootVisible() && !matchesLastComponent(tree, input[0], new TreePath(root))) {
-      Object[] tmp = new Object[input.length + 1];
-      System.arraycopy(input, 0, tmp, 1, input.length);
-      tmp[0] = null; // null always matches root
-      input = tmp;
-    }
-    TreePath realPath = findMatchingPath(tree, new TreePath(root), input);
+    TreePath realPath = JTreePathCache.findMatchingPath(tree, path);
     if (realPath != null) {
       return realPath;
     }
     String msg = Strings.get("tester.JTree.path_not_found", new Object[] {path});
     throw new LocationUnavailableException(msg);
   }
-
-  /**
-   * Build up the given tree path with Objects from the TreeModel which match the given array of Objects.
-   */
-  private static TreePath findMatchingPath(JTree tree, TreePath realPath, Object[] input) {
-    // The given array is a tree path of objects which may or may not be
-    // node objects.  Convert them to existing tree objects if necessary.
-    // Return null if any of them are not found.
-    Log.debug(
-        "Comparing " + realPath + " with " + input[0] + " from " + java.util.Arrays.asList(input));
-    TreeModel model = tree.getModel();
-    if (!matchesLastComponent(tree, input[0], realPath)) {
-      Log.debug("no root match");
-    } else {
-      Log.debug("node matched: " + realPath.getLastPathComponent());
-      if (input.length == 1) {
-        return realPath;
-      }
-
-      Object[] subs = new Object[input.length - 1];
-      System.arraycopy(input, 1, subs, 0, subs.length);
-      Object obj = realPath.getLastPathComponent();
-      int count = model.getChildCount(obj);
-      Log.debug("Obj " + obj + " (" + obj.getClass() + ") has " + count);
-      // Find the right child to match
-      for (int i = 0; i < count; i++) {
-        Log.debug("checking child " + i);
-        Object child = model.getChild(obj, i);
-        TreePath newPath = findMatchingPath(tree, realPath.pathByAddingChild(child), subs);
-        if (newPath != null) {
-          return newPath;
-        }
-      }
-      Log.debug("No child path matched");
-    }
-    return null;
-  }
 }
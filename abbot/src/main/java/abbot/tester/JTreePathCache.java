@@ -0,0 +1,248 @@
+package abbot.tester;
+
+import com.windowtester.runtime.util.StringComparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import javax.swing.*;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeCellRenderer;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+
+/**
+ * Resolves {@link TreePath}s of Strings (or other objects standing in for tree nodes) to the equivalent paths of
+ * objects in a {@link JTree}'s model, remembering each resolved path.  Paths are keyed by the given path itself, so a
+ * repeated lookup of an equal path, e.g. the same location used first to make the path visible and then to click on it,
+ * returns the remembered path without searching or allocating.  Resolving a path whose parent has already been
+ * resolved only searches the children of the parent's node.<p>
+ * <p>
+ * The cache is kept per tree, since matching uses the tree's renderer, and is discarded when the tree's model,
+ * renderer or root visibility changes.  A {@link TreeModelListener} drops the resolved paths which pass through a
+ * changed part of the model, as well as any path which was only found after abandoning another matching branch, since
+ * changes in the abandoned branch may change the result.
+ */
+public final class JTreePathCache implements TreeModelListener {
+
+  /**
+   * Limit on the number of remembered paths; the cache is cleared when exceeded.
+   */
+  private static final int MAX_PATHS = 1000;
+
+  private static final class Entry {
+    final TreePath resolved;
+    final boolean backtracked;
+
+    Entry(TreePath resolved, boolean backtracked) {
+      this.resolved = resolved;
+      this.backtracked = backtracked;
+    }
+  }
+
+  private final TreeModel model;
+
+  private TreeCellRenderer renderer;
+
+  private boolean rootVisible;
+
+  private final Map<TreePath, Entry> paths = new HashMap<>();
+
+  /**
+   * Whether the current search abandoned a branch which matched.
+   */
+  private boolean backtracked;
+
+  private JTreePathCache(JTree tree) {
+    this.model = tree.getModel();
+    this.renderer = tree.getCellRenderer();
+    this.rootVisible = tree.isRootVisible();
+    model.addTreeModelListener(this);
+  }
+
+  /**
+   * Returns the cache for the given tree's current model.
+   */
+  public static JTreePathCache getCache(JTree tree) {
+    synchronized (tree) {
+      JTreePathCache cache = (JTreePathCache) tree.getClientProperty(JTreePathCache.class);
+      if (cache == null || cache.model != tree.getModel()) {
+        if (cache != null) {
+          cache.model.removeTreeModelListener(cache);
+        }
+        cache = new JTreePathCache(tree);
+        tree.putClientProperty(JTreePathCache.class, cache);
+      }
+      return cache;
+    }
+  }
+
+  /**
+   * Given a {@link TreePath} of {@link String}s, return the equivalent {@link TreePath} for the given {@link JTree}
+   * constructed from objects from the tree's model.
+   *
+   * @return the matching path, or null if there is none
+   */
+  public static TreePath findMatchingPath(JTree tree, TreePath path) {
+    return getCache(tree).resolve(tree, path);
+  }
+
+  private synchronized TreePath resolve(JTree tree, TreePath path) {
+    if (renderer != tree.getCellRenderer() || rootVisible != tree.isRootVisible()) {
+      paths.clear();
+      renderer = tree.getCellRenderer();
+      rootVisible = tree.isRootVisible();
+    }
+    Entry entry = paths.get(path);
+    if (entry != null) {
+      if (isValid(entry.resolved)) {
+        return entry.resolved;
+      }
+      paths.remove(path);
+    }
+    backtracked = false;
+    TreePath resolved = resolveFromParent(tree, path);
+    if (resolved == null) {
+      backtracked = false;
+      resolved = resolveFromRoot(tree, path);
+    }
+    if (resolved != null) {
+      if (paths.size() >= MAX_PATHS) {
+        paths.clear();
+      }
+      paths.put(path, new Entry(resolved, backtracked));
+    }
+    return resolved;
+  }
+
+  /**
+   * Search only the children of the node matching the given path's parent, if that has been resolved without
+   * backtracking.
+   */
+  private TreePath resolveFromParent(JTree tree, TreePath path) {
+    TreePath parentPath = path.getParentPath();
+    Entry parent = parentPath != null ? paths.get(parentPath) : null;
+    if (parent == null || parent.backtracked || !isValid(parent.resolved)) {
+      return null;
+    }
+    Object[] input = path.getPath();
+    return searchChildren(tree, parent.resolved, input, input.length - 1);
+  }
+
+  private TreePath resolveFromRoot(JTree tree, TreePath path) {
+    Object[] input = path.getPath();
+    TreePath root = new TreePath(model.getRoot());
+    // If the root is not visible and it doesn't match the first path
+    // element, start the path with the invisible root.
+    if (!tree.isRootVisible() && !matchesLastComponent(tree, input[0], root)) {
+      return searchChildren(tree, root, input, 0);
+    }
+    return search(tree, root, input, 0);
+  }
+
+  /**
+   * Returns whether the given resolved path still exists in the model.
+   */
+  private boolean isValid(TreePath resolved) {
+    int count = resolved.getPathCount();
+    if (resolved.getPathComponent(0) != model.getRoot()) {
+      return false;
+    }
+    for (int i = 1; i < count; i++) {
+      if (model.getIndexOfChild(resolved.getPathComponent(i - 1), resolved.getPathComponent(i))
+          < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Match the last component of the given real path against the given input element, then its descendants against
+   * the remaining elements.
+   */
+  private TreePath search(JTree tree, TreePath realPath, Object[] input, int index) {
+    if (!matchesLastComponent(tree, input[index], realPath)) {
+      return null;
+    }
+    if (index == input.length - 1) {
+      return realPath;
+    }
+    TreePath found = searchChildren(tree, realPath, input, index + 1);
+    if (found == null) {
+      backtracked = true;
+    }
+    return found;
+  }
+
+  /**
+   * Find the first child of the given real path which, with its descendants, matches the input elements starting at
+   * the given index.
+   */
+  private TreePath searchChildren(JTree tree, TreePath realPath, Object[] input, int index) {
+    Object obj = realPath.getLastPathComponent();
+    int count = model.getChildCount(obj);
+    for (int i = 0; i < count; i++) {
+      Object child = model.getChild(obj, i);
+      TreePath found = search(tree, realPath.pathByAddingChild(child), input, index);
+      if (found != null) {
+        return found;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Return whether the given Object matches the final element of the given TreePath.
+   */
+  private static boolean matchesLastComponent(JTree tree, Object pattern, TreePath path) {
+    // For matching the root node, or for other nodes you don't care about
+    // whether they match
+    if (pattern == null) {
+      return true;
+    }
+    if (pattern.equals(path.getLastPathComponent())) {
+      return true;
+    }
+    // Try a string comparison
+    String objString = JTreeTester.valueToString(tree, path);
+    return StringComparator.matches(objString, pattern.toString());
+  }
+
+  /**
+   * Drop the resolved paths which may be affected by a change below the given path.
+   *
+   * @param inclusive whether the node at the given path itself changed, rather than only its children
+   */
+  private synchronized void invalidate(TreeModelEvent e, boolean inclusive) {
+    TreePath changed = e.getTreePath();
+    if (changed == null || changed.getPathCount() == 0) {
+      paths.clear();
+      return;
+    }
+    for (Iterator<Entry> iter = paths.values().iterator(); iter.hasNext(); ) {
+      Entry entry = iter.next();
+      if (entry.backtracked
+          || (changed.isDescendant(entry.resolved)
+              && (inclusive || entry.resolved.getPathCount() > changed.getPathCount()))) {
+        iter.remove();
+      }
+    }
+  }
+
+  public void treeNodesChanged(TreeModelEvent e) {
+    invalidate(e, e.getChildIndices() == null);
+  }
+
+  public void treeNodesInserted(TreeModelEvent e) {
+    invalidate(e, false);
+  }
+
+  public void treeNodesRemoved(TreeModelEvent e) {
+    invalidate(e, false);
+  }
+
+  public void treeStructureChanged(TreeModelEvent e) {
+    invalidate(e, true);
+  }
+}
@@ -2,8 +2,10 @@ package abbot.tester;
 
 import abbot.Log;
 import abbot.Platform;
+import abbot.Version;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Field;
@@ -13,6 +15,7 @@ import java.util.Iterator;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.zip.CRC32;
 import javax.swing.*;
 
 /**
@@ -23,25 +26,27 @@ import javax.swing.*;
  * (assumes only a single modifier has any effect on key output, interesting values are considered to be 0, 1, 2, 8).
  * VALUE is the char value of the KEY_TYPED keyChar corresponding to the VK_ keycode and modifiers, as an integer
  * value.
+ * <p>
+ * The mappings are compiled into a {@link KeyStrokeTable}, which is cached per user in the directory given by
+ * <code>abbot.keymap_cache_dir</code> (by default <code>.abbot/keymaps</code> in the user's home directory; set it to
+ * an empty string to disable the cache).  The cached table is regenerated whenever the generator, the abbot version or
+ * the contents of the map it was built from change.
  */
 public class KeyStrokeMap implements KeyStrokeMapProvider {
 
-  /**
-   * Map of Characters to virtual keycode-based KeyStrokes.
-   */
-  private static final Map keycodes = getKeyStrokeMap();
+  private static KeyStrokeMapProvider generator = null;
 
   /**
-   * Map of keycode-based KeyStrokes to Characters.
+   * Mappings between Characters and virtual keycode-based KeyStrokes.
    */
-  private static final Map chars = getCharacterMap();
+  private static final KeyStrokeTable table = loadTable();
 
   /**
    * Return the keycode-based KeyStroke corresponding to the given character, as best we can guess it, or null if we
    * don't know how to generate it.
    */
   public static KeyStroke getKeyStroke(char ch) {
-    return (KeyStroke) keycodes.get(new Character(ch));
+    return table.getKeyStroke(ch);
   }
 
   /**
@@ -51,20 +56,84 @@ public class KeyStrokeMap implements KeyStrokeMapProvider {
    * @return KeyEvent.VK_UNDEFINED if the result is unknown.
    */
   public static char getChar(KeyStroke ks) {
-    Character ch = (Character) chars.get(ks);
-    if (ch == null) {
+    char ch = table.getChar(ks.getKeyCode(), ks.getModifiers());
+    if (ch == KeyEvent.CHAR_UNDEFINED) {
       // Try again, but strip all modifiers but shift
       int mask = ks.getModifiers() & ~KeyEvent.SHIFT_MASK;
       ks = KeyStroke.getKeyStroke(ks.getKeyCode(), mask);
-      ch = (Character) chars.get(ks);
-      if (ch == null) {
-        return KeyEvent.CHAR_UNDEFINED;
+      ch = table.getChar(ks.getKeyCode(), ks.getModifiers());
+    }
+    return ch;
+  }
+
+  static KeyStrokeTable getTable() {
+    return table;
+  }
+
+  /**
+   * Returns the file in which the table for the current locale and OS is cached, or null if caching is disabled.
+   */
+  static File getCacheFile() {
+    String dir =
+        System.getProperty(
+            "abbot.keymap_cache_dir",
+            new File(new File(System.getProperty("user.home"), ".abbot"), "keymaps").getPath());
+    if (dir.length() == 0) {
+      return null;
+    }
+    return new File(dir, getMapNames()[0] + ".kmap");
+  }
+
+  /**
+   * Load the cached table, or generate the mappings and cache them if the cache is missing, invalid or was generated
+   * from different sources.  Failure to use the cache is never fatal.
+   */
+  private static KeyStrokeTable loadTable() {
+    File cache = null;
+    String source = "";
+    try {
+      cache = getCacheFile();
+      source = getSource();
+      if (cache != null) {
+        KeyStrokeTable table = KeyStrokeTable.load(cache);
+        if (table != null && table.getSource().equals(source)) {
+          Log.debug("Loaded keystroke map from " + cache);
+          return table;
+        }
       }
+    } catch (RuntimeException e) {
+      Log.warn("Can't load keystroke map " + cache + ": " + e);
+      cache = null;
     }
-    return ch.charValue();
+    Map keycodes = getKeyStrokeMap();
+    KeyStrokeTable table = KeyStrokeTable.create(source, keycodes, getCharacterMap(keycodes));
+    if (cache != null) {
+      try {
+        table.save(cache);
+      } catch (IOException | RuntimeException e) {
+        Log.warn("Can't save keystroke map " + cache + ": " + e);
+      }
+    }
+    return table;
   }
 
-  private static KeyStrokeMapProvider generator = null;
+  /**
+   * Identify the sources of the mappings: the generator class, the abbot version and a checksum of the map file for
+   * the current locale and OS.
+   */
+  static String getSource() {
+    KeyStrokeMapProvider generator = getGenerator();
+    String name = generator != null ? generator.getClass().getName() : "";
+    CRC32 crc = new CRC32();
+    try (InputStream is = findMap()) {
+      if (is != null) {
+        crc.update(is.readAllBytes());
+      }
+    } catch (IOException e) {
+      Log.warn("Can't read keystroke map: " + e);
+    }
+    return name + " " + Version.VERSION + " " + Long.toHexString(crc.getValue());
+  }
 
   /**
    * If available, provide a dedicated class to provide mappings between keystrokes and generated characters.
@@ -84,16 +153,16 @@ public class KeyStrokeMap implements KeyStrokeMapProvider {
     return generator;
   }
 
-  private static Map getCharacterMap() {
+  private static Map getCharacterMap(Map keycodes) {
     KeyStrokeMapProvider generator = getGenerator();
     Map m = generator != null ? generator.loadCharacterMap() : null;
-    return m != null ? m : generateCharacterMappings();
+    return m != null ? m : generateCharacterMappings(keycodes);
   }
 
   /**
-   * Generate a map from characters to virtual keycode-based KeyStrokes.
+   * Generate a map from virtual keycode-based KeyStrokes to characters.
    */
-  private static Map generateCharacterMappings() {
+  private static Map generateCharacterMappings(Map keycodes) {
     Log.debug("Generating default character mappings");
     Map map = new HashMap();
     Iterator iter = keycodes.keySet().iterator();
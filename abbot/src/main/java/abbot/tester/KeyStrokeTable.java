@@ -0,0 +1,268 @@
+package abbot.tester;
+
+import abbot.Log;
+import java.awt.event.KeyEvent;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import javax.swing.*;
+
+/**
+ * Compact, immutable mapping between characters and the virtual keycode-based KeyStrokes which generate them.
+ * Characters are looked up in a two-level table indexed by the high and low byte of the character, and KeyStrokes by
+ * binary search over their packed keycode and modifiers, so that neither lookup allocates.<p>
+ * <p>
+ * Tables may be saved in a binary format and loaded again by memory-mapping the file, which is much faster than
+ * parsing a properties map or generating the mappings.  The format is a header (magic number, format version, and a
+ * description of the sources of the mappings), followed by the number of character mappings and for each the
+ * character, keycode and modifiers, then the number of KeyStroke mappings and for each the keycode and modifiers
+ * (packed into a long, keycode first) and character.  All values are big-endian.<p>
+ * <p>
+ * Run {@link #main(String[])} to save the table for the current locale and OS, e.g. as part of building a test
+ * environment image.
+ */
+public final class KeyStrokeTable {
+
+  private static final int MAGIC = 0x414b4d50; // "AKMP"
+
+  private static final int VERSION = 1;
+
+  /**
+   * Character mappings, indexed by high then low byte of the character.  Pages without mappings are null.
+   */
+  private final KeyStroke[][] strokes = new KeyStroke[256][];
+
+  /**
+   * Packed keycode and modifiers of each KeyStroke mapping, sorted.
+   */
+  private final long[] keys;
+
+  /**
+   * Characters corresponding to each of {@link #keys}.
+   */
+  private final char[] chars;
+
+  private final String source;
+
+  private KeyStrokeTable(String source, long[] keys, char[] chars) {
+    this.source = source;
+    this.keys = keys;
+    this.chars = chars;
+  }
+
+  private static long pack(int keyCode, int modifiers) {
+    return ((long) keyCode << 32) | (modifiers & 0xffffffffL);
+  }
+
+  private void put(char ch, KeyStroke ks) {
+    KeyStroke[] page = strokes[ch >>> 8];
+    if (page == null) {
+      page = strokes[ch >>> 8] = new KeyStroke[256];
+    }
+    page[ch & 0xff] = ks;
+  }
+
+  /**
+   * Build a table from a map of Characters to KeyStrokes and a map of KeyStrokes to Characters, as provided by a
+   * {@link KeyStrokeMapProvider}.
+   *
+   * @param source identifies the provider and inputs of the mappings
+   */
+  public static KeyStrokeTable create(String source, Map keyStrokeMap, Map characterMap) {
+    long[] keys = new long[characterMap.size()];
+    char[] chars = new char[characterMap.size()];
+    int n = 0;
+    for (Iterator iter = characterMap.entrySet().iterator(); iter.hasNext(); ) {
+      Map.Entry entry = (Map.Entry) iter.next();
+      KeyStroke ks = (KeyStroke) entry.getKey();
+      keys[n] = pack(ks.getKeyCode(), ks.getModifiers());
+      chars[n++] = ((Character) entry.getValue()).charValue();
+    }
+    KeyStrokeTable table = sorted(source, keys, chars, n);
+    for (Iterator iter = keyStrokeMap.entrySet().iterator(); iter.hasNext(); ) {
+      Map.Entry entry = (Map.Entry) iter.next();
+      table.put(((Character) entry.getKey()).charValue(), (KeyStroke) entry.getValue());
+    }
+    return table;
+  }
+
+  private static KeyStrokeTable sorted(String source, long[] keys, char[] chars, int n) {
+    Integer[] order = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = Integer.valueOf(i);
+    }
+    Arrays.sort(order, (a, b) -> Long.compare(keys[a.intValue()], keys[b.intValue()]));
+    long[] sortedKeys = new long[n];
+    char[] sortedChars = new char[n];
+    for (int i = 0; i < n; i++) {
+      sortedKeys[i] = keys[order[i].intValue()];
+      sortedChars[i] = chars[order[i].intValue()];
+    }
+    return new KeyStrokeTable(source, sortedKeys, sortedChars);
+  }
+
+  /**
+   * Returns the KeyStroke which generates the given character, or null if unknown.
+   */
+  public KeyStroke getKeyStroke(char ch) {
+    KeyStroke[] page = strokes[ch >>> 8];
+    return page != null ? page[ch & 0xff] : null;
+  }
+
+  /**
+   * Returns the character generated by the given keycode and modifiers, or <code>KeyEvent.CHAR_UNDEFINED</code> if
+   * unknown.
+   */
+  public char getChar(int keyCode, int modifiers) {
+    int index = Arrays.binarySearch(keys, pack(keyCode, modifiers));
+    return index >= 0 ? chars[index] : KeyEvent.CHAR_UNDEFINED;
+  }
+
+  /**
+   * Returns the description of the sources of these mappings given to {@link #create(String, Map, Map)}.
+   */
+  public String getSource() {
+    return source;
+  }
+
+  /**
+   * Save this table to the given file.  The table is written to a temporary file which then replaces the given file,
+   * so that concurrent readers never see a partial table.
+   */
+  public void save(File file) throws IOException {
+    File dir = file.getAbsoluteFile().getParentFile();
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Can't create " + dir);
+    }
+    File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+    try {
+      DataOutputStream out = new DataOutputStream(new FileOutputStream(tmp));
+      try {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(source);
+        int count = 0;
+        for (KeyStroke[] page : strokes) {
+          if (page != null) {
+            for (KeyStroke ks : page) {
+              if (ks != null) {
+                ++count;
+              }
+            }
+          }
+        }
+        out.writeInt(count);
+        for (int hi = 0; hi < strokes.length; hi++) {
+          if (strokes[hi] != null) {
+            for (int lo = 0; lo < 256; lo++) {
+              KeyStroke ks = strokes[hi][lo];
+              if (ks != null) {
+                out.writeChar((hi << 8) | lo);
+                out.writeInt(ks.getKeyCode());
+                out.writeInt(ks.getModifiers());
+              }
+            }
+          }
+        }
+        out.writeInt(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+          out.writeLong(keys[i]);
+          out.writeChar(chars[i]);
+        }
+      } finally {
+        out.close();
+      }
+      if (!tmp.renameTo(file)) {
+        file.delete();
+        if (!tmp.renameTo(file)) {
+          throw new IOException("Can't rename " + tmp + " to " + file);
+        }
+      }
+    } finally {
+      tmp.delete();
+    }
+  }
+
+  /**
+   * Load a table saved with {@link #save(File)}.
+   *
+   * @return the table, or null if the file does not exist or is not a valid table
+   */
+  public static KeyStrokeTable load(File file) {
+    if (!file.isFile()) {
+      return null;
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+        FileChannel channel = raf.getChannel()) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return read(buffer);
+    } catch (IOException | RuntimeException e) {
+      Log.warn("Invalid keystroke map " + file + ": " + e);
+      return null;
+    }
+  }
+
+  private static KeyStrokeTable read(ByteBuffer buffer) throws IOException {
+    if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+      throw new IOException("unrecognized format");
+    }
+    byte[] utf = new byte[buffer.getShort() & 0xffff];
+    buffer.get(utf);
+    String source = new String(utf, "UTF-8");
+    int count = readCount(buffer, 10);
+    char[] strokeChars = new char[count];
+    KeyStroke[] strokes = new KeyStroke[count];
+    for (int i = 0; i < count; i++) {
+      strokeChars[i] = buffer.getChar();
+      strokes[i] = KeyStroke.getKeyStroke(buffer.getInt(), buffer.getInt());
+    }
+    int n = readCount(buffer, 10);
+    long[] keys = new long[n];
+    char[] chars = new char[n];
+    for (int i = 0; i < n; i++) {
+      keys[i] = buffer.getLong();
+      chars[i] = buffer.getChar();
+      if (i > 0 && keys[i] <= keys[i - 1]) {
+        throw new IOException("unsorted keystrokes");
+      }
+    }
+    KeyStrokeTable table = new KeyStrokeTable(source, keys, chars);
+    for (int i = 0; i < count; i++) {
+      table.put(strokeChars[i], strokes[i]);
+    }
+    return table;
+  }
+
+  /**
+   * Read the number of following records of the given size, checking that they fit in the rest of the buffer.
+   */
+  private static int readCount(ByteBuffer buffer, int recordSize) throws IOException {
+    int count = buffer.getInt();
+    if (count < 0 || count > buffer.remaining() / recordSize) {
+      throw new IOException("invalid count " + count);
+    }
+    return count;
+  }
+
+  /**
+   * Save the keystroke table for the current locale and OS to the given file, or to the per-user cache if none is
+   * given.
+   */
+  public static void main(String[] args) throws IOException {
+    File file = args.length > 0 ? new File(args[0]) : KeyStrokeMap.getCacheFile();
+    if (file == null) {
+      System.err.println("No keystroke map cache directory");
+      System.exit(1);
+    }
+    KeyStrokeMap.getTable().save(file);
+    System.out.println("Saved keystroke map as " + file);
+  }
+}
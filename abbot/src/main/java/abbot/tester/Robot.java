@@ -12,6 +12,7 @@ import abbot.i18n.Strings;
 import abbot.script.Condition;
 import abbot.util.AWT;
 import abbot.util.Bugs;
+import abbot.util.ConditionWaiter;
 import abbot.util.Properties;
 import abbot.util.Reflector;
 import java.awt.AWTEvent;
@@ -133,6 +134,18 @@ public class Robot implements AWTConstants {
   private static int eventPostDelay =
       Properties.getProperty("abbot.robot.event_post_delay", 100, 0, 1000);
 
+  /**
+   * Whether to always apply the full post delay before checking for idle, rather than only the part of it which has
+   * not yet elapsed since the robot last generated native input.
+   */
+  private static final boolean fixedPostDelay =
+      Boolean.getBoolean("abbot.robot.fixed_event_post_delay");
+
+  /**
+   * When native input was last generated by the robot, as given by {@link System#nanoTime()}.
+   */
+  private static volatile long lastNativeInput = 0;
+
   protected static long IDLE_TIMEOUT =
       Integer.getInteger("abbot.robot.idle_timeout", 10000).intValue();
 
@@ -307,6 +320,7 @@ public class Robot implements AWTConstants {
     if (eventMode == EM_ROBOT) {
       Log.debug("ROBOT: Mouse move: (" + x + "," + y + ")");
       robot.mouseMove(x, y);
+      lastNativeInput = System.nanoTime();
     } else {
       // Can't stuff an AWT event for an arbitrary location
     }
@@ -320,6 +334,7 @@ public class Robot implements AWTConstants {
       Log.debug("ROBOT: Mouse press: " + AWT.getMouseModifiers(buttons));
       // OSX 1.4.1 accidentally swaps mb2 and mb3; fix it here
       robot.mousePress(buttons);
+      lastNativeInput = System.nanoTime();
     } else {
       Component c = state.getMouseComponent();
       if (c == null) {
@@ -345,6 +360,7 @@ public class Robot implements AWTConstants {
     if (eventMode == EM_ROBOT) {
       Log.debug("ROBOT: Mouse release: " + AWT.getMouseModifiers(buttons));
       robot.mouseRelease(buttons);
+      lastNativeInput = System.nanoTime();
     } else {
       Component source =
           state.isDragging()
@@ -508,6 +524,7 @@ public class Robot implements AWTConstants {
     if (eventMode == EM_ROBOT) {
       Log.debug("ROBOT: key press " + AWT.getKeyCode(keycode));
       robot.keyPress(keycode);
+      lastNativeInput = System.nanoTime();
     } else {
       int mods = state.getModifiers();
       if (AWT.isModifier(keycode)) {
@@ -533,6 +550,7 @@ public class Robot implements AWTConstants {
     if (eventMode == EM_ROBOT) {
       Log.debug("ROBOT: key release " + AWT.getKeyCode(keycode));
       robot.keyRelease(keycode);
+      lastNativeInput = System.nanoTime();
       if (Bugs.hasKeyInputDelay()) {
         // OSX, empirical
         int KEY_INPUT_DELAY = 200;
@@ -620,44 +638,30 @@ public class Robot implements AWTConstants {
   }
 
   private void waitForIdle(EventQueue eq) {
-    if (EventQueue.isDispatchThread()) {
-      throw new IllegalThreadStateException("Cannot call method from the event dispatcher thread");
-    }
-
     // NOTE: as of Java 1.3.1, robot.waitForIdle only waits for the
     // last event on the queue at the time of this invocation to be
     // processed.  We need better than that.  Make sure the given event
     // queue is empty when this method returns
 
-    // We always post at least one idle event to allow any current event
-    // dispatch processing to finish.
-    long start = System.currentTimeMillis();
-    int count = 0;
-    do {
-      if (postInvocationEvent(eq, toolkit, IDLE_TIMEOUT)) {
-        Log.warn(
-            "Timed out waiting for posted invocation event: "
-                + IDLE_TIMEOUT
-                + "ms (after "
-                + count
-                + " events)",
-            Log.FULL_STACK);
-        break;
-      }
-      if (System.currentTimeMillis() - start > IDLE_TIMEOUT) {
-        Log.warn("Timed out waiting for idle event queue after " + count + " events");
-        break;
-      }
-
-      ++count;
+    // NOTE: if someone is repeatedly posting invocation events (i.e.
+    // with EventQueue.invokeLater), we might get stuck until the timeout.
+    IdleDetector.waitForIdle(eq, IDLE_TIMEOUT);
+  }
 
-      // NOTE: this does not detect invocation events (i.e. what
-      // gets posted with EventQueue.invokeLater), so if someone
-      // is repeatedly posting one, we might get stuck.  Not too
-      // worried, since if a Runnable keeps calling invokeLater
-      // on itself, *nothing* else gets much chance to run, so it
-      // seems to be a bad programming practice.
-    } while (eq.peekEvent() != null);
+  /**
+   * Returns how long to wait for native events generated by the robot to arrive on the event queue.  Only the part of
+   * the post delay which has not yet elapsed since the last native input is required; if the robot has not generated
+   * any native input recently, anything it did is already on the queue.
+   */
+  private int getRemainingPostDelay() {
+    if (fixedPostDelay) {
+      return eventPostDelay - autoDelay;
+    }
+    if (lastNativeInput == 0) {
+      return 0;
+    }
+    long elapsed = (System.nanoTime() - lastNativeInput) / 1000000L;
+    return (int) Math.max(0, eventPostDelay - elapsed);
   }
 
   /**
@@ -666,10 +670,12 @@ public class Robot implements AWTConstants {
    * use
    * this method if there are animations or other continual refreshes happening, since in that case it may never
    * return.<p>
+   * See {@link IdleDetector} for idle wait statistics.
    */
   public void waitForIdle() {
-    if (eventPostDelay > autoDelay) {
-      delay(eventPostDelay - autoDelay);
+    int postDelay = getRemainingPostDelay();
+    if (postDelay > 0) {
+      delay(postDelay);
     }
     Collection<EventQueue> queues = tracker.getEventQueues();
     if (queues.size() == 1) {
@@ -2282,27 +2288,25 @@ public class Robot implements AWTConstants {
   }
 
   /**
-   * Wait for the given Condition to return true, waiting for timeout ms.
+   * Wait for the given Condition to return true, waiting for timeout ms.  The condition is re-tested whenever UI
+   * events are dispatched, and at least every {@link ConditionWaiter#DEFAULT_INTERVAL} ms.
    *
    * @throws WaitTimedOutError if the timeout is exceeded.
    */
   public void wait(Condition condition, long timeout) {
-    wait(condition, timeout, SLEEP_INTERVAL);
+    wait(condition, timeout, ConditionWaiter.DEFAULT_INTERVAL);
   }
 
   /**
-   * Wait for the given Condition to return true, waiting for timeout ms, polling at the given interval.
+   * Wait for the given Condition to return true, waiting for timeout ms.  The condition is re-tested whenever UI
+   * events are dispatched, and at least every interval ms.
    *
    * @throws WaitTimedOutError if the timeout is exceeded.
    */
   public void wait(Condition condition, long timeout, int interval) {
-    long start = System.currentTimeMillis();
-    while (!condition.test()) {
-      if (System.currentTimeMillis() - start > timeout) {
-        String msg = "Timed out waiting for " + condition;
-        throw new WaitTimedOutError(msg);
-      }
-      delay(interval);
+    if (!ConditionWaiter.waitFor(condition, timeout, interval)) {
+      String msg = "Timed out waiting for " + condition;
+      throw new WaitTimedOutError(msg);
     }
   }
 
@@ -24,11 +24,13 @@ import java.lang.ref.WeakReference;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.swing.SwingUtilities;
 
 /**
@@ -70,6 +72,11 @@ public class WindowTracker {
    */
   private final Map<Component, Boolean> closedWindows = new WeakHashMap<>();
 
+  /**
+   * Run whenever a window is closed.
+   */
+  private final List<Runnable> closeListeners = new CopyOnWriteArrayList<>();
+
   private java.awt.Robot robot;
   private static final int WINDOW_READY_DELAY =
       Properties.getProperty("abbot.window_ready_delay", 5000, 0, 60000);
@@ -201,6 +208,18 @@ public class WindowTracker {
     return set;
   }
 
+  /**
+   * Add a task to be run on the event dispatch thread whenever a window has been closed, after the set of root windows
+   * has been updated.  This allows waiting for windows to go away without polling {@link #getRootWindows()}.
+   */
+  public void addWindowClosedListener(Runnable listener) {
+    closeListeners.add(listener);
+  }
+
+  public void removeWindowClosedListener(Runnable listener) {
+    closeListeners.remove(listener);
+  }
+
   /**
    * Provides tracking of window visibility state.  We explicitly add this on WINDOW_OPEN and remove it on
    * WINDOW_CLOSE to avoid having to process extraneous ComponentEvents.
@@ -368,6 +387,9 @@ public class WindowTracker {
       closedWindows.put(comp, Boolean.TRUE);
       pendingWindows.remove(comp);
     }
+    for (Runnable listener : closeListeners) {
+      listener.run();
+    }
   }
 
   /**
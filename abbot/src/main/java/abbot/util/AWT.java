@@ -23,6 +23,8 @@ import java.awt.Dialog;
 import java.awt.EventQueue;
 import java.awt.FileDialog;
 import java.awt.Frame;
+import java.awt.GraphicsEnvironment;
+import java.awt.HeadlessException;
 import java.awt.IllegalComponentStateException;
 import java.awt.Label;
 import java.awt.Menu;
@@ -521,6 +523,18 @@ public class AWT {
     return POPUP_ON_BUTTON2 ? InputEvent.BUTTON3_DOWN_MASK : InputEvent.BUTTON2_DOWN_MASK;
   }
 
+  /**
+   * Returns the InputEvent mask for the menu shortcut key.  The toolkit can't provide it in a headless environment, in
+   * which case the platform default is assumed.
+   */
+  public static int getMenuShortcutMask() {
+    try {
+      return Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+    } catch (HeadlessException e) {
+      return Platform.isMacintosh() ? InputEvent.META_DOWN_MASK : InputEvent.CTRL_DOWN_MASK;
+    }
+  }
+
   /**
    * Returns whether the platform registers a popup on mouse press.
    */
@@ -772,7 +786,8 @@ public class AWT {
    * Is the given component the default Swing hidden frame?
    */
   public static boolean isSharedInvisibleFrame(Component c) {
-    return c == JOptionPane.getRootFrame();
+    // there are no frames at all when headless
+    return !GraphicsEnvironment.isHeadless() && c == JOptionPane.getRootFrame();
   }
 
   public static boolean isAppletViewerFrame(Component c) {
@@ -4,16 +4,28 @@ import abbot.Log;
 import abbot.tester.Robot;
 import java.awt.*;
 import java.awt.event.AWTEventListener;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Provides reusable preservation/restoration of AWT UI/System state.  Also handles standardized fixture event logging
  * and catching exceptions on the AWT event dispatch thread (EDT). This class should be used at setup and teardown of
- * your chosen fixture.
+ * your chosen fixture.<p>
+ * <p>
+ * Restoring state no longer forces a garbage collection after every test.  A collection is only requested when the
+ * heap in use exceeds <code>abbot.fixture.gc_threshold</code> percent of the maximum heap (70 by default); a
+ * threshold of 0 collects after every test, and 100 never does.
  *
  * @see junit.extensions.abbot.ComponentTestFixture
  * @see abbot.script.StepRunner
  */
 public class AWTFixtureHelper {
+
+  private static final int GC_THRESHOLD =
+      Properties.getProperty("abbot.fixture.gc_threshold", 70, 0, 100);
+
+  private static final AtomicLong gcCount = new AtomicLong();
+  private static final AtomicLong gcTime = new AtomicLong();
+
   private AWTEventListener listener = null;
   private final SystemState state;
 
@@ -79,8 +91,43 @@ public class AWTFixtureHelper {
     state.restore();
 
     // Encourage GC of unused components, which reduces the load on
-    // future tests.
-    System.gc();
-    System.runFinalization();
+    // future tests, but only when the heap is filling up.
+    Runtime rt = Runtime.getRuntime();
+    if (isOverThreshold(GC_THRESHOLD, rt.totalMemory() - rt.freeMemory(), rt.maxMemory())) {
+      long start = System.currentTimeMillis();
+      System.gc();
+      System.runFinalization();
+      long elapsed = System.currentTimeMillis() - start;
+      gcCount.incrementAndGet();
+      gcTime.addAndGet(elapsed);
+      Log.debug("Fixture GC took {0}ms", elapsed);
+    }
+  }
+
+  /**
+   * Returns whether the given heap use warrants a collection under the given threshold percentage.
+   */
+  static boolean isOverThreshold(int threshold, long used, long max) {
+    if (threshold == 0) {
+      return true;
+    }
+    if (threshold == 100) {
+      return false;
+    }
+    return used * 100.0 > (double) max * threshold;
+  }
+
+  /**
+   * Returns the number of garbage collections requested when restoring state.
+   */
+  public static long getGCCount() {
+    return gcCount.get();
+  }
+
+  /**
+   * Returns the total time in ms spent in garbage collections requested when restoring state.
+   */
+  public static long getGCTime() {
+    return gcTime.get();
   }
 }
@@ -0,0 +1,179 @@
+package abbot.util;
+
+import abbot.Log;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * Class file contents read from jar files, shared by all {@link PathClassLoader}s, so that relaunching an application
+ * with a new class loader only has to define its classes again, not find, read and inflate them.  Each jar is opened
+ * once and kept open; a jar is identified by its path, modification time and size, so a jar which is rebuilt between
+ * launches is read afresh.<p>
+ * <p>
+ * The contents of a jar are softly referenced, so they are discarded under memory pressure once no class loader is
+ * using them.  Classes from directories and from signed jar entries are never cached.  Setting
+ * <code>abbot.util.no_class_cache</code> disables the cache.
+ */
+public final class ClassBytesCache {
+
+  public static final boolean ENABLED = !Boolean.getBoolean("abbot.util.no_class_cache");
+
+  private static final Map<String, SoftReference<Jar>> JARS = new ConcurrentHashMap<>();
+
+  private static final AtomicLong hits = new AtomicLong();
+  private static final AtomicLong misses = new AtomicLong();
+
+  /**
+   * An open jar file and the class files read from it so far.
+   */
+  static final class Jar {
+    private final File file;
+    private final long lastModified;
+    private final long length;
+    private final URL url;
+    private final JarFile jarFile;
+    private final Manifest manifest;
+    private final Map<String, byte[]> classes = new ConcurrentHashMap<>();
+
+    Jar(File file, long lastModified, long length) throws IOException {
+      this.file = file;
+      this.lastModified = lastModified;
+      this.length = length;
+      this.url = file.toURI().toURL();
+      this.jarFile = new JarFile(file);
+      this.manifest = jarFile.getManifest();
+    }
+
+    boolean isCurrent(long lastModified, long length) {
+      return this.lastModified == lastModified && this.length == length;
+    }
+
+    URL getURL() {
+      return url;
+    }
+
+    Manifest getManifest() {
+      return manifest;
+    }
+
+    /**
+     * Returns the contents of the given class file, or <code>null</code> if the jar doesn't contain it or it can't be
+     * cached.
+     */
+    byte[] getClassBytes(String path) throws IOException {
+      byte[] bytes = classes.get(path);
+      if (bytes != null) {
+        hits.incrementAndGet();
+        return bytes;
+      }
+      JarEntry entry = jarFile.getJarEntry(path);
+      if (entry == null) {
+        return null;
+      }
+      misses.incrementAndGet();
+      try (InputStream in = jarFile.getInputStream(entry)) {
+        bytes = in.readAllBytes();
+      }
+      // Signers are only known once the entry has been read
+      if (entry.getCodeSigners() != null) {
+        return null;
+      }
+      classes.put(path, bytes);
+      return bytes;
+    }
+
+    boolean contains(String path) {
+      return classes.containsKey(path) || jarFile.getJarEntry(path) != null;
+    }
+
+    void close() {
+      try {
+        jarFile.close();
+      } catch (IOException e) {
+        Log.debug(e);
+      }
+    }
+
+    public String toString() {
+      return file.getPath();
+    }
+  }
+
+  private ClassBytesCache() {}
+
+  /**
+   * Returns the cached jar for the given class path entry, or <code>null</code> if it is not a jar file.
+   */
+  static Jar getJar(File file) {
+    if (!file.isFile()) {
+      return null;
+    }
+    String key = file.getAbsolutePath();
+    long lastModified = file.lastModified();
+    long length = file.length();
+    SoftReference<Jar> ref = JARS.get(key);
+    Jar jar = ref != null ? ref.get() : null;
+    if (jar != null && jar.isCurrent(lastModified, length)) {
+      return jar;
+    }
+    synchronized (JARS) {
+      ref = JARS.get(key);
+      Jar current = ref != null ? ref.get() : null;
+      if (current != null && current.isCurrent(lastModified, length)) {
+        return current;
+      }
+      try {
+        jar = new Jar(file, lastModified, length);
+      } catch (IOException e) {
+        Log.debug("Not caching classes from {0}: {1}", file, e);
+        return null;
+      }
+      JARS.put(key, new SoftReference<>(jar));
+      if (current != null) {
+        // Loaders still using the old contents fall back to their own lookup
+        current.close();
+      }
+      return jar;
+    }
+  }
+
+  /**
+   * Returns the number of class lookups which found bytes already read.
+   */
+  public static long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * Returns the number of class lookups which had to read a jar.
+   */
+  public static long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * Close all cached jars, discard their contents and reset the statistics.
+   */
+  public static void clear() {
+    synchronized (JARS) {
+      for (SoftReference<Jar> ref : JARS.values()) {
+        Jar jar = ref.get();
+        if (jar != null) {
+          jar.close();
+        }
+      }
+      JARS.clear();
+    }
+    hits.set(0);
+    misses.set(0);
+  }
+}
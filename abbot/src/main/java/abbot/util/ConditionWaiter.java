@@ -0,0 +1,129 @@
+package abbot.util;
+
+import abbot.script.Condition;
+import java.awt.*;
+import java.awt.event.AWTEventListener;
+
+/**
+ * Waits for a {@link Condition} by re-testing it only when something in the UI may have changed, rather than at a
+ * fixed interval.  The condition is re-tested whenever an AWT event which is likely to reflect a change in UI state is
+ * dispatched (windows opening or closing, components added, removed, shown or resized, focus changes, input
+ * events, etc.), and at least once every <code>interval</code> ms in case the condition depends on state which is not
+ * reflected in the event stream.<p>
+ * <p>
+ * Events dispatched while a condition is being tested cause an immediate re-test; any number of events arriving
+ * between tests result in a single re-test.  The default fallback interval may be changed by setting
+ * <code>abbot.robot.wait_interval</code>.
+ */
+public class ConditionWaiter {
+
+  /**
+   * Default maximum time between tests when no relevant events arrive.
+   */
+  public static final int DEFAULT_INTERVAL =
+      Properties.getProperty("abbot.robot.wait_interval", 100, 1, 1000);
+
+  /**
+   * Hierarchy events are deliberately excluded; they are delivered to every descendant of a changed container, and
+   * container and component events already report the changes of interest.
+   */
+  private static final long EVENT_MASK =
+      AWTEvent.WINDOW_EVENT_MASK
+          | AWTEvent.WINDOW_STATE_EVENT_MASK
+          | AWTEvent.WINDOW_FOCUS_EVENT_MASK
+          | AWTEvent.COMPONENT_EVENT_MASK
+          | AWTEvent.CONTAINER_EVENT_MASK
+          | AWTEvent.FOCUS_EVENT_MASK
+          | AWTEvent.PAINT_EVENT_MASK
+          | AWTEvent.KEY_EVENT_MASK
+          | AWTEvent.MOUSE_EVENT_MASK
+          | AWTEvent.ACTION_EVENT_MASK
+          | AWTEvent.ITEM_EVENT_MASK
+          | AWTEvent.TEXT_EVENT_MASK;
+
+  private static final Object LOCK = new Object();
+
+  /**
+   * Incremented for every relevant event while anyone is waiting.
+   */
+  private static long generation = 0;
+
+  private static volatile int waiting = 0;
+
+  private static boolean installed = false;
+
+  private static final AWTEventListener LISTENER =
+      new AWTEventListener() {
+        public void eventDispatched(AWTEvent e) {
+          // Keep the EDT cost negligible when nobody is waiting
+          if (waiting > 0) {
+            synchronized (LOCK) {
+              ++generation;
+              LOCK.notifyAll();
+            }
+          }
+        }
+      };
+
+  private ConditionWaiter() {}
+
+  /**
+   * Wait up to <code>timeout</code> ms for the given condition, re-testing it when relevant events are dispatched or
+   * at most every {@link #DEFAULT_INTERVAL} ms.
+   *
+   * @return whether the condition was met before the timeout expired
+   */
+  public static boolean waitFor(Condition condition, long timeout) {
+    return waitFor(condition, timeout, DEFAULT_INTERVAL);
+  }
+
+  /**
+   * Wait up to <code>timeout</code> ms for the given condition, re-testing it when relevant events are dispatched or
+   * at most every <code>interval</code> ms.
+   *
+   * @return whether the condition was met before the timeout expired
+   */
+  public static boolean waitFor(Condition condition, long timeout, int interval) {
+    install();
+    synchronized (LOCK) {
+      ++waiting;
+    }
+    try {
+      long start = System.currentTimeMillis();
+      while (true) {
+        long seen;
+        synchronized (LOCK) {
+          seen = generation;
+        }
+        if (condition.test()) {
+          return true;
+        }
+        long remaining = timeout - (System.currentTimeMillis() - start);
+        if (remaining < 0) {
+          return false;
+        }
+        synchronized (LOCK) {
+          if (generation == seen) {
+            LOCK.wait(Math.max(1, Math.min(interval, remaining)));
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return condition.test();
+    } finally {
+      synchronized (LOCK) {
+        --waiting;
+      }
+    }
+  }
+
+  private static void install() {
+    synchronized (LOCK) {
+      if (!installed) {
+        Toolkit.getDefaultToolkit().addAWTEventListener(LISTENER, EVENT_MASK);
+        installed = true;
+      }
+    }
+  }
+}
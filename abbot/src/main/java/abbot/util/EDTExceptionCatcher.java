@@ -11,7 +11,7 @@ import abbot.Log;
  */
 public class EDTExceptionCatcher extends EventDispatchExceptionHandler {
 
-  private static Throwable throwable = null;
+  private static volatile Throwable throwable = null;
   private static long when = -1;
 
   public void install() {
@@ -30,6 +30,14 @@ public class EDTExceptionCatcher extends EventDispatchExceptionHandler {
     return t;
   }
 
+  /**
+   * Returns whether an exception has been caught on the dispatch thread and not yet cleared.  Cheaper than {@link
+   * #getThrowable()}, since it doesn't lock.
+   */
+  public static boolean hasThrowable() {
+    return throwable != null;
+  }
+
   /**
    * Returns when the most recent exception was caught on the dispatch thread, or -1 if none has been thrown or the
    * exception has been cleared.
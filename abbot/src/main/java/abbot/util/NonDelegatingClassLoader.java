@@ -7,10 +7,16 @@ import abbot.Log;
  * method returns false for a given class name, it will defer to its parent class loader only if the class is not found
  * in this loader's path.  This provides a means for reloading classes that would otherwise be permanently cached by the
  * app or boot class loaders.<p> The name for this class is not quite correct; it <i>will</i> delegate to its parent if
- * it doesn't find a given class.
+ * it doesn't find a given class.<p>
+ * <p>
+ * Like {@link PathClassLoader}, this loader is parallel capable.
  */
 public class NonDelegatingClassLoader extends PathClassLoader {
 
+  static {
+    ClassLoader.registerAsParallelCapable();
+  }
+
   public NonDelegatingClassLoader(String path, ClassLoader parent) {
     super(path, parent);
   }
@@ -28,7 +34,7 @@ public class NonDelegatingClassLoader extends PathClassLoader {
    * Find the given class in the search path.
    */
   public Class findClass(String name) throws ClassNotFoundException {
-    Log.debug("Looking up " + name + " with " + this);
+    Log.debug("Looking up {0} with {1}", name, this);
     return super.findClass(name);
   }
 
@@ -36,13 +42,13 @@ public class NonDelegatingClassLoader extends PathClassLoader {
    * Load the given class, but attempt to load <i>before</i> the parent if shouldDelegate returns false for the given
    * class.
    */
-  protected synchronized Class loadClass(String name, boolean resolve)
-      throws ClassNotFoundException {
+  protected Class loadClass(String name, boolean resolve) throws ClassNotFoundException {
     if (shouldDelegate(name)) {
-      Log.debug("Delegating lookup for " + name);
+      Log.debug("Delegating lookup for {0}", name);
       return super.loadClass(name, resolve);
-    } else {
-      Log.debug("Non-delegating lookup for " + name);
+    }
+    synchronized (getClassLoadingLock(name)) {
+      Log.debug("Non-delegating lookup for {0}", name);
       Class c = findLoadedClass(name);
       if (c == null) {
         try {
@@ -59,7 +65,7 @@ public class NonDelegatingClassLoader extends PathClassLoader {
           resolveClass(c);
         }
       } else {
-        Log.debug("Class already loaded " + name);
+        Log.debug("Class already loaded {0}", name);
       }
       return c;
     }
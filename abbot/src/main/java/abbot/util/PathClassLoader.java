@@ -1,24 +1,41 @@
 package abbot.util;
 
+import abbot.Log;
 import abbot.Platform;
 import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLStreamHandler;
 import java.net.URLStreamHandlerFactory;
+import java.security.CodeSource;
 import java.util.ArrayList;
 import java.util.StringTokenizer;
+import java.util.jar.Manifest;
 
 /**
  * Provide a class loader that loads from a custom path.   Similar to sun.misc.Launcher$AppClassLoader (the usual
  * application class loader), except that it doesn't do the security checks that AppClassLoader does. If path given is
- * null, uses java.class.path.
+ * null, uses java.class.path.<p>
+ * <p>
+ * Classes found in jar files are read through the {@link ClassBytesCache} shared by all instances, so a new loader for
+ * the same path only has to define them.  The loader is parallel capable; classes are loaded under a per-class lock.
  */
 public class PathClassLoader extends java.net.URLClassLoader {
 
+  static {
+    ClassLoader.registerAsParallelCapable();
+  }
+
   private final String classPath;
   private static final Factory factory = new Factory();
 
+  /**
+   * The entries of the path, looked up on first use, so that each loader checks each jar for modifications only once.
+   */
+  private volatile Object[] entries;
+
   /**
    * Create a class loader that loads classes from the given path.
    */
@@ -41,8 +58,7 @@ public class PathClassLoader extends java.net.URLClassLoader {
     return classPath;
   }
 
-  protected synchronized Class loadClass(String name, boolean resolve)
-      throws ClassNotFoundException {
+  protected Class loadClass(String name, boolean resolve) throws ClassNotFoundException {
     int i = name.lastIndexOf('.');
     if (i != -1) {
       SecurityManager sm = System.getSecurityManager();
@@ -53,6 +69,84 @@ public class PathClassLoader extends java.net.URLClassLoader {
     return super.loadClass(name, resolve);
   }
 
+  /**
+   * Find the given class in the search path, using the shared {@link ClassBytesCache} for classes in jar files.
+   */
+  protected Class findClass(String name) throws ClassNotFoundException {
+    if (ClassBytesCache.ENABLED) {
+      String path = name.replace('.', '/').concat(".class");
+      Object[] entries = getPathEntries();
+      for (int i = 0; i < entries.length; i++) {
+        if (entries[i] instanceof ClassBytesCache.Jar) {
+          ClassBytesCache.Jar jar = (ClassBytesCache.Jar) entries[i];
+          try {
+            byte[] bytes = jar.getClassBytes(path);
+            if (bytes != null) {
+              return defineClass(name, bytes, jar);
+            }
+            if (jar.contains(path)) {
+              // Signed, so leave it to the normal lookup
+              break;
+            }
+          } catch (IOException | IllegalStateException e) {
+            // The jar was replaced since this loader was created
+            Log.debug("Cached lookup of {0} failed: {1}", name, e);
+            break;
+          }
+        } else if (entries[i] == null || new File((File) entries[i], path).isFile()) {
+          // Not a local path entry, or found in a directory before any jar
+          break;
+        }
+      }
+    }
+    return super.findClass(name);
+  }
+
+  /**
+   * Returns the entries of this loader's path, each either a {@link ClassBytesCache.Jar}, a directory (which may not
+   * exist), or null for anything else.
+   */
+  private Object[] getPathEntries() {
+    Object[] entries = this.entries;
+    if (entries == null) {
+      URL[] urls = getURLs();
+      entries = new Object[urls.length];
+      for (int i = 0; i < urls.length; i++) {
+        if ("file".equals(urls[i].getProtocol())) {
+          try {
+            File file = new File(urls[i].toURI());
+            entries[i] = file.isFile() ? ClassBytesCache.getJar(file) : file;
+          } catch (URISyntaxException | IllegalArgumentException e) {
+            Log.debug("Not caching classes from {0}: {1}", urls[i], e);
+          }
+        }
+      }
+      this.entries = entries;
+    }
+    return entries;
+  }
+
+  private Class defineClass(String name, byte[] bytes, ClassBytesCache.Jar jar) {
+    int i = name.lastIndexOf('.');
+    if (i != -1) {
+      String pkg = name.substring(0, i);
+      if (getDefinedPackage(pkg) == null) {
+        try {
+          Manifest manifest = jar.getManifest();
+          if (manifest != null) {
+            definePackage(pkg, manifest, jar.getURL());
+          } else {
+            definePackage(pkg, null, null, null, null, null, null, null);
+          }
+        } catch (IllegalArgumentException e) {
+          // Defined concurrently by another thread
+        }
+      }
+    }
+    CodeSource cs = new CodeSource(jar.getURL(), (java.security.CodeSigner[]) null);
+    return defineClass(name, bytes, 0, bytes.length, cs);
+  }
+
   /**
    * Returns an array of URLs based on the given classpath string.
    */
@@ -118,19 +212,18 @@ public class PathClassLoader extends java.net.URLClassLoader {
 
     private Factory() {}
 
+    /**
+     * Returns null, so that the default handler is used, if the JDK's handler isn't accessible.
+     */
     public URLStreamHandler createURLStreamHandler(String protocol) {
       String name = PREFIX + "." + protocol + ".Handler";
       try {
         Class c = Class.forName(name);
         return (URLStreamHandler) c.newInstance();
-      } catch (ClassNotFoundException e) {
-        e.printStackTrace();
-      } catch (InstantiationException e) {
-        e.printStackTrace();
-      } catch (IllegalAccessException e) {
-        e.printStackTrace();
+      } catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
+        Log.debug("Using default handler for {0}: {1}", protocol, e);
+        return null;
       }
-      throw new Error("could not load " + protocol + "system protocol handler");
     }
   }
 
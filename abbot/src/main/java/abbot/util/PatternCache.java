@@ -0,0 +1,227 @@
+package abbot.util;
+
+import abbot.Log;
+import gnu.regexp.RE;
+import gnu.regexp.REException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Bounded cache of compiled regular expressions shared by all string matching, so that matching the same pattern
+ * against every component in a hierarchy compiles it only once.  Lookups do not lock, so that concurrent matching
+ * (e.g. parallel snapshot searches) doesn't contend on the cache; when the cache is full, an expression which hasn't
+ * been used since the last eviction pass is discarded ("second chance" approximation of least-recently-used).  Both {@link Pattern} and
+ * {@link RE} expressions are cached; invalid expressions are remembered as such so that they are neither recompiled
+ * nor reported more than once.<p>
+ * <p>
+ * A literal pattern can only match itself and is never compiled; see {@link #isLiteral(String)}.  The cache size may
+ * be changed by setting <code>abbot.util.pattern_cache_size</code>; a size of zero disables caching.
+ */
+public final class PatternCache {
+
+  public static final int CACHE_SIZE =
+      Properties.getProperty("abbot.util.pattern_cache_size", 256, 0, 65536);
+
+  private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+
+  private static final Object INVALID = new Object();
+
+  private static final Map<Key, Entry> CACHE = new ConcurrentHashMap<>();
+
+  private static final AtomicLong hits = new AtomicLong();
+  private static final AtomicLong misses = new AtomicLong();
+  private static final AtomicLong literals = new AtomicLong();
+
+  /**
+   * Identifies a compiled expression by its source, flags and regexp implementation.
+   */
+  private static final class Key {
+    private final String pattern;
+    private final int flags;
+    private final boolean gnu;
+
+    Key(String pattern, int flags, boolean gnu) {
+      this.pattern = pattern;
+      this.flags = flags;
+      this.gnu = gnu;
+    }
+
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key k = (Key) o;
+      return gnu == k.gnu && flags == k.flags && pattern.equals(k.pattern);
+    }
+
+    public int hashCode() {
+      return pattern.hashCode() * 31 + flags * 2 + (gnu ? 1 : 0);
+    }
+  }
+
+  /**
+   * A compiled expression, and whether it has been used since the last eviction pass.
+   */
+  private static final class Entry {
+    private final Object compiled;
+    private volatile boolean used;
+
+    Entry(Object compiled) {
+      this.compiled = compiled;
+    }
+  }
+
+  private PatternCache() {}
+
+  /**
+   * Returns whether the given pattern contains no characters with special meaning in a regular expression, in which
+   * case it can only match itself.
+   */
+  public static boolean isLiteral(String pattern) {
+    if (pattern == null) {
+      return false;
+    }
+    for (int i = 0; i < pattern.length(); i++) {
+      if (METACHARACTERS.indexOf(pattern.charAt(i)) != -1) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Return whether the given {@link Pattern} expression matches the given string exactly.  Literal expressions are
+   * compared directly; invalid expressions match nothing.
+   */
+  public static boolean matches(String regex, String actual) {
+    if (isLiteral(regex)) {
+      countLiteral();
+      return regex.equals(actual);
+    }
+    Pattern p = getPattern(regex);
+    return p != null && p.matcher(actual).matches();
+  }
+
+  static void countLiteral() {
+    literals.incrementAndGet();
+  }
+
+  /**
+   * Returns the compiled {@link Pattern} for the given expression, or <code>null</code> if it is not a valid
+   * expression.
+   */
+  public static Pattern getPattern(String regex) {
+    Key key = new Key(regex, 0, false);
+    Object cached = lookup(key);
+    if (cached == null) {
+      try {
+        cached = Pattern.compile(regex);
+      } catch (PatternSyntaxException e) {
+        cached = INVALID;
+      }
+      store(key, cached);
+    }
+    return cached == INVALID ? null : (Pattern) cached;
+  }
+
+  /**
+   * Returns the compiled {@link RE} for the given expression and flags, or <code>null</code> if it is not a valid
+   * expression.  A warning is logged the first time an invalid expression is seen.
+   */
+  public static RE getRE(String regexp, int flags) {
+    Key key = new Key(regexp, flags, true);
+    Object cached = lookup(key);
+    if (cached == null) {
+      try {
+        cached = new RE(regexp, flags);
+      } catch (REException exc) {
+        Log.warn(exc);
+        cached = INVALID;
+      }
+      store(key, cached);
+    }
+    return cached == INVALID ? null : (RE) cached;
+  }
+
+  private static Object lookup(Key key) {
+    Entry entry = CACHE.get(key);
+    if (entry == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    if (!entry.used) {
+      entry.used = true;
+    }
+    return entry.compiled;
+  }
+
+  private static void store(Key key, Object compiled) {
+    if (CACHE_SIZE == 0) {
+      return;
+    }
+    CACHE.put(key, new Entry(compiled));
+    if (CACHE.size() > CACHE_SIZE) {
+      evict();
+    }
+  }
+
+  /**
+   * Remove entries until the cache is back within its size, preferring those not used since the last pass.
+   */
+  private static void evict() {
+    while (CACHE.size() > CACHE_SIZE) {
+      Iterator<Entry> iter = CACHE.values().iterator();
+      while (iter.hasNext() && CACHE.size() > CACHE_SIZE) {
+        Entry entry = iter.next();
+        if (entry.used) {
+          entry.used = false;
+        } else {
+          iter.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of lookups which found an already compiled expression.
+   */
+  public static long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * Returns the number of lookups which required an expression to be compiled.
+   */
+  public static long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * Returns the number of patterns found to be literal, which required no lookup at all.
+   */
+  public static long getLiteralCount() {
+    return literals.get();
+  }
+
+  /**
+   * Returns the number of compiled expressions currently cached.
+   */
+  public static int size() {
+    return CACHE.size();
+  }
+
+  /**
+   * Discard all cached expressions and reset the statistics.
+   */
+  public static void clear() {
+    CACHE.clear();
+    hits.set(0);
+    misses.set(0);
+    literals.set(0);
+  }
+}
@@ -1,31 +1,21 @@
 package abbot.util;
 
-import abbot.Log;
 import gnu.regexp.RE;
-import gnu.regexp.REException;
-import gnu.regexp.REMatch;
 
 /**
- * Simple wrapper around the more fully-featured RE class.
+ * Simple wrapper around the more fully-featured RE class.  Compiled expressions are shared via {@link PatternCache}.
  */
 public class Regexp {
   /**
    * Return whether there is a match for the given regular expression within the given string.
    */
   public static boolean stringContainsMatch(String regexp, String actual) {
-    try {
-      boolean multiline = false;
-      if (regexp.startsWith("(?m)")) {
-        multiline = true;
-        regexp = regexp.substring(4);
-      }
-      RE e = new RE(regexp, multiline ? RE.REG_MULTILINE | RE.REG_DOT_NEWLINE : 0);
-      REMatch m = e.getMatch(actual);
-      return m != null;
-    } catch (REException exc) {
-      Log.warn(exc);
-      return false;
+    if (PatternCache.isLiteral(regexp)) {
+      PatternCache.countLiteral();
+      return actual.contains(regexp);
     }
+    RE e = compile(regexp);
+    return e != null && e.getMatch(actual) != null;
   }
 
   /**
@@ -35,17 +25,20 @@ public class Regexp {
     if (actual == null) {
       actual = "";
     }
-    try {
-      boolean multiline = false;
-      if (regexp.startsWith("(?m)")) {
-        multiline = true;
-        regexp = regexp.substring(4);
-      }
-      RE e = new RE(regexp, multiline ? RE.REG_MULTILINE | RE.REG_DOT_NEWLINE : 0);
-      return e.isMatch(actual);
-    } catch (REException exc) {
-      Log.warn(exc);
-      return false;
+    if (PatternCache.isLiteral(regexp)) {
+      PatternCache.countLiteral();
+      return regexp.equals(actual);
     }
+    RE e = compile(regexp);
+    return e != null && e.isMatch(actual);
+  }
+
+  private static RE compile(String regexp) {
+    boolean multiline = false;
+    if (regexp.startsWith("(?m)")) {
+      multiline = true;
+      regexp = regexp.substring(4);
+    }
+    return PatternCache.getRE(regexp, multiline ? RE.REG_MULTILINE | RE.REG_DOT_NEWLINE : 0);
   }
 }
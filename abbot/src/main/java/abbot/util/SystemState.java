@@ -4,6 +4,8 @@ import abbot.Log;
 import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.io.PrintStream;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
 import javax.swing.*;
 
@@ -14,12 +16,15 @@ import javax.swing.*;
  * <li><code>System</code> properties
  * <li>Security manager
  * </ul>
+ * <p>
+ * Only the system properties which changed are restored, and the look and feel is only reloaded if it changed.
  */
 public class SystemState {
 
   private static final int[] CODES = {
     KeyEvent.VK_CAPS_LOCK, KeyEvent.VK_NUM_LOCK, KeyEvent.VK_SCROLL_LOCK, KeyEvent.VK_KANA_LOCK
   };
+  private final Properties props;
   private final Properties oldProps;
   private final PrintStream oldOut;
   private final PrintStream oldErr;
@@ -57,12 +62,13 @@ public class SystemState {
         // Nothing much we can do
       }
     }
-    oldLookAndFeel = UIManager.getLookAndFeel().getClass().getName();
+    oldLookAndFeel = getLookAndFeelName();
     oldOut = System.out;
     oldErr = System.err;
     System.setOut(new ProtectedStream(oldOut));
     System.setErr(new ProtectedStream(oldErr));
-    oldProps = (Properties) System.getProperties().clone();
+    props = System.getProperties();
+    oldProps = (Properties) props.clone();
     oldsm = System.getSecurityManager();
   }
 
@@ -71,13 +77,15 @@ public class SystemState {
    */
   public void restore() {
     System.setSecurityManager(oldsm);
-    System.setProperties(oldProps);
+    restoreProperties();
     System.setOut(oldOut);
     System.setErr(oldErr);
-    try {
-      UIManager.setLookAndFeel(oldLookAndFeel);
-    } catch (Exception e) {
-      Log.warn("Could not restore LAF: " + e);
+    if (oldLookAndFeel != null && !Objects.equals(oldLookAndFeel, getLookAndFeelName())) {
+      try {
+        UIManager.setLookAndFeel(oldLookAndFeel);
+      } catch (Exception e) {
+        Log.warn("Could not restore LAF: " + e);
+      }
     }
     Toolkit toolkit = Toolkit.getDefaultToolkit();
     for (int i = 0; i < CODES.length; i++) {
@@ -99,6 +107,33 @@ public class SystemState {
     }
   }
 
+  /**
+   * Returns the class name of the current look and feel, or <code>null</code> if none is installed.
+   */
+  private static String getLookAndFeelName() {
+    LookAndFeel laf = UIManager.getLookAndFeel();
+    return laf != null ? laf.getClass().getName() : null;
+  }
+
+  /**
+   * Undo any changes to the system properties, keeping the original properties object in place.
+   */
+  private void restoreProperties() {
+    if (System.getProperties() != props) {
+      System.setProperties(props);
+    }
+    for (Object key : props.keySet().toArray()) {
+      if (!oldProps.containsKey(key)) {
+        props.remove(key);
+      }
+    }
+    for (Map.Entry<Object, Object> entry : oldProps.entrySet()) {
+      if (!entry.getValue().equals(props.get(entry.getKey()))) {
+        props.put(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
   /**
    * Provide a wrapper that prevents the original stream from being closed.
    */
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package com.windowtester.runtime.util;
 
+import abbot.util.PatternCache;
+
 /**
  * The String comparison algorithm used in widget text matching.
  * <br><br>
@@ -81,17 +83,18 @@ public class StringComparator {
     // 8/17 changed so as to catch exception if string not a regex
 
     // return string.equals(stringOrPattern) || string.matches(stringOrPattern);
-    if (string.equals(stringOrPattern)) {
-      return true;
-    } else {
-      try {
-        return string.matches(stringOrPattern);
-      } catch (java.util.regex.PatternSyntaxException e) {
-        // do nothing
-        //	System.out.println("String is not a legal regular expression");
-        //	e.printStackTrace();
-      }
-    }
-    return false;
+    // compiled patterns are cached, and invalid patterns simply don't match
+    return string.equals(stringOrPattern) || PatternCache.matches(stringOrPattern, string);
+  }
+
+  /**
+   * Test whether the given string or pattern contains no characters with special meaning in a regular expression, in
+   * which case {@link #matches(String, String)} reduces to simple String equality.
+   *
+   * @param stringOrPattern a string or pattern
+   * @return <code>true</code> if the argument can only match itself, <code>false</code> otherwise
+   */
+  public static boolean isLiteral(String stringOrPattern) {
+    return PatternCache.isLiteral(stringOrPattern);
   }
 }
@@ -1,6 +1,7 @@
 package junit.extensions.abbot;
 
 import abbot.Log;
+import abbot.finder.AWTHierarchy;
 import abbot.finder.BasicFinder;
 import abbot.finder.ComponentFinder;
 import abbot.finder.Hierarchy;
@@ -82,9 +83,14 @@ public class ResolverFixture extends TestCase {
    * to invoke the superclass method.
    */
   protected void fixtureTearDown() throws Throwable {
-    Iterator iter = hierarchy.getRoots().iterator();
-    while (iter.hasNext()) {
-      hierarchy.dispose((Window) iter.next());
+    if (hierarchy instanceof AWTHierarchy) {
+      // Dispose of everything in one pass on the event dispatch thread
+      ((AWTHierarchy) hierarchy).dispose(hierarchy.getRoots());
+    } else {
+      Iterator iter = hierarchy.getRoots().iterator();
+      while (iter.hasNext()) {
+        hierarchy.dispose((Window) iter.next());
+      }
     }
     // Explicitly set these null, since the test fixture instance may
     // be kept around by the test runner
@@ -0,0 +1,145 @@
+package junit.extensions.abbot;
+
+import abbot.Log;
+import abbot.finder.AWTHierarchy;
+import abbot.script.ForkedStepRunner;
+import abbot.script.Script;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import junit.framework.AssertionFailedError;
+import junit.framework.TestResult;
+
+/**
+ * Runs the scripts of a {@link ScriptTestSuite} concurrently, each in its own forked VM.  A fixed number of worker
+ * threads take scripts from a shared queue whenever they become free, so a few long scripts don't hold up the rest of
+ * the suite.  If the environment variable <code>ABBOT_DISPLAYS</code> lists X displays (e.g. ":1 :2 :3"), each worker
+ * runs its VMs on a display of its own, so that GUI scripts can run side by side, e.g. under Xvfb.<p>
+ * <p>
+ * A script whose VM exits before the script has finished is run again in a new VM, up to a given number of times.
+ * Each script is reported to the {@link TestResult} by the worker thread which runs it, as it starts and
+ * finishes, so {@link TestResult} listeners must be thread-safe.  No further scripts are started once the result
+ * should stop, but {@link #run(TestResult)} returns only once every script which was started has been reported.
+ */
+final class ScriptSuiteRunner {
+
+  /**
+   * Environment variable listing the displays to use, separated by spaces or commas.
+   */
+  static final String DISPLAYS = "ABBOT_DISPLAYS";
+
+  private final List<ScriptFixture> fixtures;
+  private final int workers;
+  private final String[] displays;
+  private final int retries;
+
+  ScriptSuiteRunner(List<ScriptFixture> fixtures, int workers, String[] displays, int retries) {
+    this.fixtures = fixtures;
+    this.workers = workers;
+    this.displays = displays;
+    this.retries = retries;
+  }
+
+  /**
+   * Returns the displays listed in the environment, if any.
+   */
+  static String[] getDisplays() {
+    String value = System.getenv(DISPLAYS);
+    if (value == null) {
+      return new String[0];
+    }
+    StringTokenizer st = new StringTokenizer(value, " ,");
+    String[] list = new String[st.countTokens()];
+    for (int i = 0; i < list.length; i++) {
+      list[i] = st.nextToken();
+    }
+    return list;
+  }
+
+  void run(final TestResult result) {
+    final Queue<ScriptFixture> queue = new ConcurrentLinkedQueue<>(fixtures);
+    Thread[] threads = new Thread[Math.min(workers, fixtures.size())];
+    for (int i = 0; i < threads.length; i++) {
+      final String display = displays.length > 0 ? displays[i % displays.length] : null;
+      threads[i] =
+          new Thread(
+              () -> {
+                ScriptFixture test;
+                while (!result.shouldStop() && (test = queue.poll()) != null) {
+                  run(result, test, display);
+                }
+              },
+              "Script worker " + i);
+      threads[i].setDaemon(true);
+      threads[i].start();
+    }
+
+    // Wait for the scripts already started, even if interrupted
+    boolean interrupted = false;
+    for (int i = 0; i < threads.length; i++) {
+      while (threads[i].isAlive()) {
+        try {
+          threads[i].join();
+        } catch (InterruptedException e) {
+          interrupted = true;
+          queue.clear();
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Run and report the given fixture on the current worker thread.  Anything thrown while running it is reported as
+   * an error of that fixture.
+   */
+  private void run(TestResult result, ScriptFixture test, String display) {
+    result.startTest(test);
+    try {
+      Throwable error;
+      try {
+        error = runScript(test, display);
+      } catch (Throwable thr) {
+        error = thr;
+      }
+      if (error instanceof AssertionFailedError) {
+        result.addFailure(test, (AssertionFailedError) error);
+      } else if (error != null) {
+        result.addError(test, error);
+      }
+    } finally {
+      result.endTest(test);
+    }
+  }
+
+  /**
+   * Run the given fixture's script in a new VM, retrying if the VM is lost.
+   *
+   * @return the resulting failure or error, or null if the script succeeded
+   */
+  private Throwable runScript(ScriptFixture test, String display) {
+    Script script = new Script(test.getName(), new AWTHierarchy());
+    for (int attempt = 0; ; attempt++) {
+      ForkedStepRunner runner = new ForkedStepRunner();
+      if (display != null) {
+        runner.setEnvironment(Collections.singletonMap("DISPLAY", display));
+      }
+      Throwable error;
+      try {
+        runner.runStep(script);
+        error = runner.getError(script);
+      } catch (Throwable thr) {
+        error = thr;
+      }
+      if (error instanceof ForkedStepRunner.SlaveLostException && attempt < retries) {
+        Log.warn("Running " + script + " again: " + error.getMessage());
+        continue;
+      }
+      return error;
+    }
+  }
+}
@@ -2,12 +2,15 @@ package junit.extensions.abbot;
 
 import abbot.Log;
 import abbot.script.Script;
+import abbot.util.Properties;
 import java.io.File;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.List;
 import junit.framework.Test;
 import junit.framework.TestCase;
+import junit.framework.TestResult;
 import junit.framework.TestSuite;
 
 /**
@@ -40,6 +43,13 @@ import junit.framework.TestSuite;
  *     }
  * }
  * </code></pre>
+ * <p>
+ * <h3>Parallel execution</h3>
+ * If the system property "abbot.testsuite.forks" is greater than one, or the environment variable
+ * <code>ABBOT_DISPLAYS</code> lists more than one X display, the scripts are run concurrently in that many forked
+ * VMs, each worker using its own display if any are listed.  Fixture <code>setUp</code> and <code>tearDown</code>
+ * methods are not run for scripts run this way.  A script whose VM exits before the script finishes is run again up to
+ * "abbot.testsuite.retries" times (default 1).
  */
 public class ScriptTestSuite extends TestSuite {
 
@@ -128,6 +138,32 @@ public class ScriptTestSuite extends TestSuite {
     }
   }
 
+  /**
+   * Runs the scripts in parallel forked VMs if configured to do so, otherwise runs all tests in sequence as usual.
+   * Tests which aren't {@link ScriptFixture}s are always run in this VM, before any scripts.
+   */
+  @Override
+  public void run(final TestResult result) {
+    final String[] displays = ScriptSuiteRunner.getDisplays();
+    final int forks =
+        Properties.getProperty("abbot.testsuite.forks", Math.max(1, displays.length), 1, 256);
+    if (forks < 2) {
+      super.run(result);
+      return;
+    }
+    final List<ScriptFixture> scripts = new ArrayList<>();
+    for (Enumeration<Test> e = tests(); e.hasMoreElements(); ) {
+      final Test test = e.nextElement();
+      if (test instanceof ScriptFixture) {
+        scripts.add((ScriptFixture) test);
+      } else if (!result.shouldStop()) {
+        runTest(test, result);
+      }
+    }
+    final int retries = Properties.getProperty("abbot.testsuite.retries", 1, 0, 10);
+    new ScriptSuiteRunner(scripts, forks, displays, retries).run(result);
+  }
+
   public File getDirectory() {
     return primaryDirectory;
   }
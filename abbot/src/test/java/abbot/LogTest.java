@@ -0,0 +1,56 @@
+package abbot;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+public class LogTest extends TestCase {
+
+  private final AtomicInteger built = new AtomicInteger();
+
+  private final Object counted =
+      new Object() {
+        public String toString() {
+          built.incrementAndGet();
+          return "counted";
+        }
+      };
+
+  protected void tearDown() {
+    Log.removeDebugClass(LogTest.class);
+  }
+
+  private void debugAll() {
+    Log.debug(() -> "message " + counted);
+    Log.debug(LogTest.class, () -> "message " + counted);
+    Log.debug("message {0}", counted);
+    Log.debug("message {0} {1}", counted, counted);
+    Log.debug("message {0} {1} {2}", counted, counted, counted);
+  }
+
+  public void testDisabled() {
+    assertFalse(Log.isDebugEnabled());
+    debugAll();
+    assertEquals(0, built.get());
+  }
+
+  public void testOtherClassEnabled() {
+    Log.addDebugClass(String.class);
+    try {
+      assertTrue(Log.isDebugEnabled());
+      debugAll();
+      assertEquals(0, built.get());
+    } finally {
+      Log.removeDebugClass(String.class);
+    }
+    assertFalse(Log.isDebugEnabled());
+  }
+
+  public void testEnabled() {
+    Log.addDebugClass(LogTest.class);
+    assertTrue(Log.isDebugEnabled());
+    debugAll();
+    assertEquals(8, built.get());
+    Log.removeDebugClass(LogTest.class);
+    assertFalse(Log.isDebugEnabled());
+  }
+}
@@ -0,0 +1,188 @@
+package abbot.finder;
+
+import abbot.finder.matchers.ClassMatcher;
+import abbot.finder.matchers.NameMatcher;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.swing.*;
+import junit.framework.TestCase;
+
+/**
+ * Verify snapshot searches find the same components, in the same order, as a hierarchy walk.  Uses a lightweight root
+ * so that no display is required.
+ */
+public class ComponentSnapshotTest extends TestCase {
+
+  private JPanel root;
+  private Hierarchy hierarchy;
+
+  protected void setUp() {
+    root = new JPanel();
+    hierarchy =
+        new AWTHierarchy() {
+          public Collection<Component> getRoots() {
+            return Collections.singletonList(root);
+          }
+        };
+  }
+
+  private static class RecordingMatcher implements Matcher {
+    private final List<Component> visited = new ArrayList<>();
+
+    public boolean matches(Component c) {
+      visited.add(c);
+      return false;
+    }
+  }
+
+  private void walk(Component c, Matcher m) {
+    for (Component child : hierarchy.getComponents(c)) {
+      walk(child, m);
+    }
+    m.matches(c);
+  }
+
+  public void testCapture() {
+    JPanel panel = new JPanel();
+    JButton button = new JButton();
+    panel.add(button);
+    root.add(panel);
+    root.add(new JLabel());
+
+    ComponentSnapshot snapshot = ComponentSnapshot.capture(hierarchy, hierarchy.getRoots());
+    assertEquals(4, snapshot.size());
+    assertEquals(root, snapshot.getComponents().get(0));
+    assertEquals(button, snapshot.getComponents().get(2));
+
+    // later changes are not reflected
+    root.add(new JLabel());
+    assertEquals(4, snapshot.size());
+  }
+
+  public void testWalkOrder() {
+    for (int i = 0; i < 3; i++) {
+      JPanel panel = new JPanel();
+      panel.add(new JButton());
+      panel.add(new JPanel());
+      root.add(panel);
+    }
+    RecordingMatcher expected = new RecordingMatcher();
+    walk(root, expected);
+    RecordingMatcher actual = new RecordingMatcher();
+    ComponentSnapshot.capture(hierarchy, hierarchy.getRoots()).findMatches(actual, false);
+    assertEquals(expected.visited, actual.visited);
+  }
+
+  public void testFirstOnly() {
+    JPanel outer = new JPanel();
+    outer.setName("match");
+    JPanel inner = new JPanel();
+    inner.setName("match");
+    outer.add(inner);
+    root.add(outer);
+
+    JPanel other = new JPanel();
+    other.setName("match");
+    root.add(other);
+
+    ComponentSnapshot snapshot = ComponentSnapshot.capture(hierarchy, hierarchy.getRoots());
+    assertEquals(3, snapshot.findMatches(new NameMatcher("match"), false).size());
+    Set<Component> expected = new HashSet<>(Arrays.asList(inner, outer));
+    assertEquals(
+        "The walk visits descendants first, then still checks their ancestors",
+        expected,
+        snapshot.findMatches(new NameMatcher("match"), true));
+    Matcher serial =
+        new Matcher() {
+          public boolean matches(Component c) {
+            return "match".equals(c.getName());
+          }
+        };
+    assertEquals(expected, snapshot.findMatches(serial, true));
+  }
+
+  public void testCapturedState() {
+    JButton button = new JButton();
+    button.setName("before");
+    root.add(button);
+    ComponentSnapshot snapshot = ComponentSnapshot.capture(hierarchy, hierarchy.getRoots());
+    button.setName("after");
+    assertEquals(
+        "Snapshot matchers only see the captured state",
+        Collections.singleton(button),
+        snapshot.findMatches(new NameMatcher("before"), false));
+  }
+
+  public void testParallelMatchesSerial() {
+    Set<Component> buttons = new HashSet<>();
+    for (int i = 0; i < 50; i++) {
+      JPanel panel = new JPanel();
+      for (int j = 0; j < 10; j++) {
+        JButton button = new JButton();
+        buttons.add(button);
+        panel.add(button);
+      }
+      root.add(panel);
+    }
+    Matcher matcher = new ClassMatcher(JButton.class);
+    ComponentSnapshot snapshot = ComponentSnapshot.capture(hierarchy, hierarchy.getRoots());
+    assertEquals(buttons, snapshot.findMatches(matcher, false));
+  }
+
+  public void testComposedMatchers() {
+    JButton button = new JButton("OK");
+    button.setName("ok");
+    root.add(button);
+    root.add(new JLabel("OK"));
+    ComponentSnapshot snapshot = ComponentSnapshot.capture(hierarchy, hierarchy.getRoots());
+    button.setName("changed");
+
+    final Matcher composed =
+        ComponentSnapshot.allOf(
+            new ClassMatcher(AbstractButton.class), new NameMatcher("ok"), null);
+    assertNotNull(composed);
+    SnapshotMatcherSource source =
+        new SnapshotMatcherSource() {
+          public SnapshotMatcher getSnapshotMatcher() {
+            return (SnapshotMatcher) composed;
+          }
+        };
+    assertSame(composed, ComponentSnapshot.getSnapshotMatcher(source));
+    assertEquals(Collections.singleton(button), snapshot.findMatches(composed, false));
+
+    Matcher live =
+        new Matcher() {
+          public boolean matches(Component c) {
+            return true;
+          }
+        };
+    assertNull(ComponentSnapshot.allOf(new NameMatcher("ok"), live));
+    assertNull(ComponentSnapshot.allOf((Object) null));
+    assertNull(ComponentSnapshot.getSnapshotMatcher(live));
+  }
+
+  public void testCapturedText() {
+    root.add(new JButton("button"));
+    root.add(new JLabel("label"));
+    root.add(new JPanel());
+    ComponentSnapshot snapshot = ComponentSnapshot.capture(hierarchy, hierarchy.getRoots());
+    final List<String> texts = new ArrayList<>();
+    snapshot.findMatches(
+        new ClassMatcher(Component.class) {
+          public boolean matches(ComponentState state) {
+            synchronized (texts) {
+              texts.add(state.getText());
+            }
+            return false;
+          }
+        },
+        false);
+    assertEquals(Arrays.asList(null, "button", "label", null), texts);
+  }
+}
@@ -0,0 +1,151 @@
+package abbot.finder;
+
+import abbot.finder.matchers.ClassMatcher;
+import abbot.finder.matchers.NameMatcher;
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import javax.swing.*;
+import junit.framework.TestCase;
+
+/**
+ * Verify the component index is kept up to date as the hierarchy changes.  Uses a lightweight root so that no display
+ * is required.
+ */
+public class IndexedHierarchyTest extends TestCase {
+
+  private JPanel root;
+  private IndexedHierarchy hierarchy;
+
+  protected void setUp() {
+    root = new JPanel();
+    hierarchy =
+        new IndexedHierarchy() {
+          public Collection<Component> getRoots() {
+            return Collections.singletonList(root);
+          }
+        };
+  }
+
+  public void testFindByClass() {
+    JButton button = new JButton("OK");
+    root.add(button);
+    root.add(new JLabel("label"));
+
+    Collection<Component> found = hierarchy.findByClass(AbstractButton.class);
+    assertEquals(1, found.size());
+    assertTrue(found.contains(button));
+  }
+
+  public void testAddAndRemoveComponents() {
+    JPanel panel = new JPanel();
+    root.add(panel);
+    assertTrue(hierarchy.isIndexed(panel));
+
+    JButton button = new JButton("OK");
+    panel.add(button);
+    assertTrue(hierarchy.findByText("OK").contains(button));
+
+    root.remove(panel);
+    assertFalse(hierarchy.isIndexed(panel));
+    assertFalse(hierarchy.isIndexed(button));
+    assertTrue(hierarchy.findByText("OK").isEmpty());
+  }
+
+  public void testNameAndTextChanges() {
+    JButton button = new JButton("&Save\tCtrl+S");
+    root.add(button);
+    assertTrue(hierarchy.findByText("Save").contains(button));
+
+    button.setName("save");
+    button.setText("Store");
+    assertTrue(hierarchy.findByName("save").contains(button));
+    assertTrue(hierarchy.findByText("Store").contains(button));
+    assertTrue(hierarchy.findByText("Save").isEmpty());
+  }
+
+  public void testFindMatchesWithinScope() {
+    JPanel left = new JPanel();
+    JPanel right = new JPanel();
+    JButton leftButton = new JButton();
+    leftButton.setName("button");
+    JButton rightButton = new JButton();
+    rightButton.setName("button");
+    left.add(leftButton);
+    right.add(rightButton);
+    root.add(left);
+    root.add(right);
+
+    Set<Component> found =
+        hierarchy.findMatches(new NameMatcher("button"), Collections.singletonList(root), false);
+    assertEquals(2, found.size());
+
+    found =
+        hierarchy.findMatches(new NameMatcher("button"), Collections.singletonList(left), false);
+    assertEquals(Collections.singleton(leftButton), found);
+  }
+
+  public void testFirstOnlyFollowsWalkOrder() {
+    JPanel first = new JPanel();
+    JPanel second = new JPanel();
+    JButton firstButton = new JButton();
+    firstButton.setName("button");
+    JButton secondButton = new JButton();
+    secondButton.setName("button");
+    first.add(firstButton);
+    second.add(secondButton);
+    // Add enough siblings that hash order is unlikely to match walk order by chance
+    for (int i = 0; i < 20; i++) {
+      root.add(new JPanel());
+    }
+    root.add(first);
+    root.add(second);
+
+    for (int i = 0; i < 10; i++) {
+      assertEquals(
+          Collections.singleton(firstButton),
+          hierarchy.findMatches(new NameMatcher("button"), Collections.singletonList(root), true));
+    }
+  }
+
+  public void testAncestorAndChildAmbiguity() throws Exception {
+    JPanel outer = new JPanel();
+    outer.setName("match");
+    JPanel inner = new JPanel();
+    inner.setName("match");
+    outer.add(inner);
+    JPanel other = new JPanel();
+    other.setName("match");
+    root.add(outer);
+    root.add(other);
+
+    Set<Component> found =
+        hierarchy.findMatches(new NameMatcher("match"), Collections.singletonList(root), true);
+    assertEquals(new HashSet<>(Arrays.asList(inner, outer)), found);
+
+    try {
+      new BasicFinder(hierarchy).find(new NameMatcher("match"));
+      fail("A matching ancestor of the first match should be reported as ambiguous");
+    } catch (MultipleComponentsFoundException e) {
+      assertEquals(
+          new HashSet<>(Arrays.asList(inner, outer)),
+          new HashSet<>(Arrays.asList(e.getComponents())));
+    }
+  }
+
+  public void testUnindexedMatcherFallsBack() {
+    Matcher matcher =
+        new Matcher() {
+          public boolean matches(Component c) {
+            return true;
+          }
+        };
+    assertNull(hierarchy.findMatches(matcher, Collections.singletonList(root), false));
+    assertNotNull(
+        hierarchy.findMatches(
+            new ClassMatcher(JButton.class), Collections.singletonList(root), false));
+  }
+}
@@ -0,0 +1,45 @@
+package abbot.finder;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import junit.framework.TestCase;
+
+public class TestHierarchyTest extends TestCase {
+
+  public void testDisposeBatch() {
+    if (GraphicsEnvironment.isHeadless()) {
+      // Windows can't be created without a display
+      return;
+    }
+    final List<List<Window>> batches = new ArrayList<>();
+    TestHierarchy hierarchy =
+        new TestHierarchy() {
+          protected void disposed(List<Window> windows) {
+            batches.add(new ArrayList<>(windows));
+            super.disposed(windows);
+          }
+        };
+    Frame owner = new Frame(getName());
+    Window owned = new Window(owner);
+    Frame other = new Frame(getName());
+    owner.pack();
+    owned.pack();
+    other.pack();
+    assertTrue(hierarchy.contains(owned));
+
+    hierarchy.dispose(Arrays.asList(owner, other));
+    assertEquals(1, batches.size());
+    assertEquals(Arrays.asList(owned, owner, other), batches.get(0));
+    assertFalse(owner.isDisplayable());
+    assertFalse(owned.isDisplayable());
+    assertFalse(other.isDisplayable());
+    assertFalse(hierarchy.contains(owner));
+    assertFalse(hierarchy.contains(owned));
+    assertFalse(hierarchy.contains(other));
+
+    hierarchy.dispose(Arrays.asList(owner));
+    assertEquals(1, batches.size());
+  }
+}
@@ -0,0 +1,121 @@
+package abbot.script;
+
+import abbot.finder.AWTHierarchy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import junit.framework.TestCase;
+
+public class ExecutionPlanTest extends TestCase {
+
+  private final List<String> run = new ArrayList<>();
+  private Resolver resolver;
+
+  private class Record extends Step {
+    Record(String description) {
+      super(resolver, description);
+    }
+
+    protected void runStep() {
+      run.add(getDescription());
+    }
+
+    public String getXMLTag() {
+      return "record";
+    }
+
+    public String getUsage() {
+      return "<record/>";
+    }
+
+    public String getDefaultDescription() {
+      return "record";
+    }
+  }
+
+  protected void setUp() {
+    resolver = new Script(new AWTHierarchy());
+  }
+
+  public void testCompile() {
+    Sequence inner = new Sequence(resolver, "inner", Arrays.asList(new Record("b")));
+    Terminate terminate = new Terminate(resolver, "terminate");
+    Sequence outer =
+        new Sequence(resolver, "outer", Arrays.asList(new Record("a"), inner, terminate));
+    ExecutionPlan plan = outer.getPlan();
+    assertSame(plan, outer.getPlan());
+    assertEquals(3, plan.size());
+    assertEquals(0, plan.getFlags(0));
+    assertEquals(ExecutionPlan.SEQUENCE, plan.getFlags(1));
+    assertSame(inner, plan.getStep(1));
+    assertEquals(ExecutionPlan.TERMINATE, plan.getFlags(2));
+    assertEquals(
+        ExecutionPlan.SCRIPT | ExecutionPlan.SEQUENCE, ExecutionPlan.flags((Step) resolver));
+
+    outer.removeStep(terminate);
+    assertNotSame(plan, outer.getPlan());
+    assertEquals(2, outer.getPlan().size());
+    assertEquals(3, plan.size());
+  }
+
+  public void testRun() throws Throwable {
+    Sequence inner = new Sequence(resolver, "inner", Arrays.asList(new Record("b")));
+    Sequence outer = new Sequence(resolver, "outer", Arrays.asList(new Record("a"), inner));
+    outer.run();
+    assertEquals(Arrays.asList("a", "b"), run);
+
+    run.clear();
+    inner.addStep(new Record("c"));
+    outer.addStep(0, new Record("d"));
+    outer.run();
+    assertEquals(Arrays.asList("d", "a", "b", "c"), run);
+  }
+
+  public void testRunner() throws Throwable {
+    Sequence inner = new Sequence(resolver, "inner", Arrays.asList(new Record("b")));
+    Sequence outer = new Sequence(resolver, "outer", Arrays.asList(new Record("a"), inner));
+    final List<String> events = new ArrayList<>();
+    StepListener listener =
+        new StepListener() {
+          public void stateChanged(StepEvent event) {
+            events.add(event.getType() + " " + event.getStep().getDescription());
+          }
+        };
+    StepRunner runner = new StepRunner();
+    runner.addStepListener(listener);
+    runner.runStep(outer);
+    assertEquals(Arrays.asList("a", "b"), run);
+    assertEquals(
+        Arrays.asList(
+            StepEvent.STEP_START + " outer",
+            StepEvent.STEP_START + " a",
+            StepEvent.STEP_END + " a",
+            StepEvent.STEP_START + " inner",
+            StepEvent.STEP_START + " b",
+            StepEvent.STEP_END + " b",
+            StepEvent.STEP_END + " inner",
+            StepEvent.STEP_END + " outer"),
+        events);
+
+    events.clear();
+    runner.removeStepListener(listener);
+    runner.runStep(outer);
+    assertEquals(0, events.size());
+  }
+
+  public void testNestedStepsUseOverriddenRunStep() throws Throwable {
+    Sequence inner = new Sequence(resolver, "inner", Arrays.asList(new Record("b")));
+    Sequence outer = new Sequence(resolver, "outer", Arrays.asList(new Record("a"), inner));
+    final List<String> seen = new ArrayList<>();
+    StepRunner runner =
+        new StepRunner() {
+          protected void runStep(Step step) throws Throwable {
+            seen.add(step.getDescription());
+            super.runStep(step);
+          }
+        };
+    runner.runStep(outer);
+    assertEquals(Arrays.asList("outer", "a", "inner", "b"), seen);
+    assertEquals(Arrays.asList("a", "b"), run);
+  }
+}
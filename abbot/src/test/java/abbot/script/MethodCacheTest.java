@@ -0,0 +1,132 @@
+package abbot.script;
+
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import junit.framework.TestCase;
+
+public class MethodCacheTest extends TestCase {
+
+  public static class Target {
+    public String value = "";
+
+    public String append(String s) {
+      value += s;
+      return value;
+    }
+
+    public String append(int i) {
+      return append("int" + i);
+    }
+
+    public static long twice(long l) {
+      return 2 * l;
+    }
+
+    public void fail(String message) throws Exception {
+      throw new Exception(message);
+    }
+  }
+
+  public abstract static class Abstract {}
+
+  private static Method method(Class cls, String name, Class type) {
+    Method[] methods = MethodCache.getMethods(cls, name, 1);
+    for (int i = 0; i < methods.length; i++) {
+      if (methods[i].getParameterTypes()[0] == type) {
+        return methods[i];
+      }
+    }
+    throw new AssertionError("No method " + name + "(" + type + ")");
+  }
+
+  public void testGetMethods() {
+    assertEquals(2, MethodCache.getMethods(Target.class, "append", 1).length);
+    assertSame(
+        MethodCache.getMethods(Target.class, "append", 1),
+        MethodCache.getMethods(Target.class, "append", 1));
+    assertEquals(0, MethodCache.getMethods(Target.class, "append", 2).length);
+    assertEquals(1, MethodCache.getMethods(Target.class, "twice", 1).length);
+  }
+
+  public void testInvoke() throws Throwable {
+    Target target = (Target) MethodCache.newInstance(Target.class);
+    Method string = method(Target.class, "append", String.class);
+    Method integer = method(Target.class, "append", int.class);
+    assertEquals("a", MethodCache.invoke(string, target, new Object[] {"a"}));
+    assertEquals("aint1", MethodCache.invoke(integer, target, new Object[] {Integer.valueOf(1)}));
+    assertEquals(
+        "aint1int2", MethodCache.invoke(integer, target, new Object[] {Short.valueOf((short) 2)}));
+    assertEquals(
+        "aint1int2int99",
+        MethodCache.invoke(integer, target, new Object[] {Character.valueOf('c')}));
+  }
+
+  public void testMismatch() throws Throwable {
+    Target target = new Target();
+    Method integer = method(Target.class, "append", int.class);
+    Object[] invalid = {
+      null, Long.valueOf(1), "1", Boolean.TRUE,
+    };
+    for (int i = 0; i < invalid.length; i++) {
+      try {
+        MethodCache.invoke(integer, target, new Object[] {invalid[i]});
+        fail("Expected mismatch for " + invalid[i]);
+      } catch (IllegalArgumentException e) {
+      }
+    }
+    try {
+      MethodCache.invoke(integer, "not a target", new Object[] {Integer.valueOf(1)});
+      fail("Expected target mismatch");
+    } catch (IllegalArgumentException e) {
+    }
+    assertEquals("", target.value);
+  }
+
+  public void testStatic() throws Throwable {
+    Method twice = method(Target.class, "twice", long.class);
+    assertEquals(
+        Long.valueOf(6), MethodCache.invoke(twice, null, new Object[] {Integer.valueOf(3)}));
+    assertEquals(
+        Long.valueOf(8), MethodCache.invoke(twice, new Target(), new Object[] {Long.valueOf(4)}));
+  }
+
+  public void testExceptionNotWrapped() throws Throwable {
+    Method fail = method(Target.class, "fail", String.class);
+    try {
+      MethodCache.invoke(fail, new Target(), new Object[] {"expected"});
+      fail("Expected exception");
+    } catch (Exception e) {
+      assertEquals(Exception.class, e.getClass());
+      assertEquals("expected", e.getMessage());
+    }
+  }
+
+  public void testNewInstance() throws Throwable {
+    try {
+      MethodCache.newInstance(Abstract.class);
+      fail("Expected InstantiationException");
+    } catch (InstantiationException e) {
+    }
+  }
+
+  public void testClassLoader() throws Throwable {
+    URL classes = Target.class.getProtectionDomain().getCodeSource().getLocation();
+    ClassLoader loader = new URLClassLoader(new URL[] {classes}, null);
+    Class reloaded = Class.forName(Target.class.getName(), true, loader);
+    assertNotSame(Target.class, reloaded);
+    Method[] methods = MethodCache.getMethods(reloaded, "append", 1);
+    assertEquals(2, methods.length);
+    assertSame(reloaded, methods[0].getDeclaringClass());
+    Object target = MethodCache.newInstance(reloaded);
+    assertSame(reloaded, target.getClass());
+    assertEquals(
+        "b",
+        MethodCache.invoke(method(reloaded, "append", String.class), target, new Object[] {"b"}));
+    try {
+      MethodCache.invoke(method(Target.class, "append", String.class), target, new Object[] {"b"});
+      fail("Expected class loader mismatch");
+    } catch (IllegalArgumentException e) {
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package abbot.script;
+
+import abbot.finder.AWTHierarchy;
+import java.io.StringReader;
+import java.io.StringWriter;
+import junit.framework.TestCase;
+import org.jdom.input.SAXBuilder;
+import org.jdom.output.Format;
+import org.jdom.output.XMLOutputter;
+
+public class ScriptReaderTest extends TestCase {
+
+  private static final String SCRIPT =
+      "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\r\n"
+          + "<AWTTestScript desc=\"Round trip\">\r\n"
+          + "  <component class=\"javax.swing.JFrame\" id=\"Frame\" title=\"Frame&#xA;title\""
+          + " />\r\n"
+          + "  <component class=\"javax.swing.JButton\" id=\"OK\" tag=\"OK &amp; &quot;go&quot;\""
+          + " />\r\n"
+          + "  <sequence desc=\"nested\">\r\n"
+          + "    <action args=\"OK\" method=\"actionClick\" />\r\n"
+          + "    <!--a comment -->\r\n"
+          + "  </sequence>\r\n"
+          + "  <expression><![CDATA[if (a < b) { c = \"&\"; }]]></expression>\r\n"
+          + "  <!--top level -->\r\n"
+          + "  <assert component=\"OK\" method=\"getText\" value=\"a &lt; b\" />\r\n"
+          + "</AWTTestScript>\r\n"
+          + "\r\n";
+
+  private Script script;
+
+  protected void setUp() {
+    script = new Script(new AWTHierarchy());
+  }
+
+  public void testLoad() throws Exception {
+    script.load(new StringReader(SCRIPT));
+    assertEquals("Round trip", script.getDescription());
+    assertEquals(2, script.getComponentReferences().size());
+    assertEquals("OK & \"go\"", script.getComponentReference("OK").getAttribute("tag"));
+    assertEquals("Frame\ntitle", script.getComponentReference("Frame").getAttribute("title"));
+    assertEquals(4, script.size());
+    Sequence nested = (Sequence) script.getStep(0);
+    assertEquals(2, nested.size());
+    assertTrue(nested.getStep(0) instanceof Action);
+    assertEquals("a comment ", nested.getStep(1).getDescription());
+    assertEquals("if (a < b) { c = \"&\"; }", ((Expression) script.getStep(1)).getExpression());
+    assertTrue(script.getStep(2) instanceof Comment);
+    assertFalse(script.isDirty());
+  }
+
+  public void testSave() throws Exception {
+    script.load(new StringReader(SCRIPT));
+    StringWriter writer = new StringWriter();
+    script.save(writer);
+    assertEquals(SCRIPT, writer.toString());
+
+    // Same layout as a JDOM document
+    StringWriter jdom = new StringWriter();
+    new XMLOutputter(Format.getPrettyFormat())
+        .output(new SAXBuilder().build(new StringReader(SCRIPT)), jdom);
+    assertEquals(jdom.toString(), writer.toString());
+
+    script.addStep(new Comment(script, "added"));
+    assertTrue(script.isDirty());
+  }
+
+  public void testEmpty() throws Exception {
+    script.load(new StringReader("<AWTTestScript/>"));
+    assertEquals(0, script.size());
+    StringWriter writer = new StringWriter();
+    script.save(writer);
+    assertEquals(
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\r\n<AWTTestScript />\r\n\r\n",
+        writer.toString());
+  }
+
+  public void testInvalid() {
+    String[] invalid = {
+      "<AWTTestScript><unknown /></AWTTestScript>",
+      "<AWTTestScript><component id=\"a\" class=\"java.awt.Button\" />"
+          + "<component id=\"a\" class=\"java.awt.Button\" /></AWTTestScript>",
+      "<AWTTestScript><action>",
+    };
+    for (int i = 0; i < invalid.length; i++) {
+      try {
+        script.load(new StringReader(invalid[i]));
+        fail("Expected invalid script: " + invalid[i]);
+      } catch (InvalidScriptException e) {
+      }
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package abbot.script;
+
+import abbot.finder.AWTHierarchy;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import junit.framework.AssertionFailedError;
+import junit.framework.TestCase;
+
+public class SlaveProtocolTest extends TestCase {
+
+  private ServerSocket server;
+  private Socket master;
+  private Socket slave;
+  private SlaveProtocol masterSide;
+  private SlaveProtocol slaveSide;
+
+  protected void setUp() throws IOException {
+    server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    slave = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+    master = server.accept();
+    masterSide = new SlaveProtocol(master);
+    slaveSide = new SlaveProtocol(slave);
+  }
+
+  protected void tearDown() throws IOException {
+    slave.close();
+    master.close();
+    server.close();
+  }
+
+  public void testHeader() throws IOException {
+    slaveSide.writeHeader();
+    masterSide.readHeader();
+
+    slave.getOutputStream().write(new byte[] {0, 0, 0, 1, 0, 1});
+    try {
+      masterSide.readHeader();
+      fail("Expected a protocol mismatch");
+    } catch (IOException e) {
+    }
+  }
+
+  public void testStrings() throws IOException {
+    char[] big = new char[100000];
+    Arrays.fill(big, 'é');
+    masterSide.writeString(null);
+    masterSide.writeString("");
+    masterSide.writeString(new String(big));
+    masterSide.flush();
+    assertNull(slaveSide.readString());
+    assertEquals("", slaveSide.readString());
+    assertEquals(new String(big), slaveSide.readString());
+  }
+
+  public void testInvalidFrames() throws IOException {
+    DataOutputStream out = new DataOutputStream(slave.getOutputStream());
+    out.writeInt(-2);
+    out.writeInt(Integer.MAX_VALUE);
+    out.writeByte(5);
+    out.flush();
+    try {
+      masterSide.readString();
+      fail("Expected an invalid length");
+    } catch (IOException e) {
+    }
+    try {
+      masterSide.readOutput();
+      fail("Expected an invalid length");
+    } catch (IOException e) {
+    }
+    try {
+      masterSide.readEvent(new Script(new AWTHierarchy()));
+      fail("Expected an invalid event type");
+    } catch (IOException e) {
+    }
+  }
+
+  public void testEvents() throws IOException {
+    Script script = new Script(new AWTHierarchy());
+    Comment first = new Comment(script, "first");
+    Comment nested = new Comment(script, "nested");
+    script.addStep(first);
+    script.addStep(
+        new Sequence(script, "sequence", Arrays.asList(new Comment(script, "a"), nested)));
+    assertEquals(0, ForkedStepRunner.getPath(script, script).length);
+    int[] path = ForkedStepRunner.getPath(script, nested);
+    assertTrue(Arrays.equals(new int[] {1, 1}, path));
+    assertSame(nested, ForkedStepRunner.getStep(script, path));
+    assertNull(ForkedStepRunner.getPath(script, new Comment(script, "missing")));
+
+    slaveSide.writeEvent(path, new StepEvent(nested, StepEvent.STEP_START, 3, null));
+    OutputStream out = slaveSide.getOutputStream(SlaveProtocol.OUTPUT);
+    out.write("hello".getBytes());
+    slaveSide.flushPending(0);
+    slaveSide.writeEvent(
+        new int[] {0},
+        new StepEvent(first, StepEvent.STEP_FAILURE, 0, new AssertionFailedError("wrong")));
+    slaveSide.flushPending(0);
+    slaveSide.writeEnd();
+
+    assertEquals(SlaveProtocol.EVENT, masterSide.readFrame());
+    StepEvent ev = masterSide.readEvent(script);
+    assertSame(nested, ev.getStep());
+    assertEquals(StepEvent.STEP_START, ev.getType());
+    assertEquals(3, ev.getID());
+    assertNull(ev.getError());
+    assertEquals(SlaveProtocol.OUTPUT, masterSide.readFrame());
+    assertEquals("hello", new String(masterSide.readOutput()));
+    assertEquals(SlaveProtocol.EVENT, masterSide.readFrame());
+    ev = masterSide.readEvent(script);
+    assertSame(first, ev.getStep());
+    assertTrue(ev.getError() instanceof ForkedStepRunner.ForkedFailure);
+    assertEquals("wrong (forked)", ev.getError().getMessage());
+    // nothing pending, so a heartbeat is sent
+    assertEquals(SlaveProtocol.HEARTBEAT, masterSide.readFrame());
+    assertEquals(SlaveProtocol.END, masterSide.readFrame());
+    slave.close();
+    assertEquals(-1, masterSide.readFrame());
+  }
+}
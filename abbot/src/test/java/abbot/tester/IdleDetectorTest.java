@@ -0,0 +1,51 @@
+package abbot.tester;
+
+import java.awt.*;
+import junit.framework.TestCase;
+
+public class IdleDetectorTest extends TestCase {
+
+  private volatile int dispatched;
+
+  public void testWaitsForPendingEvents() {
+    EventQueue queue = Toolkit.getDefaultToolkit().getSystemEventQueue();
+    for (int i = 0; i < 10; i++) {
+      EventQueue.invokeLater(
+          new Runnable() {
+            public void run() {
+              if (++dispatched < 20) {
+                EventQueue.invokeLater(this);
+              }
+            }
+          });
+    }
+    assertTrue(IdleDetector.waitForIdle(queue, 10000));
+    assertTrue("Queue should be drained, count=" + dispatched, dispatched >= 20);
+  }
+
+  public void testStatistics() {
+    IdleDetector.resetStatistics();
+    EventQueue queue = Toolkit.getDefaultToolkit().getSystemEventQueue();
+    IdleDetector.waitForIdle(queue, 10000);
+    IdleDetector.waitForIdle(queue, 10000);
+    assertEquals(2, IdleDetector.getWaitCount());
+    assertTrue(IdleDetector.getMaxWaitNanos() >= IdleDetector.getLastWaitNanos());
+    assertTrue(IdleDetector.getTotalWaitNanos() >= IdleDetector.getMaxWaitNanos());
+    assertTrue(IdleDetector.getLastDrainedNanos() != 0);
+  }
+
+  public void testDisallowedOnDispatchThread() throws Exception {
+    final Throwable[] thrown = new Throwable[1];
+    EventQueue.invokeAndWait(
+        new Runnable() {
+          public void run() {
+            try {
+              IdleDetector.waitForIdle(Toolkit.getDefaultToolkit().getSystemEventQueue(), 100);
+            } catch (IllegalThreadStateException e) {
+              thrown[0] = e;
+            }
+          }
+        });
+    assertNotNull(thrown[0]);
+  }
+}
@@ -0,0 +1,111 @@
+package abbot.tester;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+import junit.framework.TestCase;
+
+public class ImageComparatorTest extends TestCase {
+
+  private BufferedImage expected;
+  private BufferedImage actual;
+  private File file1;
+  private File file2;
+
+  protected void setUp() throws IOException {
+    expected = image(BufferedImage.TYPE_INT_RGB);
+    actual = image(BufferedImage.TYPE_INT_ARGB);
+    file1 = File.createTempFile("ImageComparatorTest", ".png");
+    file2 = File.createTempFile("ImageComparatorTest", ".jpg");
+  }
+
+  protected void tearDown() {
+    file1.delete();
+    file2.delete();
+  }
+
+  private static BufferedImage image(int type) {
+    BufferedImage image = new BufferedImage(60, 40, type);
+    Graphics g = image.getGraphics();
+    g.setColor(Color.white);
+    g.fillRect(0, 0, 60, 40);
+    g.setColor(Color.blue);
+    g.fillRect(10, 10, 20, 10);
+    g.dispose();
+    return image;
+  }
+
+  public void testIdentical() {
+    assertEquals(0, new ImageComparator().compare(expected, actual));
+    assertEquals(0, new ImageComparator().compare(expected, expected.getSubimage(0, 0, 60, 40)));
+  }
+
+  public void testDifferent() throws IOException {
+    actual.setRGB(5, 6, new Color(250, 255, 255).getRGB());
+    actual.setRGB(50, 30, Color.black.getRGB());
+    assertTrue(new ImageComparator().compare(expected, actual) != 0);
+    assertTrue(new ImageComparator(5).compare(expected, actual) != 0);
+    assertEquals(0, new ImageComparator(5, 1).compare(expected, actual));
+    ImageComparator masked = new ImageComparator(5);
+    masked.addMask(new Rectangle(45, 25, 10, 10));
+    assertEquals(0, masked.compare(expected, actual));
+
+    ImageComparator.Difference diff = new ImageComparator().diff(expected, actual);
+    assertEquals(2, diff.getCount());
+    assertEquals(new Rectangle(5, 6, 46, 25), diff.getBounds());
+    BufferedImage heatmap = diff.getHeatmap();
+    assertEquals(Color.black.getRGB(), heatmap.getRGB(0, 0));
+    assertEquals(Color.white.getRGB(), heatmap.getRGB(50, 30));
+    assertTrue(heatmap.getRGB(5, 6) != Color.black.getRGB());
+  }
+
+  public void testSubimage() {
+    BufferedImage sub = expected.getSubimage(10, 10, 20, 10);
+    BufferedImage blue = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB);
+    Graphics g = blue.getGraphics();
+    g.setColor(Color.blue);
+    g.fillRect(0, 0, 20, 10);
+    g.dispose();
+    assertEquals(0, new ImageComparator().compare(sub, blue));
+    assertTrue(new ImageComparator().compare(expected.getSubimage(9, 10, 20, 10), blue) != 0);
+  }
+
+  public void testSizeMismatch() throws IOException {
+    BufferedImage smaller = expected.getSubimage(0, 0, 50, 40);
+    assertTrue(new ImageComparator().compare(expected, smaller) > 0);
+    assertEquals(-1, new ImageComparator().diff(expected, smaller).getCount());
+  }
+
+  public void testFiles() throws IOException {
+    ImageIO.write(expected, "png", file1);
+    assertEquals(0, new ImageComparator().compare(actual, file1));
+    assertEquals(0, new ImageComparator().compare(file1.getPath(), file1.getPath()));
+    ImageComparator.writeJPEG(file2, expected);
+    assertEquals(0, new ImageComparator().compare(actual, file2));
+    actual.setRGB(0, 0, Color.red.getRGB());
+    assertTrue(new ImageComparator().compare(actual, file2) != 0);
+  }
+
+  public void testFileComparator() throws IOException {
+    FileOutputStream out = new FileOutputStream(file1);
+    out.write(new byte[] {1, 2, 3, (byte) 200});
+    out.close();
+    out = new FileOutputStream(file2);
+    out.write(new byte[] {1, 2, 3, (byte) 200});
+    out.close();
+    FileComparator comparator = new FileComparator();
+    assertEquals(0, comparator.compare(file1, file2));
+    out = new FileOutputStream(file2);
+    out.write(new byte[] {1, 2, 3, 4});
+    out.close();
+    assertEquals(196, comparator.compare(file1, file2));
+    assertEquals(-196, comparator.compare(file2.getPath(), file1.getPath()));
+    out = new FileOutputStream(file2);
+    out.write(new byte[] {1});
+    out.close();
+    assertEquals(3, comparator.compare(file1, file2));
+  }
+}
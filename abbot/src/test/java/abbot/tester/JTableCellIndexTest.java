@@ -0,0 +1,105 @@
+package abbot.tester;
+
+import java.awt.*;
+import java.util.Collections;
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableRowSorter;
+import junit.framework.TestCase;
+
+public class JTableCellIndexTest extends TestCase {
+
+  private static final int ROWS = 1000;
+
+  private DefaultTableModel model;
+  private JTable table;
+
+  protected void setUp() {
+    model = new DefaultTableModel(ROWS, 3);
+    for (int row = 0; row < ROWS; row++) {
+      model.setValueAt("name " + row, row, 0);
+      model.setValueAt(Integer.valueOf(row % 10), row, 1);
+      model.setValueAt("value " + row, row, 2);
+    }
+    table = new JTable(model);
+  }
+
+  private void assertCell(int row, int col, JTableLocation.Cell cell) {
+    assertEquals(new JTableLocation.Cell(row, col), cell);
+  }
+
+  public void testFindLiteral() {
+    assertCell(500, 0, JTableCellIndex.findCell(table, "name 500", -1));
+    assertCell(3, 1, JTableCellIndex.findCell(table, "3", -1));
+    assertNull(JTableCellIndex.findCell(table, "missing", -1));
+  }
+
+  public void testFindPattern() {
+    assertCell(12, 2, JTableCellIndex.findCell(table, "value 1[2-3]", -1));
+  }
+
+  public void testFindInColumn() {
+    model.setValueAt("7", 2, 0);
+    assertCell(2, 0, JTableCellIndex.findCell(table, "7", -1));
+    assertCell(7, 1, JTableCellIndex.findCell(table, "7", 1));
+  }
+
+  public void testUpdates() {
+    assertCell(10, 0, JTableCellIndex.findCell(table, "name 10", -1));
+    model.setValueAt("renamed", 10, 0);
+    assertNull(JTableCellIndex.findCell(table, "name 10", -1));
+    assertCell(10, 0, JTableCellIndex.findCell(table, "renamed", -1));
+    model.insertRow(0, new Object[] {"inserted", "x", "y"});
+    assertCell(0, 0, JTableCellIndex.findCell(table, "inserted", -1));
+    assertCell(11, 0, JTableCellIndex.findCell(table, "renamed", -1));
+    table.setModel(new DefaultTableModel(new Object[][] {{"other"}}, new Object[] {"A"}));
+    assertNull(JTableCellIndex.findCell(table, "renamed", -1));
+    assertCell(0, 0, JTableCellIndex.findCell(table, "other", -1));
+  }
+
+  public void testSortedView() {
+    TableRowSorter sorter = new TableRowSorter(model);
+    sorter.setSortKeys(Collections.singletonList(new RowSorter.SortKey(0, SortOrder.DESCENDING)));
+    table.setRowSorter(sorter);
+    JTableLocation.Cell cell = JTableCellIndex.findCell(table, "name 999", -1);
+    assertEquals(table.convertRowIndexToView(999), cell.row);
+    assertEquals(0, cell.col);
+  }
+
+  public void testRendererFallback() {
+    table.setDefaultRenderer(
+        Object.class,
+        new DefaultTableCellRenderer() {
+          public Component getTableCellRendererComponent(
+              JTable table, Object value, boolean selected, boolean focus, int row, int col) {
+            return super.getTableCellRendererComponent(
+                table, "<" + value + ">", selected, focus, row, col);
+          }
+        });
+    assertCell(4, 2, JTableCellIndex.findCell(table, "<value 4>", -1));
+    assertNull(JTableCellIndex.findCell(table, "value 4", -1));
+  }
+
+  public void testFirstRenderedMatch() {
+    model.setValueAt("alias", 5, 0);
+    table
+        .getColumnModel()
+        .getColumn(0)
+        .setCellRenderer(
+            new DefaultTableCellRenderer() {
+              public Component getTableCellRendererComponent(
+                  JTable table, Object value, boolean selected, boolean focus, int row, int col) {
+                Object shown = "name 2".equals(value) ? "alias" : value;
+                return super.getTableCellRendererComponent(table, shown, selected, focus, row, col);
+              }
+            });
+    assertCell(2, 0, JTableCellIndex.findCell(table, "alias", -1));
+    assertCell(6, 0, JTableCellIndex.findCell(table, "name 6", -1));
+    assertNull(JTableCellIndex.findCell(table, "name 2", -1));
+  }
+
+  public void testLocation() {
+    assertCell(42, 2, new JTableLocation("value 42").getCell(table));
+  }
+}
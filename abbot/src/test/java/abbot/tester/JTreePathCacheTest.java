@@ -0,0 +1,104 @@
+package abbot.tester;
+
+import javax.swing.*;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
+import junit.framework.TestCase;
+
+public class JTreePathCacheTest extends TestCase {
+
+  private DefaultMutableTreeNode root;
+  private DefaultTreeModel model;
+  private JTree tree;
+
+  private static DefaultMutableTreeNode node(DefaultMutableTreeNode parent, String name) {
+    DefaultMutableTreeNode node = new DefaultMutableTreeNode(name);
+    parent.add(node);
+    return node;
+  }
+
+  protected void setUp() {
+    root = new DefaultMutableTreeNode("root");
+    for (int i = 0; i < 10; i++) {
+      DefaultMutableTreeNode parent = node(root, "parent " + i);
+      for (int j = 0; j < 10; j++) {
+        node(parent, "child " + j);
+      }
+    }
+    model = new DefaultTreeModel(root);
+    tree = new JTree(model);
+  }
+
+  private static TreePath path(String... names) {
+    return new TreePath(names);
+  }
+
+  private TreePath find(TreePath path) {
+    return JTreeLocation.findMatchingPath(tree, path);
+  }
+
+  private void assertResolved(String expected, TreePath path) {
+    assertEquals(expected, find(path).toString());
+  }
+
+  public void testFind() {
+    assertResolved("[root, parent 3, child 4]", path("root", "parent 3", "child 4"));
+    assertResolved("[root, parent 3, child 5]", path("root", "parent 3", "child 5"));
+    assertResolved("[root, parent 1, child 2]", path("root", "parent [1-2]", "child 2"));
+    try {
+      find(path("root", "parent 3", "missing"));
+      fail("Missing path should not be found");
+    } catch (LocationUnavailableException e) {
+      // expected
+    }
+  }
+
+  public void testHiddenRoot() {
+    tree.setRootVisible(false);
+    assertResolved("[root, parent 2, child 1]", path("parent 2", "child 1"));
+    assertResolved("[root, parent 2]", path("root", "parent 2"));
+  }
+
+  public void testCachedPathReused() {
+    TreePath first = find(path("root", "parent 3", "child 4"));
+    assertSame(first, find(path("root", "parent 3", "child 4")));
+    assertSame(first, new JTreeLocation(path("root", "parent 3", "child 4")).getPath(tree));
+  }
+
+  public void testBacktracking() {
+    DefaultMutableTreeNode empty = new DefaultMutableTreeNode("parent 3");
+    model.insertNodeInto(empty, root, 0);
+    TreePath resolved = find(path("root", "parent 3", "child 4"));
+    assertEquals(4, model.getIndexOfChild(root, resolved.getPathComponent(1)));
+    // A new match in the abandoned branch is now preferred
+    model.insertNodeInto(new DefaultMutableTreeNode("child 4"), empty, 0);
+    assertSame(empty, find(path("root", "parent 3", "child 4")).getPathComponent(1));
+  }
+
+  public void testModelChanges() {
+    DefaultMutableTreeNode parent = (DefaultMutableTreeNode) root.getChildAt(3);
+    DefaultMutableTreeNode child = (DefaultMutableTreeNode) parent.getChildAt(4);
+    assertSame(child, find(path("root", "parent 3", "child 4")).getLastPathComponent());
+
+    child.setUserObject("renamed");
+    model.nodeChanged(child);
+    assertResolved("[root, parent 3, renamed]", path("root", "parent 3", "renamed"));
+    try {
+      find(path("root", "parent 3", "child 4"));
+      fail("Renamed path should not be found");
+    } catch (LocationUnavailableException e) {
+      // expected
+    }
+
+    DefaultMutableTreeNode earlier = new DefaultMutableTreeNode("renamed");
+    model.insertNodeInto(earlier, parent, 0);
+    assertSame(earlier, find(path("root", "parent 3", "renamed")).getLastPathComponent());
+
+    model.removeNodeFromParent(earlier);
+    assertSame(child, find(path("root", "parent 3", "renamed")).getLastPathComponent());
+
+    tree.setModel(new DefaultTreeModel(new DefaultMutableTreeNode("other")));
+    assertResolved("[other]", path("other"));
+  }
+}
@@ -0,0 +1,94 @@
+package abbot.tester;
+
+import abbot.Version;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import javax.swing.*;
+import junit.framework.TestCase;
+
+public class KeyStrokeTableTest extends TestCase {
+
+  private static final KeyStroke A = KeyStroke.getKeyStroke(KeyEvent.VK_A, 0);
+  private static final KeyStroke SHIFT_A =
+      KeyStroke.getKeyStroke(KeyEvent.VK_A, InputEvent.SHIFT_DOWN_MASK);
+  private static final KeyStroke E_ACUTE = KeyStroke.getKeyStroke(KeyEvent.VK_2, 0);
+
+  private KeyStrokeTable table;
+  private File file;
+
+  protected void setUp() throws IOException {
+    Map keyStrokes = new HashMap();
+    keyStrokes.put(Character.valueOf('a'), A);
+    keyStrokes.put(Character.valueOf('A'), SHIFT_A);
+    keyStrokes.put(Character.valueOf('é'), E_ACUTE);
+    Map chars = new HashMap();
+    chars.put(A, Character.valueOf('a'));
+    chars.put(SHIFT_A, Character.valueOf('A'));
+    chars.put(E_ACUTE, Character.valueOf('é'));
+    table = KeyStrokeTable.create("test", keyStrokes, chars);
+    file = File.createTempFile("keystrokes", ".kmap");
+  }
+
+  protected void tearDown() {
+    file.delete();
+  }
+
+  private void assertMappings(KeyStrokeTable table) {
+    assertEquals("test", table.getSource());
+    assertEquals(A, table.getKeyStroke('a'));
+    assertEquals(SHIFT_A, table.getKeyStroke('A'));
+    assertEquals(E_ACUTE, table.getKeyStroke('é'));
+    assertNull(table.getKeyStroke('b'));
+    assertNull(table.getKeyStroke('一'));
+    assertEquals('a', table.getChar(A.getKeyCode(), A.getModifiers()));
+    assertEquals('A', table.getChar(SHIFT_A.getKeyCode(), SHIFT_A.getModifiers()));
+    assertEquals('é', table.getChar(E_ACUTE.getKeyCode(), E_ACUTE.getModifiers()));
+    assertEquals(KeyEvent.CHAR_UNDEFINED, table.getChar(KeyEvent.VK_B, 0));
+  }
+
+  public void testLookup() {
+    assertMappings(table);
+  }
+
+  public void testSaveAndLoad() throws IOException {
+    table.save(file);
+    assertMappings(KeyStrokeTable.load(file));
+  }
+
+  public void testLoadInvalid() throws IOException {
+    FileOutputStream out = new FileOutputStream(file);
+    out.write(new byte[] {'A', 'K', 'M', 'P', 0, 0});
+    out.close();
+    assertNull(KeyStrokeTable.load(file));
+    assertNull(KeyStrokeTable.load(new File(file.getPath() + ".missing")));
+  }
+
+  public void testLoadInvalidCount() throws IOException {
+    DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+    out.writeInt(0x414b4d50);
+    out.writeInt(1);
+    out.writeUTF("test");
+    out.writeInt(Integer.MAX_VALUE);
+    out.close();
+    assertNull(KeyStrokeTable.load(file));
+  }
+
+  public void testSourceIdentifiesVersion() {
+    String source = KeyStrokeMap.getSource();
+    assertTrue(source, source.indexOf(Version.VERSION) != -1);
+    assertEquals(source, KeyStrokeMap.getTable().getSource());
+  }
+
+  public void testKeyStrokeMapRoundTrip() {
+    KeyStroke ks = KeyStrokeMap.getKeyStroke('\n');
+    assertNotNull(ks);
+    assertEquals(KeyEvent.VK_ENTER, ks.getKeyCode());
+    assertEquals('\b', KeyStrokeMap.getChar(KeyStrokeMap.getKeyStroke('\b')));
+  }
+}
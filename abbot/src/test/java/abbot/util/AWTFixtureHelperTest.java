@@ -0,0 +1,17 @@
+package abbot.util;
+
+import junit.framework.TestCase;
+
+public class AWTFixtureHelperTest extends TestCase {
+
+  private static final long MB = 1024 * 1024;
+
+  public void testGCThreshold() {
+    assertTrue(AWTFixtureHelper.isOverThreshold(0, 0, 100 * MB));
+    assertFalse(AWTFixtureHelper.isOverThreshold(100, 100 * MB, 100 * MB));
+    assertFalse(AWTFixtureHelper.isOverThreshold(70, 70 * MB, 100 * MB));
+    assertTrue(AWTFixtureHelper.isOverThreshold(70, 71 * MB, 100 * MB));
+    // An unlimited heap reports Long.MAX_VALUE
+    assertFalse(AWTFixtureHelper.isOverThreshold(70, 100 * MB, Long.MAX_VALUE));
+  }
+}
@@ -0,0 +1,79 @@
+package abbot.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import junit.framework.TestCase;
+
+public class ClassBytesCacheTest extends TestCase {
+
+  private static final String NAME = Loaded.class.getName();
+
+  private File jar;
+
+  /**
+   * Loaded from a jar by each test.
+   */
+  public static class Loaded {}
+
+  protected void setUp() throws IOException {
+    ClassBytesCache.clear();
+    jar = File.createTempFile(getName(), ".jar");
+    writeJar(jar);
+  }
+
+  protected void tearDown() {
+    ClassBytesCache.clear();
+    jar.delete();
+  }
+
+  private static void writeJar(File file) throws IOException {
+    String path = NAME.replace('.', '/') + ".class";
+    try (InputStream in = ClassBytesCacheTest.class.getClassLoader().getResourceAsStream(path);
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(file))) {
+      out.putNextEntry(new JarEntry(path));
+      out.write(in.readAllBytes());
+      out.closeEntry();
+    }
+  }
+
+  private Class load() throws Exception {
+    NonDelegatingClassLoader loader =
+        new NonDelegatingClassLoader(jar.getPath(), getClass().getClassLoader());
+    Class c = loader.loadClass(NAME);
+    assertSame(loader, c.getClassLoader());
+    assertEquals(jar.toURI().toURL(), c.getProtectionDomain().getCodeSource().getLocation());
+    assertNotNull(c.getPackage());
+    return c;
+  }
+
+  public void testBytesReusedAcrossLoaders() throws Exception {
+    Class first = load();
+    Class second = load();
+    assertNotSame(first, second);
+    assertEquals(1, ClassBytesCache.getMissCount());
+    assertEquals(1, ClassBytesCache.getHitCount());
+  }
+
+  public void testModifiedJarIsReread() throws Exception {
+    load();
+    writeJar(jar);
+    jar.setLastModified(jar.lastModified() - 10000);
+    load();
+    assertEquals(2, ClassBytesCache.getMissCount());
+    assertEquals(0, ClassBytesCache.getHitCount());
+  }
+
+  public void testDirectoryEarlierInPathTakesPrecedence() throws Exception {
+    String classes = new File(Loaded.class.getResource("/").toURI()).getPath();
+    NonDelegatingClassLoader loader =
+        new NonDelegatingClassLoader(
+            classes + File.pathSeparator + jar.getPath(), getClass().getClassLoader());
+    Class c = loader.loadClass(NAME);
+    assertSame(loader, c.getClassLoader());
+    assertEquals(0, ClassBytesCache.getMissCount());
+  }
+}
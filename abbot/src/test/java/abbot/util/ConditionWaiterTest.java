@@ -0,0 +1,51 @@
+package abbot.util;
+
+import abbot.script.Condition;
+import java.awt.*;
+import javax.swing.*;
+import junit.framework.TestCase;
+
+public class ConditionWaiterTest extends TestCase {
+
+  private volatile boolean flag;
+
+  private final Condition condition =
+      new Condition() {
+        public boolean test() {
+          return flag;
+        }
+
+        public String toString() {
+          return "flag set";
+        }
+      };
+
+  public void testWakesOnEvent() {
+    final JPanel panel = new JPanel();
+    EventQueue.invokeLater(
+        new Runnable() {
+          public void run() {
+            flag = true;
+            panel.add(new JLabel());
+          }
+        });
+    long start = System.currentTimeMillis();
+    assertTrue(ConditionWaiter.waitFor(condition, 10000, 5000));
+    assertTrue(
+        "Condition should be re-tested when the event is dispatched",
+        System.currentTimeMillis() - start < 5000);
+  }
+
+  public void testFallbackInterval() {
+    new Thread() {
+      public void run() {
+        flag = true;
+      }
+    }.start();
+    assertTrue(ConditionWaiter.waitFor(condition, 10000, 10));
+  }
+
+  public void testTimeout() {
+    assertFalse(ConditionWaiter.waitFor(condition, 50, 10));
+  }
+}
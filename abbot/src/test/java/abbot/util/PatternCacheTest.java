@@ -0,0 +1,75 @@
+package abbot.util;
+
+import com.windowtester.runtime.util.StringComparator;
+import junit.framework.TestCase;
+
+public class PatternCacheTest extends TestCase {
+
+  protected void setUp() {
+    PatternCache.clear();
+  }
+
+  public void testLiteralFastPath() {
+    assertTrue(StringComparator.matches("Save", "Save"));
+    assertFalse(StringComparator.matches("Save As", "Save"));
+    assertTrue(Regexp.stringMatch("Save", "Save"));
+    assertTrue(Regexp.stringContainsMatch("As", "Save As"));
+    assertEquals(0, PatternCache.size());
+    assertEquals(0, PatternCache.getMissCount());
+    assertEquals(3, PatternCache.getLiteralCount());
+  }
+
+  public void testCompiledPatternsAreReused() {
+    for (int i = 0; i < 10; i++) {
+      assertTrue(StringComparator.matches("Foo.java", "Foo(.java)?"));
+      assertTrue(Regexp.stringMatch("frame[0-9]+", "frame" + i));
+    }
+    assertEquals(2, PatternCache.getMissCount());
+    assertEquals(18, PatternCache.getHitCount());
+    assertEquals(2, PatternCache.size());
+  }
+
+  public void testInvalidPatterns() {
+    assertTrue(StringComparator.matches("(A|B", "(A|B"));
+    assertFalse(StringComparator.matches("A", "(A|B"));
+    assertFalse(StringComparator.matches("A", "(A|B"));
+    assertFalse(Regexp.stringMatch("[", "["));
+    assertFalse(Regexp.stringMatch("[", "["));
+    assertEquals(2, PatternCache.getMissCount());
+  }
+
+  public void testBounded() {
+    for (int i = 0; i < PatternCache.CACHE_SIZE * 2; i++) {
+      assertNotNull(PatternCache.getPattern("a{" + i + "}"));
+    }
+    assertTrue(PatternCache.size() <= PatternCache.CACHE_SIZE);
+  }
+
+  public void testConcurrentLookups() throws Exception {
+    Thread[] threads = new Thread[4];
+    final boolean[] failed = new boolean[1];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] =
+          new Thread() {
+            public void run() {
+              for (int i = 0; i < 2000; i++) {
+                if (!StringComparator.matches("item" + (i % 50), "item" + (i % 50) + "|x")) {
+                  failed[0] = true;
+                }
+              }
+            }
+          };
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertFalse(failed[0]);
+    assertEquals(8000, PatternCache.getHitCount() + PatternCache.getMissCount());
+  }
+
+  public void testMultiline() {
+    assertTrue(Regexp.stringContainsMatch("(?m)^b$", "a\nb\nc"));
+    assertFalse(Regexp.stringContainsMatch("^b$", "a\nb\nc"));
+  }
+}
@@ -0,0 +1,67 @@
+package abbot.util;
+
+import java.util.Properties;
+import javax.swing.*;
+import junit.framework.TestCase;
+
+public class SystemStateTest extends TestCase {
+
+  private static final String CHANGED = "abbot.test.changed";
+  private static final String ADDED = "abbot.test.added";
+  private static final String REMOVED = "abbot.test.removed";
+
+  protected void setUp() {
+    System.setProperty(CHANGED, "original");
+    System.setProperty(REMOVED, "original");
+    System.clearProperty(ADDED);
+  }
+
+  protected void tearDown() {
+    System.clearProperty(CHANGED);
+    System.clearProperty(REMOVED);
+    System.clearProperty(ADDED);
+  }
+
+  public void testRestoreProperties() {
+    Properties props = System.getProperties();
+    SystemState state = new SystemState();
+    System.setProperty(CHANGED, "changed");
+    System.setProperty(ADDED, "added");
+    System.clearProperty(REMOVED);
+    state.restore();
+    assertSame(props, System.getProperties());
+    assertEquals("original", System.getProperty(CHANGED));
+    assertEquals("original", System.getProperty(REMOVED));
+    assertNull(System.getProperty(ADDED));
+  }
+
+  public void testRestoreReplacedProperties() {
+    Properties props = System.getProperties();
+    SystemState state = new SystemState();
+    Properties replacement = new Properties();
+    replacement.setProperty(ADDED, "added");
+    System.setProperties(replacement);
+    state.restore();
+    assertSame(props, System.getProperties());
+    assertEquals("original", System.getProperty(CHANGED));
+    assertNull(System.getProperty(ADDED));
+  }
+
+  public void testNoLookAndFeel() throws Exception {
+    LookAndFeel laf = UIManager.getLookAndFeel();
+    try {
+      UIManager.setLookAndFeel((LookAndFeel) null);
+      SystemState state = new SystemState();
+      UIManager.setLookAndFeel(laf);
+      state.restore();
+      assertSame(laf, UIManager.getLookAndFeel());
+
+      state = new SystemState();
+      UIManager.setLookAndFeel((LookAndFeel) null);
+      state.restore();
+      assertEquals(laf.getClass(), UIManager.getLookAndFeel().getClass());
+    } finally {
+      UIManager.setLookAndFeel(laf);
+    }
+  }
+}
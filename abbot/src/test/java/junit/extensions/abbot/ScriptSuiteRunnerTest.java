@@ -0,0 +1,100 @@
+package junit.extensions.abbot;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import junit.framework.AssertionFailedError;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestListener;
+import junit.framework.TestResult;
+
+public class ScriptSuiteRunnerTest extends TestCase {
+
+  private static final String VMARGS = "vmargs=\"-Dabbot.use_security_manager=false\"";
+
+  private File dir;
+
+  protected void setUp() throws IOException {
+    dir = File.createTempFile(getName(), "");
+    dir.delete();
+    dir.mkdir();
+  }
+
+  protected void tearDown() {
+    File[] files = dir.listFiles();
+    for (int i = 0; i < files.length; i++) {
+      files[i].delete();
+    }
+    dir.delete();
+  }
+
+  private ScriptFixture createScript(String name, String body) throws IOException {
+    File file = new File(dir, name + ".xml");
+    Writer w = new FileWriter(file);
+    try {
+      w.write("<AWTTestScript forked=\"true\" " + VMARGS + ">" + body + "</AWTTestScript>");
+    } finally {
+      w.close();
+    }
+    return new ScriptFixture(file.getPath());
+  }
+
+  public void testRunForked() throws IOException {
+    ScriptFixture pass = createScript("pass", "<comment desc=\"nothing\"/>");
+    ScriptFixture fail =
+        createScript(
+            "fail",
+            "<assert class=\"java.lang.Boolean\" method=\"getBoolean\" args=\"none\""
+                + " value=\"true\"/>");
+    TestResult result = new TestResult();
+    new ScriptSuiteRunner(Arrays.asList(pass, fail), 2, new String[0], 0).run(result);
+    assertEquals(2, result.runCount());
+    assertEquals(1, result.failureCount());
+    assertEquals(0, result.errorCount());
+  }
+
+  public void testReportedWhileRunning() throws IOException {
+    ScriptFixture sleep =
+        createScript("sleep", "<call class=\"java.lang.Thread\" method=\"sleep\" args=\"500\"/>");
+    final Map<Test, Long> started = new ConcurrentHashMap<>();
+    final Map<Test, Long> elapsed = new ConcurrentHashMap<>();
+    TestResult result = new TestResult();
+    result.addListener(
+        new TestListener() {
+          public void startTest(Test test) {
+            started.put(test, Long.valueOf(System.currentTimeMillis()));
+          }
+
+          public void endTest(Test test) {
+            elapsed.put(
+                test, Long.valueOf(System.currentTimeMillis() - started.get(test).longValue()));
+          }
+
+          public void addError(Test test, Throwable t) {}
+
+          public void addFailure(Test test, AssertionFailedError t) {}
+        });
+    new ScriptSuiteRunner(Collections.singletonList(sleep), 1, new String[0], 0).run(result);
+    assertTrue(result.wasSuccessful());
+    assertTrue("Script not timed: " + elapsed, elapsed.get(sleep).longValue() >= 500);
+  }
+
+  public void testRetryLostSlave() throws IOException {
+    ScriptFixture exit =
+        createScript("exit", "<call class=\"java.lang.System\" method=\"exit\" args=\"3\"/>");
+    TestResult result = new TestResult();
+    new ScriptSuiteRunner(Collections.singletonList(exit), 1, new String[0], 1).run(result);
+    assertEquals(1, result.runCount());
+    assertEquals(1, result.errorCount());
+    Throwable error =
+        ((junit.framework.TestFailure) result.errors().nextElement()).thrownException();
+    assertTrue(
+        "Wrong error: " + error, error instanceof abbot.script.ForkedStepRunner.SlaveLostException);
+  }
+}
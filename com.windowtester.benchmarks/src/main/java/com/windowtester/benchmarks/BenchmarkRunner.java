@@ -0,0 +1,20 @@
+package com.windowtester.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * Runs the benchmarks headless, publishing results as JSON.  Any JMH command line options may be given, e.g. a
+ * benchmark name pattern, <code>-p width=4</code> or <code>-rff results.json</code>; results go to
+ * <code>jmh-result.json</code> in the working directory by default.
+ */
+public class BenchmarkRunner {
+
+  public static void main(String[] args) throws Exception {
+    System.setProperty("java.awt.headless", "true");
+    String[] jmhArgs = new String[args.length + 2];
+    jmhArgs[0] = "-rf";
+    jmhArgs[1] = "json";
+    System.arraycopy(args, 0, jmhArgs, 2, args.length);
+    Main.main(jmhArgs);
+  }
+}
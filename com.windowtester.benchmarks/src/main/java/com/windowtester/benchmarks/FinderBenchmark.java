@@ -0,0 +1,114 @@
+package com.windowtester.benchmarks;
+
+import abbot.finder.BasicFinder;
+import abbot.finder.ComponentFinder;
+import abbot.finder.ComponentSnapshot;
+import abbot.finder.Hierarchy;
+import abbot.finder.matchers.ClassMatcher;
+import abbot.finder.matchers.NameMatcher;
+import com.windowtester.internal.finder.swing.SwingWidgetFinder;
+import com.windowtester.internal.swing.locator.ScopedComponentIdentifierBuilder;
+import com.windowtester.runtime.locator.IWidgetLocator;
+import com.windowtester.runtime.swing.SwingWidgetLocator;
+import java.awt.*;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.swing.*;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookup of components by the abbot and WindowTester finders, with and without an indexed hierarchy, and by a
+ * (parallel) search of a hierarchy snapshot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+// The hierarchies' WindowTracker schedules on abbot's NamedTimer, which reads the private
+// TimerTask.state field
+@Fork(
+    value = 1,
+    jvmArgsAppend = {"-Djava.awt.headless=true", "--add-opens=java.base/java.util=ALL-UNNAMED"})
+@State(Scope.Benchmark)
+public class FinderBenchmark {
+
+  @Param({"4", "8"})
+  public int width;
+
+  @Param({"3", "4"})
+  public int depth;
+
+  private Hierarchy hierarchy;
+  private ComponentFinder finder;
+  private ComponentFinder indexedFinder;
+  private SwingWidgetFinder widgetFinder;
+  private SwingWidgetFinder indexedWidgetFinder;
+  private SwingWidgetLocator locator;
+
+  @Setup
+  public void setUp() {
+    final SyntheticHierarchy tree = new SyntheticHierarchy(width, depth);
+    hierarchy = tree.createHierarchy();
+    finder = new BasicFinder(hierarchy);
+    indexedFinder = new BasicFinder(tree.createIndexedHierarchy());
+    widgetFinder =
+        new SwingWidgetFinder(tree.createHierarchy()) {
+          protected Collection getSearchRoots() {
+            return Collections.singletonList(tree.getRoot());
+          }
+        };
+    indexedWidgetFinder =
+        new SwingWidgetFinder(tree.createIndexedHierarchy()) {
+          protected Collection getSearchRoots() {
+            return Collections.singletonList(tree.getRoot());
+          }
+        };
+    Component target = tree.getTarget();
+    Container parent = target.getParent();
+    int index = new ScopedComponentIdentifierBuilder().getIndex(target, parent);
+    locator =
+        new SwingWidgetLocator(
+            JButton.class,
+            SyntheticHierarchy.BUTTON_TEXT,
+            index,
+            new SwingWidgetLocator(JPanel.class, parent.getName()));
+  }
+
+  @Benchmark
+  public Component basicFinderByName() throws Exception {
+    return finder.find(new NameMatcher(SyntheticHierarchy.TARGET_NAME));
+  }
+
+  @Benchmark
+  public Component indexedBasicFinderByName() throws Exception {
+    return indexedFinder.find(new NameMatcher(SyntheticHierarchy.TARGET_NAME));
+  }
+
+  @Benchmark
+  public Set<Component> snapshotByClass() {
+    return ComponentSnapshot.capture(hierarchy, hierarchy.getRoots())
+        .findMatches(new ClassMatcher(JButton.class), false);
+  }
+
+  @Benchmark
+  public IWidgetLocator[] swingWidgetFinder() {
+    return widgetFinder.findAll(locator);
+  }
+
+  @Benchmark
+  public IWidgetLocator[] indexedSwingWidgetFinder() {
+    return indexedWidgetFinder.findAll(locator);
+  }
+}
@@ -0,0 +1,92 @@
+package com.windowtester.benchmarks;
+
+import abbot.finder.Hierarchy;
+import abbot.finder.Matcher;
+import abbot.finder.matchers.ClassMatcher;
+import abbot.script.ComponentReference;
+import abbot.script.XMLConstants;
+import com.windowtester.internal.finder.matchers.swing.CompositeMatcher;
+import com.windowtester.internal.finder.matchers.swing.HierarchyMatcher;
+import com.windowtester.internal.finder.matchers.swing.NameOrLabelMatcher;
+import com.windowtester.internal.swing.locator.ScopedComponentIdentifierBuilder;
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+import javax.swing.*;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Matching of a single component: hierarchy matching (which computes sibling indexes) and component reference
+ * resolution.  Locator generation is not measured, since it requires a showing, active window and benchmarks run
+ * headless.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+// java.util is opened for NamedTimer's reflective TimerTask.state check (see FinderBenchmark)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {"-Djava.awt.headless=true", "--add-opens=java.base/java.util=ALL-UNNAMED"})
+@State(Scope.Benchmark)
+public class MatcherBenchmark {
+
+  @Param({"4", "8"})
+  public int width;
+
+  @Param({"3", "4"})
+  public int depth;
+
+  private JButton target;
+  private Hierarchy hierarchy;
+  private HierarchyMatcher hierarchyMatcher;
+  private ComponentReference reference;
+  private ScopedComponentIdentifierBuilder identifier;
+
+  @Setup
+  public void setUp() {
+    SyntheticHierarchy tree = new SyntheticHierarchy(width, depth);
+    target = tree.getTarget();
+    hierarchy = tree.createHierarchy();
+    identifier = new ScopedComponentIdentifierBuilder();
+    Container parent = target.getParent();
+    hierarchyMatcher =
+        new HierarchyMatcher(
+            JButton.class,
+            SyntheticHierarchy.BUTTON_TEXT,
+            identifier.getIndex(target, parent),
+            new CompositeMatcher(
+                new Matcher[] {
+                  new ClassMatcher(JPanel.class), new NameOrLabelMatcher(parent.getName())
+                }));
+    reference =
+        new ComponentReference(
+            null,
+            JButton.class,
+            new String[][] {{XMLConstants.TAG_NAME, SyntheticHierarchy.TARGET_NAME}});
+  }
+
+  @Benchmark
+  public boolean hierarchyMatcher() {
+    return hierarchyMatcher.matches(target);
+  }
+
+  @Benchmark
+  public Component componentReference() throws Exception {
+    return reference.getComponent(hierarchy);
+  }
+
+  @Benchmark
+  public int siblingIndex() {
+    return identifier.getIndex(target, target.getParent());
+  }
+}
@@ -0,0 +1,95 @@
+package com.windowtester.benchmarks;
+
+import abbot.finder.AWTHierarchy;
+import abbot.finder.Hierarchy;
+import abbot.finder.IndexedHierarchy;
+import java.awt.*;
+import java.util.Collection;
+import java.util.Collections;
+import javax.swing.*;
+
+/**
+ * A synthetic component tree of the given width and depth, built only from lightweight components so that no display
+ * is required.  Every container has <code>width</code> children; containers are named <code>panel-&lt;path&gt;</code>,
+ * and leaves alternate between identically labelled buttons and uniquely labelled labels so that sibling indexes have
+ * to be computed.  The last button in the tree is named {@link #TARGET_NAME}.
+ */
+public class SyntheticHierarchy {
+
+  public static final String TARGET_NAME = "target";
+
+  public static final String BUTTON_TEXT = "Button";
+
+  private final JPanel root;
+
+  private JButton target;
+
+  private int size;
+
+  public SyntheticHierarchy(int width, int depth) {
+    root = new JPanel();
+    root.setName("panel");
+    populate(root, "panel", width, depth);
+    target.setName(TARGET_NAME);
+  }
+
+  private void populate(JPanel parent, String path, int width, int depth) {
+    for (int i = 0; i < width; i++) {
+      String name = path + "-" + i;
+      Component child;
+      if (depth > 1) {
+        JPanel panel = new JPanel();
+        populate(panel, name, width, depth - 1);
+        child = panel;
+      } else if (i % 2 == 0) {
+        target = new JButton(BUTTON_TEXT);
+        child = target;
+      } else {
+        child = new JLabel("Label " + name);
+      }
+      child.setName(depth > 1 ? name : null);
+      parent.add(child);
+      ++size;
+    }
+  }
+
+  public JPanel getRoot() {
+    return root;
+  }
+
+  /**
+   * Returns the last button in the tree, which is found last by a depth-first walk.
+   */
+  public JButton getTarget() {
+    return target;
+  }
+
+  /**
+   * Returns the number of components in the tree, excluding the root.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns a hierarchy which walks the tree on every lookup.
+   */
+  public Hierarchy createHierarchy() {
+    return new AWTHierarchy() {
+      public Collection<Component> getRoots() {
+        return Collections.singletonList(root);
+      }
+    };
+  }
+
+  /**
+   * Returns a hierarchy which indexes the tree.
+   */
+  public IndexedHierarchy createIndexedHierarchy() {
+    return new IndexedHierarchy() {
+      public Collection<Component> getRoots() {
+        return Collections.singletonList(root);
+      }
+    };
+  }
+}
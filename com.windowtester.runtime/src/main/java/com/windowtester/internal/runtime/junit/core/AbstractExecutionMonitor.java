@@ -10,6 +10,7 @@
  *******************************************************************************/
 package com.windowtester.internal.runtime.junit.core;
 
+import abbot.util.Properties;
 import com.windowtester.runtime.WaitTimedOutException;
 import com.windowtester.runtime.monitor.IUIThreadMonitor;
 import com.windowtester.runtime.monitor.IUIThreadMonitorListener;
@@ -27,16 +28,31 @@ public abstract class AbstractExecutionMonitor
     implements IExecutionMonitor, IUIThreadMonitorListener {
 
   /**
-   * Manages and maintains running state information.
+   * Maximum time (in ms) between checks of {@link #terminateWaitForFinish()} while waiting for a test to finish, in
+   * case a terminating condition arises without a signal.
+   */
+  public static final int FINISH_CHECK_INTERVAL =
+      Properties.getProperty("windowtester.finish_check_interval", 1000, 10, 60000);
+
+  /**
+   * Manages and maintains running state information.  Threads waiting for the execution to finish block in
+   * {@link #awaitSignal(long)} and are woken whenever the state changes or {@link #signal()} is called.
    */
   public class RunningState {
     /**
      * Flag used to signal when the execution is finished.
      */
-    private boolean _isRunning;
+    private volatile boolean _isRunning;
 
     private final TestExceptionCache _exceptionCache = new TestExceptionCache();
 
+    private final Object _lock = new Object();
+
+    /**
+     * Set by {@link #signal()}, cleared when a waiting thread wakes; a signal sent while nobody waits is not lost.
+     */
+    private boolean _signalled;
+
     void setIsRunning(boolean isRunning) {
       if (_isRunning && isRunning) {
         throw new IllegalStateException("test is already running");
@@ -45,10 +61,42 @@ public abstract class AbstractExecutionMonitor
         throw new IllegalStateException("test is already stopped");
       }
       _isRunning = isRunning;
+      signal();
     }
 
     public void setException(Throwable e) {
       _exceptionCache.cache(e);
+      signal();
+    }
+
+    /**
+     * Wake a thread waiting for the execution to finish so that it re-checks whether the wait is over.
+     */
+    public void signal() {
+      synchronized (_lock) {
+        _signalled = true;
+        _lock.notifyAll();
+      }
+    }
+
+    /**
+     * Wait up to <code>timeout</code> ms for a signal, returning immediately if one was sent since the last wait.
+     *
+     * @return <code>true</code> if signalled, <code>false</code> if the timeout expired
+     */
+    boolean awaitSignal(long timeout) throws InterruptedException {
+      long deadline = System.currentTimeMillis() + timeout;
+      synchronized (_lock) {
+        while (!_signalled) {
+          long remaining = deadline - System.currentTimeMillis();
+          if (remaining <= 0) {
+            return false;
+          }
+          _lock.wait(remaining);
+        }
+        _signalled = false;
+        return true;
+      }
     }
 
     TestExceptionCache getExceptions() {
@@ -209,7 +257,6 @@ public abstract class AbstractExecutionMonitor
     while (state.isRunning()
         && !state.isExceptional()
         && !terminateWaitForFinish() /* && !display.isDisposed() */) {
-      // System.out.println("calling doWait");
       doWaitForFinish();
     }
 
@@ -220,15 +267,20 @@ public abstract class AbstractExecutionMonitor
   /**
    * Do the wait in the <code>waitUntilFinished</code> loop.
    * <p>
-   * To be provided by subclasses.
+   * By default, blocks until the running state changes, an exception is caught or {@link RunningState#signal()} is
+   * called, or at most {@link #FINISH_CHECK_INTERVAL} ms.
    */
-  protected abstract void doWaitForFinish();
+  protected void doWaitForFinish() throws InterruptedException {
+    getState().awaitSignal(FINISH_CHECK_INTERVAL);
+  }
 
   /**
    * Signal that the wait loop should be terminated.  Used in exceptional conditions: for instance, the display is
    * disposed.
    * <p>
-   * To be provided by subclasses.
+   * To be provided by subclasses.  This is only checked when the wait is signalled (see {@link RunningState#signal()})
+   * or every {@link #FINISH_CHECK_INTERVAL} ms, so subclasses should signal when the terminating condition may have
+   * arisen.
    *
    * @return <code>true</code> if the <code>waitUntilFinished</code> loop should be terminated.
    */
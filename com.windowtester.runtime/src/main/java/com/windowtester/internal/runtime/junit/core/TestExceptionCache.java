@@ -18,8 +18,8 @@ import java.lang.reflect.InvocationTargetException;
 public class TestExceptionCache {
 
   // Cached exceptions for re-throwing
-  private InvocationTargetException _ite;
-  private IllegalAccessException _iae;
+  private volatile InvocationTargetException _ite;
+  private volatile IllegalAccessException _iae;
 
   /**
    * Check if there is an exception cached.
@@ -10,16 +10,23 @@
  *******************************************************************************/
 package com.windowtester.internal.runtime.matcher;
 
+import abbot.finder.ComponentSnapshot;
+import abbot.finder.IndexableMatcher;
+import abbot.finder.IndexedHierarchy;
 import abbot.finder.Matcher;
+import abbot.finder.SnapshotMatcher;
+import abbot.finder.SnapshotMatcherSource;
 import com.windowtester.runtime.locator.IWidgetMatcher;
 import java.awt.*;
+import java.util.Collection;
 
 /**
  * An adapter from an {@link IWidgetMatcher} to an Abbot {@link Matcher}.
  * <p>
  * Created using the {@link AdapterFactory#adapt(IWidgetMatcher)} creation method.
  */
-/*package */ class AbbotFinderMatcherAdapter implements Matcher {
+/*package */ class AbbotFinderMatcherAdapter
+    implements Matcher, IndexableMatcher, SnapshotMatcherSource {
 
   private final IWidgetMatcher _matcher;
 
@@ -38,4 +45,18 @@ import java.awt.*;
   public boolean matches(Component c) {
     return _matcher.matches(c);
   }
+
+  /* (non-Javadoc)
+   * @see abbot.finder.IndexableMatcher#getCandidates(abbot.finder.IndexedHierarchy)
+   */
+  public Collection<Component> getCandidates(IndexedHierarchy hierarchy) {
+    return hierarchy.getCandidates(_matcher);
+  }
+
+  /* (non-Javadoc)
+   * @see abbot.finder.SnapshotMatcherSource#getSnapshotMatcher()
+   */
+  public SnapshotMatcher getSnapshotMatcher() {
+    return ComponentSnapshot.getSnapshotMatcher(_matcher);
+  }
 }
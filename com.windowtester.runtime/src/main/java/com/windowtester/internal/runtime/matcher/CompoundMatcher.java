@@ -10,12 +10,19 @@
  *******************************************************************************/
 package com.windowtester.internal.runtime.matcher;
 
+import abbot.finder.ComponentSnapshot;
+import abbot.finder.IndexableMatcher;
+import abbot.finder.IndexedHierarchy;
+import abbot.finder.SnapshotMatcher;
+import abbot.finder.SnapshotMatcherSource;
 import com.windowtester.runtime.locator.IWidgetMatcher;
+import java.awt.*;
+import java.util.Collection;
 
 /**
  * Compounds/composes/aggregates Matchers.
  */
-public class CompoundMatcher implements IWidgetMatcher {
+public class CompoundMatcher implements IWidgetMatcher, IndexableMatcher, SnapshotMatcherSource {
 
   private final IWidgetMatcher _componentMatcher1;
   private final IWidgetMatcher _componentMatcher2;
@@ -35,4 +42,18 @@ public class CompoundMatcher implements IWidgetMatcher {
   public boolean matches(Object widget) {
     return _componentMatcher1.matches(widget) && _componentMatcher2.matches(widget);
   }
+
+  /* (non-Javadoc)
+   * @see abbot.finder.IndexableMatcher#getCandidates(abbot.finder.IndexedHierarchy)
+   */
+  public Collection<Component> getCandidates(IndexedHierarchy hierarchy) {
+    return hierarchy.getCandidates(_componentMatcher1, _componentMatcher2);
+  }
+
+  /* (non-Javadoc)
+   * @see abbot.finder.SnapshotMatcherSource#getSnapshotMatcher()
+   */
+  public SnapshotMatcher getSnapshotMatcher() {
+    return ComponentSnapshot.allOf(_componentMatcher1, _componentMatcher2);
+  }
 }
@@ -10,13 +10,20 @@
  *******************************************************************************/
 package com.windowtester.internal.runtime.matcher;
 
+import abbot.finder.ComponentState;
+import abbot.finder.IndexableMatcher;
+import abbot.finder.IndexedHierarchy;
+import abbot.finder.SnapshotMatcher;
+import abbot.finder.SnapshotMatcherSource;
 import com.windowtester.runtime.locator.IWidgetMatcher;
+import java.awt.*;
+import java.util.Collection;
 
 /**
  * Provides matching of components by class.  Unlike ClassMatcher, it does not check for asignablity, it checks for the
  * exact class.
  */
-public class ExactClassMatcher implements IWidgetMatcher {
+public class ExactClassMatcher implements IWidgetMatcher, IndexableMatcher, SnapshotMatcherSource {
 
   /**
    * The class on which to match
@@ -52,6 +59,30 @@ public class ExactClassMatcher implements IWidgetMatcher {
     return cls.isAssignableFrom(w.getClass()) && w.getClass().isAssignableFrom(cls);
   }
 
+  /**
+   * @see abbot.finder.IndexableMatcher#getCandidates(abbot.finder.IndexedHierarchy)
+   */
+  public Collection<Component> getCandidates(IndexedHierarchy hierarchy) {
+    return hierarchy.findByClass(cls);
+  }
+
+  /**
+   * Matches components of exactly the given class.
+   *
+   * @see abbot.finder.SnapshotMatcherSource#getSnapshotMatcher()
+   */
+  public SnapshotMatcher getSnapshotMatcher() {
+    return new SnapshotMatcher() {
+      public boolean matches(Component c) {
+        return ExactClassMatcher.this.matches(c);
+      }
+
+      public boolean matches(ComponentState state) {
+        return state.getComponentClass() == cls;
+      }
+    };
+  }
+
   /**
    * @see java.lang.Object#toString()
    */
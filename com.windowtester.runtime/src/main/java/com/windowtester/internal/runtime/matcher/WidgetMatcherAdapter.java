@@ -10,16 +10,23 @@
  *******************************************************************************/
 package com.windowtester.internal.runtime.matcher;
 
+import abbot.finder.ComponentSnapshot;
+import abbot.finder.IndexableMatcher;
+import abbot.finder.IndexedHierarchy;
 import abbot.finder.Matcher;
+import abbot.finder.SnapshotMatcher;
+import abbot.finder.SnapshotMatcherSource;
 import com.windowtester.runtime.locator.IWidgetMatcher;
 import java.awt.*;
+import java.util.Collection;
 
 /**
  * An adapter from an Abbot {@link Matcher} to an {@link IWidgetMatcher}.
  * <p>
  * Created using the {@link AdapterFactory#adapt(Matcher)} creation method.
  */
-public class WidgetMatcherAdapter implements IWidgetMatcher {
+public class WidgetMatcherAdapter
+    implements IWidgetMatcher, IndexableMatcher, SnapshotMatcherSource {
 
   private final Matcher matcher;
 
@@ -45,6 +52,20 @@ public class WidgetMatcherAdapter implements IWidgetMatcher {
     return matcher.matches((Component) widget);
   }
 
+  /* (non-Javadoc)
+   * @see abbot.finder.IndexableMatcher#getCandidates(abbot.finder.IndexedHierarchy)
+   */
+  public Collection<Component> getCandidates(IndexedHierarchy hierarchy) {
+    return hierarchy.getCandidates(matcher);
+  }
+
+  /* (non-Javadoc)
+   * @see abbot.finder.SnapshotMatcherSource#getSnapshotMatcher()
+   */
+  public SnapshotMatcher getSnapshotMatcher() {
+    return ComponentSnapshot.getSnapshotMatcher(matcher);
+  }
+
   /* (non-Javadoc)
    * @see java.lang.Object#toString()
    */
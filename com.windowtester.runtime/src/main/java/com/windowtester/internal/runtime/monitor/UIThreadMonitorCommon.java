@@ -10,6 +10,7 @@
  *******************************************************************************/
 package com.windowtester.internal.runtime.monitor;
 
+import abbot.util.Properties;
 import com.windowtester.internal.debug.IRuntimePluginTraceOptions;
 import com.windowtester.internal.debug.Logger;
 import com.windowtester.internal.debug.ThreadUtil;
@@ -17,6 +18,7 @@ import com.windowtester.runtime.IUIContext;
 import com.windowtester.runtime.condition.IConditionMonitor;
 import com.windowtester.runtime.monitor.IUIThreadMonitor;
 import com.windowtester.runtime.monitor.IUIThreadMonitorListener;
+import com.windowtester.runtime.monitor.UILatencyHistogram;
 import com.windowtester.runtime.util.ScreenCapture;
 import java.io.BufferedWriter;
 import java.io.File;
@@ -33,8 +35,41 @@ import java.util.TreeSet;
  * becomes unresponsive or idle for a period longer than expected, then the associated {@link
  * com.windowtester.runtime.monitor.IUIThreadMonitorListener} (see {@link com.windowtester.runtime.monitor.IUIThreadMonitor#setListener(com.windowtester.runtime.monitor.IUIThreadMonitorListener)})
  * is notified.
+ * <p>
+ * Responsiveness is measured continuously: every {@link #SAMPLE_INTERVAL} ms a probe is posted to the UI thread (see
+ * {@link #postProbe(Runnable)}) unless the previous one is still pending, and the time until it runs is recorded in the
+ * latency histogram. A probe pending longer than the unresponsive timeout means the UI thread is hung.
  */
 public abstract class UIThreadMonitorCommon implements IUIThreadMonitor {
+
+  /**
+   * Time between samples of the UI thread latency, in milliseconds.
+   */
+  public static final int SAMPLE_INTERVAL =
+      Properties.getProperty("windowtester.monitor.sample_interval", 100, 10, 10000);
+
+  /**
+   * Default time the UI thread may be blocked before it is considered hung, in milliseconds. Blocking is only
+   * tolerated for longer if {@link #expectDelay(long)} was called; the default expected delay between UI events does
+   * not apply.
+   */
+  public static final int UNRESPONSIVE_TIMEOUT =
+      Properties.getProperty("windowtester.monitor.unresponsive_timeout", 500, 100, 3600000);
+
+  /**
+   * Default time between escalation steps, in milliseconds.
+   */
+  public static final int ESCALATION_DELAY =
+      Properties.getProperty("windowtester.monitor.escalation_delay", 10000, 0, 3600000);
+
+  /**
+   * Time without UI events after which condition handlers are processed, and the minimum time between processing
+   * them while the UI remains idle.
+   */
+  private static final long IDLE_CHECK_DELAY = 10000;
+
+  private static final long IDLE_CHECK_INTERVAL = 1000;
+
   // Tracing Constants
   private static final int TRACE_UNINITIALIZED = 0;
   private static final int TRACE_OFF = 1;
@@ -51,7 +86,7 @@ public abstract class UIThreadMonitorCommon implements IUIThreadMonitor {
 
   /**
    * The object to synchronize against when accessing the {@link #_listener}, {@link #_defaultExpectedDelay}, {@link
-   * #_uiThreadResponsive}, {@link #_uiEventProcessed} and {@link #_uiBusyUntil} fields.
+   * #_lastEventTime}, {@link #_uiBusyUntil} and {@link #_blockingExpectedUntil} fields.
    */
   protected final Object _lock = new Object();
 
@@ -68,14 +103,10 @@ public abstract class UIThreadMonitorCommon implements IUIThreadMonitor {
   private long _defaultExpectedDelay = 120000;
 
   /**
-   * Flag indicating that the UI is responsive. Synchronize against {@link #_lock} when accessing this field.
-   */
-  protected boolean _uiThreadResponsive;
-
-  /**
-   * Flag indicating that the UI is processing events. Synchronize against {@link #_lock} when accessing this field.
+   * The system time at which the UI last processed an event. Synchronize against {@link #_lock} when accessing this
+   * field.
    */
-  private boolean _uiEventProcessed;
+  private long _lastEventTime;
 
   /**
    * The system time before which the UI thread should have processed a new event. This is set as needed during test
@@ -84,16 +115,28 @@ public abstract class UIThreadMonitorCommon implements IUIThreadMonitor {
   private long _uiBusyUntil;
 
   /**
-   * Stack traces at time of UI inactivity generated by {@link #fireUITimeout(boolean)} and consumed by {@link
+   * The system time before which the UI thread may be blocked without being considered hung. This is set by calling
+   * {@link #expectDelay(long)}. Synchronize against {@link #_lock} when accessing this field.
+   */
+  private long _blockingExpectedUntil;
+
+  private volatile long _unresponsiveTimeout = UNRESPONSIVE_TIMEOUT;
+
+  private volatile long _escalationDelay = ESCALATION_DELAY;
+
+  private final UILatencyHistogram _latencies = new UILatencyHistogram();
+
+  /**
+   * Stack traces at time of UI inactivity generated by {@link #captureDiagnostics()} and consumed by {@link
    * #writeResults(PrintWriter, boolean)}
    */
-  private String stackTraces;
+  private volatile String stackTraces;
 
   /**
-   * Screen capture at time of UI inactivity generated by {@link #fireUITimeout(boolean)} and consumed by {@link
+   * Screen capture at time of UI inactivity generated by {@link #captureDiagnostics()} and consumed by {@link
    * #writeResults(PrintWriter, boolean)}
    */
-  private File screenCapture;
+  private volatile File screenCapture;
 
   // //////////////////////////////////////////////////////////////////////////
   //
@@ -163,6 +206,7 @@ public abstract class UIThreadMonitorCommon implements IUIThreadMonitor {
     long currentTime = System.currentTimeMillis();
     synchronized (_lock) {
       _uiBusyUntil = currentTime + Math.max(millis, _defaultExpectedDelay);
+      _blockingExpectedUntil = currentTime + millis;
     }
     trace("expect delay ", millis);
   }
@@ -183,6 +227,35 @@ public abstract class UIThreadMonitorCommon implements IUIThreadMonitor {
     trace("default delay ", _defaultExpectedDelay);
   }
 
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.windowtester.runtime.monitor.IUIThreadMonitor#setUnresponsiveTimeout(long)
+   */
+  public void setUnresponsiveTimeout(long millis) {
+    _unresponsiveTimeout = millis;
+    trace("unresponsive timeout ", millis);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.windowtester.runtime.monitor.IUIThreadMonitor#setEscalationDelay(long)
+   */
+  public void setEscalationDelay(long millis) {
+    _escalationDelay = millis;
+    trace("escalation delay ", millis);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.windowtester.runtime.monitor.IUIThreadMonitor#getLatencyHistogram()
+   */
+  public UILatencyHistogram getLatencyHistogram() {
+    return _latencies;
+  }
+
   /**
    * Notify the listener that the user interface thread has been idle or unresponsive longer than expected.
    *
@@ -194,22 +267,28 @@ public abstract class UIThreadMonitorCommon implements IUIThreadMonitor {
   private void fireUITimeout(final boolean isResponsive) {
     final IUIThreadMonitorListener listener = getListener();
 
-    // log current thread state before triggering shutdown
-    stackTraces = ThreadUtil.getStackTraces();
-    screenCapture = ScreenCapture.createScreenCapture("UIThreadMonitor-timeout");
-    Logger.log("UIThreadMonitor: timeout, current thread state\n", stackTraces);
-
-    if (listener != null) {
-      final Thread thread =
-          new Thread("UIThreadMonitor Notify") {
-            public void run() {
+    // capture diagnostics on the notifying thread so that monitoring continues meanwhile
+    final Thread thread =
+        new Thread("UIThreadMonitor Notify") {
+          public void run() {
+            captureDiagnostics();
+            if (listener != null) {
               listener.uiTimeout(isResponsive);
             }
-          };
-      thread.setPriority(Thread.MIN_PRIORITY);
-      thread.setDaemon(true);
-      thread.start();
-    }
+          }
+        };
+    thread.setPriority(Thread.MIN_PRIORITY);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Log the current thread state and capture the screen before the listener is notified of a timeout.
+   */
+  protected void captureDiagnostics() {
+    stackTraces = ThreadUtil.getStackTraces();
+    screenCapture = ScreenCapture.createScreenCapture("UIThreadMonitor-timeout");
+    Logger.log("UIThreadMonitor: timeout, " + _latencies + ", current thread state\n", stackTraces);
   }
 
   /**
@@ -245,6 +324,26 @@ public abstract class UIThreadMonitorCommon implements IUIThreadMonitor {
   //
   // //////////////////////////////////////////////////////////////////////////
 
+  /**
+   * Posted to the UI thread to measure its latency.
+   */
+  private final class Probe implements Runnable {
+    private final long _posted = System.nanoTime();
+    private volatile boolean _done;
+
+    public void run() {
+      _latencies.record(System.nanoTime() - _posted);
+      _done = true;
+    }
+
+    /**
+     * Answer how long the UI thread has failed to run this probe, in milliseconds, or zero if it has run.
+     */
+    long getBlockedTime() {
+      return _done ? 0 : (System.nanoTime() - _posted) / 1000000L;
+    }
+  }
+
   /**
    * Launch a background thread (minimum priority) that checks to see if the UI is still alive and processing input.
    */
@@ -255,43 +354,52 @@ public abstract class UIThreadMonitorCommon implements IUIThreadMonitor {
             initExpectedDelay();
             trace("monitor start", null);
 
-            int checkEventsCount = 0;
+            Probe probe = null;
+            long lastIdleCheck = 0;
+            long lastEscalation = 0;
             int uiTimeoutCount = 0;
             while (true) {
-              if (hasTestEnded()) {
-                trace("monitor end 1", null);
-                break;
-              }
-
-              checkEventsProcessed();
-              if (hasTestEnded()) {
-                trace("monitor end 2", null);
-                break;
-              }
-              if (wereEventsProcessed()) {
-                trace("events processed", null);
-                checkEventsCount = 0;
-                uiTimeoutCount = 0;
-                continue;
+              if (probe == null || probe._done) {
+                probe = new Probe();
+                postProbe(probe);
               }
-              checkEventsCount++;
-              if (checkEventsCount <= 10) {
-                trace("no events process " + checkEventsCount, null);
-                continue;
+              try {
+                Thread.sleep(SAMPLE_INTERVAL);
+              } catch (InterruptedException e) {
+                // ignored
               }
-
-              boolean isResponsive = isUIThreadResponsive();
               if (hasTestEnded()) {
-                trace("monitor end 3", null);
+                trace("monitor end", null);
                 break;
               }
 
-              if (isResponsive && processConditions()) {
-                trace("conditions handled", null);
+              long currentTime = System.currentTimeMillis();
+              long blocked = probe.getBlockedTime();
+              boolean isResponsive = true;
+              if (blocked > 0) {
+                if (blocked < _unresponsiveTimeout || isBlockingExpected()) {
+                  continue;
+                }
+                trace("ui thread blocked ", blocked);
+                isResponsive = false;
+              } else if (isIdle(currentTime)) {
+                if (currentTime - lastIdleCheck < IDLE_CHECK_INTERVAL) {
+                  continue;
+                }
+                lastIdleCheck = currentTime;
+                if (processConditions()) {
+                  trace("conditions handled", null);
+                  continue;
+                }
+                if (isDelayExpected()) {
+                  trace("delay expected", null);
+                  continue;
+                }
+              } else {
+                uiTimeoutCount = 0;
                 continue;
               }
-              if (isDelayExpected()) {
-                trace("delay expected", null);
+              if (uiTimeoutCount > 0 && currentTime - lastEscalation < _escalationDelay) {
                 continue;
               }
               trace("delay exceeded " + uiTimeoutCount, null);
@@ -312,7 +420,7 @@ public abstract class UIThreadMonitorCommon implements IUIThreadMonitor {
                 case 2:
                   forcedExit(isResponsive);
               }
-              checkEventsCount = 0;
+              lastEscalation = currentTime;
               uiTimeoutCount++;
             }
           }
@@ -329,6 +437,7 @@ public abstract class UIThreadMonitorCommon implements IUIThreadMonitor {
     long currentTime = System.currentTimeMillis();
     synchronized (_lock) {
       _uiBusyUntil = Math.max(_uiBusyUntil, currentTime + _defaultExpectedDelay);
+      _lastEventTime = currentTime;
     }
   }
 
@@ -346,41 +455,37 @@ public abstract class UIThreadMonitorCommon implements IUIThreadMonitor {
   }
 
   /**
-   * Process condition handlers.
+   * Determine if the UI thread is expected to be blocked (see {@link #expectDelay(long)}).
    *
-   * @return <code>true</code> if at least one condition was handled
+   * @return <code>true</code> if expected, else <code>false</code>
    */
-  private boolean processConditions() {
-    trace("processing conditions", null);
-    IConditionMonitor monitor = (IConditionMonitor) _uiContext.getAdapter(IConditionMonitor.class);
-    return monitor.process(_uiContext) != IConditionMonitor.PROCESS_NONE;
+  private boolean isBlockingExpected() {
+    long currentTime = System.currentTimeMillis();
+    synchronized (_lock) {
+      return currentTime < _blockingExpectedUntil;
+    }
   }
 
   /**
-   * Check if events were processed during the last call to {@link #checkEventsProcessed()}.
+   * Determine if the UI has processed no events for long enough that condition handlers should be processed.
    *
-   * @return <code>true</code> if events were processed, else <code>false</code>
+   * @return <code>true</code> if idle, else <code>false</code>
    */
-  private boolean wereEventsProcessed() {
+  private boolean isIdle(long currentTime) {
     synchronized (_lock) {
-      return _uiEventProcessed;
+      return currentTime - _lastEventTime >= IDLE_CHECK_DELAY;
     }
   }
 
   /**
-   * Setup a test to see if the UI thread is still processing events. Assume that event listeners have already been
-   * added to update _uiEventProcessed. Use {@link #wereEventsProcessed()} to determine if events were processed, but
-   * check {@link #hasTestEnded()} first.
+   * Process condition handlers.
+   *
+   * @return <code>true</code> if at least one condition was handled
    */
-  private void checkEventsProcessed() {
-    synchronized (_lock) {
-      _uiEventProcessed = false;
-    }
-    try {
-      Thread.sleep(1000);
-    } catch (InterruptedException e) {
-      // ignored
-    }
+  private boolean processConditions() {
+    trace("processing conditions", null);
+    IConditionMonitor monitor = (IConditionMonitor) _uiContext.getAdapter(IConditionMonitor.class);
+    return monitor.process(_uiContext) != IConditionMonitor.PROCESS_NONE;
   }
 
   /**
@@ -389,20 +494,11 @@ public abstract class UIThreadMonitorCommon implements IUIThreadMonitor {
   protected void markEventProcessed() {
     long currentTime = System.currentTimeMillis();
     synchronized (_lock) {
-      _uiEventProcessed = true;
+      _lastEventTime = currentTime;
       _uiBusyUntil = Math.max(_uiBusyUntil, currentTime + _defaultExpectedDelay);
     }
   }
 
-  /**
-   * Called by subclasses to indicate that the UI thread was responsive for the current period of time.
-   */
-  protected void markUIThreadResponsive() {
-    synchronized (_lock) {
-      _uiThreadResponsive = true;
-    }
-  }
-
   // //////////////////////////////////////////////////////////////////////////
   //
   // Implemented by subclasses
@@ -420,13 +516,12 @@ public abstract class UIThreadMonitorCommon implements IUIThreadMonitor {
   protected abstract void removeEventListeners();
 
   /**
-   * Wait for up to one second to determine if the user interface thread is responsive and processing new events.
+   * Post the given probe to the user interface thread, to be run once all events already queued have been processed.
+   * Must not block.
    *
-   * @return <code>true</code> if the user interface thread is responsive, or
-   * <code>false</code> if it has not processed any new events within the last
-   * one second
+   * @param probe the probe to be run on the user interface thread
    */
-  protected abstract boolean isUIThreadResponsive();
+  protected abstract void postProbe(Runnable probe);
 
   /**
    * Determine if the test has ended.
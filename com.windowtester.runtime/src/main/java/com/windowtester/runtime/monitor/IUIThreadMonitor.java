@@ -42,4 +42,33 @@ public interface IUIThreadMonitor {
    * @param millis the expected delay in milliseconds
    */
   void setDefaultExpectedDelay(long millis);
+
+  /**
+   * Set how long the user interface thread may be blocked, i.e. fail to run a task posted to it, before it is
+   * considered hung and the listener is notified. This is independent of, and typically much shorter than, the
+   * expected delay between user interface events. Blocking is tolerated for longer while a delay is expected (see
+   * {@link #expectDelay(long)}). The default implementation does nothing.
+   *
+   * @param millis the maximum blocking time in milliseconds
+   */
+  default void setUnresponsiveTimeout(long millis) {}
+
+  /**
+   * Set the time between successive escalation steps once the listener has been notified: if the user interface
+   * thread does not recover within this time the application is asked to exit, and if it still does not recover
+   * within this time again, it is terminated. The default implementation does nothing.
+   *
+   * @param millis the time between escalation steps in milliseconds
+   */
+  default void setEscalationDelay(long millis) {}
+
+  /**
+   * Answer the histogram of latencies measured while monitoring the user interface thread. The default implementation
+   * measures nothing and answers an empty histogram.
+   *
+   * @return the histogram (not <code>null</code>)
+   */
+  default UILatencyHistogram getLatencyHistogram() {
+    return new UILatencyHistogram();
+  }
 }
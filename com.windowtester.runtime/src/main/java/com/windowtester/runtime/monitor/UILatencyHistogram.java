@@ -0,0 +1,145 @@
+package com.windowtester.runtime.monitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of user interface thread latencies, i.e. the time between posting a task to the user interface thread and
+ * that task being run.  Latencies are counted in buckets whose bounds are powers of two milliseconds: bucket 0 counts
+ * latencies below 1ms, bucket <code>i</code> counts latencies of at least 2<sup>i-1</sup>ms and below
+ * 2<sup>i</sup>ms, and the last bucket counts everything longer.
+ * <p>
+ * Recording is lock free and may be done from any thread.
+ */
+public class UILatencyHistogram {
+
+  /**
+   * Number of buckets; the last bucket counts latencies of 2<sup>BUCKETS-2</sup>ms (about a minute) or longer.
+   */
+  public static final int BUCKETS = 18;
+
+  private final AtomicLongArray _counts = new AtomicLongArray(BUCKETS);
+
+  private final AtomicLong _totalNanos = new AtomicLong();
+
+  private final AtomicLong _maxNanos = new AtomicLong();
+
+  /**
+   * Record a single latency.
+   *
+   * @param nanos the latency in nanoseconds
+   */
+  public void record(long nanos) {
+    _counts.incrementAndGet(getBucket(nanos / 1000000L));
+    _totalNanos.addAndGet(nanos);
+    _maxNanos.accumulateAndGet(nanos, Math::max);
+  }
+
+  private static int getBucket(long millis) {
+    if (millis <= 0) {
+      return 0;
+    }
+    return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+  }
+
+  /**
+   * Answer the exclusive upper bound of the given bucket in milliseconds, or <code>Long.MAX_VALUE</code> for the last
+   * bucket.
+   */
+  public static long getUpperBound(int bucket) {
+    return bucket == BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+  }
+
+  /**
+   * Answer the number of latencies recorded in the given bucket.
+   */
+  public long getCount(int bucket) {
+    return _counts.get(bucket);
+  }
+
+  /**
+   * Answer the total number of latencies recorded.
+   */
+  public long getCount() {
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      count += _counts.get(i);
+    }
+    return count;
+  }
+
+  /**
+   * Answer the number of latencies recorded which were at least the given number of milliseconds, rounded down to the
+   * bucket containing that number.
+   */
+  public long getCountAtLeast(long millis) {
+    long count = 0;
+    for (int i = getBucket(millis); i < BUCKETS; i++) {
+      count += _counts.get(i);
+    }
+    return count;
+  }
+
+  /**
+   * Answer the upper bound (in milliseconds) of the bucket containing the given percentile, or zero if nothing has
+   * been recorded.
+   *
+   * @param percentile a percentile between 0 and 100
+   */
+  public long getPercentile(double percentile) {
+    long count = getCount();
+    if (count == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(count * percentile / 100);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += _counts.get(i);
+      if (seen >= rank && seen > 0) {
+        return getUpperBound(i);
+      }
+    }
+    return getUpperBound(BUCKETS - 1);
+  }
+
+  /**
+   * Answer the longest latency recorded, in milliseconds.
+   */
+  public long getMaxMillis() {
+    return _maxNanos.get() / 1000000L;
+  }
+
+  /**
+   * Answer the mean latency recorded, in milliseconds.
+   */
+  public double getMeanMillis() {
+    long count = getCount();
+    return count == 0 ? 0 : _totalNanos.get() / 1000000.0 / count;
+  }
+
+  /**
+   * Discard all recorded latencies.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      _counts.set(i, 0);
+    }
+    _totalNanos.set(0);
+    _maxNanos.set(0);
+  }
+
+  public String toString() {
+    StringBuffer buf = new StringBuffer("UI latency:");
+    buf.append(" count=").append(getCount());
+    buf.append(" mean=").append(Math.round(getMeanMillis())).append("ms");
+    buf.append(" max=").append(getMaxMillis()).append("ms");
+    for (int i = 0; i < BUCKETS; i++) {
+      long n = _counts.get(i);
+      if (n > 0) {
+        buf.append(i == BUCKETS - 1 ? " >=" + (1L << (i - 1)) : " <" + getUpperBound(i));
+        buf.append("ms:").append(n);
+      }
+    }
+    return buf.toString();
+  }
+}
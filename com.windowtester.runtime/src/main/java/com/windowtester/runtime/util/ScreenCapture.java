@@ -10,26 +10,40 @@
  *******************************************************************************/
 package com.windowtester.runtime.util;
 
+import abbot.util.Properties;
 import com.windowtester.internal.debug.LogHandler;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.imageio.ImageIO;
 
 /**
  * Dumps a <em>png</em> of the current screen in the standard "wintest" output directory (as defined by {@link
- * ScreenCapture#getOutputLocation()}). Since taking screen shots consumes considerable resources, heap limits may be
+ * ScreenCapture#getOutputLocation()}). The screen is grabbed on the calling thread, but the image is written to disk
+ * on a background thread; the returned file may not be complete until {@link #flush(long)} returns.  Pending images
+ * are also written before the VM exits.  Since taking screen shots consumes considerable resources, heap limits may be
  * exceeded during a capture.  To address this, {@link OutOfMemoryError}s are caught in the default handler
- * implementation and the capture retried after a short interval ({@link ScreenCapture#CAPTURE_RETRY_INTERVAL}).  The
- * number of retries is bounded by {@link ScreenCapture#MAX_CAPTURE_RETRIES}.
+ * implementation and the capture retried once pending images have been written or after a short interval ({@link
+ * ScreenCapture#CAPTURE_RETRY_INTERVAL}).  The number of retries is bounded by {@link
+ * ScreenCapture#MAX_CAPTURE_RETRIES}.  Screenshot files can be recorded in {@link ScreenCapturePaths}.
  * <p>
  * Screen capture behavior can be specialized:
  *
  * <p>
  * <b>1. Output Location.</b> Capture output can be redirected by calling {@link ScreenCapture#setOutputLocation(String)}.
  * <p>
- * <b>2. Screen Capture Handling.</b> The default screen capture implementation can be overridden by calling {@link
+ * <b>2. Image Format.</b> The image format and compression quality can be set by calling {@link
+ * ScreenCapture#setImageFormat(String, int)} or with the <code>windowtester.screencapture.format</code> and
+ * <code>windowtester.screencapture.quality</code> system properties.
+ * <p>
+ * <b>3. Capture Mode.</b> Either the whole screen ({@link #CAPTURE_SCREEN}, the default), only the active window
+ * ({@link #CAPTURE_WINDOW}), or only the region of the screen which changed since the previous capture ({@link
+ * #CAPTURE_DIFF}) may be captured; see {@link ScreenCapture#setCaptureMode(int)} or the
+ * <code>windowtester.screencapture.mode</code> system property (<code>screen</code>, <code>window</code> or
+ * <code>diff</code>).
+ * <p>
+ * <b>4. Screen Capture Handling.</b> The default screen capture implementation can be overridden by calling {@link
  * ScreenCapture#setHandler(IScreenCaptureHandler)}.  For example, the
  * following user-defined handler will override the default behavior by doing nothing, essentially disabling
  * screenshots.
@@ -48,29 +62,69 @@ public class ScreenCapture {
   public static final int MAX_CAPTURE_RETRIES = 5;
   public static final int CAPTURE_RETRY_INTERVAL = 3000;
 
-  private static final String WINDOW_TESTER_SCREEN_CAPTURE_PATHS_KEY =
-      "WindowTesterScreenCapturePaths";
+  /**
+   * Capture the whole screen.
+   */
+  public static final int CAPTURE_SCREEN = 0;
+
+  /**
+   * Capture only the active window, or the whole screen if there is none.
+   */
+  public static final int CAPTURE_WINDOW = 1;
+
+  /**
+   * Capture the whole screen, but only write the region which changed since the previous capture.  The position of
+   * the region is written to a properties file named after the image with <code>.properties</code> appended.
+   */
+  public static final int CAPTURE_DIFF = 2;
+
   private static final String BASE_IMAGE_NAME = "screenshot";
-  private static final String IMAGE_EXT = "png"; // best format for ui graphics
 
   private static final String PATH_DELIM = System.getProperty("file.separator");
 
+  /**
+   * How long to wait for pending images to be written when the VM exits.
+   */
+  private static final int SHUTDOWN_FLUSH_TIMEOUT = 10000;
+
   // TODO: make this use configurable
   private static String OUTPUT_DIR = "wintest";
 
+  // png is the best format for ui graphics
+  private static volatile String imageFormat =
+      System.getProperty("windowtester.screencapture.format", "png");
+
+  private static volatile int imageQuality =
+      Properties.getProperty("windowtester.screencapture.quality", -1, -1, 100);
+
+  private static volatile int captureMode =
+      parseCaptureMode(System.getProperty("windowtester.screencapture.mode"));
+
   // increment counter for unique screenshot file names
   // on a per run basis
-  private static int _counter = 0;
+  private static final AtomicInteger _counter = new AtomicInteger();
 
   // keep a static Robot around to do the screencapture
   private static Robot _robot;
 
+  private static boolean _robotFailed;
+
+  private static final ScreenCaptureEncoder encoder =
+      new ScreenCaptureEncoder(
+          Properties.getProperty("windowtester.screencapture.queue_size", 4, 1, 64));
+
   static {
-    try {
-      _robot = new Robot();
-    } catch (AWTException e) {
-      LogHandler.log(e);
-    }
+    Runtime.getRuntime()
+        .addShutdownHook(
+            new Thread("ScreenCapture shutdown hook") {
+              public void run() {
+                try {
+                  encoder.flush(SHUTDOWN_FLUSH_TIMEOUT);
+                } catch (InterruptedException e) {
+                  // exiting anyway
+                }
+              }
+            });
   }
 
   /**
@@ -90,38 +144,56 @@ public class ScreenCapture {
   private static class DefaultScreenCaptureHandler implements IScreenCaptureHandler {
 
     /**
-     * Save the screen pixels as a PNG image file in the current directory. Existing screen cap files will be
+     * Save the screen pixels as an image file in the output directory. Existing screen cap files will be
      * overwritten.
      * <p>
      * The name parameter will be used as a prefix for the name of the produced image.
-     * <p>
-     * TODO parameterize the image file location
      *
-     * @return the file into which the image was stored, or <code>null</code> if the image could not be stored.
+     * @return the file into which the image is being stored, or <code>null</code> if the image could not be
+     *     captured.
      */
     public File createScreenCapture(String name) {
-      BufferedImage image = captureScreen();
+      int mode = captureMode;
+      BufferedImage image = captureScreen(mode);
       if (image == null) {
         return null;
       }
-      return createScreenCaptureFile(image, name);
+      return createScreenCaptureFile(image, name, mode == CAPTURE_DIFF);
     }
 
-    public static BufferedImage captureScreen() {
+    public static BufferedImage captureScreen(int mode) {
+      Robot robot = getRobot();
+      if (robot == null) {
+        return null;
+      }
       // determine current screen size
       Toolkit toolkit = Toolkit.getDefaultToolkit();
       Dimension screenSize = toolkit.getScreenSize();
       Rectangle screenRect = new Rectangle(screenSize);
+      if (mode == CAPTURE_WINDOW) {
+        Window window = KeyboardFocusManager.getCurrentKeyboardFocusManager().getActiveWindow();
+        if (window != null && window.isShowing()) {
+          Rectangle bounds = new Rectangle(window.getLocationOnScreen(), window.getSize());
+          bounds = bounds.intersection(screenRect);
+          if (!bounds.isEmpty()) {
+            screenRect = bounds;
+          }
+        }
+      }
 
       for (int i = 0; i < MAX_CAPTURE_RETRIES; ++i) {
         try {
-          return _robot.createScreenCapture(screenRect);
+          return robot.createScreenCapture(screenRect);
         } catch (OutOfMemoryError e) {
           LogHandler.log("OutOfMemoryError caught in screen capture (attempt [" + i + "])");
           try {
-            Thread.sleep(CAPTURE_RETRY_INTERVAL);
+            // pending images hold most of the memory we need
+            if (!encoder.flush(CAPTURE_RETRY_INTERVAL)) {
+              LogHandler.log("Screen capture images still pending");
+            }
           } catch (InterruptedException e1) {
-            // just continue
+            Thread.currentThread().interrupt();
+            break;
           }
         }
       }
@@ -129,35 +201,51 @@ public class ScreenCapture {
       return null;
     }
 
-    public static File createScreenCaptureFile(BufferedImage image, String name) {
-      File file;
-      try {
-
-        ensureOutputDirExists();
-        // save captured image to PNG file
-        String path =
-            getOutputLocation() + name + "_" + BASE_IMAGE_NAME + "_" + _counter++ + "." + IMAGE_EXT;
-        file = new File(path);
-        /*boolean writerFound = */ ImageIO.write(image, IMAGE_EXT, file);
-        // System.out.println(writerFound);
-      } catch (IOException e) {
-        LogHandler.log(e);
+    public static File createScreenCaptureFile(BufferedImage image, String name, boolean diff) {
+      ensureOutputDirExists();
+      String format = imageFormat;
+      String path =
+          getOutputLocation()
+              + name
+              + "_"
+              + BASE_IMAGE_NAME
+              + "_"
+              + _counter.getAndIncrement()
+              + "."
+              + format;
+      File file = new File(path);
+      // Record the screencapture so that result formatters can report it
+      // as a test artifact
+      ScreenCapturePaths.add(file);
+      if (!encoder.submit(image, file, format, imageQuality, diff)) {
+        ScreenCapturePaths.remove(file);
         return null;
       }
+      return file;
+    }
+  }
 
-      // If there was a successful screencapture and the
-      // WindowTesterXMLJunitResultFormatter is in use then record the screencapture so
-      // that WindowTesterXMLJunitResultFormatter can report it as a test artifact
-      String paths = System.getProperty(WINDOW_TESTER_SCREEN_CAPTURE_PATHS_KEY);
-      if (paths != null) {
-        if (paths.length() > 0) {
-          paths += ",";
-        }
-        paths += file.getAbsolutePath();
-        System.setProperty(WINDOW_TESTER_SCREEN_CAPTURE_PATHS_KEY, paths);
+  private static synchronized Robot getRobot() {
+    if (_robot == null && !_robotFailed) {
+      try {
+        _robot = new Robot();
+      } catch (AWTException | RuntimeException e) {
+        // e.g. in a headless environment
+        _robotFailed = true;
+        LogHandler.log(e);
       }
-      return file;
     }
+    return _robot;
+  }
+
+  private static int parseCaptureMode(String mode) {
+    if ("window".equals(mode)) {
+      return CAPTURE_WINDOW;
+    }
+    if ("diff".equals(mode)) {
+      return CAPTURE_DIFF;
+    }
+    return CAPTURE_SCREEN;
   }
 
   private static void ensureOutputDirExists() {
@@ -196,7 +284,7 @@ public class ScreenCapture {
   private ScreenCapture() {}
 
   /**
-   * Save the screen pixels as a PNG image file in the current directory (see {@link #createScreenCapture(String)}).
+   * Save the screen pixels as an image file in the output directory (see {@link #createScreenCapture(String)}).
    *
    * @return the file into which the image was stored, or <code>null</code> if the image could not be stored.
    */
@@ -205,14 +293,12 @@ public class ScreenCapture {
   }
 
   /**
-   * Save the screen pixels as a PNG image file in the current directory. Existing screen cap files will be
+   * Save the screen pixels as an image file in the output directory. Existing screen cap files will be
    * overwritten.
    * <p>
    * The name parameter will be used as a prefix for the name of the produced image.
-   * <p>
-   * TODO parameterize the image file location
    *
-   * @return the file into which the image was stored, or <code>null</code> if the image could not be stored.
+   * @return the file into which the image is being stored, or <code>null</code> if the image could not be captured.
    */
   public static File createScreenCapture(String name) {
     return getHandler().createScreenCapture(name);
@@ -225,6 +311,44 @@ public class ScreenCapture {
     return handler;
   }
 
+  /**
+   * Wait until all screenshots have been written to disk, or the given timeout elapses.
+   *
+   * @return whether all screenshots have been written
+   */
+  public static boolean flush(long timeout) throws InterruptedException {
+    return encoder.flush(timeout);
+  }
+
+  /**
+   * Set the image format used by the default handler, and its compression quality.
+   *
+   * @param format - an image format name supported by {@link ImageIO}, e.g. <code>png</code> or <code>jpg</code>
+   * @param quality - the compression quality, from 0 (smallest) to 100 (best), or -1 for the format's default
+   */
+  public static void setImageFormat(String format, int quality) {
+    if (format == null) {
+      throw new IllegalArgumentException("Format must not be null");
+    }
+    if (quality < -1 || quality > 100) {
+      throw new IllegalArgumentException("Quality must be between 0 and 100, or -1");
+    }
+    imageFormat = format;
+    imageQuality = quality;
+  }
+
+  /**
+   * Set what the default handler captures.
+   *
+   * @param mode - one of {@link #CAPTURE_SCREEN}, {@link #CAPTURE_WINDOW} or {@link #CAPTURE_DIFF}
+   */
+  public static void setCaptureMode(int mode) {
+    if (mode != CAPTURE_SCREEN && mode != CAPTURE_WINDOW && mode != CAPTURE_DIFF) {
+      throw new IllegalArgumentException("Unknown capture mode: " + mode);
+    }
+    captureMode = mode;
+  }
+
   /**
    * Set the output path relative to the eclipse base directory.
    */
@@ -0,0 +1,237 @@
+package com.windowtester.runtime.util;
+
+import com.windowtester.internal.debug.LogHandler;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Writes captured images to disk on a dedicated background thread, so that taking a screenshot only costs the test
+ * thread the screen grab itself.  At most a fixed number of captured images wait to be written; further captures
+ * block until there is room, which bounds the memory held by pending images.
+ * <p>
+ * In diff mode, each image is cropped to the region which changed since the previous image before it is written, and
+ * the position of that region on the screen is written next to the image (see {@link #getOffsetFile(File)}).
+ */
+final class ScreenCaptureEncoder implements Runnable {
+
+  private static final class Job {
+    final BufferedImage image;
+    final File file;
+    final String format;
+    final int quality;
+    final boolean diff;
+
+    Job(BufferedImage image, File file, String format, int quality, boolean diff) {
+      this.image = image;
+      this.file = file;
+      this.format = format;
+      this.quality = quality;
+      this.diff = diff;
+    }
+  }
+
+  private final BlockingQueue<Job> queue;
+
+  private final Object lock = new Object();
+
+  /**
+   * Number of jobs submitted but not yet written.
+   */
+  private int pending = 0;
+
+  private Thread thread;
+
+  /**
+   * The last full screen image, for computing diff regions.  Only accessed by the encoder thread.
+   */
+  private BufferedImage previous;
+
+  ScreenCaptureEncoder(int capacity) {
+    queue = new ArrayBlockingQueue<>(capacity);
+  }
+
+  /**
+   * Queue the given image to be written to the given file, waiting for room in the queue if necessary.
+   *
+   * @param quality compression quality from 0 (smallest) to 100 (best), or -1 for the format's default
+   * @param diff whether to write only the region which changed since the previous diff image
+   * @return whether the image was queued
+   */
+  boolean submit(BufferedImage image, File file, String format, int quality, boolean diff) {
+    synchronized (lock) {
+      if (thread == null) {
+        thread = new Thread(this, "ScreenCapture Encoder");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+      }
+      ++pending;
+    }
+    try {
+      queue.put(new Job(image, file, format, quality, diff));
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      done();
+      return false;
+    }
+  }
+
+  /**
+   * Wait until all queued images have been written, or the given timeout elapses.
+   *
+   * @return whether all images have been written
+   */
+  boolean flush(long timeout) throws InterruptedException {
+    long end = System.currentTimeMillis() + timeout;
+    synchronized (lock) {
+      while (pending > 0) {
+        long remaining = end - System.currentTimeMillis();
+        if (remaining <= 0) {
+          return false;
+        }
+        lock.wait(remaining);
+      }
+      return true;
+    }
+  }
+
+  private void done() {
+    synchronized (lock) {
+      --pending;
+      lock.notifyAll();
+    }
+  }
+
+  public void run() {
+    while (true) {
+      Job job;
+      try {
+        job = queue.take();
+      } catch (InterruptedException e) {
+        continue;
+      }
+      try {
+        write(job);
+      } catch (IOException | RuntimeException | OutOfMemoryError e) {
+        LogHandler.log("Unable to write screen capture " + job.file + ": " + e);
+        ScreenCapturePaths.remove(job.file);
+      } finally {
+        done();
+      }
+    }
+  }
+
+  private void write(Job job) throws IOException {
+    BufferedImage image = job.image;
+    Rectangle region = null;
+    if (job.diff) {
+      region = diffRegion(previous, image);
+      previous = image;
+      if (region != null) {
+        image = image.getSubimage(region.x, region.y, region.width, region.height);
+      } else {
+        region = new Rectangle(0, 0, image.getWidth(), image.getHeight());
+      }
+    }
+    Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(job.format);
+    if (!writers.hasNext()) {
+      throw new IOException("No image writer for " + job.format);
+    }
+    ImageWriter writer = writers.next();
+    try (ImageOutputStream out = ImageIO.createImageOutputStream(job.file)) {
+      if (out == null) {
+        throw new IOException("Can't create " + job.file);
+      }
+      ImageWriteParam param = writer.getDefaultWriteParam();
+      if (job.quality >= 0 && param.canWriteCompressed()) {
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        if (param.getCompressionType() == null) {
+          param.setCompressionType(param.getCompressionTypes()[0]);
+        }
+        param.setCompressionQuality(job.quality / 100f);
+      }
+      writer.setOutput(out);
+      writer.write(null, new IIOImage(image, null, null), param);
+    } finally {
+      writer.dispose();
+    }
+    if (region != null) {
+      writeOffset(job.file, region, job.image);
+    }
+  }
+
+  /**
+   * Returns the file next to the given diff image which records where the image is on the screen.  It is a
+   * properties file with the keys <code>x</code> and <code>y</code> for the offset of the image, and
+   * <code>screen.width</code> and <code>screen.height</code> for the size of the whole capture.
+   */
+  static File getOffsetFile(File image) {
+    return new File(image.getPath() + ".properties");
+  }
+
+  private static void writeOffset(File file, Rectangle region, BufferedImage screen)
+      throws IOException {
+    Properties offset = new Properties();
+    offset.setProperty("x", String.valueOf(region.x));
+    offset.setProperty("y", String.valueOf(region.y));
+    offset.setProperty("screen.width", String.valueOf(screen.getWidth()));
+    offset.setProperty("screen.height", String.valueOf(screen.getHeight()));
+    try (OutputStream out = new FileOutputStream(getOffsetFile(file))) {
+      offset.store(out, "Position of " + file.getName() + " on the screen");
+    }
+  }
+
+  /**
+   * Returns the bounds of the pixels which differ between the given images, or null if there is no previous image of
+   * the same size or the images are identical, in which case the whole image should be used.
+   */
+  static Rectangle diffRegion(BufferedImage previous, BufferedImage image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    if (previous == null || previous.getWidth() != width || previous.getHeight() != height) {
+      return null;
+    }
+    int[] before = new int[width];
+    int[] after = new int[width];
+    int minX = width;
+    int minY = -1;
+    int maxX = -1;
+    int maxY = -1;
+    for (int y = 0; y < height; y++) {
+      previous.getRGB(0, y, width, 1, before, 0, width);
+      image.getRGB(0, y, width, 1, after, 0, width);
+      int first = 0;
+      while (first < width && before[first] == after[first]) {
+        ++first;
+      }
+      if (first == width) {
+        continue;
+      }
+      int last = width - 1;
+      while (before[last] == after[last]) {
+        --last;
+      }
+      if (minY == -1) {
+        minY = y;
+      }
+      maxY = y;
+      minX = Math.min(minX, first);
+      maxX = Math.max(maxX, last);
+    }
+    return maxY == -1 ? null : new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+  }
+}
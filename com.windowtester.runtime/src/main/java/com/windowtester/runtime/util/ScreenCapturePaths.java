@@ -0,0 +1,81 @@
+package com.windowtester.runtime.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registry of the screenshot files created by {@link ScreenCapture}, so that test result formatters can report them as
+ * test artifacts.  Files are registered when the capture is taken, in capture order, and may still be being written
+ * at that point; call {@link ScreenCapture#flush(long)} before reading them.
+ * <p>
+ * Recording is off unless enabled with {@link #setRecording(boolean)} or the
+ * <code>windowtester.screencapture.record_paths</code> system property, since the files are kept until {@link
+ * #drain()} or {@link #clear()} is called.
+ * <p>
+ * All methods are thread-safe.
+ */
+public final class ScreenCapturePaths {
+
+  private static final List<File> paths = new ArrayList<>();
+
+  private static boolean recording = Boolean.getBoolean("windowtester.screencapture.record_paths");
+
+  /**
+   * purely static class, no instances allowed
+   */
+  private ScreenCapturePaths() {}
+
+  /**
+   * Start or stop recording screenshot files.  Files already recorded are kept.
+   */
+  public static synchronized void setRecording(boolean record) {
+    recording = record;
+  }
+
+  /**
+   * Returns whether screenshot files are being recorded.
+   */
+  public static synchronized boolean isRecording() {
+    return recording;
+  }
+
+  /**
+   * Record the given screenshot file, if recording.
+   */
+  public static synchronized void add(File file) {
+    if (recording) {
+      paths.add(file.getAbsoluteFile());
+    }
+  }
+
+  /**
+   * Forget the given screenshot file, e.g. because it could not be written.
+   */
+  public static synchronized void remove(File file) {
+    paths.remove(file.getAbsoluteFile());
+  }
+
+  /**
+   * Returns the screenshot files recorded so far, in capture order.
+   */
+  public static synchronized File[] getPaths() {
+    return paths.toArray(new File[paths.size()]);
+  }
+
+  /**
+   * Returns the screenshot files recorded so far and forgets them, e.g. once they've been reported for a test.
+   */
+  public static synchronized File[] drain() {
+    File[] drained = getPaths();
+    paths.clear();
+    return drained;
+  }
+
+  /**
+   * Forget all recorded screenshot files.
+   */
+  public static synchronized void clear() {
+    paths.clear();
+  }
+}
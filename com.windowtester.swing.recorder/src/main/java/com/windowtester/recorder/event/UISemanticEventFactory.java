@@ -18,6 +18,7 @@ import abbot.tester.KeyStrokeMap;
 import abbot.util.AWT;
 import com.windowtester.internal.runtime.IWidgetIdentifier;
 import com.windowtester.internal.swing.WidgetLocatorService;
+import com.windowtester.internal.swing.locator.LocatorSnapshot;
 import com.windowtester.internal.swing.util.ComponentAccessor;
 import com.windowtester.internal.swing.util.TextUtils;
 import com.windowtester.internal.tester.swing.JTableTester;
@@ -45,8 +46,11 @@ import com.windowtester.runtime.swing.locator.JTableItemLocator;
 import com.windowtester.runtime.swing.locator.JTextComponentLocator;
 import com.windowtester.runtime.swing.locator.JTreeItemLocator;
 import com.windowtester.runtime.swing.locator.NamedWidgetLocator;
+import com.windowtester.swing.recorder.SemanticEventDispatcher;
 import java.awt.*;
 import java.awt.event.MouseEvent;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 import javax.swing.*;
 import javax.swing.tree.TreePath;
 
@@ -65,8 +69,8 @@ public class UISemanticEventFactory {
 
   // the last seen widget --- whereby seen we mean has had info extracted...
   private static Component _lastWidget;
-  // the last calculated widget locator
-  private static WidgetLocator _lastWidgetLocator;
+  // the last widget's locator, inferred when first needed
+  private static InferredLocator _lastWidgetLocator;
 
   //	private static Hierarchy _hierarchy = AWTHierarchy.getDefault();
   private static final ComponentTester _menuItemTester = ComponentTester.getTester(JMenuItem.class);
@@ -119,12 +123,12 @@ public class UISemanticEventFactory {
     EventInfo info = new EventInfo();
     // NOTE: we use the root to find
     // 12/27: kp: why should we use root? - we need locator for menu item, so use the menuitem
-    AbstractPathLocator locator = (AbstractPathLocator) inferIdentifyingInfo(item);
+    final InferredLocator locator = new InferredLocator(item);
     // update locator path string
     //	locator.setPath(pathString);
 
     info.cls = item.getClass().getName();
-    info.hierarchyInfo = locator;
+    info.pendingHierarchyInfo = () -> (AbstractPathLocator) locator.get();
     info.button = 1;
     info.x = x;
     info.y = y;
@@ -154,7 +158,7 @@ public class UISemanticEventFactory {
     EventInfo info = new EventInfo();
     //		info.toString      = getTrimmedDescription(event);
     info.cls = invoker.getClass().getName();
-    info.hierarchyInfo = inferIdentifyingInfo(invoker);
+    info.pendingHierarchyInfo = new InferredLocator(invoker);
     info.button = 3;
     info.x = x;
     info.y = y;
@@ -196,18 +200,9 @@ public class UISemanticEventFactory {
      * Extract guarantees uniqueness.
      * Now we can set up a JTreeItemLocator based on the infered tree locator.
      */
-    IWidgetIdentifier locator = info.hierarchyInfo;
-    com.windowtester.runtime.swing.SwingWidgetLocator parent = getParentInfo(locator);
-    int index = getIndex(info.hierarchyInfo);
-    // check if tree is named
-    String name = invoker.getName();
-    if (name != null) {
-      parent = new NamedWidgetLocator(name);
-      index = WidgetLocator.UNASSIGNED;
-    }
-    JTreeItemLocator itemLocator = new JTreeItemLocator(nodePath, index, parent);
     // swap in our item locator
-    info.hierarchyInfo = itemLocator;
+    swapInItemLocator(
+        info, invoker, (index, parent) -> new JTreeItemLocator(nodePath, index, parent));
 
     SemanticTreeItemSelectionEvent treeItemSelect;
     if (clkCount == 1) {
@@ -227,6 +222,32 @@ public class UISemanticEventFactory {
     return treeItemSelect;
   }
 
+  /**
+   * Swap in a locator for an item of the given widget, created from the parent info and index of the widget's
+   * locator, once it has been inferred.  If the widget is named, it is found by name instead.
+   */
+  private static void swapInItemLocator(
+      EventInfo info,
+      Component widget,
+      final BiFunction<
+              Integer, com.windowtester.runtime.swing.SwingWidgetLocator, IWidgetIdentifier>
+          itemLocator) {
+    // check if widget is named
+    String name = widget.getName();
+    if (name != null) {
+      info.hierarchyInfo =
+          itemLocator.apply(WidgetLocator.UNASSIGNED, new NamedWidgetLocator(name));
+      info.pendingHierarchyInfo = null;
+      return;
+    }
+    final Supplier<? extends IWidgetIdentifier> locator = info.pendingHierarchyInfo;
+    info.pendingHierarchyInfo =
+        () -> {
+          IWidgetIdentifier inferred = locator.get();
+          return itemLocator.apply(getIndex(inferred), getParentInfo(inferred));
+        };
+  }
+
   private static com.windowtester.runtime.swing.SwingWidgetLocator getParentInfo(
       IWidgetIdentifier locator) {
     if (locator instanceof com.windowtester.runtime.swing.SwingWidgetLocator) { // ugh
@@ -304,16 +325,8 @@ public class UISemanticEventFactory {
     String tabLabel = invoker.getTitleAt(index);
 
     //	swap in custom tabbed pane locator
-    com.windowtester.runtime.swing.SwingWidgetLocator parentInfo =
-        getParentInfo(info.hierarchyInfo);
-    int indx = getIndex(info.hierarchyInfo);
-    // check whether component is named
-    String name = invoker.getName();
-    if (name != null) {
-      parentInfo = new NamedWidgetLocator(name);
-      indx = WidgetLocator.UNASSIGNED;
-    }
-    info.hierarchyInfo = new JTabbedPaneLocator(tabLabel, indx, parentInfo);
+    swapInItemLocator(
+        info, invoker, (indx, parentInfo) -> new JTabbedPaneLocator(tabLabel, indx, parentInfo));
 
     SemanticTabbedPaneSelectionEvent tabbedPaneEvent = new SemanticTabbedPaneSelectionEvent(info);
     tabbedPaneEvent.setIndex(index);
@@ -344,16 +357,10 @@ public class UISemanticEventFactory {
     String label = JTableTester.valueToString(invoker, row, col);
 
     // build and hook up table item locator
-    com.windowtester.runtime.swing.SwingWidgetLocator parentInfo =
-        getParentInfo(info.hierarchyInfo);
-    int index = getIndex(info.hierarchyInfo);
-    // check if table is named, if yes create named widget locator
-    String name = invoker.getName();
-    if (name != null) {
-      parentInfo = new NamedWidgetLocator(name);
-      index = WidgetLocator.UNASSIGNED;
-    }
-    info.hierarchyInfo = new JTableItemLocator(new Point(row, col), index, parentInfo);
+    swapInItemLocator(
+        info,
+        invoker,
+        (index, parentInfo) -> new JTableItemLocator(new Point(row, col), index, parentInfo));
 
     SemanticTableSelectionEvent tableSelect = new SemanticTableSelectionEvent(info);
 
@@ -430,16 +437,8 @@ public class UISemanticEventFactory {
 
     EventInfo info = extractInfo(combo, 1, 1, 1);
     // swap in our combo locator (post identification)
-    com.windowtester.runtime.swing.SwingWidgetLocator parentInfo =
-        getParentInfo(info.hierarchyInfo);
-    int index = getIndex(info.hierarchyInfo);
-    // check if combo is named
-    String name = combo.getName();
-    if (name != null) {
-      parentInfo = new NamedWidgetLocator(name);
-      index = WidgetLocator.UNASSIGNED;
-    }
-    info.hierarchyInfo = new JComboBoxLocator(label, index, parentInfo);
+    swapInItemLocator(
+        info, combo, (index, parentInfo) -> new JComboBoxLocator(label, index, parentInfo));
 
     SemanticComboSelectionEvent comboEvent = new SemanticComboSelectionEvent(info);
 
@@ -463,7 +462,7 @@ public class UISemanticEventFactory {
 
     EventInfo info = new EventInfo();
     info.cls = list.getClass().getName();
-    info.hierarchyInfo = inferIdentifyingInfo(list);
+    info.pendingHierarchyInfo = new InferredLocator(list);
     info.button = button;
     info.x = x;
     info.y = y;
@@ -487,17 +486,7 @@ public class UISemanticEventFactory {
       item = list.getModel().getElementAt(index).toString();
     }
     // swap in custom list locator
-    com.windowtester.runtime.swing.SwingWidgetLocator parentInfo =
-        getParentInfo(info.hierarchyInfo);
-    int indx = getIndex(info.hierarchyInfo);
-    // check if name is set
-    String name = list.getName();
-    if (name != null) { // create a named widget locator
-      parentInfo = new NamedWidgetLocator(name);
-      indx = WidgetLocator.UNASSIGNED;
-    }
-
-    info.hierarchyInfo = new JListLocator(item, indx, parentInfo);
+    swapInItemLocator(info, list, (indx, parentInfo) -> new JListLocator(item, indx, parentInfo));
 
     SemanticListSelectionEvent listSelect = new SemanticListSelectionEvent(info);
     listSelect.setClicks(count);
@@ -535,7 +524,7 @@ public class UISemanticEventFactory {
 
     EventInfo info = new EventInfo();
     info.cls = widget.getClass().getName();
-    info.hierarchyInfo = inferIdentifyingInfo(widget);
+    final InferredLocator locator = new InferredLocator(widget);
     info.button = button;
     info.x = x;
     info.y = y;
@@ -549,14 +538,16 @@ public class UISemanticEventFactory {
         caret = 0;
       }
     }
-    // if it is a NamedWidgetLocator, there is no set caret
-    if (info.hierarchyInfo instanceof JTextComponentLocator) {
-      if (caret != 0) {
-        ((JTextComponentLocator) info.hierarchyInfo).setCaretPosition(caret);
-      } else {
-        ((JTextComponentLocator) info.hierarchyInfo).setCaretPosition(WidgetLocator.UNASSIGNED);
-      }
-    }
+    final int caretPosition = caret != 0 ? caret : WidgetLocator.UNASSIGNED;
+    info.pendingHierarchyInfo =
+        () -> {
+          WidgetLocator inferred = locator.get();
+          // if it is a NamedWidgetLocator, there is no set caret
+          if (inferred instanceof JTextComponentLocator) {
+            ((JTextComponentLocator) inferred).setCaretPosition(caretPosition);
+          }
+          return inferred;
+        };
 
     SemanticWidgetSelectionEvent widgetSelect = new SemanticWidgetSelectionEvent(info);
     widgetSelect.setClicks(count);
@@ -620,20 +611,37 @@ public class UISemanticEventFactory {
      * here we do a little caching to speed things up
      */
     if (widget == _lastWidget && _lastWidgetLocator != null) {
-      info.hierarchyInfo = _lastWidgetLocator;
+      info.pendingHierarchyInfo = _lastWidgetLocator;
     } else { // do it the hard way:
-      info.hierarchyInfo = inferIdentifyingInfo(widget);
+      InferredLocator locator = new InferredLocator(widget);
+      info.pendingHierarchyInfo = locator;
       // and update the cache
-      _lastWidgetLocator = (WidgetLocator) info.hierarchyInfo;
+      _lastWidgetLocator = locator;
       _lastWidget = widget;
     }
     return info;
   }
 
-  private static WidgetLocator inferIdentifyingInfo(Component widget) {
-    WidgetLocator locator = new WidgetLocatorService().inferIdentifyingInfo(widget);
+  /**
+   * The locator of a widget, inferred when it is first needed from what was captured of the widget hierarchy when the
+   * event was created.  Events are created on the event dispatch thread, but their locators are normally first needed
+   * by the semantic event listeners, which are notified on the {@link SemanticEventDispatcher} thread.
+   */
+  private static final class InferredLocator implements Supplier<WidgetLocator> {
+    private LocatorSnapshot _snapshot;
+    private WidgetLocator _locator;
+
+    InferredLocator(Component widget) {
+      _snapshot = new WidgetLocatorService().captureIdentifyingInfo(widget);
+    }
 
-    return locator;
+    public synchronized WidgetLocator get() {
+      if (_snapshot != null) {
+        _locator = new WidgetLocatorService().inferIdentifyingInfo(_snapshot);
+        _snapshot = null;
+      }
+      return _locator;
+    }
   }
 
   ////////////////////////////////////////////////////////////////////////////
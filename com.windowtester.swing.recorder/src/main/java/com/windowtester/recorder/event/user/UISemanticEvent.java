@@ -13,6 +13,9 @@ package com.windowtester.recorder.event.user;
 import com.windowtester.internal.runtime.IWidgetIdentifier;
 import com.windowtester.recorder.event.ISemanticEventHandler;
 import com.windowtester.recorder.event.IUISemanticEvent;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.function.Supplier;
 
 /**
  * UISemanticEvents are the semantic counterparts to underlying raw OS UI events.
@@ -43,6 +46,11 @@ public class UISemanticEvent implements IUISemanticEvent, ICheckable {
    */
   private IWidgetIdentifier _hierarchyInfo;
 
+  /**
+   * Infers the hierarchy info when it is first needed, if it was not known when the event was created.
+   */
+  private transient Supplier<? extends IWidgetIdentifier> _pendingHierarchyInfo;
+
   /**
    * The mouse button associated with this event.
    *
@@ -91,6 +99,7 @@ public class UISemanticEvent implements IUISemanticEvent, ICheckable {
     _toString = info.toString;
     _cls = info.cls;
     _hierarchyInfo = info.hierarchyInfo;
+    _pendingHierarchyInfo = info.pendingHierarchyInfo;
     _button = info.button;
     _x = info.x;
     _y = info.y;
@@ -109,7 +118,7 @@ public class UISemanticEvent implements IUISemanticEvent, ICheckable {
     UISemanticEvent other = (UISemanticEvent) o;
     return _cls.equals(other._cls)
         && _button == other._button
-        && _hierarchyInfo.equals(other.getHierarchyInfo())
+        && getHierarchyInfo().equals(other.getHierarchyInfo())
         && _x == other._x
         && _y == other._y;
   }
@@ -121,7 +130,8 @@ public class UISemanticEvent implements IUISemanticEvent, ICheckable {
     int result = 13;
     result = 37 * result + ((_cls == null) ? 0 : +_cls.hashCode());
     result = 37 * result + _button;
-    result = 37 * result + ((_hierarchyInfo == null) ? 0 : +_hierarchyInfo.hashCode());
+    IWidgetIdentifier hierarchyInfo = getHierarchyInfo();
+    result = 37 * result + ((hierarchyInfo == null) ? 0 : +hierarchyInfo.hashCode());
     return result;
   }
 
@@ -149,15 +159,28 @@ public class UISemanticEvent implements IUISemanticEvent, ICheckable {
   /* (non-Javadoc)
    * @see com.windowtester.recorder.event.IUISemanticEvent#getHierarchyInfo()
    */
-  public IWidgetIdentifier getHierarchyInfo() {
+  public synchronized IWidgetIdentifier getHierarchyInfo() {
+    if (_pendingHierarchyInfo != null) {
+      _hierarchyInfo = _pendingHierarchyInfo.get();
+      _pendingHierarchyInfo = null;
+    }
     return _hierarchyInfo;
   }
 
   /* (non-Javadoc)
    * @see com.windowtester.recorder.event.IUISemanticEvent#setHierarchyInfo(com.windowtester.internal.runtime.IWidgetIdentifier)
    */
-  public void setHierarchyInfo(IWidgetIdentifier id) {
+  public synchronized void setHierarchyInfo(IWidgetIdentifier id) {
     _hierarchyInfo = id;
+    _pendingHierarchyInfo = null;
+  }
+
+  /**
+   * Infer any pending hierarchy info before it is written.
+   */
+  private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+    getHierarchyInfo();
+    out.defaultWriteObject();
   }
 
   /* (non-Javadoc)
@@ -208,6 +231,11 @@ public class UISemanticEvent implements IUISemanticEvent, ICheckable {
      */
     public IWidgetIdentifier hierarchyInfo;
 
+    /**
+     * Infers the widget hierarchy info when it is first needed, if it is not known yet
+     */
+    public Supplier<? extends IWidgetIdentifier> pendingHierarchyInfo;
+
     /**
      * button mask info
      */
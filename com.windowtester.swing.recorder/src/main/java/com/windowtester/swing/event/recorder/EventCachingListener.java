@@ -10,20 +10,126 @@
  *******************************************************************************/
 package com.windowtester.swing.event.recorder;
 
+import abbot.util.Properties;
+import com.windowtester.internal.debug.LogHandler;
+import com.windowtester.recorder.event.ISemanticEvent;
 import com.windowtester.recorder.event.ISemanticEventListener;
 import com.windowtester.recorder.event.IUISemanticEvent;
 import com.windowtester.recorder.event.meta.RecorderAssertionHookAddedEvent;
 import com.windowtester.recorder.event.meta.RecorderErrorEvent;
 import com.windowtester.recorder.event.meta.RecorderTraceEvent;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.File;
+import java.io.IOException;
 
 /**
- * A listener that caches recorded events to the console.
+ * A listener that caches recorded events.
+ * <p>
+ * Only the most recent events are kept in memory, up to "windowtester.recorder.cache_size" (10000 by default), so
+ * that a long recording session doesn't use an unbounded amount of memory.  To keep every event, give the listener a
+ * {@link SemanticEventLog}, or set "windowtester.recorder.event_log" to the file to use; each event is appended to
+ * the log as it is recorded, and the log can be replayed later with {@link SemanticEventLog#replay}.
  */
 public class EventCachingListener implements ISemanticEventListener {
 
-  List events = new ArrayList();
+  private static final int DEFAULT_CAPACITY =
+      Properties.getProperty("windowtester.recorder.cache_size", 10000, 1, 10000000);
+
+  /**
+   * The most recent events, oldest first starting at <code>first</code>.  Notified on the semantic event dispatcher
+   * thread, so access is synchronized; the log synchronizes itself.
+   */
+  private final ISemanticEvent[] events;
+
+  private int first = 0;
+
+  private int count = 0;
+
+  /**
+   * The total number of events received.
+   */
+  private long total = 0;
+
+  private SemanticEventLog log;
+
+  public EventCachingListener() {
+    this(DEFAULT_CAPACITY, createDefaultLog());
+  }
+
+  /**
+   * Create a listener which keeps the given number of recent events in memory and appends all events to the given log,
+   * if any.
+   */
+  public EventCachingListener(int capacity, SemanticEventLog log) {
+    events = new ISemanticEvent[capacity];
+    this.log = log;
+  }
+
+  private static SemanticEventLog createDefaultLog() {
+    String path = System.getProperty("windowtester.recorder.event_log");
+    return path != null ? new SemanticEventLog(new File(path)) : null;
+  }
+
+  /**
+   * Keep the given event and append it to the log.  The log is written outside the lock, so that readers of the kept
+   * events don't wait for compression and disk I/O.
+   */
+  private void add(ISemanticEvent event) {
+    SemanticEventLog log;
+    synchronized (this) {
+      if (count == events.length) {
+        events[first] = event;
+        first = (first + 1) % events.length;
+      } else {
+        events[(first + count) % events.length] = event;
+        ++count;
+      }
+      ++total;
+      log = this.log;
+    }
+    if (log != null) {
+      try {
+        log.append(event);
+      } catch (IOException e) {
+        logFailed(log, e);
+      }
+    }
+  }
+
+  /**
+   * Make sure all events are written to the log, if there is one.
+   */
+  private void flushLog(boolean close) {
+    SemanticEventLog log;
+    synchronized (this) {
+      log = this.log;
+      if (close) {
+        this.log = null;
+      }
+    }
+    if (log != null) {
+      try {
+        if (close) {
+          log.close();
+        } else {
+          log.flush();
+        }
+      } catch (IOException e) {
+        logFailed(log, e);
+      }
+    }
+  }
+
+  /**
+   * Stop writing to the given log after a failure.
+   */
+  private void logFailed(SemanticEventLog log, IOException e) {
+    LogHandler.log("Unable to write to event log " + log.getFile() + ": " + e);
+    synchronized (this) {
+      if (this.log == log) {
+        this.log = null;
+      }
+    }
+  }
 
   /**
    * A describer used for stateful event descriptions
@@ -34,14 +140,14 @@ public class EventCachingListener implements ISemanticEventListener {
    * @see com.windowtester.swt.event.model.ISemanticEventListener#notify(com.windowtester.swt.event.model.IUISemanticEvent)
    */
   public void notify(IUISemanticEvent event) {
-    events.add(event);
+    add(event);
   }
 
   /**
    * @see com.windowtester.recorder.event.ISemanticEventListener#notifyAssertionHookAdded(java.lang.String)
    */
   public void notifyAssertionHookAdded(String hookName) {
-    events.add(new RecorderAssertionHookAddedEvent(hookName));
+    add(new RecorderAssertionHookAddedEvent(hookName));
   }
 
   /* (non-Javadoc)
@@ -52,22 +158,30 @@ public class EventCachingListener implements ISemanticEventListener {
   /* (non-Javadoc)
    * @see com.windowtester.swt.event.model.ISemanticEventListener#notifyStop()
    */
-  public void notifyStop() {}
+  public void notifyStop() {
+    flushLog(false);
+  }
 
   /* (non-Javadoc)
    * @see com.windowtester.swt.event.model.ISemanticEventListener#notifyWrite()
    */
-  public void notifyWrite() {}
+  public void notifyWrite() {
+    flushLog(false);
+  }
 
   /*
    * @see com.windowtester.swt.event.model.ISemanticEventListener#notifyPause()
    */
-  public void notifyPause() {}
+  public void notifyPause() {
+    flushLog(false);
+  }
 
   /* (non-Javadoc)
    * @see com.windowtester.swt.event.model.ISemanticEventListener#notifyDispose()
    */
-  public void notifyDispose() {}
+  public void notifyDispose() {
+    flushLog(true);
+  }
 
   /* (non-Javadoc)
    * @see com.windowtester.swt.event.model.ISemanticEventListener#notifyRestart()
@@ -89,11 +203,22 @@ public class EventCachingListener implements ISemanticEventListener {
    */
   public void notifySpyModeToggle() {}
 
-  public IUISemanticEvent[] getEvents() {
-    if (events == null) {
-      return new IUISemanticEvent[] {};
+  /**
+   * Returns the events kept in memory, oldest first.
+   */
+  public synchronized IUISemanticEvent[] getEvents() {
+    IUISemanticEvent[] copy = new IUISemanticEvent[count];
+    for (int i = 0; i < count; i++) {
+      copy[i] = (IUISemanticEvent) events[(first + i) % events.length];
     }
-    return (IUISemanticEvent[]) events.toArray(new IUISemanticEvent[] {});
+    return copy;
+  }
+
+  /**
+   * Returns the total number of events received, including those no longer kept in memory.
+   */
+  public synchronized long getEventCount() {
+    return total;
   }
 
   public void notifyControllerStart(int port) {
@@ -0,0 +1,136 @@
+package com.windowtester.swing.event.recorder;
+
+import com.windowtester.recorder.event.ISemanticEvent;
+import com.windowtester.recorder.event.ISemanticEventListener;
+import com.windowtester.recorder.event.IUISemanticEvent;
+import com.windowtester.recorder.event.meta.RecorderAssertionHookAddedEvent;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An append-only file of recorded semantic events, so that a long recording session can be kept on disk rather than
+ * in memory, and replayed or converted later.  Each event is stored as a separate record (its length followed by the
+ * compressed, serialized event), so records can be appended to an existing log and a log cut short by a crash can
+ * still be read up to its last complete record.
+ */
+public class SemanticEventLog {
+
+  private final File file;
+
+  private DataOutputStream out;
+
+  private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+  private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+  private boolean closed = false;
+
+  /**
+   * Create a log which appends to the given file.  The file is created when the first event is written.
+   */
+  public SemanticEventLog(File file) {
+    this.file = file;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * Append the given event to the log.  The event is buffered; use {@link #flush()} to make sure it has been written
+   * to the file.
+   */
+  public synchronized void append(ISemanticEvent event) throws IOException {
+    if (closed) {
+      throw new IOException("Event log is closed");
+    }
+    if (out == null) {
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+    }
+    buffer.reset();
+    deflater.reset();
+    DeflaterOutputStream zip = new DeflaterOutputStream(buffer, deflater);
+    ObjectOutputStream oos = new ObjectOutputStream(zip);
+    oos.writeObject(event);
+    oos.flush();
+    zip.finish();
+    out.writeInt(buffer.size());
+    buffer.writeTo(out);
+  }
+
+  public synchronized void flush() throws IOException {
+    if (out != null) {
+      out.flush();
+    }
+  }
+
+  /**
+   * Write any buffered events and close the file.  Nothing more can be appended.
+   */
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    deflater.end();
+    if (out != null) {
+      out.close();
+      out = null;
+    }
+  }
+
+  /**
+   * Pass each event in the given log file to the given listener, in the order they were recorded.  An incomplete
+   * record at the end of the file is ignored.
+   *
+   * @return the number of events read
+   */
+  public static int replay(File file, ISemanticEventListener listener) throws IOException {
+    int count = 0;
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      while (true) {
+        byte[] record;
+        try {
+          int length = in.readInt();
+          if (length < 0) {
+            throw new IOException("Invalid record length " + length + " in " + file);
+          }
+          record = new byte[length];
+          in.readFully(record);
+        } catch (EOFException e) {
+          break;
+        }
+        Object event;
+        try (ObjectInputStream ois =
+            new ObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(record)))) {
+          event = ois.readObject();
+        } catch (ClassNotFoundException e) {
+          throw new IOException("Unknown event class in " + file + ": " + e.getMessage());
+        }
+        if (event instanceof RecorderAssertionHookAddedEvent) {
+          listener.notifyAssertionHookAdded(
+              ((RecorderAssertionHookAddedEvent) event).getHookName());
+        } else {
+          listener.notify((IUISemanticEvent) event);
+        }
+        ++count;
+      }
+    }
+    return count;
+  }
+}
@@ -21,9 +21,9 @@ import com.windowtester.recorder.event.meta.RecorderErrorEvent;
 import com.windowtester.recorder.event.meta.RecorderTraceEvent;
 import com.windowtester.swing.event.spy.SpyEventHandler;
 import com.windowtester.swing.recorder.ComponentRecorder;
+import com.windowtester.swing.recorder.SemanticEventDispatcher;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 /***
@@ -50,6 +50,12 @@ public class SwingEventRecorder extends abbot.editor.recorder.EventRecorder
 
   private final SpyEventHandler spyHandler = new SpyEventHandler();
 
+  /**
+   * Delivers notifications to the listeners off the event dispatch thread.  Notifications which end a recording
+   * phase wait until the listeners have seen everything recorded before them.
+   */
+  private final SemanticEventDispatcher dispatcher = SemanticEventDispatcher.getDefault();
+
   public SwingEventRecorder(Resolver resolver, boolean captureMotion) {
     super(resolver, captureMotion);
   }
@@ -78,18 +84,15 @@ public class SwingEventRecorder extends abbot.editor.recorder.EventRecorder
   public void terminate() throws RecordingFailedException {
     _isRecording = false;
     super.terminate();
-    // get the list of listeners
-    List listeners = getListeners();
-    for (Iterator iter = listeners.iterator(); iter.hasNext(); )
-      ((ISemanticEventListener) iter.next()).notifyDispose();
+    dispatcher.postAndWait(getListeners(), ISemanticEventListener::notifyDispose);
   }
 
   /* (non-Javadoc)
    * @see com.windowtester.recorder.IEventRecorder#toggleSpyMode()
    */
   public void toggleSpyMode() {
-    for (Iterator iter = getListeners().iterator(); iter.hasNext(); )
-      ((ISemanticEventListener) iter.next()).notifySpyModeToggle();
+    // Spy mode is in effect once this returns
+    dispatcher.postAndWait(getListeners(), ISemanticEventListener::notifySpyModeToggle);
   }
 
   public void stop() {
@@ -97,9 +100,7 @@ public class SwingEventRecorder extends abbot.editor.recorder.EventRecorder
     try {
       _isRecording = false;
       super.terminate();
-      List listeners = getListeners();
-      for (Iterator iter = listeners.iterator(); iter.hasNext(); )
-        ((ISemanticEventListener) iter.next()).notifyStop();
+      dispatcher.postAndWait(getListeners(), ISemanticEventListener::notifyStop);
     } catch (RecordingFailedException e) {
       Throwable error = e.getReason();
       System.out.println("Recording stop failure: " + error.toString());
@@ -112,30 +113,21 @@ public class SwingEventRecorder extends abbot.editor.recorder.EventRecorder
     super.start();
     _isRecording = true;
     _isPaused = false;
-    //	get the list of listeners
-    List listeners = getListeners();
-    for (Iterator iter = listeners.iterator(); iter.hasNext(); )
-      ((ISemanticEventListener) iter.next()).notifyStart();
+    dispatcher.post(getListeners(), ISemanticEventListener::notifyStart);
   }
 
   public void write() {
-    List listeners = getListeners();
-    for (Iterator iter = listeners.iterator(); iter.hasNext(); )
-      ((ISemanticEventListener) iter.next()).notifyWrite();
+    dispatcher.postAndWait(getListeners(), ISemanticEventListener::notifyWrite);
   }
 
   public void restart() {
-    List listeners = getListeners();
-    for (Iterator iter = listeners.iterator(); iter.hasNext(); )
-      ((ISemanticEventListener) iter.next()).notifyRestart();
+    dispatcher.postAndWait(getListeners(), ISemanticEventListener::notifyRestart);
   }
 
   public void pause() {
     _isRecording = false;
     _isPaused = true;
-    List listeners = getListeners();
-    for (Iterator iter = listeners.iterator(); iter.hasNext(); )
-      ((ISemanticEventListener) iter.next()).notifyPause();
+    dispatcher.postAndWait(getListeners(), ISemanticEventListener::notifyPause);
   }
 
   public void removeListener(ISemanticEventListener listener) {
@@ -145,24 +137,16 @@ public class SwingEventRecorder extends abbot.editor.recorder.EventRecorder
     }
   }
 
-  public void record(IUISemanticEvent semanticEvent) {
-    //	get the list of listeners
-    List listeners = getListeners();
-    for (Iterator iter = listeners.iterator(); iter.hasNext(); )
-      ((ISemanticEventListener) iter.next()).notify(semanticEvent);
+  public void record(final IUISemanticEvent semanticEvent) {
+    dispatcher.post(getListeners(), semanticEvent);
   }
 
-  public void reportError(RecorderErrorEvent event) {
-    // get the list of listeners
-    List listeners = getListeners();
-    for (Iterator iter = listeners.iterator(); iter.hasNext(); )
-      ((ISemanticEventListener) iter.next()).notifyError(event);
+  public void reportError(final RecorderErrorEvent event) {
+    dispatcher.post(getListeners(), listener -> listener.notifyError(event));
   }
 
-  public void trace(RecorderTraceEvent event) {
-    List listeners = getListeners();
-    for (Iterator iter = listeners.iterator(); iter.hasNext(); )
-      ((ISemanticEventListener) iter.next()).notifyTrace(event);
+  public void trace(final RecorderTraceEvent event) {
+    dispatcher.post(getListeners(), listener -> listener.notifyTrace(event));
   }
 
   public void addEventFilter(IEventFilter filter) {
@@ -183,22 +167,19 @@ public class SwingEventRecorder extends abbot.editor.recorder.EventRecorder
     }
   }
 
-  public void addHook(String hookName) {
-    List listeners = getListeners();
-    for (Iterator iter = listeners.iterator(); iter.hasNext(); )
-      ((ISemanticEventListener) iter.next()).notifyAssertionHookAdded(hookName);
+  public void addHook(final String hookName) {
+    dispatcher.post(getListeners(), listener -> listener.notifyAssertionHookAdded(hookName));
   }
 
   /**
    * @return list of listeners attached to the recorder
    */
-  private List getListeners() {
+  private List<ISemanticEventListener> getListeners() {
     return ((ComponentRecorder) getSemanticRecorder(recorderClasses[0])).getListeners();
   }
 
-  public void notify(IUISemanticEvent semanticEvent) {
-    for (Iterator iter = getListeners().iterator(); iter.hasNext(); )
-      ((ISemanticEventListener) iter.next()).notify(semanticEvent);
+  public void notify(final IUISemanticEvent semanticEvent) {
+    dispatcher.post(getListeners(), semanticEvent);
   }
 
   /**
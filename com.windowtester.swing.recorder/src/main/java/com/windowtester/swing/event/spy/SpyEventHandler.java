@@ -30,7 +30,10 @@ public class SpyEventHandler {
   // FOR TESTING
   public static boolean FORCE_ENABLE = false;
 
-  private static boolean inSpyMode = FORCE_ENABLE;
+  /**
+   * Toggled by listeners on the semantic event dispatcher thread, read on the event dispatch thread.
+   */
+  private static volatile boolean inSpyMode = FORCE_ENABLE;
 
   public UISemanticEvent interepretHover(AWTEvent event) {
     if (!inSpyMode) {
@@ -39,7 +42,7 @@ public class SpyEventHandler {
     return createInspectionEvent(event);
   }
 
-  public static void spyModeToggled() {
+  public static synchronized void spyModeToggled() {
     inSpyMode = !inSpyMode;
     //		Tracer.trace(IEventRecorderPluginTraceOptions.SWT_EVENTS, "spy mode toggled to: " +
     // inSpyMode);
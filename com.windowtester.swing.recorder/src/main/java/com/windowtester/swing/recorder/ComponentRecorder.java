@@ -19,7 +19,6 @@ import com.windowtester.recorder.event.UISemanticEventFactory;
 import java.awt.*;
 import java.awt.event.ComponentEvent;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import javax.swing.*;
 
@@ -33,7 +32,7 @@ public class ComponentRecorder extends abbot.editor.recorder.ComponentRecorder {
   /**
    * A list of semantic event listeners
    */
-  private List _listenerList;
+  private List<ISemanticEventListener> _listenerList;
 
   protected boolean doneEventGeneration = false;
 
@@ -179,7 +178,7 @@ public class ComponentRecorder extends abbot.editor.recorder.ComponentRecorder {
   }
 
   public void addListener(ISemanticEventListener listener) {
-    List listeners = getListeners();
+    List<ISemanticEventListener> listeners = getListeners();
     if (listeners.contains(listener)) {
       System.out.println("multiple adds of listener: " + listener);
     } else {
@@ -192,15 +191,15 @@ public class ComponentRecorder extends abbot.editor.recorder.ComponentRecorder {
    *
    * @return a list of resgistered listeners
    */
-  public List getListeners() {
+  public List<ISemanticEventListener> getListeners() {
     if (_listenerList == null) {
-      _listenerList = new ArrayList();
+      _listenerList = new ArrayList<>();
     }
     return _listenerList;
   }
 
   public void removeListener(ISemanticEventListener listener) {
-    List listeners = getListeners();
+    List<ISemanticEventListener> listeners = getListeners();
     if (listeners.contains(listener)) {
       System.out.println("listener removed that was not registered: " + listener);
     } else {
@@ -208,8 +207,11 @@ public class ComponentRecorder extends abbot.editor.recorder.ComponentRecorder {
     }
   }
 
-  public void notify(IUISemanticEvent semanticEvent) {
-    for (Iterator iter = getListeners().iterator(); iter.hasNext(); )
-      ((ISemanticEventListener) iter.next()).notify(semanticEvent);
+  /**
+   * Pass the given event on to the listeners.  The listeners are notified on the {@link SemanticEventDispatcher}
+   * thread, so this returns without waiting for them.
+   */
+  public void notify(final IUISemanticEvent semanticEvent) {
+    SemanticEventDispatcher.getDefault().post(getListeners(), semanticEvent);
   }
 }
@@ -0,0 +1,217 @@
+package com.windowtester.swing.recorder;
+
+import abbot.util.Properties;
+import com.windowtester.internal.debug.LogHandler;
+import com.windowtester.recorder.event.ISemanticEventListener;
+import com.windowtester.recorder.event.IUISemanticEvent;
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Delivers notifications to semantic event listeners on a single background thread, so that whatever the listeners do
+ * with recorded events (generating code, sending them to the IDE) doesn't hold up the event dispatch thread.
+ * Notifications are delivered in the order they were posted, to the listeners registered at the time they were
+ * posted.
+ * <p>
+ * Semantic events are still created on the event dispatch thread, since that requires looking at the components
+ * involved, but the locators of their widgets are inferred here, from what was captured of the hierarchy when the
+ * event was created (see {@link #post(Collection, IUISemanticEvent)}).
+ * <p>
+ * At most "windowtester.recorder.queue_size" notifications (10000 by default) are queued.  When listeners fall that
+ * far behind, posting blocks until there is room again; notifications are never dropped.  Notifications posted by a
+ * listener are delivered immediately, on the dispatcher thread, since waiting for room in the queue there could never
+ * succeed.
+ */
+public final class SemanticEventDispatcher implements Runnable {
+
+  /**
+   * How often {@link #postAndWait(Collection, Consumer)} logs that it is still waiting for a notification to be
+   * delivered.
+   */
+  private static final long WAIT_LOG_INTERVAL = 10000;
+
+  private static final int QUEUE_SIZE =
+      Properties.getProperty("windowtester.recorder.queue_size", 10000, 1, 1000000);
+
+  private static final SemanticEventDispatcher DEFAULT = new SemanticEventDispatcher();
+
+  private final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>(QUEUE_SIZE);
+
+  private final Object lock = new Object();
+
+  /**
+   * Number of notifications posted but not yet delivered.
+   */
+  private int pending = 0;
+
+  private Thread thread;
+
+  SemanticEventDispatcher() {}
+
+  /**
+   * Returns the dispatcher shared by all recorders.
+   */
+  public static SemanticEventDispatcher getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Deliver the given notification to each of the given listeners, after all notifications posted before it.
+   */
+  public void post(
+      Collection<? extends ISemanticEventListener> listeners,
+      final Consumer<ISemanticEventListener> notification) {
+    final ISemanticEventListener[] targets = listeners.toArray(new ISemanticEventListener[0]);
+    if (Thread.currentThread() == thread) {
+      deliver(targets, notification);
+      return;
+    }
+    enqueue(() -> deliver(targets, notification));
+  }
+
+  /**
+   * Deliver the given semantic event to each of the given listeners, after all notifications posted before it.  The
+   * locator of the event's widget, if still to be inferred, is inferred first, on the dispatcher thread.
+   */
+  public void post(
+      Collection<? extends ISemanticEventListener> listeners, final IUISemanticEvent event) {
+    final ISemanticEventListener[] targets = listeners.toArray(new ISemanticEventListener[0]);
+    Runnable delivery =
+        () -> {
+          try {
+            event.getHierarchyInfo();
+          } catch (Throwable e) {
+            // Listeners asking for it will try again
+            LogHandler.log(e);
+          }
+          deliver(targets, listener -> listener.notify(event));
+        };
+    if (Thread.currentThread() == thread) {
+      delivery.run();
+      return;
+    }
+    enqueue(delivery);
+  }
+
+  /**
+   * Like {@link #post(Collection, Consumer)}, but wait until the notification has been delivered, so that listeners
+   * have seen everything recorded so far.  If called from a listener, the notification is delivered immediately.
+   */
+  public void postAndWait(
+      Collection<? extends ISemanticEventListener> listeners,
+      final Consumer<ISemanticEventListener> notification) {
+    final ISemanticEventListener[] targets = listeners.toArray(new ISemanticEventListener[0]);
+    if (Thread.currentThread() == thread) {
+      deliver(targets, notification);
+      return;
+    }
+    final CountDownLatch delivered = new CountDownLatch(1);
+    enqueue(
+        () -> {
+          try {
+            deliver(targets, notification);
+          } finally {
+            delivered.countDown();
+          }
+        });
+    boolean interrupted = false;
+    while (true) {
+      try {
+        if (delivered.await(WAIT_LOG_INTERVAL, TimeUnit.MILLISECONDS)) {
+          break;
+        }
+        LogHandler.log("Still waiting for semantic event listeners");
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Queue the given delivery, waiting for room in the queue if necessary.
+   */
+  private void enqueue(Runnable delivery) {
+    synchronized (lock) {
+      if (thread == null || !thread.isAlive()) {
+        thread = new Thread(this, "Semantic Event Dispatcher");
+        thread.setDaemon(true);
+        thread.start();
+      }
+      ++pending;
+    }
+    boolean interrupted = false;
+    while (true) {
+      try {
+        queue.put(delivery);
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Notify each of the given listeners in turn.  A listener which fails doesn't keep the others from being notified.
+   */
+  private static void deliver(
+      ISemanticEventListener[] targets, Consumer<ISemanticEventListener> notification) {
+    for (int i = 0; i < targets.length; i++) {
+      try {
+        notification.accept(targets[i]);
+      } catch (Throwable e) {
+        LogHandler.log(e);
+      }
+    }
+  }
+
+  /**
+   * Wait until all posted notifications have been delivered, or the given timeout elapses.
+   *
+   * @return whether all notifications have been delivered
+   */
+  public boolean flush(long timeout) throws InterruptedException {
+    long end = System.currentTimeMillis() + timeout;
+    synchronized (lock) {
+      while (pending > 0) {
+        long remaining = end - System.currentTimeMillis();
+        if (remaining <= 0) {
+          return false;
+        }
+        lock.wait(remaining);
+      }
+      return true;
+    }
+  }
+
+  public void run() {
+    while (true) {
+      Runnable notification;
+      try {
+        notification = queue.take();
+      } catch (InterruptedException e) {
+        continue;
+      }
+      try {
+        notification.run();
+      } catch (Throwable e) {
+        // Keep delivering whatever a listener throws
+        LogHandler.log(e);
+      } finally {
+        synchronized (lock) {
+          --pending;
+          lock.notifyAll();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.windowtester.swing.event.recorder;
+
+import com.windowtester.recorder.event.IUISemanticEvent;
+import com.windowtester.recorder.event.user.UISemanticEvent;
+import java.io.File;
+import java.io.IOException;
+import junit.framework.TestCase;
+
+public class EventCachingListenerTest extends TestCase {
+
+  static IUISemanticEvent event(int x) {
+    UISemanticEvent.EventInfo info = new UISemanticEvent.EventInfo();
+    info.cls = "javax.swing.JButton";
+    info.toString = "event " + x;
+    info.x = x;
+    return new UISemanticEvent(info);
+  }
+
+  private static void assertEvents(int[] expected, IUISemanticEvent[] events) {
+    assertEquals(expected.length, events.length);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], ((UISemanticEvent) events[i]).getX());
+    }
+  }
+
+  public void testKeepsMostRecentEvents() {
+    EventCachingListener listener = new EventCachingListener(3, null);
+    assertEquals(0, listener.getEvents().length);
+    listener.notify(event(0));
+    listener.notify(event(1));
+    assertEvents(new int[] {0, 1}, listener.getEvents());
+    for (int i = 2; i < 8; i++) {
+      listener.notify(event(i));
+    }
+    assertEvents(new int[] {5, 6, 7}, listener.getEvents());
+    assertEquals(8, listener.getEventCount());
+  }
+
+  public void testLogsAllEvents() throws IOException {
+    File file = File.createTempFile("events", ".log");
+    try {
+      EventCachingListener listener = new EventCachingListener(2, new SemanticEventLog(file));
+      for (int i = 0; i < 5; i++) {
+        listener.notify(event(i));
+      }
+      listener.notifyDispose();
+      // closed logs are no longer written
+      listener.notify(event(5));
+      EventCachingListener replayed = new EventCachingListener(10, null);
+      assertEquals(5, SemanticEventLog.replay(file, replayed));
+      assertEvents(new int[] {0, 1, 2, 3, 4}, replayed.getEvents());
+    } finally {
+      file.delete();
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.windowtester.swing.event.recorder;
+
+import com.windowtester.recorder.event.IUISemanticEvent;
+import com.windowtester.recorder.event.meta.RecorderAssertionHookAddedEvent;
+import com.windowtester.recorder.event.user.SemanticEventAdapter;
+import com.windowtester.recorder.event.user.UISemanticEvent;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+
+public class SemanticEventLogTest extends TestCase {
+
+  private File file;
+
+  private final List<Object> replayed = new ArrayList<>();
+
+  private final SemanticEventAdapter listener =
+      new SemanticEventAdapter() {
+        public void notify(IUISemanticEvent event) {
+          replayed.add(Integer.valueOf(((UISemanticEvent) event).getX()));
+        }
+
+        public void notifyAssertionHookAdded(String hookName) {
+          replayed.add(hookName);
+        }
+      };
+
+  protected void setUp() throws IOException {
+    file = File.createTempFile("events", ".log");
+    file.delete();
+  }
+
+  protected void tearDown() {
+    file.delete();
+  }
+
+  public void testAppendAndReplay() throws IOException {
+    SemanticEventLog log = new SemanticEventLog(file);
+    assertFalse("Created before the first event", file.exists());
+    log.append(EventCachingListenerTest.event(1));
+    log.append(new RecorderAssertionHookAddedEvent("hook"));
+    log.close();
+
+    // appending to an existing log
+    log = new SemanticEventLog(file);
+    log.append(EventCachingListenerTest.event(2));
+    log.flush();
+    assertEquals(3, SemanticEventLog.replay(file, listener));
+    assertEquals(List.of(Integer.valueOf(1), "hook", Integer.valueOf(2)), replayed);
+    log.close();
+  }
+
+  public void testIncompleteRecordIgnored() throws IOException {
+    SemanticEventLog log = new SemanticEventLog(file);
+    log.append(EventCachingListenerTest.event(1));
+    log.close();
+    try (FileOutputStream out = new FileOutputStream(file, true)) {
+      out.write(new byte[] {0, 0, 1, 0, 42});
+    }
+    assertEquals(1, SemanticEventLog.replay(file, listener));
+  }
+
+  public void testAppendAfterClose() throws IOException {
+    SemanticEventLog log = new SemanticEventLog(file);
+    log.close();
+    try {
+      log.append(EventCachingListenerTest.event(1));
+      fail("Expected the log to be closed");
+    } catch (IOException e) {
+    }
+    assertFalse(file.exists());
+  }
+}
@@ -0,0 +1,146 @@
+package com.windowtester.swing.recorder;
+
+import com.windowtester.internal.runtime.IWidgetIdentifier;
+import com.windowtester.recorder.event.ISemanticEventListener;
+import com.windowtester.recorder.event.IUISemanticEvent;
+import com.windowtester.recorder.event.user.SemanticEventAdapter;
+import com.windowtester.recorder.event.user.UISemanticEvent;
+import com.windowtester.runtime.WidgetLocator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.JButton;
+import junit.framework.TestCase;
+
+public class SemanticEventDispatcherTest extends TestCase {
+
+  private SemanticEventDispatcher dispatcher;
+  private final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+
+  protected void setUp() {
+    dispatcher = new SemanticEventDispatcher();
+  }
+
+  private List<ISemanticEventListener> listeners(ISemanticEventListener... listeners) {
+    List<ISemanticEventListener> list = new ArrayList<>();
+    Collections.addAll(list, listeners);
+    return list;
+  }
+
+  public void testDeliveredInOrder() throws Exception {
+    List<ISemanticEventListener> listeners = listeners(new SemanticEventAdapter());
+    for (int i = 0; i < 100; i++) {
+      final String name = String.valueOf(i);
+      dispatcher.post(listeners, listener -> delivered.add(name));
+    }
+    assertTrue(dispatcher.flush(10000));
+    assertEquals(100, delivered.size());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(String.valueOf(i), delivered.get(i));
+    }
+  }
+
+  public void testDeliveryContinuesAfterError() throws Exception {
+    ISemanticEventListener failing =
+        new SemanticEventAdapter() {
+          public void notifyStart() {
+            throw new StackOverflowError("test");
+          }
+        };
+    ISemanticEventListener recording =
+        new SemanticEventAdapter() {
+          public void notifyStart() {
+            delivered.add("start");
+          }
+
+          public void notifyStop() {
+            delivered.add("stop");
+          }
+        };
+    List<ISemanticEventListener> listeners = listeners(failing, recording);
+    dispatcher.post(listeners, ISemanticEventListener::notifyStart);
+    dispatcher.post(listeners, ISemanticEventListener::notifyStop);
+    assertTrue(dispatcher.flush(10000));
+    assertEquals(names("start", "stop"), delivered);
+  }
+
+  private static List<String> names(String... names) {
+    List<String> list = new ArrayList<>();
+    Collections.addAll(list, names);
+    return list;
+  }
+
+  public void testPostAndWaitWaitsForDelivery() {
+    final AtomicBoolean stopped = new AtomicBoolean();
+    ISemanticEventListener slow =
+        new SemanticEventAdapter() {
+          public void notifyStop() {
+            try {
+              Thread.sleep(500);
+            } catch (InterruptedException e) {
+              // finish early
+            }
+            stopped.set(true);
+          }
+        };
+    dispatcher.postAndWait(listeners(slow), ISemanticEventListener::notifyStop);
+    assertTrue(stopped.get());
+  }
+
+  public void testPostAndWaitFromListener() throws Exception {
+    final List<ISemanticEventListener> listeners = new ArrayList<>();
+    listeners.add(
+        new SemanticEventAdapter() {
+          public void notifyStop() {
+            dispatcher.postAndWait(listeners, ISemanticEventListener::notifyWrite);
+            delivered.add("stop");
+          }
+
+          public void notifyWrite() {
+            delivered.add("write");
+          }
+        });
+    dispatcher.postAndWait(listeners, ISemanticEventListener::notifyStop);
+    assertEquals(names("write", "stop"), delivered);
+  }
+
+  public void testPostFromListenerDeliveredImmediately() throws Exception {
+    final List<ISemanticEventListener> listeners = new ArrayList<>();
+    listeners.add(
+        new SemanticEventAdapter() {
+          public void notifyStart() {
+            dispatcher.post(listeners, ISemanticEventListener::notifyWrite);
+            delivered.add("start");
+          }
+
+          public void notifyWrite() {
+            delivered.add("write");
+          }
+        });
+    dispatcher.post(listeners, ISemanticEventListener::notifyStart);
+    assertTrue(dispatcher.flush(10000));
+    assertEquals(names("write", "start"), delivered);
+  }
+
+  public void testLocatorInferredOnDispatcherThread() throws Exception {
+    final WidgetLocator locator = new WidgetLocator(JButton.class, "OK");
+    UISemanticEvent.EventInfo info = new UISemanticEvent.EventInfo();
+    info.cls = "javax.swing.JButton";
+    info.pendingHierarchyInfo =
+        () -> {
+          delivered.add("inferred on " + Thread.currentThread().getName());
+          return locator;
+        };
+    ISemanticEventListener listener =
+        new SemanticEventAdapter() {
+          public void notify(IUISemanticEvent event) {
+            IWidgetIdentifier hierarchyInfo = event.getHierarchyInfo();
+            delivered.add(hierarchyInfo == locator ? "notified" : "notified with " + hierarchyInfo);
+          }
+        };
+    dispatcher.post(listeners(listener, listener), new UISemanticEvent(info));
+    assertTrue(dispatcher.flush(10000));
+    assertEquals(names("inferred on Semantic Event Dispatcher", "notified", "notified"), delivered);
+  }
+}
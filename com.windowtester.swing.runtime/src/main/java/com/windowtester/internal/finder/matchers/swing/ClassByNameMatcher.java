@@ -10,13 +10,15 @@
  *******************************************************************************/
 package com.windowtester.internal.finder.matchers.swing;
 
+import abbot.finder.ComponentState;
+import abbot.finder.SnapshotMatcher;
 import abbot.finder.matchers.AbstractMatcher;
 import java.awt.*;
 
 /**
  * A matcher that matches objects based on their class (by name).
  */
-public class ClassByNameMatcher extends AbstractMatcher {
+public class ClassByNameMatcher extends AbstractMatcher implements SnapshotMatcher {
 
   private final String _className;
 
@@ -33,4 +35,8 @@ public class ClassByNameMatcher extends AbstractMatcher {
     }
     return toTest.getClass().getName().equals(_className);
   }
+
+  public boolean matches(ComponentState state) {
+    return state.getComponentClass().getName().equals(_className);
+  }
 }
@@ -10,13 +10,18 @@
  *******************************************************************************/
 package com.windowtester.internal.finder.matchers.swing;
 
+import abbot.finder.ComponentState;
+import abbot.finder.IndexableMatcher;
+import abbot.finder.IndexedHierarchy;
+import abbot.finder.SnapshotMatcher;
 import abbot.finder.matchers.AbstractMatcher;
 import java.awt.*;
+import java.util.Collection;
 
 /**
  * Provides matching of components by class.
  */
-public class ClassMatcher extends AbstractMatcher {
+public class ClassMatcher extends AbstractMatcher implements IndexableMatcher, SnapshotMatcher {
   private final Class cls;
 
   public ClassMatcher(Class cls) {
@@ -34,6 +39,14 @@ public class ClassMatcher extends AbstractMatcher {
     return cls.isAssignableFrom(c.getClass());
   }
 
+  public boolean matches(ComponentState state) {
+    return cls.isAssignableFrom(state.getComponentClass());
+  }
+
+  public Collection<Component> getCandidates(IndexedHierarchy hierarchy) {
+    return hierarchy.findByClass(cls);
+  }
+
   public String toString() {
     return "Class matcher (" + cls.getName() + ")";
   }
@@ -10,9 +10,15 @@
  *******************************************************************************/
 package com.windowtester.internal.finder.matchers.swing;
 
+import abbot.finder.ComponentSnapshot;
+import abbot.finder.IndexableMatcher;
+import abbot.finder.IndexedHierarchy;
 import abbot.finder.Matcher;
+import abbot.finder.SnapshotMatcher;
+import abbot.finder.SnapshotMatcherSource;
 import abbot.finder.matchers.AbstractMatcher;
 import java.awt.*;
+import java.util.Collection;
 
 /**
  * This matcher does not have anything to do with org.eclipse.swt.widgets.Composite; rather, it allows searches for
@@ -20,7 +26,8 @@ import java.awt.*;
  * CompositeMatcher if and only if the widget matches in all of the component matchers.  Nulls in the array of matchers
  * are ignored
  */
-public class CompositeMatcher extends AbstractMatcher {
+public class CompositeMatcher extends AbstractMatcher
+    implements IndexableMatcher, SnapshotMatcherSource {
   private final Matcher[] matchers;
 
   public CompositeMatcher(Matcher[] matchers) {
@@ -40,6 +47,14 @@ public class CompositeMatcher extends AbstractMatcher {
     return result;
   }
 
+  public Collection<Component> getCandidates(IndexedHierarchy hierarchy) {
+    return hierarchy.getCandidates((Object[]) matchers);
+  }
+
+  public SnapshotMatcher getSnapshotMatcher() {
+    return ComponentSnapshot.allOf((Object[]) matchers);
+  }
+
   public String toString() {
     StringBuffer buffer = new StringBuffer();
     buffer.append("Composite matcher with " + matchers.length + " component matchers:\n");
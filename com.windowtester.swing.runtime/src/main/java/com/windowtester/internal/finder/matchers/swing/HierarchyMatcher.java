@@ -10,10 +10,13 @@
  *******************************************************************************/
 package com.windowtester.internal.finder.matchers.swing;
 
+import abbot.finder.IndexableMatcher;
+import abbot.finder.IndexedHierarchy;
 import abbot.finder.Matcher;
 import abbot.finder.matchers.ClassMatcher;
 import com.windowtester.internal.swing.WidgetLocatorService;
 import java.awt.*;
+import java.util.Collection;
 import javax.swing.*;
 
 /**
@@ -52,7 +55,7 @@ import javax.swing.*;
  * group, use a matcher constructs like this <code>new HierarchyMatcher(Text.class, Group.class)</code> (or possibly
  * like this <code>new HierarchyMatcher(Text.class, -1, Group.class)</code>).
  */
-public final class HierarchyMatcher implements Matcher {
+public final class HierarchyMatcher implements Matcher, IndexableMatcher {
 
   /**
    * A matcher composed from target class and name info
@@ -69,6 +72,11 @@ public final class HierarchyMatcher implements Matcher {
    */
   private final int _index;
 
+  /**
+   * Used to compute the target's index among its siblings.
+   */
+  private final WidgetLocatorService _infoService = new WidgetLocatorService();
+
   /**
    * The default index value for an unspecified index
    */
@@ -172,23 +180,52 @@ public final class HierarchyMatcher implements Matcher {
     }
 
     boolean matches = false;
-    WidgetLocatorService infoService = new WidgetLocatorService();
 
-    Component parent = widget.getParent();
-    // If parent is  a JPopupMenu, get the parent menu
-    if ((parent != null) && (parent instanceof JPopupMenu)) {
-      parent = ((JPopupMenu) parent).getInvoker();
-    }
+    Component parent = getMatchedParent(widget);
     if (parent == null || _parentMatcher == null) {
       matches = _matcher.matches(widget);
     }
     if (parent != null && _matcher.matches(widget) && _parentMatcher.matches(parent)) {
-      int indexRelativeToParent = infoService.getIndex(widget, parent);
+      int indexRelativeToParent = _infoService.getIndex(widget, parent);
       matches = indexRelativeToParent == _index;
     }
     return matches;
   }
 
+  /**
+   * Get the component checked against the parent criteria for the given widget: its parent, or the invoker if the
+   * parent is a popup menu.
+   */
+  public static Component getMatchedParent(Component widget) {
+    Component parent = widget.getParent();
+    // If parent is  a JPopupMenu, get the parent menu
+    if ((parent != null) && (parent instanceof JPopupMenu)) {
+      parent = ((JPopupMenu) parent).getInvoker();
+    }
+    return parent;
+  }
+
+  /**
+   * Check the target criteria and index of the given widget relative to its (matched) parent, leaving out the parent
+   * criteria.
+   */
+  public boolean matchesChild(Component widget, Component parent) {
+    return _matcher.matches(widget) && _infoService.getIndex(widget, parent) == _index;
+  }
+
+  /**
+   * Candidates are those of the target matcher, provided the parent matcher can also be evaluated independently of
+   * the search order.
+   *
+   * @see abbot.finder.IndexableMatcher#getCandidates(IndexedHierarchy)
+   */
+  public Collection<Component> getCandidates(IndexedHierarchy hierarchy) {
+    if (_parentMatcher != null && hierarchy.getCandidates(_parentMatcher) == null) {
+      return null;
+    }
+    return hierarchy.getCandidates(_matcher);
+  }
+
   ///////////////////////////////////////////////////////////////////////////////////////////////////
   //
   // Accessors
@@ -209,6 +246,13 @@ public final class HierarchyMatcher implements Matcher {
     return _parentMatcher;
   }
 
+  /**
+   * Get the index of the target relative to its siblings, or -1 if unspecified.
+   */
+  public int getIndex() {
+    return _index;
+  }
+
   ///////////////////////////////////////////////////////////////////////////////////////////////////
   //
   // Debugging
@@ -10,9 +10,15 @@
  *******************************************************************************/
 package com.windowtester.internal.finder.matchers.swing;
 
+import abbot.finder.ComponentState;
+import abbot.finder.IndexableMatcher;
+import abbot.finder.IndexedHierarchy;
+import abbot.finder.SnapshotMatcher;
 import abbot.finder.matchers.AbstractMatcher;
 import abbot.finder.matchers.NameMatcher;
+import com.windowtester.runtime.util.StringComparator;
 import java.awt.*;
+import java.util.Collection;
 
 /***
  * Provides matching with either name or label
@@ -22,7 +28,8 @@ import java.awt.*;
  * for example, to the human readable text in a button).
  */
 
-public class NameOrLabelMatcher extends AbstractMatcher {
+public class NameOrLabelMatcher extends AbstractMatcher
+    implements IndexableMatcher, SnapshotMatcher {
 
   /**
    * The name matcher for matching on names
@@ -81,6 +88,29 @@ public class NameOrLabelMatcher extends AbstractMatcher {
     }
   }
 
+  public boolean matches(ComponentState state) {
+    try {
+      return _nameMatcher.matches(state) || _labelMatcher.matches(state);
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  /**
+   * Candidates are the components with the given name together with those with the given label.
+   *
+   * @see abbot.finder.IndexableMatcher#getCandidates(IndexedHierarchy)
+   */
+  public Collection<Component> getCandidates(IndexedHierarchy hierarchy) {
+    String nameOrLabel = _labelMatcher.getText();
+    if (!StringComparator.isLiteral(nameOrLabel)) {
+      return hierarchy.getIndexedComponents();
+    }
+    Collection<Component> candidates = hierarchy.findByName(nameOrLabel);
+    candidates.addAll(hierarchy.findByText(nameOrLabel));
+    return candidates;
+  }
+
   /**
    * @see java.lang.Object#toString()
    */
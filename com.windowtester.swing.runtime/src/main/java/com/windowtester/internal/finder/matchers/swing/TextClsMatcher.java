@@ -10,15 +10,14 @@
  *******************************************************************************/
 package com.windowtester.internal.finder.matchers.swing;
 
+import abbot.finder.ComponentState;
 import abbot.finder.matchers.ClassMatcher;
 import java.awt.*;
-import javax.swing.*;
 
 public class TextClsMatcher extends ClassMatcher {
 
   private final Class cls;
   private final String text;
-  private String ctext = null;
 
   /**
    * Constructs a Matcher for the text given.
@@ -71,53 +70,29 @@ public class TextClsMatcher extends ClassMatcher {
   }
 
   public boolean matches(final Component w) {
-    if (this.cls != null) {
-      boolean superResult = super.matches(w);
-      if (!superResult) {
-        return false;
-      }
-    }
-
-    // AWT Components
-    if (w instanceof Button) {
-      ctext = ((Button) w).getLabel();
-    }
-    if (w instanceof Checkbox) {
-      ctext = ((Checkbox) w).getLabel();
-    }
-    if (w instanceof Label) {
-      ctext = ((Label) w).getText();
-    }
-    if (w instanceof TextComponent) {
-      ctext = ((TextComponent) w).getText();
-    }
-    if (w instanceof Dialog) {
-      ctext = ((Dialog) w).getTitle();
-    }
-    if (w instanceof Frame) {
-      ctext = ((Frame) w).getTitle();
+    if (this.cls != null && !super.matches(w)) {
+      return false;
     }
+    return textMatches(ComponentState.getText(w));
+  }
 
-    // Swing Components
-    if (w instanceof AbstractButton) // button,menuitem,togglebutton
-    {
-      ctext = ((AbstractButton) w).getText();
-    }
-    if (w instanceof JLabel) {
-      ctext = ((JLabel) w).getText();
+  public boolean matches(ComponentState state) {
+    if (this.cls != null && !super.matches(state)) {
+      return false;
     }
-    // popupmenu getLabel ?
-
-    //	if (w instanceof JTextComponent)
-    //		ctext = ((JTextComponent)w).getText();
+    return textMatches(state.getText());
+  }
 
+  /**
+   * Check the text shown by a component (see {@link ComponentState#getText(Component)}).
+   */
+  private boolean textMatches(String ctext) {
     if (ctext == null) {
       return false;
     }
     if (text == null) {
       return ctext == null;
     }
-
     return stringsMatch(text, ctext);
   }
 
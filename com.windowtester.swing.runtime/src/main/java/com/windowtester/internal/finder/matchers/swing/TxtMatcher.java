@@ -10,14 +10,14 @@
  *******************************************************************************/
 package com.windowtester.internal.finder.matchers.swing;
 
+import abbot.finder.ComponentState;
+import abbot.finder.SnapshotMatcher;
 import abbot.finder.matchers.AbstractMatcher;
 import java.awt.*;
-import javax.swing.*;
 
-public class TxtMatcher extends AbstractMatcher {
+public class TxtMatcher extends AbstractMatcher implements SnapshotMatcher {
 
   private final String text;
-  private String ctext = null;
 
   /**
    * Constructs a Matcher for the text given.
@@ -42,47 +42,23 @@ public class TxtMatcher extends AbstractMatcher {
   }
 
   public boolean matches(final Component w) {
+    return textMatches(ComponentState.getText(w));
+  }
 
-    // AWT Components
-    if (w instanceof Button) {
-      ctext = ((Button) w).getLabel();
-    }
-    if (w instanceof Checkbox) {
-      ctext = ((Checkbox) w).getLabel();
-    }
-    if (w instanceof Label) {
-      ctext = ((Label) w).getText();
-    }
-    if (w instanceof TextComponent) {
-      ctext = ((TextComponent) w).getText();
-    }
-    if (w instanceof Dialog) {
-      ctext = ((Dialog) w).getTitle();
-    }
-    if (w instanceof Frame) {
-      ctext = ((Frame) w).getTitle();
-    }
-
-    // Swing Components
-    if (w instanceof AbstractButton) // button,menuitem,togglebutton
-    {
-      ctext = ((AbstractButton) w).getText();
-    }
-    if (w instanceof JLabel) {
-      ctext = ((JLabel) w).getText();
-    }
-    // popupmenu getLabel ?
-
-    //	if (w instanceof JTextComponent)
-    //		ctext = ((JTextComponent)w).getText();
+  public boolean matches(ComponentState state) {
+    return textMatches(state.getText());
+  }
 
+  /**
+   * Check the text shown by a component (see {@link ComponentState#getText(Component)}).
+   */
+  private boolean textMatches(String ctext) {
     if (ctext == null) {
       return false;
     }
     if (text == null) {
       return ctext == null;
     }
-
     return stringsMatch(text, ctext);
   }
 
@@ -11,13 +11,18 @@
 package com.windowtester.internal.finder.swing;
 
 import abbot.finder.AWTHierarchy;
+import abbot.finder.ComponentSnapshot;
 import abbot.finder.Hierarchy;
+import abbot.finder.IndexedHierarchy;
 import abbot.finder.Matcher;
 import com.windowtester.internal.runtime.finder.IWidgetFinder;
 import com.windowtester.internal.runtime.matcher.AdapterFactory;
+import com.windowtester.internal.swing.SiblingIndexCache;
 import com.windowtester.runtime.locator.IWidgetLocator;
 import com.windowtester.runtime.locator.WidgetReference;
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
@@ -29,7 +34,8 @@ public class SwingWidgetFinder implements IWidgetFinder {
 
   private final Hierarchy hierarchy;
 
-  private static final IWidgetFinder DEFAULT = new SwingWidgetFinder(new AWTHierarchy());
+  private static final IWidgetFinder DEFAULT =
+      new SwingWidgetFinder(IndexedHierarchy.createDefault());
 
   public static IWidgetFinder getDefault() {
     return DEFAULT;
@@ -45,15 +51,52 @@ public class SwingWidgetFinder implements IWidgetFinder {
 
   public IWidgetLocator[] findAll(IWidgetLocator locator) {
 
-    Set found = new HashSet();
-    Iterator iter = hierarchy.getRoots().iterator();
     Matcher m = new AdapterFactory().adapt(locator);
+    Collection searchRoots = getSearchRoots();
+    Set found = null;
+    SiblingIndexCache.begin();
+    try {
+      if (hierarchy instanceof IndexedHierarchy) {
+        found = ((IndexedHierarchy) hierarchy).findMatches(m, searchRoots, false);
+      }
+      if (found == null && ComponentSnapshot.isEnabled()) {
+        found = ComponentSnapshot.capture(hierarchy, searchRoots).findMatches(m, false);
+      }
+      if (found == null) {
+        found = new HashSet();
+        Iterator iter = searchRoots.iterator();
+        while (iter.hasNext()) {
+          findMatches(m, (Component) iter.next(), found);
+        }
+      }
+    } finally {
+      SiblingIndexCache.end();
+    }
+
+    WidgetReference[] locators = new WidgetReference[found.size()];
+    int i = 0;
+    Iterator foundIterator = found.iterator();
+    while (foundIterator.hasNext()) {
+      locators[i] = new WidgetReference(foundIterator.next());
+      i++;
+    }
+
+    return locators;
+  }
+
+  /**
+   * Collect the windows to be searched: active root windows, active (or showing tooltip) windows owned by inactive
+   * roots, and embedded frames.
+   */
+  protected Collection getSearchRoots() {
+    Collection searchRoots = new ArrayList();
+    Iterator iter = hierarchy.getRoots().iterator();
     while (iter.hasNext()) {
       // match only if window has focus
       Component c = (Component) iter.next();
       //  System.out.println(c);
       if (((Window) c).isActive()) {
-        findMatches(m, c, found);
+        searchRoots.add(c);
       } else if (((Window) c).getOwnedWindows().length != 0) {
         // check to see whether (ALL) frame owns any windows
 
@@ -61,12 +104,12 @@ public class SwingWidgetFinder implements IWidgetFinder {
         Window[] windows = ((Window) c).getOwnedWindows();
         for (int i = 0; i < windows.length; i++) {
           if (windows[i].isActive()) {
-            findMatches(m, windows[i], found);
+            searchRoots.add(windows[i]);
           }
           // fix for Verify text in tooltip
           else if (windows[i].isShowing()
               && (c.getClass().getName().equals("javax.swing.SwingUtilities$SharedOwnerFrame"))) {
-            findMatches(m, windows[i], found);
+            searchRoots.add(windows[i]);
           }
         }
       }
@@ -75,19 +118,10 @@ public class SwingWidgetFinder implements IWidgetFinder {
       // 12/3/09 : added WEmbeddedFrame
       else if (c.getClass().getName().equals("sun.awt.EmbeddedFrame")
           || (c.getClass().getName().equals("sun.awt.windows.WEmbeddedFrame"))) {
-        findMatches(m, c, found);
+        searchRoots.add(c);
       }
     }
-
-    WidgetReference[] locators = new WidgetReference[found.size()];
-    int i = 0;
-    Iterator foundIterator = found.iterator();
-    while (foundIterator.hasNext()) {
-      locators[i] = new WidgetReference(foundIterator.next());
-      i++;
-    }
-
-    return locators;
+    return searchRoots;
   }
 
   protected void findMatches(Matcher m, Component c, Set found) {
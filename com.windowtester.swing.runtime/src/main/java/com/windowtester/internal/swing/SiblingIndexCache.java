@@ -0,0 +1,153 @@
+package com.windowtester.internal.swing;
+
+import java.awt.AWTEvent;
+import java.awt.Component;
+import java.awt.Toolkit;
+import java.awt.event.AWTEventListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the index of a widget relative to those of its siblings which have the same class and identifying data
+ * (name and/or label).  The indexes of all children of a parent are computed in a single pass, so that resolving an
+ * indexed locator against every child of a wide container takes linear rather than quadratic time.<p>
+ * <p>
+ * Indexes are only cached for the duration of a search, i.e. between {@link #begin()} and {@link #end()} on the same
+ * thread; outside of a search every request is computed afresh.  Cached indexes are discarded whenever a component is
+ * added to or removed from any container.  Changes to names or labels during a search are not detected.
+ */
+public final class SiblingIndexCache {
+
+  /**
+   * Determines which children of a parent are considered siblings, and how siblings of the same class are told apart.
+   */
+  public interface Strategy {
+    /**
+     * Returns the children of the given parent, in order.
+     */
+    Collection<? extends Component> getSiblings(Component parent);
+
+    /**
+     * Returns the data which identifies the given widget among siblings of the same class, or <code>null</code> if
+     * none.
+     */
+    Object getIdentifyingData(Component widget);
+  }
+
+  private static final ThreadLocal<SiblingIndexCache> CURRENT = new ThreadLocal<>();
+
+  /**
+   * Incremented whenever any container's children change.
+   */
+  private static volatile long generation = 0;
+
+  private static boolean installed = false;
+
+  private static final AWTEventListener LISTENER =
+      new AWTEventListener() {
+        public void eventDispatched(AWTEvent e) {
+          ++generation;
+        }
+      };
+
+  private final Map<Strategy, Map<Component, Map<Component, Integer>>> indexes = new HashMap<>();
+
+  private long validGeneration = generation;
+
+  private int depth = 0;
+
+  private SiblingIndexCache() {}
+
+  /**
+   * Start a search on the current thread.  Sibling indexes will be cached until the matching call to {@link #end()}.
+   * Searches may be nested, in which case they share the outermost search's cache.
+   */
+  public static void begin() {
+    install();
+    SiblingIndexCache cache = CURRENT.get();
+    if (cache == null) {
+      cache = new SiblingIndexCache();
+      CURRENT.set(cache);
+    }
+    ++cache.depth;
+  }
+
+  /**
+   * End a search started with {@link #begin()}.
+   */
+  public static void end() {
+    SiblingIndexCache cache = CURRENT.get();
+    if (cache != null && --cache.depth == 0) {
+      CURRENT.remove();
+    }
+  }
+
+  /**
+   * Get the given widget's index relative to those of its siblings which have the same class and identifying data.
+   *
+   * @return the index, or -1 if there are no such siblings or the widget is not a child of the given parent
+   */
+  public static int getIndex(Component w, Component parent, Strategy strategy) {
+    SiblingIndexCache cache = CURRENT.get();
+    Map<Component, Integer> siblings =
+        cache != null ? cache.lookup(parent, strategy) : computeIndexes(parent, strategy);
+    Integer index = siblings.get(w);
+    return index != null ? index.intValue() : -1;
+  }
+
+  private Map<Component, Integer> lookup(Component parent, Strategy strategy) {
+    if (validGeneration != generation) {
+      validGeneration = generation;
+      indexes.clear();
+    }
+    Map<Component, Map<Component, Integer>> byParent = indexes.get(strategy);
+    if (byParent == null) {
+      byParent = new IdentityHashMap<>();
+      indexes.put(strategy, byParent);
+    }
+    Map<Component, Integer> siblings = byParent.get(parent);
+    if (siblings == null) {
+      siblings = computeIndexes(parent, strategy);
+      byParent.put(parent, siblings);
+    }
+    return siblings;
+  }
+
+  /**
+   * Group the children of the given parent by exact class and identifying data, and number each child within its
+   * group.  Children which are alone in their group are not included.
+   */
+  private static Map<Component, Integer> computeIndexes(Component parent, Strategy strategy) {
+    Map<List<Object>, List<Component>> groups = new HashMap<>();
+    for (Component child : strategy.getSiblings(parent)) {
+      List<Object> key = Arrays.asList(child.getClass(), strategy.getIdentifyingData(child));
+      List<Component> group = groups.get(key);
+      if (group == null) {
+        group = new ArrayList<>(1);
+        groups.put(key, group);
+      }
+      group.add(child);
+    }
+    Map<Component, Integer> siblings = new IdentityHashMap<>();
+    for (List<Component> group : groups.values()) {
+      if (group.size() > 1) {
+        for (int i = 0; i < group.size(); i++) {
+          siblings.put(group.get(i), Integer.valueOf(i));
+        }
+      }
+    }
+    return siblings;
+  }
+
+  private static synchronized void install() {
+    if (!installed) {
+      Toolkit.getDefaultToolkit().addAWTEventListener(LISTENER, AWTEvent.CONTAINER_EVENT_MASK);
+      installed = true;
+    }
+  }
+}
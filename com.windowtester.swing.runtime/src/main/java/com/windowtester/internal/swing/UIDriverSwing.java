@@ -24,6 +24,7 @@ import abbot.tester.JTableLocation;
 import abbot.tester.JTextComponentTester;
 import abbot.tester.JTreeLocation;
 import abbot.tester.LocationUnavailableException;
+import abbot.util.ConditionWaiter;
 import abbot.util.Properties;
 import com.windowtester.internal.swing.util.KeyStrokeDecoder;
 import com.windowtester.internal.tester.swing.JListTester;
@@ -65,14 +66,16 @@ public class UIDriverSwing {
   public static int defaultTimeout =
       Properties.getProperty("abbot.robot.default_delay", 30000, 0, 60000);
 
-  private static final int SLEEP_INTERVAL = 10;
-
   public static int getDefaultTimeout() {
     return defaultTimeout;
   }
 
+  /**
+   * The maximum time between condition tests while waiting.  Conditions are also re-tested whenever UI events are
+   * dispatched (see {@link ConditionWaiter}).
+   */
   public static int getDefaultSleepInterval() {
-    return SLEEP_INTERVAL;
+    return ConditionWaiter.DEFAULT_INTERVAL;
   }
 
   private Component dragSource;
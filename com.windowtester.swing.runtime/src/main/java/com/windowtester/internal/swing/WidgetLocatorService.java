@@ -12,6 +12,7 @@ package com.windowtester.internal.swing;
 
 import abbot.finder.Matcher;
 import com.windowtester.internal.swing.locator.IWidgetIdentifierStrategy;
+import com.windowtester.internal.swing.locator.LocatorSnapshot;
 import com.windowtester.internal.swing.locator.MatcherFactory;
 import com.windowtester.internal.swing.locator.ScopedComponentIdentifierBuilder;
 import com.windowtester.runtime.swing.SwingWidgetLocator;
@@ -20,6 +21,7 @@ import java.awt.Container;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import javax.swing.AbstractButton;
@@ -49,6 +51,37 @@ public class WidgetLocatorService {
   private final IWidgetIdentifierStrategy _widgetIdentifier =
       new ScopedComponentIdentifierBuilder();
 
+  private final SiblingIndexCache.Strategy _siblings = new Siblings();
+
+  /**
+   * Siblings are the parent's children, told apart by their text as extracted by {@link #getWidgetText(Component)}.
+   * Services of the same class are assumed to extract text alike, so they share cached indexes.
+   */
+  private final class Siblings implements SiblingIndexCache.Strategy {
+    public Collection<Component> getSiblings(Component parent) {
+      if (parent instanceof Container) {
+        return Arrays.asList(((Container) parent).getComponents());
+      }
+      return Collections.emptyList();
+    }
+
+    public Object getIdentifyingData(Component widget) {
+      return getWidgetText(widget);
+    }
+
+    private Class getServiceClass() {
+      return WidgetLocatorService.this.getClass();
+    }
+
+    public boolean equals(Object o) {
+      return o instanceof Siblings && ((Siblings) o).getServiceClass() == getServiceClass();
+    }
+
+    public int hashCode() {
+      return getServiceClass().hashCode();
+    }
+  }
+
   /**
    * Generate a Matcher that can be used to identify the widget described by this WidgetLocator object.
    *
@@ -70,47 +103,7 @@ public class WidgetLocatorService {
    * @return an index, or -1 if is the only child FIXME: return 0 in only-child case
    */
   public int getIndex(Component w, Component parent) {
-
-    List children = getChildren(parent, w.getClass());
-    int count = 0; // the match counter
-    int index = -1; // the index of our target widget
-    // only child case...
-    if (children.size() == 1) {
-      return index;
-    }
-    for (Iterator iter = children.iterator(); iter.hasNext(); ) {
-      Component child = (Component) iter.next();
-
-      // using exact matches...
-      if (child.getClass().isAssignableFrom(w.getClass())
-          && w.getClass().isAssignableFrom(child.getClass())) {
-        // also check for nameOrLabelMatch
-        if (nameAndOrLabelDataMatch(w, child)) {
-          ++count;
-        }
-      }
-      if (child == w) {
-        index = count - 1; // indexes are zero-indexed
-      }
-    }
-    return (count > 1) ? index : -1;
-    // throw new IllegalStateException("unfound child");
-  }
-
-  /**
-   * Checks to see that widget names/labels match.
-   *
-   * @param w1 - the first widget
-   * @param w2 - the second widget
-   * @return true if they match
-   */
-  private boolean nameAndOrLabelDataMatch(Component w1, Component w2) {
-    String text1 = getWidgetText(w1);
-    String text2 = getWidgetText(w2);
-    if (text1 == null) {
-      return text2 == null;
-    }
-    return text1.equals(text2);
+    return SiblingIndexCache.getIndex(w, parent, _siblings);
   }
 
   /**
@@ -245,4 +238,27 @@ public class WidgetLocatorService {
      */
     return _widgetIdentifier.identify(w);
   }
+
+  /**
+   * Capture what inferring the identifying info of the given widget needs to know about the current widget hierarchy,
+   * so that the inference can be carried out later, off the event dispatch thread.  Must be called on the event
+   * dispatch thread.
+   *
+   * @param w - the target widget
+   * @return the snapshot to pass to {@link #inferIdentifyingInfo(LocatorSnapshot)}
+   */
+  public LocatorSnapshot captureIdentifyingInfo(Component w) {
+    return _widgetIdentifier.capture(w);
+  }
+
+  /**
+   * Given a captured widget, infers the (minimal) WidgetLocator that uniquely identified the widget when it was
+   * captured.  May be called on any thread, once for each snapshot.
+   *
+   * @param snapshot - the target widget, as captured by {@link #captureIdentifyingInfo(Component)}
+   * @return the identifying WidgetLocator or null if there was an error in identification
+   */
+  public SwingWidgetLocator inferIdentifyingInfo(LocatorSnapshot snapshot) {
+    return _widgetIdentifier.identify(snapshot);
+  }
 }
@@ -13,10 +13,13 @@ package com.windowtester.internal.swing.locator;
 import abbot.finder.AWTHierarchy;
 import abbot.finder.ComponentFinder;
 import abbot.finder.ComponentNotFoundException;
+import abbot.finder.ComponentSnapshot;
 import abbot.finder.Hierarchy;
+import abbot.finder.IndexedHierarchy;
 import abbot.finder.Matcher;
 import abbot.finder.MultiMatcher;
 import abbot.finder.MultipleComponentsFoundException;
+import com.windowtester.internal.swing.SiblingIndexCache;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -32,7 +35,7 @@ import javax.swing.*;
 public class BasicFinder2 implements ComponentFinder {
   private final Hierarchy hierarchy;
 
-  private static final ComponentFinder DEFAULT = new BasicFinder2(new AWTHierarchy());
+  private static final ComponentFinder DEFAULT = new BasicFinder2(IndexedHierarchy.createDefault());
 
   public static ComponentFinder getDefault() {
     return DEFAULT;
@@ -87,7 +90,12 @@ public class BasicFinder2 implements ComponentFinder {
   public Component find(Container root, Matcher m)
       throws ComponentNotFoundException, MultipleComponentsFoundException {
     Hierarchy h = root != null ? new SingleComponentHierarchy(root) : getHierarchy();
-    return find(h, m);
+    SiblingIndexCache.begin();
+    try {
+      return find(h, m);
+    } finally {
+      SiblingIndexCache.end();
+    }
   }
 
   /**
@@ -96,15 +104,27 @@ public class BasicFinder2 implements ComponentFinder {
    */
   public Component find(Matcher m)
       throws ComponentNotFoundException, MultipleComponentsFoundException {
-    return find(getHierarchy(), m);
+    SiblingIndexCache.begin();
+    try {
+      return find(getHierarchy(), m);
+    } finally {
+      SiblingIndexCache.end();
+    }
   }
 
   protected Component find(Hierarchy h, Matcher m)
       throws ComponentNotFoundException, MultipleComponentsFoundException {
-    Set found = new HashSet();
-    Iterator iter = h.getRoots().iterator();
-    while (iter.hasNext()) {
-      findMatches(h, m, (Component) iter.next(), found);
+    Set found = findIndexedMatches(h, h.getRoots(), m, !(m instanceof MultiMatcher));
+    if (found == null && ComponentSnapshot.isEnabled()) {
+      found =
+          ComponentSnapshot.capture(h, h.getRoots()).findMatches(m, !(m instanceof MultiMatcher));
+    }
+    if (found == null) {
+      found = new HashSet();
+      Iterator iter = h.getRoots().iterator();
+      while (iter.hasNext()) {
+        findMatches(h, m, (Component) iter.next(), found);
+      }
     }
     if (found.size() == 0) {
 
@@ -119,6 +139,18 @@ public class BasicFinder2 implements ComponentFinder {
     return (Component) found.iterator().next();
   }
 
+  /**
+   * Use the index to find matches under the given roots, if this finder's hierarchy is an {@link IndexedHierarchy}.
+   * Returns <code>null</code> if the matches must be found by walking the hierarchy.
+   */
+  private Set findIndexedMatches(Hierarchy h, Collection roots, Matcher m, boolean firstOnly) {
+    if (!(getHierarchy() instanceof IndexedHierarchy)
+        || (h != getHierarchy() && !(h instanceof SingleComponentHierarchy))) {
+      return null;
+    }
+    return ((IndexedHierarchy) getHierarchy()).findMatches(m, roots, firstOnly);
+  }
+
   protected void findMatches(Hierarchy h, Matcher m, Component c, Set found) {
     if (found.size() == 1 && !(m instanceof MultiMatcher)) {
       return;
@@ -138,19 +170,16 @@ public class BasicFinder2 implements ComponentFinder {
    * ComponentFinder is the desired one.
    */
   public int findAll(Matcher m) {
-    return findAll(getHierarchy(), m);
+    SiblingIndexCache.begin();
+    try {
+      return findAll(getHierarchy(), m);
+    } finally {
+      SiblingIndexCache.end();
+    }
   }
 
   protected int findAll(Hierarchy h, Matcher m) {
-    Set found = new HashSet();
-    Iterator iter = h.getRoots().iterator();
-    while (iter.hasNext()) {
-      // 2/22/07 : kp check for match only in active window
-      Component c = (Component) iter.next();
-      if (((Window) c).isActive()) {
-        findMatchesAll(h, m, c, found);
-      }
-    }
+    Set found = findActiveMatches(h, m);
     if (found.size() == 0) {
       // component not found ??
       return 0;
@@ -161,6 +190,42 @@ public class BasicFinder2 implements ComponentFinder {
     return 1;
   }
 
+  /**
+   * Find all components in the active windows which match the given matcher.
+   */
+  public Set findActiveMatches(Matcher m) {
+    SiblingIndexCache.begin();
+    try {
+      return findActiveMatches(getHierarchy(), m);
+    } finally {
+      SiblingIndexCache.end();
+    }
+  }
+
+  protected Set findActiveMatches(Hierarchy h, Matcher m) {
+    // 2/22/07 : kp check for match only in active window
+    Collection active = new ArrayList();
+    Iterator iter = h.getRoots().iterator();
+    while (iter.hasNext()) {
+      Component c = (Component) iter.next();
+      if (((Window) c).isActive()) {
+        active.add(c);
+      }
+    }
+    Set found = findIndexedMatches(h, active, m, false);
+    if (found == null && ComponentSnapshot.isEnabled()) {
+      found = ComponentSnapshot.capture(h, active).findMatches(m, false);
+    }
+    if (found == null) {
+      found = new HashSet();
+      iter = active.iterator();
+      while (iter.hasNext()) {
+        findMatchesAll(h, m, (Component) iter.next(), found);
+      }
+    }
+    return found;
+  }
+
   protected void findMatchesAll(Hierarchy h, Matcher m, Component c, Set found) {
 
     Iterator iter = h.getComponents(c).iterator();
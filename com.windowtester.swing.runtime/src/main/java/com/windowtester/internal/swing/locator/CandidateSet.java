@@ -0,0 +1,123 @@
+package com.windowtester.internal.swing.locator;
+
+import abbot.finder.Matcher;
+import abbot.finder.matchers.ClassMatcher;
+import com.windowtester.internal.finder.matchers.swing.HierarchyMatcher;
+import com.windowtester.runtime.WidgetLocator;
+import com.windowtester.runtime.swing.SwingWidgetLocator;
+import com.windowtester.runtime.swing.locator.LabeledTextLocator;
+import java.awt.*;
+import java.util.Collection;
+
+/**
+ * The components which might still match a locator that is being elaborated one parent at a time.  Rather than
+ * searching the whole hierarchy again with the matcher for the elaborated locator, the candidates found for the
+ * unelaborated locator are narrowed down one level at a time, checking only the ancestor at the new level.
+ * <p>
+ * Each candidate is paired with its ancestor at the top level of the locator checked so far (the <em>frontier</em>).
+ * A candidate whose ancestors run out before the top of the locator is kept as a match, since a {@link
+ * HierarchyMatcher} ignores its parent criteria for a widget without a parent.
+ */
+final class CandidateSet {
+
+  private Component[] candidates;
+
+  /**
+   * The ancestor of each candidate at the current top level, or null if the candidate matched without reaching it.
+   */
+  private Component[] frontier;
+
+  private int size;
+
+  /**
+   * What is known about the candidates and their ancestors.
+   */
+  private final ComponentView view;
+
+  /**
+   * Create a set from components which match the target of the locator, ignoring any parent criteria.
+   */
+  CandidateSet(Collection<Component> matches, ComponentView view) {
+    this.view = view;
+    candidates = matches.toArray(new Component[matches.size()]);
+    frontier = candidates.clone();
+    size = candidates.length;
+  }
+
+  /**
+   * Returns the matcher which finds the candidates for the given locator.  Candidates must at least match the target
+   * criteria of the locator, without any index (any superset of those would do).
+   */
+  static Matcher getCandidateMatcher(SwingWidgetLocator locator) {
+    Matcher matcher = MatcherFactory.getMatcher(locator);
+    if (matcher instanceof HierarchyMatcher) {
+      return ((HierarchyMatcher) matcher).getTargetMatcher();
+    }
+    if (locator.getIndex() != WidgetLocator.UNASSIGNED
+        && !(locator instanceof LabeledTextLocator)) {
+      return new ClassMatcher(locator.getTargetClass());
+    }
+    return matcher;
+  }
+
+  /**
+   * Returns the number of candidates left.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns how many candidates match the top level locator, which has no parent.  An index only tells apart children
+   * of the same parent, so the index of the top level locator is ignored rather than checked for each candidate.
+   */
+  int count(SwingWidgetLocator top) {
+    Matcher matcher;
+    if (top.getIndex() != WidgetLocator.UNASSIGNED && !(top instanceof LabeledTextLocator)) {
+      matcher = MatcherFactory.getUnindexedMatcher(top);
+    } else {
+      matcher = MatcherFactory.getMatcher(top);
+    }
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (frontier[i] == null || view.matches(matcher, frontier[i])) {
+        ++count;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Narrow the candidates after the top level locator was given a parent.  The given matcher is the one for the
+   * former top level; its target and index criteria are checked against the frontier, which then moves up to the new
+   * top level.
+   */
+  void narrow(HierarchyMatcher level) {
+    int kept = 0;
+    for (int i = 0; i < size; i++) {
+      Component widget = frontier[i];
+      boolean keep;
+      if (widget == null) {
+        keep = true;
+      } else {
+        Component parent = view.getMatchedParent(widget);
+        if (parent == null) {
+          keep = view.matches(level.getTargetMatcher(), widget);
+        } else {
+          keep = view.matchesChild(level, widget, parent);
+        }
+        widget = parent;
+      }
+      if (keep) {
+        candidates[kept] = candidates[i];
+        frontier[kept] = widget;
+        ++kept;
+      }
+    }
+    for (int i = kept; i < size; i++) {
+      candidates[i] = null;
+      frontier[i] = null;
+    }
+    size = kept;
+  }
+}
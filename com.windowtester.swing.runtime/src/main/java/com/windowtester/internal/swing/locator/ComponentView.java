@@ -0,0 +1,54 @@
+package com.windowtester.internal.swing.locator;
+
+import abbot.finder.Matcher;
+import com.windowtester.internal.finder.matchers.swing.HierarchyMatcher;
+import com.windowtester.runtime.swing.SwingWidgetLocator;
+import java.awt.*;
+import java.util.Collection;
+
+/**
+ * What locator inference reads about the components involved: the live hierarchy, or what was captured of it in a
+ * {@link LocatorSnapshot}.
+ */
+interface ComponentView {
+
+  /**
+   * Create an (unelaborated) locator for the given widget.
+   */
+  SwingWidgetLocator getLocator(Component w);
+
+  /**
+   * Returns the parent of the given widget, as followed when elaborating its locator, or <code>null</code>.
+   */
+  Component getParent(Component w);
+
+  /**
+   * Returns the index given to the locator of the widget when it is elaborated with its parent.
+   */
+  int getIndex(Component w, Component parent);
+
+  /**
+   * Returns the components in the active windows which match the target criteria of the given (unelaborated)
+   * locator.
+   */
+  Collection<Component> getCandidates(SwingWidgetLocator locator);
+
+  /**
+   * Returns the component checked against the parent criteria of a {@link HierarchyMatcher} for the given widget.
+   *
+   * @see HierarchyMatcher#getMatchedParent(Component)
+   */
+  Component getMatchedParent(Component w);
+
+  /**
+   * Returns whether the given widget matches.
+   */
+  boolean matches(Matcher m, Component w);
+
+  /**
+   * Returns whether the given widget matches the target criteria and index of the given level.
+   *
+   * @see HierarchyMatcher#matchesChild(Component, Component)
+   */
+  boolean matchesChild(HierarchyMatcher level, Component w, Component parent);
+}
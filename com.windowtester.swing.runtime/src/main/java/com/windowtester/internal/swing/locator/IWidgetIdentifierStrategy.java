@@ -24,4 +24,22 @@ public interface IWidgetIdentifierStrategy {
    * @return a uniquely identifying <code>WidgetLocator</code> or <code>null</code> if none can be infered
    */
   SwingWidgetLocator identify(Component w);
+
+  /**
+   * Capture what identifying the given widget needs to know about the current widget hierarchy.  Must be called on
+   * the event dispatch thread.
+   *
+   * @param w the widget to identify
+   * @return a snapshot to pass to {@link #identify(LocatorSnapshot)}
+   */
+  LocatorSnapshot capture(Component w);
+
+  /**
+   * Generates a <code>WidgetLocator</code> that uniquely identifies the captured widget relative to the widget
+   * hierarchy as it was captured.  May be called on any thread.
+   *
+   * @param snapshot the widget to identify, as captured by {@link #capture(Component)}
+   * @return a uniquely identifying <code>WidgetLocator</code> or <code>null</code> if none can be infered
+   */
+  SwingWidgetLocator identify(LocatorSnapshot snapshot);
 }
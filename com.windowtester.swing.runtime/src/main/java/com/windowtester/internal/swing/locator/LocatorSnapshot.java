@@ -0,0 +1,166 @@
+package com.windowtester.internal.swing.locator;
+
+import abbot.finder.ComponentSnapshot;
+import abbot.finder.ComponentState;
+import abbot.finder.Matcher;
+import abbot.finder.SnapshotMatcher;
+import com.windowtester.internal.finder.matchers.swing.HierarchyMatcher;
+import com.windowtester.internal.swing.WidgetLocatorService;
+import com.windowtester.runtime.swing.SwingWidgetLocator;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What inferring the locator of a widget needs to know about the widget hierarchy, captured on the event dispatch
+ * thread so that the inference itself can be carried out on another thread (see {@link
+ * ScopedComponentIdentifierBuilder#identify(LocatorSnapshot)}).
+ * <p>
+ * Only the parts of the hierarchy that inference looks at are captured: the target and its ancestors, with the
+ * locators and sibling indexes used to elaborate the target's locator, and the components which match the target's
+ * own criteria (the candidates), with the properties and sibling indexes of their ancestors, which are checked as the
+ * candidates are narrowed down.  Components are kept for their identity only; nothing is read from them once they
+ * have been captured.
+ * <p>
+ * The captured locators are elaborated in place, so a snapshot can only be identified once.
+ */
+public final class LocatorSnapshot {
+
+  /**
+   * A candidate or one of its ancestors.
+   */
+  private static final class Node {
+    private final ComponentState state;
+    private final Component matchedParent;
+    private final int index;
+    private boolean candidate;
+
+    private Node(ComponentState state, Component matchedParent, int index) {
+      this.state = state;
+      this.matchedParent = matchedParent;
+      this.index = index;
+    }
+  }
+
+  private final Component target;
+
+  /**
+   * The locators of the target and its ancestors.
+   */
+  private final Map<Component, SwingWidgetLocator> locators = new IdentityHashMap<>();
+
+  /**
+   * The parents of the target and its ancestors.
+   */
+  private final Map<Component, Component> parents = new IdentityHashMap<>();
+
+  /**
+   * The indexes given to the locators of the target and its ancestors when elaborated with their parents.
+   */
+  private final Map<Component, Integer> indexes = new IdentityHashMap<>();
+
+  private final List<Component> candidates = new ArrayList<>();
+
+  private final Map<Component, Node> nodes = new IdentityHashMap<>();
+
+  private final ComponentView view = new SnapshotView();
+
+  private LocatorSnapshot(Component target) {
+    this.target = target;
+  }
+
+  /**
+   * Capture what identifying the given widget needs to know, reading the live hierarchy through the given view.
+   */
+  static LocatorSnapshot capture(Component w, ComponentView live) {
+    LocatorSnapshot snapshot = new LocatorSnapshot(w);
+    for (Component c = w; c != null && !snapshot.locators.containsKey(c); ) {
+      snapshot.locators.put(c, live.getLocator(c));
+      Component parent = live.getParent(c);
+      if (parent != null) {
+        snapshot.parents.put(c, parent);
+        snapshot.indexes.put(c, Integer.valueOf(live.getIndex(c, parent)));
+      }
+      c = parent;
+    }
+    WidgetLocatorService service = new WidgetLocatorService();
+    for (Component candidate : live.getCandidates(snapshot.locators.get(w))) {
+      snapshot.candidates.add(candidate);
+      for (Component c = candidate; c != null && !snapshot.nodes.containsKey(c); ) {
+        Component parent = live.getMatchedParent(c);
+        // the index checked by HierarchyMatcher
+        int index = parent != null ? service.getIndex(c, parent) : SwingWidgetLocator.UNASSIGNED;
+        snapshot.nodes.put(c, new Node(new ComponentState(c), parent, index));
+        c = parent;
+      }
+      snapshot.nodes.get(candidate).candidate = true;
+    }
+    return snapshot;
+  }
+
+  /**
+   * Returns the widget to be identified.
+   */
+  Component getTarget() {
+    return target;
+  }
+
+  /**
+   * Returns the hierarchy as captured.
+   */
+  ComponentView getView() {
+    return view;
+  }
+
+  private final class SnapshotView implements ComponentView {
+    public SwingWidgetLocator getLocator(Component w) {
+      return locators.get(w);
+    }
+
+    public Component getParent(Component w) {
+      return parents.get(w);
+    }
+
+    public int getIndex(Component w, Component parent) {
+      Integer index = indexes.get(w);
+      return index != null ? index.intValue() : SwingWidgetLocator.UNASSIGNED;
+    }
+
+    /**
+     * The candidates were found for the target's locator when the snapshot was captured.
+     */
+    public Collection<Component> getCandidates(SwingWidgetLocator locator) {
+      return candidates;
+    }
+
+    public Component getMatchedParent(Component w) {
+      Node node = nodes.get(w);
+      return node != null ? node.matchedParent : null;
+    }
+
+    public boolean matches(Matcher m, Component w) {
+      Node node = nodes.get(w);
+      if (node == null) {
+        return false;
+      }
+      SnapshotMatcher sm = ComponentSnapshot.getSnapshotMatcher(m);
+      if (sm != null) {
+        return sm.matches(node.state);
+      }
+      // Only the criteria of labeled text locators can't be checked against captured state.
+      // They only describe the target, and the components which matched them are the candidates.
+      return node.candidate;
+    }
+
+    public boolean matchesChild(HierarchyMatcher level, Component w, Component parent) {
+      Node node = nodes.get(w);
+      return node != null
+          && node.matchedParent == parent
+          && node.index == level.getIndex()
+          && matches(level.getTargetMatcher(), w);
+    }
+  }
+}
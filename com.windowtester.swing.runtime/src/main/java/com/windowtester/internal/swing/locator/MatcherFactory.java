@@ -71,6 +71,21 @@ public class MatcherFactory {
     }
   }
 
+  /**
+   * Get the matcher for the target widget of a (non-labeled) locator, ignoring its index and parent.
+   *
+   * @return the class and name or label matcher
+   */
+  static Matcher getUnindexedMatcher(WidgetLocator wl) {
+    String nameOrLabel = wl.getNameOrLabel();
+    Class cls = wl.getTargetClass();
+    if (nameOrLabel == null) {
+      return new ClassMatcher(cls);
+    }
+    return new CompositeMatcher(
+        new Matcher[] {new ClassMatcher(cls), new NameOrLabelMatcher(nameOrLabel)});
+  }
+
   /**
    * Get the matcher for the target widget.
    *
@@ -84,12 +99,7 @@ public class MatcherFactory {
     // FIXME: refactor and centralize (duplicated in HierarchyMatcher constructor); also notice uses
     // of IndexMatcher -- should be removed...
     if (index == WidgetLocator.UNASSIGNED) {
-      if (nameOrLabel == null) {
-        return new ClassMatcher(cls);
-      } else {
-        return new CompositeMatcher(
-            new Matcher[] {new ClassMatcher(cls), new NameOrLabelMatcher(nameOrLabel)});
-      }
+      return getUnindexedMatcher(wl);
     }
     if (nameOrLabel == null) {
       return new IndexMatcher(new ClassMatcher(cls), index);
@@ -14,6 +14,8 @@ import abbot.finder.AWTHierarchy;
 import abbot.finder.ComponentFinder;
 import abbot.finder.Hierarchy;
 import abbot.finder.Matcher;
+import com.windowtester.internal.finder.matchers.swing.HierarchyMatcher;
+import com.windowtester.internal.swing.SiblingIndexCache;
 import com.windowtester.runtime.swing.SwingWidgetLocator;
 import java.awt.*;
 import java.util.ArrayList;
@@ -47,35 +49,160 @@ public class ScopedComponentIdentifierBuilder implements IWidgetIdentifierStrate
    */
   private final Hierarchy _hierarchy = AWTHierarchy.getDefault();
 
+  /**
+   * The number of candidates left after each step of the last identification, for diagnostics.
+   */
+  private int[] _candidateCounts = new int[0];
+
+  /**
+   * Siblings are the parent's children in the default hierarchy, told apart by name, or by text if unnamed.
+   */
+  private static final SiblingIndexCache.Strategy SIBLINGS =
+      new SiblingIndexCache.Strategy() {
+        public Collection<Component> getSiblings(Component parent) {
+          return AWTHierarchy.getDefault().getComponents(parent);
+        }
+
+        public Object getIdentifyingData(Component widget) {
+          String name = widget.getName();
+          if (name != null) {
+            return "name=" + name;
+          }
+          String text = getText(widget);
+          return text != null ? "text=" + text : null;
+        }
+      };
+
+  /**
+   * The live hierarchy, as seen by inference.
+   */
+  private final ComponentView _live = new LiveView();
+
+  private final class LiveView implements ComponentView {
+    public SwingWidgetLocator getLocator(Component w) {
+      return ScopedComponentIdentifierBuilder.this.getLocator(w);
+    }
+
+    public Component getParent(Component w) {
+      return _hierarchy.getParent(w);
+    }
+
+    public int getIndex(Component w, Component parent) {
+      return ScopedComponentIdentifierBuilder.this.getIndex(w, parent);
+    }
+
+    public Collection<Component> getCandidates(SwingWidgetLocator locator) {
+      return ((BasicFinder2) _finder).findActiveMatches(CandidateSet.getCandidateMatcher(locator));
+    }
+
+    public Component getMatchedParent(Component w) {
+      return HierarchyMatcher.getMatchedParent(w);
+    }
+
+    public boolean matches(Matcher m, Component w) {
+      return m.matches(w);
+    }
+
+    public boolean matchesChild(HierarchyMatcher level, Component w, Component parent) {
+      return level.matchesChild(w, parent);
+    }
+  }
+
+  /**
+   * Returns the live hierarchy, as seen by inference.
+   */
+  ComponentView getLiveView() {
+    return _live;
+  }
+
   /**
    * Generates a <code>WidgetLocator</code> that uniquely identifies this widget relative to the current widget
    * hierarchy.  If no uniquely identifying locator is found
    * <code>null</code> is returned.
    */
   public SwingWidgetLocator identify(Component w) {
+    SiblingIndexCache.begin();
+    try {
+      return identify(w, _live);
+    } finally {
+      SiblingIndexCache.end();
+    }
+  }
+
+  /**
+   * Capture what identifying the given widget needs to know about the current widget hierarchy, so that {@link
+   * #identify(LocatorSnapshot)} can be called later on any thread.  Must be called on the event dispatch thread.
+   */
+  public LocatorSnapshot capture(Component w) {
+    SiblingIndexCache.begin();
+    try {
+      return LocatorSnapshot.capture(w, _live);
+    } finally {
+      SiblingIndexCache.end();
+    }
+  }
+
+  /**
+   * Generates a <code>WidgetLocator</code> that uniquely identifies the captured widget relative to the widget
+   * hierarchy as it was captured, or <code>null</code> if none is found.  Reads nothing but the snapshot, so it may be
+   * called on any thread, but only once for each snapshot.
+   */
+  public SwingWidgetLocator identify(LocatorSnapshot snapshot) {
+    return identify(snapshot.getTarget(), snapshot.getView());
+  }
+
+  /**
+   * Instead of searching the hierarchy for each elaboration of the locator, the candidates matching the target
+   * itself are found once and then narrowed down as parents are added.
+   */
+  SwingWidgetLocator identify(Component w, ComponentView view) {
 
     // get locator describing the target widget itself
-    SwingWidgetLocator locator = getLocator(w);
-    // get the top level frame/dailog for the component
-    //		WidgetLocator scope = findTopLevelScope(w);
-    //		locator.setParentInfo(scope); //note: it can be null
+    SwingWidgetLocator locator = view.getLocator(w);
 
-    Matcher matcher = MatcherFactory.getMatcher(locator);
+    CandidateSet candidates = new CandidateSet(view.getCandidates(locator), view);
+    List<Integer> counts = new ArrayList<>();
+    counts.add(candidates.size());
+
+    // catch up with any parents the locator was created with
+    SwingWidgetLocator top = locator;
+    while (top.getParentInfo() != null) {
+      candidates.narrow((HierarchyMatcher) MatcherFactory.getMatcher(top));
+      top = (SwingWidgetLocator) top.getParentInfo();
+    }
 
     //	elaborate until done (notice: null locator indicates a failure)
     // Note: not going to look only in active shell, since the find has not
     // been implemented this way.
-    //	while(!isUniquelyIdentifying(matcher, _activeWindow) && locator != null) {
-    while (!isUniquelyIdentifying(matcher) && locator != null) {
-      locator = elaborate(locator, w);
+    int count = candidates.count(top);
+    counts.add(count);
+    while (count > 1 && locator != null) {
+      locator = elaborate(locator, w, view);
       if (locator != null) {
-        matcher = MatcherFactory.getMatcher(locator);
+        // the former top now has a parent and maybe an index
+        candidates.narrow((HierarchyMatcher) MatcherFactory.getMatcher(top));
+        top = (SwingWidgetLocator) top.getParentInfo();
+        count = candidates.count(top);
+        counts.add(count);
       }
     }
 
+    _candidateCounts = new int[counts.size()];
+    for (int i = 0; i < _candidateCounts.length; i++) {
+      _candidateCounts[i] = counts.get(i);
+    }
     return locator;
   }
 
+  /**
+   * Returns the number of candidates considered at each step of the last call to {@link #identify(Component)}: the
+   * components matching the target itself, then the matches for the locator as first created and after each
+   * elaboration.
+   */
+  public int[] getCandidateCounts() {
+    return _candidateCounts.clone();
+  }
+
   /**
    * Create an (unelaborated) info object for this widget.
    *
@@ -131,33 +258,11 @@ public class ScopedComponentIdentifierBuilder implements IWidgetIdentifierStrate
 
   */
 
-  /**
-   * Does this macther uniquely identify a widget in this Hierarchy
-   * TODO: limit search to active window
-   */
-  //	private boolean isUniquelyIdentifying(Matcher matcher, Window window) {
-  private boolean isUniquelyIdentifying(Matcher matcher) {
-    /*	 try {
-    	_finder.find(matcher);
-    	return true;
-    } catch (ComponentNotFoundException e) {
-    	System.out.println("Component not found exception");
-    	e.printStackTrace();
-    	// do nothing, return false
-    } catch (MultipleComponentsFoundException e) {
-    	//	do nothing, return false
-    	System.out.println("multiple Components found exception");
-    	e.printStackTrace();
-    }*/
-    int result = ((BasicFinder2) _finder).findAll(matcher);
-    return result != -1;
-  }
-
   /**
    * Takes a WidgetLocator object and elaborates on it until is uniquely identifying. If no uniquely identifying
    * locator can be inferred, a <code>null</code> value is returned.
    */
-  private SwingWidgetLocator elaborate(SwingWidgetLocator info, Component w) {
+  private SwingWidgetLocator elaborate(SwingWidgetLocator info, Component w, ComponentView view) {
 
     // a pointer to the original locator for returning (in the success case)
     SwingWidgetLocator root = info;
@@ -172,7 +277,7 @@ public class ScopedComponentIdentifierBuilder implements IWidgetIdentifierStrate
       // can only contain other swing locators
       parentInfo = (SwingWidgetLocator) info.getParentInfo();
       // get the parent of the current (top-most) widget in the target's hierarchy
-      Component parent = _hierarchy.getParent(w);
+      Component parent = view.getParent(w);
       /*
        * if the parent is null at this point, we've failed to elaborate and we
        * need to just return
@@ -189,8 +294,8 @@ public class ScopedComponentIdentifierBuilder implements IWidgetIdentifierStrate
       // if the parentinfo is null, create a new parent and attach it
       // } else if (parentInfo == null) {
       if (parentInfo == null) {
-        info.setParentInfo(getLocator(parent));
-        setIndex(info, w, parent);
+        info.setParentInfo(view.getLocator(parent));
+        setIndex(info, w, parent, view);
         elaborated = true;
       }
 
@@ -214,31 +319,7 @@ public class ScopedComponentIdentifierBuilder implements IWidgetIdentifierStrate
    * @return an index, or -1 if is the only child FIXME: return 0 in only-child case
    */
   public int getIndex(Component w, Component parent) {
-
-    List children = getChildren(parent, w.getClass());
-    int count = 0; // the match counter
-    int index = -1; // the index of our target widget
-    // only child case...
-    if (children.size() == 1) {
-      return index;
-    }
-    for (Iterator iter = children.iterator(); iter.hasNext(); ) {
-      Component child = (Component) iter.next();
-
-      // using exact matches...
-      if (child.getClass().isAssignableFrom(w.getClass())
-          && w.getClass().isAssignableFrom(child.getClass())) {
-        // also check for nameOrLabelMatch
-        if (nameAndOrLabelDataMatch(w, child)) {
-          ++count;
-        }
-      }
-      if (child == w) {
-        index = count - 1; // indexes are zero-indexed
-      }
-    }
-    return (count > 1) ? index : -1;
-    // throw new IllegalStateException("unfound child");
+    return SiblingIndexCache.getIndex(w, parent, SIBLINGS);
   }
 
   /**
@@ -262,30 +343,15 @@ public class ScopedComponentIdentifierBuilder implements IWidgetIdentifierStrate
     return pruned;
   }
 
-  private boolean nameAndOrLabelDataMatch(Component c1, Component c2) {
-    String name1 = c1.getName();
-    String name2 = c2.getName();
-
-    if ((name1 != null) || (name2 != null)) {
-      if (name1 == null) {
-        return name2 == null;
-      }
-      return name1.equals(name2);
-    }
-    String text1 = getWidgetText(c1);
-    String text2 = getWidgetText(c2);
-    if (text1 == null) {
-      return text2 == null;
-    }
-    return text1.equals(text2);
-  }
-
   /**
    * Set the index for this locator that describes the given widget relative to the given parent.
    */
   private void setIndex(
-      SwingWidgetLocator locator, Component currentWidget, Component widgetParent) {
-    int index = getIndex(currentWidget, widgetParent);
+      SwingWidgetLocator locator,
+      Component currentWidget,
+      Component widgetParent,
+      ComponentView view) {
+    int index = view.getIndex(currentWidget, widgetParent);
     if (index != SwingWidgetLocator.UNASSIGNED) {
       locator.setIndex(index);
     }
@@ -331,6 +397,10 @@ public class ScopedComponentIdentifierBuilder implements IWidgetIdentifierStrate
    * @return the widget's text
    */
   public String getWidgetText(Component w) {
+    return getText(w);
+  }
+
+  private static String getText(Component w) {
 
     if (w instanceof AbstractButton) {
       return (((AbstractButton) w).getText());
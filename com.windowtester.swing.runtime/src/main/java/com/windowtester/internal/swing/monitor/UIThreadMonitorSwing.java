@@ -14,7 +14,6 @@ import com.windowtester.internal.runtime.monitor.UIThreadMonitorCommon;
 import com.windowtester.runtime.IUIContext;
 import java.awt.*;
 import java.awt.event.AWTEventListener;
-import javax.swing.*;
 
 /**
  * Monitors the UI Thread and notifies listeners if the UI thread is either hung or idle for an extended period of time.
@@ -41,16 +40,6 @@ public class UIThreadMonitorSwing extends UIThreadMonitorCommon {
         }
       };
 
-  /**
-   * A runnable to notice responsivenes of the UI thread.
-   */
-  public final Runnable _threadResponsiveRunnable =
-      new Runnable() {
-        public void run() {
-          markUIThreadResponsive();
-        }
-      };
-
   ////////////////////////////////////////////////////////////////////////////
   //
   // Constructor
@@ -96,39 +85,11 @@ public class UIThreadMonitorSwing extends UIThreadMonitorCommon {
   }
 
   /**
-   * Wait for up to one second to determine if the user interface thread is responsive and processing new events.
+   * Post the given probe to the event queue, to be run once all events already queued have been dispatched.
    *
-   * @return <code>true</code> if the user interface thread is responsive, or
-   * <code>false</code> if it has not processed any new events within the last
-   * one second
+   * @param probe the probe to be run on the event dispatch thread
    */
-  protected boolean isUIThreadResponsive() {
-    synchronized (_lock) {
-      _uiThreadResponsive = false;
-    }
-    SwingUtilities.invokeLater(_threadResponsiveRunnable);
-    for (int i = 0; i < 100; i++) {
-      boolean b;
-      b = wasUIThreadResponsive();
-      if (b) {
-        break;
-      }
-      try {
-        Thread.sleep(10);
-      } catch (InterruptedException e) {
-        // ignored
-      }
-    }
-    synchronized (_lock) {
-      return _uiThreadResponsive;
-    }
-  }
-
-  protected boolean wasUIThreadResponsive() {
-    boolean b;
-    synchronized (_lock) {
-      b = _uiThreadResponsive;
-    }
-    return b;
+  protected void postProbe(Runnable probe) {
+    EventQueue.invokeLater(probe);
   }
 }
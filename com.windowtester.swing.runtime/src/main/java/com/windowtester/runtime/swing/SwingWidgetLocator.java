@@ -11,7 +11,12 @@
 package com.windowtester.runtime.swing;
 
 import abbot.finder.AWTHierarchy;
+import abbot.finder.ComponentSnapshot;
 import abbot.finder.Hierarchy;
+import abbot.finder.IndexableMatcher;
+import abbot.finder.IndexedHierarchy;
+import abbot.finder.SnapshotMatcher;
+import abbot.finder.SnapshotMatcherSource;
 import com.windowtester.internal.runtime.ClassReference;
 import com.windowtester.internal.runtime.IDiagnostic;
 import com.windowtester.internal.runtime.IDiagnosticParticipant;
@@ -46,6 +51,7 @@ import com.windowtester.runtime.swing.locator.JRadioButtonLocator;
 import com.windowtester.runtime.swing.locator.JTableItemLocator;
 import com.windowtester.runtime.swing.locator.JToggleButtonLocator;
 import java.awt.*;
+import java.util.Collection;
 import java.util.Iterator;
 import javax.swing.*;
 
@@ -53,7 +59,11 @@ import javax.swing.*;
  * A class that captures Swing hierarchy (containment) relationships between widgets for use in widget identification.
  */
 public class SwingWidgetLocator extends com.windowtester.runtime.WidgetLocator
-    implements IUISelector, IDiagnosticParticipant, IsVisible {
+    implements IUISelector,
+        IDiagnosticParticipant,
+        IsVisible,
+        IndexableMatcher,
+        SnapshotMatcherSource {
 
   /*
    * NOTE: this class is serializable and uses the default serialization scheme.
@@ -249,6 +259,34 @@ public class SwingWidgetLocator extends com.windowtester.runtime.WidgetLocator
     return _matcher;
   }
 
+  /**
+   * Candidates are those of the component matcher.  Subclasses which override {@link #matches(Object)} to match
+   * anything beyond what the component matcher matches must override this as well.
+   *
+   * @see abbot.finder.IndexableMatcher#getCandidates(IndexedHierarchy)
+   */
+  public Collection<Component> getCandidates(IndexedHierarchy hierarchy) {
+    return hierarchy.getCandidates(_matcher);
+  }
+
+  /**
+   * The component matcher, unless a subclass overrides {@link #matches(Object)}.  Locators with a parent or an index
+   * are evaluated against the live components, since their matchers check the hierarchy around a widget.
+   *
+   * @see abbot.finder.SnapshotMatcherSource#getSnapshotMatcher()
+   */
+  public SnapshotMatcher getSnapshotMatcher() {
+    try {
+      if (getClass().getMethod("matches", Object.class).getDeclaringClass()
+          != SwingWidgetLocator.class) {
+        return null;
+      }
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+    return ComponentSnapshot.getSnapshotMatcher(_matcher);
+  }
+
   ///////////////////////////////////////////////////////////////////////////////
   //
   // Widget finding convenience methods
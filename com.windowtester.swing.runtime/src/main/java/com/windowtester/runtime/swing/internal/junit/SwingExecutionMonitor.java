@@ -12,6 +12,7 @@ package com.windowtester.runtime.swing.internal.junit;
 
 import abbot.finder.AWTHierarchy;
 import abbot.finder.Hierarchy;
+import abbot.tester.WindowTracker;
 import com.windowtester.internal.runtime.junit.core.AbstractExecutionMonitor;
 import com.windowtester.internal.runtime.junit.core.ITestIdentifier;
 import com.windowtester.internal.swing.UIContextSwingFactory;
@@ -109,11 +110,29 @@ public class SwingExecutionMonitor extends AbstractExecutionMonitor {
   //
   /////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
+  /**
+   * Re-check for remaining windows whenever one is closed.
+   */
+  private final Runnable _windowClosed =
+      new Runnable() {
+        public void run() {
+          getState().signal();
+        }
+      };
+
   // @Override
   /* (non-Javadoc)
-   * @see com.windowtester.runtime.test.exec.AbstractExecutionMonitor#doWaitForFinish()
+   * @see com.windowtester.runtime.test.exec.AbstractExecutionMonitor#waitUntilFinished()
    */
-  protected void doWaitForFinish() {}
+  public void waitUntilFinished() throws Throwable {
+    WindowTracker tracker = WindowTracker.getTracker();
+    tracker.addWindowClosedListener(_windowClosed);
+    try {
+      super.waitUntilFinished();
+    } finally {
+      tracker.removeWindowClosedListener(_windowClosed);
+    }
+  }
 
   // @Override
   /* (non-Javadoc)
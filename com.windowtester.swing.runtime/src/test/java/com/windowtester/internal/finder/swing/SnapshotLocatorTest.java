@@ -0,0 +1,96 @@
+package com.windowtester.internal.finder.swing;
+
+import abbot.finder.AWTHierarchy;
+import abbot.finder.ComponentSnapshot;
+import abbot.finder.Hierarchy;
+import abbot.finder.Matcher;
+import com.windowtester.internal.finder.matchers.swing.TxtMatcher;
+import com.windowtester.internal.runtime.matcher.AdapterFactory;
+import com.windowtester.runtime.locator.IWidgetLocator;
+import com.windowtester.runtime.swing.SwingWidgetLocator;
+import com.windowtester.runtime.swing.locator.JButtonLocator;
+import com.windowtester.runtime.swing.locator.NamedWidgetLocator;
+import java.awt.*;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import javax.swing.*;
+import junit.framework.TestCase;
+
+/**
+ * Verify locators are matched against snapshots where they can be, with the same results as against the live
+ * components.  Uses a lightweight root so that no display is required.
+ */
+public class SnapshotLocatorTest extends TestCase {
+
+  private JPanel root;
+  private Hierarchy hierarchy;
+
+  protected void setUp() {
+    root = new JPanel();
+    JPanel first = new JPanel();
+    JPanel second = new JPanel();
+    root.add(first);
+    root.add(second);
+    first.add(new JButton("OK"));
+    first.add(new JButton("Cancel"));
+    first.add(new JLabel("OK"));
+    JButton named = new JButton("Apply");
+    named.setName("apply");
+    second.add(named);
+    second.add(new JButton("OK"));
+    hierarchy =
+        new AWTHierarchy() {
+          public Collection<Component> getRoots() {
+            return Collections.singletonList(root);
+          }
+        };
+  }
+
+  private Set<Component> findSerially(Matcher m, Component c, Set<Component> found) {
+    for (Component child : hierarchy.getComponents(c)) {
+      findSerially(m, child, found);
+    }
+    if (m.matches(c)) {
+      found.add(c);
+    }
+    return found;
+  }
+
+  private void checkSnapshot(IWidgetLocator locator, int expected) {
+    Matcher m = new AdapterFactory().adapt(locator);
+    assertNotNull(locator.toString(), ComponentSnapshot.getSnapshotMatcher(m));
+    Set<Component> serial = findSerially(m, root, new HashSet<Component>());
+    assertEquals(locator.toString(), expected, serial.size());
+    assertEquals(
+        locator.toString(),
+        serial,
+        ComponentSnapshot.capture(hierarchy, hierarchy.getRoots()).findMatches(m, false));
+  }
+
+  public void testSnapshotLocators() {
+    checkSnapshot(new SwingWidgetLocator(JButton.class), 4);
+    checkSnapshot(new SwingWidgetLocator(JButton.class, "OK"), 2);
+    checkSnapshot(new SwingWidgetLocator(JLabel.class, "OK"), 1);
+    checkSnapshot(new JButtonLocator("OK"), 2);
+    checkSnapshot(new JButtonLocator("apply"), 1);
+    checkSnapshot(new NamedWidgetLocator(JButton.class, "apply"), 1);
+  }
+
+  public void testHierarchyLocatorsStaySerial() {
+    SwingWidgetLocator parent = new SwingWidgetLocator(JPanel.class);
+    assertNull(
+        ComponentSnapshot.getSnapshotMatcher(
+            new AdapterFactory().adapt(new SwingWidgetLocator(JButton.class, "OK", parent))));
+    assertNull(
+        ComponentSnapshot.getSnapshotMatcher(
+            new AdapterFactory().adapt(new SwingWidgetLocator(JButton.class, "OK", 1, null))));
+  }
+
+  public void testTextNotRetained() {
+    TxtMatcher matcher = new TxtMatcher("OK");
+    assertTrue(matcher.matches(new JButton("OK")));
+    assertFalse(matcher.matches(new JPanel()));
+  }
+}
@@ -0,0 +1,75 @@
+package com.windowtester.internal.swing;
+
+import com.windowtester.internal.swing.locator.ScopedComponentIdentifierBuilder;
+import java.awt.Component;
+import javax.swing.*;
+import junit.framework.TestCase;
+
+public class SiblingIndexCacheTest extends TestCase {
+
+  private final WidgetLocatorService service = new WidgetLocatorService();
+
+  private JPanel panel;
+  private JButton first;
+  private JButton unique;
+  private JButton second;
+
+  protected void setUp() {
+    panel = new JPanel();
+    first = new JButton("OK");
+    unique = new JButton("Cancel");
+    second = new JButton("OK");
+    panel.add(first);
+    panel.add(new JLabel("OK"));
+    panel.add(unique);
+    panel.add(second);
+  }
+
+  public void testIndexes() {
+    assertEquals(0, service.getIndex(first, panel));
+    assertEquals(1, service.getIndex(second, panel));
+    assertEquals(-1, service.getIndex(unique, panel));
+    assertEquals(-1, service.getIndex(first, new JPanel()));
+  }
+
+  public void testIndexesWithinSearch() {
+    SiblingIndexCache.begin();
+    try {
+      assertEquals(1, service.getIndex(second, panel));
+      panel.add(new JButton("OK"), 0);
+      assertEquals("Cache should be invalidated", 2, service.getIndex(second, panel));
+      panel.remove(unique);
+      panel.remove(first);
+      assertEquals(1, service.getIndex(second, panel));
+    } finally {
+      SiblingIndexCache.end();
+    }
+  }
+
+  public void testNamesTakePrecedence() {
+    ScopedComponentIdentifierBuilder builder = new ScopedComponentIdentifierBuilder();
+    assertEquals(1, builder.getIndex(second, panel));
+    first.setName("first");
+    assertEquals(-1, builder.getIndex(first, panel));
+    assertEquals(-1, builder.getIndex(second, panel));
+    // the text based index is unaffected by names
+    assertEquals(1, service.getIndex(second, panel));
+  }
+
+  public void testOverriddenWidgetText() {
+    WidgetLocatorService ignoringText =
+        new WidgetLocatorService() {
+          public String getWidgetText(Component w) {
+            return null;
+          }
+        };
+    SiblingIndexCache.begin();
+    try {
+      assertEquals(-1, service.getIndex(unique, panel));
+      assertEquals(1, ignoringText.getIndex(unique, panel));
+      assertEquals(2, ignoringText.getIndex(second, panel));
+    } finally {
+      SiblingIndexCache.end();
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package com.windowtester.internal.swing.locator;
+
+import abbot.finder.Matcher;
+import com.windowtester.internal.finder.matchers.swing.HierarchyMatcher;
+import com.windowtester.runtime.swing.SwingWidgetLocator;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.*;
+import junit.framework.TestCase;
+
+public class CandidateSetTest extends TestCase {
+
+  private final List<Component> all = new ArrayList<>();
+  private JPanel root;
+  private JPanel first;
+  private JPanel second;
+
+  private void add(Container parent, Component child) {
+    parent.add(child);
+    all.add(child);
+  }
+
+  protected void setUp() {
+    root = new JPanel();
+    all.add(root);
+    first = new JPanel();
+    second = new JPanel();
+    JPanel nested = new JPanel();
+    add(root, first);
+    add(root, second);
+    add(first, new JButton("OK"));
+    add(first, new JButton("OK"));
+    add(first, new JButton("Cancel"));
+    add(second, new JButton("OK"));
+    add(second, new JButton("OK"));
+    add(second, nested);
+    add(nested, new JButton("OK"));
+    // no parent at all
+    all.add(new JButton("OK"));
+  }
+
+  private int countMatches(Matcher m) {
+    int count = 0;
+    for (Component c : all) {
+      if (m.matches(c)) {
+        ++count;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Narrowing one level at a time finds the same matches as the full matcher for each elaboration.
+   */
+  private void checkElaboration(Component target, int[] expected) {
+    ScopedComponentIdentifierBuilder builder = new ScopedComponentIdentifierBuilder();
+    SwingWidgetLocator locator = WidgetLocatorFactory.getInstance().create(target);
+    SwingWidgetLocator top = locator;
+    CandidateSet candidates = new CandidateSet(all, builder.getLiveView());
+    Component w = target;
+    for (int i = 0; i < expected.length; i++) {
+      if (i > 0) {
+        Component parent = w.getParent();
+        top.setParentInfo(WidgetLocatorFactory.getInstance().create(parent));
+        int index = builder.getIndex(w, parent);
+        if (index != SwingWidgetLocator.UNASSIGNED) {
+          top.setIndex(index);
+        }
+        candidates.narrow((HierarchyMatcher) MatcherFactory.getMatcher(top));
+        top = (SwingWidgetLocator) top.getParentInfo();
+        w = parent;
+      }
+      int count = candidates.count(top);
+      assertEquals("Wrong count at level " + i, expected[i], count);
+      assertEquals(
+          "Differs from full match at level " + i,
+          countMatches(MatcherFactory.getMatcher(locator)),
+          count);
+    }
+  }
+
+  public void testNarrowing() {
+    checkElaboration(first.getComponent(1), new int[] {6, 3, 2});
+    checkElaboration(((Container) second.getComponent(2)).getComponent(0), new int[] {6, 2, 2});
+    checkElaboration(first.getComponent(2), new int[] {1, 1, 1});
+  }
+
+  public void testParentlessIndexIgnored() {
+    List<Component> ok = new ArrayList<>();
+    for (Component c : all) {
+      if (c instanceof JButton && "OK".equals(((JButton) c).getText())) {
+        ok.add(c);
+      }
+    }
+    SwingWidgetLocator locator = new SwingWidgetLocator(JButton.class, "OK");
+    locator.setIndex(5);
+    assertEquals(1, countMatches(MatcherFactory.getMatcher(locator)));
+    assertEquals(
+        6,
+        new CandidateSet(ok, new ScopedComponentIdentifierBuilder().getLiveView()).count(locator));
+  }
+}
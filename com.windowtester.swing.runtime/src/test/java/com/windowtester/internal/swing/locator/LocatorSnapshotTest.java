@@ -0,0 +1,112 @@
+package com.windowtester.internal.swing.locator;
+
+import abbot.finder.Matcher;
+import com.windowtester.internal.finder.matchers.swing.HierarchyMatcher;
+import com.windowtester.runtime.swing.SwingWidgetLocator;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.swing.*;
+import junit.framework.TestCase;
+
+/**
+ * Verify locators inferred from a snapshot are those inferred from the live hierarchy at the time it was captured.
+ * Uses a lightweight root, searched instead of the active windows, so that no display is required.
+ */
+public class LocatorSnapshotTest extends TestCase {
+
+  private final List<Component> all = new ArrayList<>();
+  private final ScopedComponentIdentifierBuilder builder = new ScopedComponentIdentifierBuilder();
+  private JPanel root;
+  private JPanel first;
+  private JPanel second;
+
+  /**
+   * The live hierarchy, with the components under the root as the candidates.
+   */
+  private final ComponentView live =
+      new ComponentView() {
+        public SwingWidgetLocator getLocator(Component w) {
+          return builder.getLiveView().getLocator(w);
+        }
+
+        public Component getParent(Component w) {
+          return builder.getLiveView().getParent(w);
+        }
+
+        public int getIndex(Component w, Component parent) {
+          return builder.getLiveView().getIndex(w, parent);
+        }
+
+        public Collection<Component> getCandidates(SwingWidgetLocator locator) {
+          Matcher m = CandidateSet.getCandidateMatcher(locator);
+          List<Component> found = new ArrayList<>();
+          for (Component c : all) {
+            if (m.matches(c)) {
+              found.add(c);
+            }
+          }
+          return found;
+        }
+
+        public Component getMatchedParent(Component w) {
+          return builder.getLiveView().getMatchedParent(w);
+        }
+
+        public boolean matches(Matcher m, Component w) {
+          return builder.getLiveView().matches(m, w);
+        }
+
+        public boolean matchesChild(HierarchyMatcher level, Component w, Component parent) {
+          return builder.getLiveView().matchesChild(level, w, parent);
+        }
+      };
+
+  private <T extends Component> T add(Container parent, T child) {
+    parent.add(child);
+    all.add(child);
+    return child;
+  }
+
+  protected void setUp() {
+    root = new JPanel();
+    all.add(root);
+    first = add(root, new JPanel());
+    second = add(root, new JPanel());
+    add(first, new JButton("OK"));
+    add(first, new JButton("OK"));
+    add(first, new JButton("Cancel"));
+    add(first, new JLabel("Name:"));
+    add(first, new JTextField());
+    add(second, new JButton("OK"));
+    add(second, new JLabel("Name:"));
+    add(second, new JTextField());
+    JPanel nested = add(second, new JPanel());
+    add(nested, new JButton("OK"));
+    add(nested, new JCheckBox("Enabled")).setName("enabled");
+  }
+
+  public void testSameAsLive() {
+    for (Component c : all) {
+      SwingWidgetLocator expected = builder.identify(c, live);
+      LocatorSnapshot snapshot = LocatorSnapshot.capture(c, live);
+      SwingWidgetLocator actual = builder.identify(snapshot);
+      assertEquals(String.valueOf(expected), String.valueOf(actual));
+      assertEquals(expected, actual);
+      if (!(c instanceof JPanel)) {
+        assertNotNull(c.toString(), actual);
+      }
+    }
+  }
+
+  public void testNothingReadAfterCapture() {
+    Component target = first.getComponent(1);
+    SwingWidgetLocator expected = builder.identify(target, live);
+    LocatorSnapshot snapshot = LocatorSnapshot.capture(target, live);
+    ((JButton) first.getComponent(0)).setText("Changed");
+    first.remove(2);
+    second.setName("second");
+    assertEquals(expected.toString(), builder.identify(snapshot).toString());
+  }
+}
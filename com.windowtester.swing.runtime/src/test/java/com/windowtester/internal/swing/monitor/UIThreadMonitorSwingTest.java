@@ -0,0 +1,114 @@
+package com.windowtester.internal.swing.monitor;
+
+import com.windowtester.internal.swing.UIContextSwingFactory;
+import com.windowtester.runtime.monitor.IUIThreadMonitorListener;
+import com.windowtester.runtime.monitor.UILatencyHistogram;
+import java.awt.EventQueue;
+import java.awt.event.KeyEvent;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JPanel;
+import junit.framework.TestCase;
+
+public class UIThreadMonitorSwingTest extends TestCase {
+
+  /**
+   * Never captures the screen or exits.
+   */
+  private static class Monitor extends UIThreadMonitorSwing {
+    Monitor() {
+      super(UIContextSwingFactory.createContext());
+    }
+
+    protected void captureDiagnostics() {}
+
+    protected void gracefulExit(boolean isResponsive) {}
+
+    protected void forcedExit(boolean isResponsive) {}
+  }
+
+  private Monitor monitor;
+  private final CountDownLatch timedOut = new CountDownLatch(1);
+  private volatile boolean responsive = true;
+
+  private final IUIThreadMonitorListener listener =
+      new IUIThreadMonitorListener() {
+        public void uiTimeout(boolean isResponsive) {
+          responsive = isResponsive;
+          timedOut.countDown();
+        }
+      };
+
+  protected void setUp() {
+    monitor = new Monitor();
+    monitor.setDefaultExpectedDelay(0);
+    monitor.setUnresponsiveTimeout(300);
+    monitor.setEscalationDelay(60000);
+  }
+
+  protected void tearDown() {
+    monitor.setListener(null);
+  }
+
+  private void blockEventDispatchThread(final long millis) {
+    EventQueue.invokeLater(
+        new Runnable() {
+          public void run() {
+            try {
+              Thread.sleep(millis);
+            } catch (InterruptedException e) {
+              // ignored
+            }
+          }
+        });
+  }
+
+  public void testLatenciesRecorded() throws Exception {
+    monitor.setListener(listener);
+    Thread.sleep(UIThreadMonitorSwing.SAMPLE_INTERVAL * 5);
+    UILatencyHistogram histogram = monitor.getLatencyHistogram();
+    assertTrue("No latencies recorded: " + histogram, histogram.getCount() > 0);
+    assertEquals(1, timedOut.getCount());
+  }
+
+  public void testHangDetected() throws Exception {
+    monitor.setListener(listener);
+    blockEventDispatchThread(1000);
+    assertTrue("Hang not detected", timedOut.await(900, TimeUnit.MILLISECONDS));
+    assertFalse(responsive);
+    // wait for the stall to end
+    Thread.sleep(1000);
+    UILatencyHistogram histogram = monitor.getLatencyHistogram();
+    assertTrue("Stall not recorded: " + histogram, histogram.getCountAtLeast(512) > 0);
+  }
+
+  public void testExpectedDelayTolerated() throws Exception {
+    monitor.setListener(listener);
+    monitor.expectDelay(2000);
+    blockEventDispatchThread(800);
+    assertFalse("Expected delay reported", timedOut.await(1000, TimeUnit.MILLISECONDS));
+  }
+
+  public void testHangDetectedAfterEvent() throws Exception {
+    monitor.setDefaultExpectedDelay(120000);
+    monitor.setListener(listener);
+    final JPanel panel = new JPanel();
+    EventQueue.invokeAndWait(
+        new Runnable() {
+          public void run() {
+            panel.dispatchEvent(
+                new KeyEvent(
+                    panel,
+                    KeyEvent.KEY_PRESSED,
+                    System.currentTimeMillis(),
+                    0,
+                    KeyEvent.VK_A,
+                    'a'));
+          }
+        });
+    blockEventDispatchThread(1000);
+    assertTrue(
+        "Hang within the default delay not detected", timedOut.await(900, TimeUnit.MILLISECONDS));
+    assertFalse(responsive);
+  }
+}
@@ -0,0 +1,44 @@
+package com.windowtester.runtime.monitor;
+
+import junit.framework.TestCase;
+
+public class UILatencyHistogramTest extends TestCase {
+
+  private static final long MS = 1000000L;
+
+  private final UILatencyHistogram histogram = new UILatencyHistogram();
+
+  public void testBuckets() {
+    histogram.record(MS / 2);
+    histogram.record(MS);
+    histogram.record(3 * MS);
+    histogram.record(1000 * MS);
+    histogram.record(1000000 * MS);
+    assertEquals(1, histogram.getCount(0));
+    assertEquals(1, histogram.getCount(1));
+    assertEquals(1, histogram.getCount(2));
+    assertEquals(1, histogram.getCount(10));
+    assertEquals(1, histogram.getCount(UILatencyHistogram.BUCKETS - 1));
+    assertEquals(5, histogram.getCount());
+    assertEquals(2, histogram.getCountAtLeast(600));
+    assertEquals(1000000, histogram.getMaxMillis());
+  }
+
+  public void testPercentile() {
+    assertEquals(0, histogram.getPercentile(50));
+    for (int i = 0; i < 99; i++) {
+      histogram.record(MS / 10);
+    }
+    histogram.record(100 * MS);
+    assertEquals(1, histogram.getPercentile(50));
+    assertEquals(1, histogram.getPercentile(99));
+    assertEquals(128, histogram.getPercentile(100));
+  }
+
+  public void testReset() {
+    histogram.record(5 * MS);
+    histogram.reset();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMaxMillis());
+  }
+}
@@ -0,0 +1,66 @@
+package com.windowtester.runtime.swing.internal.junit;
+
+import com.windowtester.internal.runtime.junit.core.TestIdentifier;
+import junit.framework.TestCase;
+
+public class SwingExecutionMonitorTest extends TestCase {
+
+  /**
+   * Never considers the UI gone, and counts how often it is asked.
+   */
+  private static class Monitor extends SwingExecutionMonitor {
+    private volatile int checks = 0;
+
+    protected boolean terminateWaitForFinish() {
+      ++checks;
+      return false;
+    }
+  }
+
+  private Monitor monitor;
+
+  protected void setUp() {
+    monitor = new Monitor();
+    monitor.testStarting(new TestIdentifier(getName()));
+  }
+
+  private void finishLater(final Throwable exception) {
+    Thread t =
+        new Thread("finisher") {
+          public void run() {
+            try {
+              Thread.sleep(200);
+            } catch (InterruptedException e) {
+              return;
+            }
+            if (exception != null) {
+              monitor.exceptionCaught(exception);
+            }
+            monitor.testFinishing();
+          }
+        };
+    t.setDaemon(true);
+    t.start();
+  }
+
+  public void testWaitBlocksUntilFinished() throws Throwable {
+    finishLater(null);
+    long start = System.currentTimeMillis();
+    monitor.waitUntilFinished();
+    long elapsed = System.currentTimeMillis() - start;
+    assertTrue("Returned before finishing: " + elapsed, elapsed >= 150);
+    assertTrue("Returned too late: " + elapsed, elapsed < 150 + 2000);
+    assertTrue("Wait should not poll: " + monitor.checks, monitor.checks <= 3);
+  }
+
+  public void testWaitRethrowsException() {
+    finishLater(new IllegalStateException("boom"));
+    try {
+      monitor.waitUntilFinished();
+      fail("Exception should be rethrown");
+    } catch (Throwable e) {
+      assertTrue(e instanceof IllegalStateException);
+      assertEquals("boom", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package com.windowtester.runtime.util;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Properties;
+import javax.imageio.ImageIO;
+import junit.framework.TestCase;
+
+public class ScreenCaptureEncoderTest extends TestCase {
+
+  private ScreenCaptureEncoder encoder;
+  private File dir;
+
+  protected void setUp() throws IOException {
+    encoder = new ScreenCaptureEncoder(2);
+    dir = File.createTempFile("screencapture", "");
+    dir.delete();
+    dir.mkdir();
+    ScreenCapturePaths.clear();
+    ScreenCapturePaths.setRecording(true);
+  }
+
+  protected void tearDown() {
+    File[] files = dir.listFiles();
+    for (int i = 0; files != null && i < files.length; i++) {
+      files[i].delete();
+    }
+    dir.delete();
+    ScreenCapturePaths.setRecording(false);
+    ScreenCapturePaths.clear();
+  }
+
+  private static BufferedImage image(int width, int height, Color color) {
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    Graphics g = image.getGraphics();
+    g.setColor(color);
+    g.fillRect(0, 0, width, height);
+    g.dispose();
+    return image;
+  }
+
+  public void testWrite() throws Exception {
+    File png = new File(dir, "capture.png");
+    File jpg = new File(dir, "capture.jpg");
+    for (int i = 0; i < 5; i++) {
+      assertTrue(
+          encoder.submit(image(100, 80, Color.blue), new File(dir, i + ".png"), "png", -1, false));
+    }
+    assertTrue(encoder.submit(image(100, 80, Color.red), png, "png", 0, false));
+    assertTrue(encoder.submit(image(100, 80, Color.red), jpg, "jpg", 50, false));
+    assertTrue("Images not written", encoder.flush(10000));
+    BufferedImage read = ImageIO.read(png);
+    assertEquals(100, read.getWidth());
+    assertEquals(Color.red.getRGB(), read.getRGB(50, 40));
+    assertEquals(80, ImageIO.read(jpg).getHeight());
+    assertEquals(7, dir.listFiles().length);
+  }
+
+  public void testUnknownFormat() throws Exception {
+    File file = new File(dir, "capture.unknown");
+    ScreenCapturePaths.add(file);
+    assertTrue(encoder.submit(image(10, 10, Color.red), file, "unknown", -1, false));
+    assertTrue(encoder.flush(10000));
+    assertFalse(file.exists());
+    assertEquals(0, ScreenCapturePaths.getPaths().length);
+  }
+
+  public void testDiffRegion() throws Exception {
+    BufferedImage before = image(100, 80, Color.white);
+    BufferedImage after = image(100, 80, Color.white);
+    assertNull(ScreenCaptureEncoder.diffRegion(null, after));
+    assertNull(ScreenCaptureEncoder.diffRegion(before, after));
+    after.setRGB(10, 20, Color.black.getRGB());
+    after.setRGB(30, 5, Color.black.getRGB());
+    assertEquals(new Rectangle(10, 5, 21, 16), ScreenCaptureEncoder.diffRegion(before, after));
+
+    File first = new File(dir, "first.png");
+    File second = new File(dir, "second.png");
+    encoder.submit(before, first, "png", -1, true);
+    encoder.submit(after, second, "png", -1, true);
+    assertTrue(encoder.flush(10000));
+    assertEquals(100, ImageIO.read(first).getWidth());
+    BufferedImage diff = ImageIO.read(second);
+    assertEquals(21, diff.getWidth());
+    assertEquals(16, diff.getHeight());
+    Properties offset = new Properties();
+    try (InputStream in = new FileInputStream(ScreenCaptureEncoder.getOffsetFile(second))) {
+      offset.load(in);
+    }
+    assertEquals("10", offset.getProperty("x"));
+    assertEquals("5", offset.getProperty("y"));
+    assertEquals("100", offset.getProperty("screen.width"));
+    assertTrue(ScreenCaptureEncoder.getOffsetFile(first).exists());
+  }
+
+  public void testPaths() {
+    File a = new File(dir, "a.png");
+    File b = new File(dir, "b.png");
+    ScreenCapturePaths.add(a);
+    ScreenCapturePaths.add(b);
+    assertEquals(
+        Arrays.asList(a.getAbsoluteFile(), b.getAbsoluteFile()),
+        Arrays.asList(ScreenCapturePaths.getPaths()));
+    ScreenCapturePaths.remove(a);
+    assertEquals(Arrays.asList(b.getAbsoluteFile()), Arrays.asList(ScreenCapturePaths.drain()));
+    assertEquals(0, ScreenCapturePaths.getPaths().length);
+  }
+
+  public void testPathsNotRecordedByDefault() {
+    ScreenCapturePaths.setRecording(false);
+    ScreenCapturePaths.add(new File(dir, "a.png"));
+    assertEquals(0, ScreenCapturePaths.getPaths().length);
+  }
+}